@@ -0,0 +1,404 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * This class represents the module for minimax with alpha-beta pruning.
+ *
+ * It returns the same moves as MiniMax, but stops searching a node's
+ * successors as soon as it is clear that the node cannot change the result.
+ *
+ * alpha is the best value MAX can already guarantee on the path to the root.
+ * beta is the best value MIN can already guarantee on the path to the root.
+ * Once alpha >= beta, the remaining successors are skipped.
+ *
+ * Below the root, the successors are sorted by MoveOrdering (killer moves,
+ * then history scores, then the squares on the most lines), so cutoffs come
+ * sooner. The root moves stay in row-major order, and the values of the root
+ * moves do not depend on the order below them, so the move returned is
+ * still the one MiniMax returns.
+ *
+ * Searched nodes go into a transposition table, with the bound that the
+ * window left on their value. The table is kept for the whole game, like
+ * MiniMax's. After the engine's own move and the opponent's reply, the new
+ * root and most of the tree below it were already searched as part of the
+ * previous search, so they come straight out of the table and a whole game
+ * costs about as much as the first move. Positions from earlier in the game
+ * can never come up again, and their slots are simply taken over by new
+ * entries.
+ *
+ */
+
+public class AlphaBeta implements Player, Instrumented {
+    /**
+     * The table has 2^TABLE_SIZE_BITS slots.
+     */
+    private static final int TABLE_SIZE_BITS = 18;
+
+    /**
+     * Values of searched positions, keyed by Zobrist hash, and the move that
+     * decided each one, which is searched first when the position comes up again
+     */
+    private TranspositionTable table;
+
+    /**
+     * Per-depth buffers for the successor moves.
+     * A game has at most width * height moves, so the search is never deeper than that.
+     */
+    private int[][] successorBuffers;
+
+    /**
+     * Sorts the successors below the root, or null if moves are searched in row-major order
+     */
+    private MoveOrdering ordering;
+    private boolean orderMoves;
+
+    /**
+     * What the search for the last move did, and for every move so far
+     */
+    private SearchStats moveStats = new SearchStats();
+    private SearchStats totalStats = new SearchStats();
+
+    /**
+     * Constructor
+     *
+     */
+    public AlphaBeta() {
+        this(true);
+    }
+
+    /**
+     * Constructor
+     * @param orderMoves Whether to sort the successors below the root. Without it every
+     *                   node's successors are searched in row-major order.
+     */
+    public AlphaBeta(boolean orderMoves) {
+        this.orderMoves = orderMoves;
+        this.table = new TranspositionTable(TABLE_SIZE_BITS);
+    }
+
+    /**
+     * Returns the next move.
+     * @param state The current board state in the game
+     * @return The next position
+     */
+    public Position getNextMove(TicTacToeBoard state) {
+        //The search plays and takes back moves on one copy of the board, so the game's board is never touched.
+        //The default 3x3 board is copied into a BitBoard, which is much faster to search.
+        TicTacToeBoard board;
+        if (BitBoard.canRepresent(state)) {
+            board = new BitBoard(state);
+        } else {
+            board = (TicTacToeBoard) state.clone();
+        }
+
+        int numSquares = board.getWidth() * board.getHeight();
+        if (successorBuffers == null || successorBuffers[0].length != numSquares) {
+            successorBuffers = new int[numSquares + 1][numSquares];
+        }
+        if (orderMoves) {
+            if (ordering == null || !ordering.fits(board)) {
+                ordering = new MoveOrdering(board.getWidth(), board.getHeight(), board.getWinLength());
+            }
+            ordering.clear();
+        }
+
+        moveStats.reset();
+        long start = System.nanoTime();
+        Position move = decideAlphaBeta(board);
+        moveStats.elapsedNanos = System.nanoTime() - start;
+        totalStats.add(moveStats);
+        return move;
+    }
+
+    /**
+     * Returns the player type
+     */
+    public int getPlayerType() {
+        return ALPHABETA_PLAYER;
+    }
+
+    /**
+     * Returns what the search for the last move did
+     */
+    public SearchStats getLastMoveStats() {
+        return new SearchStats(moveStats);
+    }
+
+    /**
+     * Returns what the searches for every move so far did
+     */
+    public SearchStats getTotalStats() {
+        return new SearchStats(totalStats);
+    }
+
+    //The players
+    //We will use the convention that the X player is the maximizing player and the O player is the minimizing player.
+    private int MAX = TicTacToeBoard.PLAYER_X;
+    private int MIN = TicTacToeBoard.PLAYER_O;
+
+    //"-infinity" and "+infinity". Just need to be outside of the utility range.
+    private static final int NEG_INFINITY = -2;
+    private static final int POS_INFINITY = 2;
+
+    /**
+     * Returned by probe when the table settles a node. It is not a square.
+     */
+    private static final int SETTLED = -2;
+
+    /**
+     * Returns the utility at terminal states.
+     * @param state The current board state in the game
+     * @return 1 (MAX wins), -1 (MIN wins), or 0 (tie).
+     */
+    private int getUtility(TicTacToeBoard state) {
+        try {
+            if (state.isWin(MAX)) {
+                return 1;
+            } else if (state.isWin(MIN)) {
+                return -1;
+            }
+        } catch (Exception e) {
+            //player is not a legal player index
+        }
+
+        return 0;
+    }
+
+    /**
+     * Checks whether the game is over
+     * @param state The current board state in the game
+     * @return Boolean. True if game over, otherwise false
+     */
+    private boolean isGameOver(TicTacToeBoard state) {
+        try {
+            return state.isGameOver();
+        }
+        catch (Exception e) {
+            //Generic exception
+        }
+        return false;
+    }
+
+    /**
+     * Returns the alpha-beta decision
+     *
+     * The successors are searched in the same order as MiniMax, and a move only
+     * replaces the current best one if it is strictly better, so the first
+     * optimal move is returned just like MiniMax.decideMiniMax does.
+     * @param state The current board state in the game
+     * @return The optimal move, or null if the game is over
+     */
+    private Position decideAlphaBeta(TicTacToeBoard state) {
+        if (isGameOver(state)) {
+            return null;
+        }
+        int turn = state.getTurn();
+        int alpha = NEG_INFINITY;
+        int beta = POS_INFINITY;
+        int bestMove = -1;
+
+        moveStats.visit(0);
+        int numMoves = getSuccessors(state, 0);
+        moveStats.successors += numMoves;
+        int[] moves = successorBuffers[0];
+        if (turn == MAX) {
+            int value = NEG_INFINITY;
+            for (int i = 0; i < numMoves; i++) {
+                state.makeMove(moves[i]);
+                int bUtil = getMinValue(state, 1, alpha, beta);
+                state.unmakeMove(moves[i]);
+                if (bUtil > value) {
+                    value = bUtil;
+                    bestMove = moves[i];
+                }
+                alpha = Math.max(alpha, value);
+            }
+        } else {
+            int value = POS_INFINITY;
+            for (int i = 0; i < numMoves; i++) {
+                state.makeMove(moves[i]);
+                int bUtil = getMaxValue(state, 1, alpha, beta);
+                state.unmakeMove(moves[i]);
+                if (bUtil < value) {
+                    value = bUtil;
+                    bestMove = moves[i];
+                }
+                beta = Math.min(beta, value);
+            }
+        }
+
+        if (bestMove < 0) {
+            return null;
+        }
+        return new Position(bestMove / state.getWidth(), bestMove % state.getWidth());
+    }
+
+    /**
+     * Successor method
+     *
+     * Writes the moves to all the successors that can be reached within one move of the
+     * current state into the buffer for the depth of the search, in row-major order.
+     * @param state The current board state in the game
+     * @param depth The number of moves played since the root of the search
+     * @return The number of moves written to successorBuffers[depth]
+     */
+    private int getSuccessors(TicTacToeBoard state, int depth) {
+        int[] moves = successorBuffers[depth];
+        int numMoves = 0;
+
+        int numSquares = state.getWidth() * state.getHeight();
+        for (int square=0; square<numSquares; square++) {
+            if (state.isEmpty(square)) {
+                moves[numMoves++] = square;
+            }
+        }
+
+        return numMoves;
+    }
+
+    /**
+     * Counts a cutoff and tells the move ordering about it
+     * @param state The board at the node
+     * @param move The move that caused the cutoff
+     * @param index The move's place in the node's search order
+     * @param depth The number of moves played since the root of the search
+     * @param turn The player to move at the node
+     */
+    private void recordCutoff(TicTacToeBoard state, int move, int index, int depth, int turn) {
+        moveStats.cutoffs++;
+        if (index == 0) {
+            moveStats.firstMoveCutoffs++;
+        }
+        if (ordering != null) {
+            ordering.recordCutoff(move, depth, turn, state.getNumEmptySquares());
+        }
+    }
+
+    /**
+     * Looks a node up in the table
+     * @param key The hash of the node
+     * @param alpha The best value MAX can guarantee so far
+     * @param beta The best value MIN can guarantee so far
+     * @return SETTLED if the stored value decides the node within the window,
+     *         otherwise the stored best move to search first, or NO_MOVE
+     */
+    private int probe(long key, int alpha, int beta) {
+        int slot = table.find(key);
+        if (slot < 0) {
+            moveStats.tableMisses++;
+            return TranspositionTable.NO_MOVE;
+        }
+        int value = table.getValue(slot);
+        byte bound = table.getBound(slot);
+        if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER_BOUND && value >= beta)
+                || (bound == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+            moveStats.tableHits++;
+            return SETTLED;
+        }
+        //The bound is not tight enough for this window, but the move is still worth trying first
+        moveStats.tableMisses++;
+        return table.getBestMove(slot);
+    }
+
+    /**
+     * Returns min utility value of game state
+     * @param state The current board state in the game
+     * @param depth The number of moves played since the root of the search
+     * @param alpha The best value MAX can guarantee so far
+     * @param beta The best value MIN can guarantee so far
+     * @return The min utility value
+     */
+    private int getMinValue(TicTacToeBoard state, int depth, int alpha, int beta) {
+        moveStats.visit(depth);
+        if (isGameOver(state)) {
+            moveStats.evaluations++;
+            return getUtility(state);
+        }
+
+        long key = state.getHash();
+        int tableMove = probe(key, alpha, beta);
+        if (tableMove == SETTLED) {
+            return table.getValue(table.find(key));
+        }
+
+        int value = POS_INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int originalBeta = beta;
+        int numMoves = getSuccessors(state, depth);
+        moveStats.successors += numMoves;
+        int[] moves = successorBuffers[depth];
+        if (ordering != null) {
+            ordering.order(moves, numMoves, depth, MIN, tableMove);
+        }
+        for (int i = 0; i < numMoves; i++) {
+            state.makeMove(moves[i]);
+            int bValue = getMaxValue(state, depth + 1, alpha, beta);
+            state.unmakeMove(moves[i]);
+            if (bValue < value) {
+                value = bValue;
+                bestMove = moves[i];
+            }
+            if (value <= alpha) {
+                //MAX already has a better option elsewhere, so MAX never lets the game get here.
+                recordCutoff(state, moves[i], i, depth, MIN);
+                table.store(key, value, TranspositionTable.UPPER_BOUND, bestMove);
+                return value;
+            }
+            beta = Math.min(beta, value);
+        }
+
+        table.store(key, value, (value >= originalBeta) ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT, bestMove);
+        return value;
+    }
+
+    /**
+     * Returns the max utility value of the game state
+     * @param state The current board state in the game
+     * @param depth The number of moves played since the root of the search
+     * @param alpha The best value MAX can guarantee so far
+     * @param beta The best value MIN can guarantee so far
+     * @return The max utility value
+     */
+    private int getMaxValue(TicTacToeBoard state, int depth, int alpha, int beta) {
+        moveStats.visit(depth);
+        if (isGameOver(state)) {
+            moveStats.evaluations++;
+            return getUtility(state);
+        }
+
+        long key = state.getHash();
+        int tableMove = probe(key, alpha, beta);
+        if (tableMove == SETTLED) {
+            return table.getValue(table.find(key));
+        }
+
+        int value = NEG_INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        int originalAlpha = alpha;
+        int numMoves = getSuccessors(state, depth);
+        moveStats.successors += numMoves;
+        int[] moves = successorBuffers[depth];
+        if (ordering != null) {
+            ordering.order(moves, numMoves, depth, MAX, tableMove);
+        }
+        for (int i = 0; i < numMoves; i++) {
+            state.makeMove(moves[i]);
+            int bValue = getMinValue(state, depth + 1, alpha, beta);
+            state.unmakeMove(moves[i]);
+            if (bValue > value) {
+                value = bValue;
+                bestMove = moves[i];
+            }
+            if (value >= beta) {
+                //MIN already has a better option elsewhere, so MIN never lets the game get here.
+                recordCutoff(state, moves[i], i, depth, MAX);
+                table.store(key, value, TranspositionTable.LOWER_BOUND, bestMove);
+                return value;
+            }
+            alpha = Math.max(alpha, value);
+        }
+
+        table.store(key, value, (value <= originalAlpha) ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT, bestMove);
+        return value;
+    }
+}
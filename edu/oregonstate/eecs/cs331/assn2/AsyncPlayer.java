@@ -0,0 +1,323 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs another player's searches on a thread of its own, and optionally
+ * ponders while the opponent is thinking.
+ *
+ * getNextMoveAsync() hands back a CompletableFuture straight away, so the
+ * game loop is never tied up by a search. The wrapped player is only ever
+ * called from the engine thread, one call at a time, so players that keep
+ * state between searches do not have to be thread-safe.
+ *
+ * With pondering on, once the engine has answered it plays its own move on a
+ * copy of the board and searches the position after each opponent reply,
+ * remembering the answers. The reply the engine itself would have picked is
+ * searched first, then the others near the taken squares (see
+ * Heuristic.getCandidateMoves) in row-major order. When the opponent's
+ * move arrives and its answer is already known, the answer is returned
+ * without searching.
+ *
+ * Pondering runs on a second instance of the player, on a thread of its own,
+ * so a request never waits for it. A new request interrupts the pondering
+ * thread. IterativeDeepening, LazySMP and MCTSPlayer end a search when their
+ * thread is interrupted, just as when their time runs out; the exhaustive
+ * players finish the search that is running. Either way an answer found for
+ * an earlier request is never stored once the next request has come in.
+ *
+ * Pondering does not warm the caches of the player that answers requests.
+ * Its tables and trees are only filled by its own searches, so pondering
+ * saves time only when the opponent plays a reply whose answer was found,
+ * and then only for that exact position. Pondering on the answering player
+ * would warm them, but MiniMax, AlphaBeta and ParallelMiniMax cannot be
+ * stopped mid-search, so a request could wait for a whole search of a
+ * reply that was not played. Keeping the two apart means a request never
+ * waits for pondering.
+ *
+ * Human players must not be wrapped, since CustomPanel hands clicks to
+ * players whose type is HUMAN_PLAYER.
+ *
+ */
+public class AsyncPlayer implements Player {
+
+	/**
+	 * The player that does the searching
+	 */
+	private Player player;
+
+	/**
+	 * The instance that searches the opponent's replies while waiting for
+	 * them, or null if pondering is off
+	 */
+	private Player ponderer;
+
+	/**
+	 * The one thread that calls the wrapped player, and the one that calls the ponderer
+	 */
+	private ExecutorService engine;
+	private ExecutorService ponderEngine;
+
+	/**
+	 * Counts move requests. Pondering started for one request stops as soon
+	 * as the next one comes in.
+	 */
+	private AtomicLong generation = new AtomicLong();
+
+	/**
+	 * The pondering task queued or running, if any
+	 */
+	private volatile Future<?> pondering;
+
+	/**
+	 * Answers found by pondering, keyed by the hash of the position they
+	 * answer. Guarded by its own lock, which also orders each store against
+	 * the next request's change of generation.
+	 */
+	private Map<Long, Position> ponderedMoves = new HashMap<Long, Position>();
+
+	/**
+	 * Requests answered from ponderedMoves, and requests that had to search
+	 */
+	private AtomicLong ponderHits = new AtomicLong();
+	private AtomicLong ponderMisses = new AtomicLong();
+
+	/**
+	 * Wraps a player without pondering.
+	 * @param player The player to run on the engine thread
+	 */
+	public AsyncPlayer(Player player) {
+		this(player, null);
+	}
+
+	/**
+	 * Wraps a player.
+	 * @param player The player to run on the engine thread
+	 * @param ponderer A second instance of the same player, which searches the
+	 *                 opponent's replies while waiting for them, or null not to ponder
+	 */
+	public AsyncPlayer(Player player, Player ponderer) {
+		this.player = player;
+		this.ponderer = ponderer;
+		this.engine = newEngineThread("AsyncPlayer engine");
+		if (ponderer != null) {
+			this.ponderEngine = newEngineThread("AsyncPlayer ponder");
+		}
+	}
+
+	private static ExecutorService newEngineThread(final String name) {
+		return Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Starts finding the next move.
+	 * @param state The current board state. It is copied, so the caller may
+	 *              change it while the search runs.
+	 * @return The move, once it has been found
+	 */
+	public CompletableFuture<Position> getNextMoveAsync(TicTacToeBoard state) {
+		final TicTacToeBoard board = (TicTacToeBoard) state.clone();
+		final long requestGeneration;
+		Position pondered;
+		synchronized (ponderedMoves) {
+			requestGeneration = generation.incrementAndGet();
+			pondered = ponderedMoves.get(board.getHash());
+			ponderedMoves.clear();
+		}
+		Future<?> previous = pondering;
+		if (previous != null) {
+			previous.cancel(true);
+		}
+		if (pondered != null) {
+			ponderHits.incrementAndGet();
+			startPondering(board, pondered, requestGeneration);
+			return CompletableFuture.completedFuture(pondered);
+		}
+		if (ponderer != null) {
+			ponderMisses.incrementAndGet();
+		}
+
+		final CompletableFuture<Position> move = new CompletableFuture<Position>();
+		engine.execute(new Runnable() {
+			public void run() {
+				try {
+					Position p = player.getNextMove(board);
+					//Queued before the move is handed back, so pondering is under way by the time the caller sees it
+					startPondering(board, p, requestGeneration);
+					move.complete(p);
+				} catch (Exception e) {
+					move.completeExceptionally(e);
+				}
+			}
+		});
+		return move;
+	}
+
+	/**
+	 * Returns the next move, waiting for the engine thread to find it.
+	 * @param state The current board state
+	 * @return The next move
+	 * @throws Exception If the wrapped player throws one
+	 */
+	public Position getNextMove(TicTacToeBoard state) throws Exception {
+		try {
+			return getNextMoveAsync(state).get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Queues a pondering task for the position after a move, if pondering is on
+	 * and no later request has come in.
+	 * @param board The position the move was found for
+	 * @param move The move
+	 * @param ponderGeneration The value of generation for the request the move answers
+	 */
+	private void startPondering(TicTacToeBoard board, Position move, final long ponderGeneration) {
+		if (ponderer == null || move == null) {
+			return;
+		}
+		final TicTacToeBoard next = (TicTacToeBoard) board.clone();
+		try {
+			int turn = next.getTurn();
+			next.setState(move.row, move.col, turn);
+			next.setTurn(1 - turn);
+			if (next.isGameOver()) {
+				return;
+			}
+		} catch (Exception e) {
+			return;
+		}
+		synchronized (ponderedMoves) {
+			if (generation.get() != ponderGeneration) {
+				return;
+			}
+			pondering = ponderEngine.submit(new Runnable() {
+				public void run() {
+					ponder(next, ponderGeneration);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Searches the answers to the opponent's replies, until a new request comes in.
+	 * Runs on the pondering thread.
+	 * @param board The position the opponent is thinking about
+	 * @param ponderGeneration The value of generation when pondering was started
+	 */
+	private void ponder(TicTacToeBoard board, long ponderGeneration) {
+		try {
+			int width = board.getWidth();
+			int[] replies = new int[width * board.getHeight()];
+			int numReplies = Heuristic.getCandidateMoves(board, replies);
+
+			//The reply the engine would pick for the opponent is the most likely one
+			int likely = -1;
+			Position guess = ponderer.getNextMove(board);
+			if (guess != null) {
+				likely = guess.row * width + guess.col;
+			}
+
+			for (int i = -1; i < numReplies; i++) {
+				int square = (i < 0) ? likely : replies[i];
+				if ((i >= 0 && square == likely) || square < 0 || !board.isEmpty(square)) {
+					continue;
+				}
+				if (generation.get() != ponderGeneration || Thread.currentThread().isInterrupted()) {
+					//The opponent has moved
+					return;
+				}
+				TicTacToeBoard reply = (TicTacToeBoard) board.clone();
+				reply.makeMove(square);
+				if (reply.isGameOver()) {
+					continue;
+				}
+				Position answer = ponderer.getNextMove(reply);
+				synchronized (ponderedMoves) {
+					//A search cut short by the next request may have a worse answer, so it is dropped
+					if (answer == null || generation.get() != ponderGeneration) {
+						return;
+					}
+					ponderedMoves.put(reply.getHash(), answer);
+				}
+			}
+		} catch (Exception e) {
+			//Pondering is only an optimization. The real request will search again.
+		}
+	}
+
+	/**
+	 * Returns the player type of the wrapped player
+	 */
+	public int getPlayerType() {
+		return player.getPlayerType();
+	}
+
+	/**
+	 * @return The wrapped player
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+
+	/**
+	 * @return The number of requests answered by pondering
+	 */
+	public long getPonderHits() {
+		return ponderHits.get();
+	}
+
+	/**
+	 * @return The number of requests that had to search while pondering was on
+	 */
+	public long getPonderMisses() {
+		return ponderMisses.get();
+	}
+
+	/**
+	 * Waits until every pondering task queued so far has ended, cancelled or
+	 * not. Package-private so the tests can wait for pondering.
+	 * @throws Exception If waiting is interrupted
+	 */
+	void waitForPondering() throws Exception {
+		if (ponderEngine != null) {
+			ponderEngine.submit(new Runnable() {
+				public void run() {
+				}
+			}).get();
+		}
+	}
+
+	/**
+	 * Stops the engine threads and closes the wrapped players with
+	 * Match.closePlayer. The player cannot be used afterwards.
+	 */
+	public void close() {
+		generation.incrementAndGet();
+		engine.shutdownNow();
+		Match.closePlayer(player);
+		if (ponderEngine != null) {
+			ponderEngine.shutdownNow();
+			Match.closePlayer(ponderer);
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a stream of positions with MiniMax and writes the value and best move
+ * of each one, in the order they were read.
+ *
+ * Each input line is the squares in row-major order, with X, O and _ (or .)
+ * for an empty square, optionally followed by the player to move:
+ *
+ *     XO_X_O___ X
+ *
+ * If the player to move is left out it follows from the squares, since X
+ * always moves first. Each output line is the input line followed by the
+ * value for X (1, 0 or -1) and the best move's row and column, or - - if the
+ * game is over. The best move is the first optimal move in row-major order,
+ * so the output does not depend on which thread solved the line. A line that
+ * cannot be read, or where both players have a line, gets ERROR and a
+ * message instead.
+ *
+ *     XO_X_O___ X 1 2 0
+ *
+ * Lines are read in blocks of BLOCK_SIZE and each block is solved as one task.
+ * At most two blocks per thread are read ahead of the one being written, so
+ * memory use does not depend on the length of the input.
+ *
+ * Usage: java BatchSolver [&lt;input file&gt; [&lt;threads&gt; [&lt;width&gt; &lt;height&gt; &lt;win length&gt;]]]
+ * The input is standard input when no file is given, or the file is -. The
+ * board can have at most MiniMax.MAX_SQUARES squares, since MiniMax searches
+ * nearly empty positions to the end of the game.
+ *
+ */
+public class BatchSolver {
+
+	/**
+	 * The number of lines solved as one task
+	 */
+	private static final int BLOCK_SIZE = 4096;
+
+	/**
+	 * The board size and win length
+	 */
+	private int width;
+	private int height;
+	private int winLength;
+
+	/**
+	 * Solves the blocks
+	 */
+	private ExecutorService executor;
+	private int numThreads;
+
+	/**
+	 * Each thread has its own MiniMax, whose table fills up as it solves
+	 */
+	private ThreadLocal<MiniMax> players = new ThreadLocal<MiniMax>() {
+		protected MiniMax initialValue() {
+			return new MiniMax();
+		}
+	};
+
+	/**
+	 * Creates a solver.
+	 *
+	 * @param numThreads
+	 *            The number of threads to solve with.
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 */
+	public BatchSolver(int numThreads, int width, int height, int winLength) {
+		this.numThreads = numThreads;
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+		this.executor = Executors.newFixedThreadPool(numThreads);
+	}
+
+	/**
+	 * Solves every line of the input and writes the results.
+	 *
+	 * @param in
+	 *            The positions, one per line.
+	 * @param out
+	 *            Where to write the results.
+	 * @throws Exception
+	 *             If the input cannot be read or the output written.
+	 */
+	public void solve(BufferedReader in, Writer out) throws Exception {
+		Queue<Future<String>> pending = new ArrayDeque<Future<String>>();
+		int maxPending = 2 * numThreads;
+		boolean done = false;
+
+		while (!done) {
+			final String[] lines = new String[BLOCK_SIZE];
+			int numLines = 0;
+			String line;
+			while (numLines < BLOCK_SIZE && (line = in.readLine()) != null) {
+				lines[numLines++] = line;
+			}
+			done = (numLines < BLOCK_SIZE);
+
+			if (numLines > 0) {
+				final int blockLines = numLines;
+				pending.add(executor.submit(new Callable<String>() {
+					public String call() {
+						return solveBlock(lines, blockLines);
+					}
+				}));
+			}
+
+			//Write finished blocks in order, waiting for the oldest when too many are in flight
+			while (!pending.isEmpty() && (pending.size() >= maxPending || done || pending.peek().isDone())) {
+				out.write(pending.remove().get());
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Stops the solver's threads.
+	 */
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Solves a block of lines.
+	 * @return The output lines, each ending in a newline
+	 */
+	private String solveBlock(String[] lines, int numLines) {
+		MiniMax player = players.get();
+		StringBuilder out = new StringBuilder(numLines * 32);
+		for (int i = 0; i < numLines; i++) {
+			out.append(lines[i]);
+			try {
+				TicTacToeBoard board = parsePosition(lines[i]);
+				int value = player.getValue(board);
+				Position move = player.getNextMove(board);
+				out.append(' ').append(value);
+				if (move == null) {
+					out.append(" - -");
+				} else {
+					out.append(' ').append(move.row).append(' ').append(move.col);
+				}
+			} catch (Exception e) {
+				out.append(" ERROR ").append(e.getMessage());
+			}
+			out.append('\n');
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Reads a position line.
+	 * @param line The squares, optionally followed by a space and X or O
+	 * @return The board
+	 * @throws Exception If the line is not a position on this solver's board,
+	 *                   or both players have a line
+	 */
+	private TicTacToeBoard parsePosition(String line) throws Exception {
+		String[] words = line.trim().split("\\s+");
+		if (words.length > 2 || words[0].length() != width * height) {
+			throw new Exception("Expected " + (width * height) + " squares and an optional side to move");
+		}
+		TicTacToeBoard board = new TicTacToeBoard(width, height, winLength);
+		int xs = 0;
+		int os = 0;
+		for (int square = 0; square < width * height; square++) {
+			char c = words[0].charAt(square);
+			if (c == 'X' || c == 'x') {
+				board.setState(square / width, square % width, TicTacToeBoard.PLAYER_X);
+				xs++;
+			} else if (c == 'O' || c == 'o') {
+				board.setState(square / width, square % width, TicTacToeBoard.PLAYER_O);
+				os++;
+			} else if (c != '_' && c != '.') {
+				throw new Exception("Unrecognized square " + c);
+			}
+		}
+
+		int turn = (xs == os) ? TicTacToeBoard.PLAYER_X : TicTacToeBoard.PLAYER_O;
+		if (words.length == 2) {
+			if (words[1].equalsIgnoreCase("X")) {
+				turn = TicTacToeBoard.PLAYER_X;
+			} else if (words[1].equalsIgnoreCase("O")) {
+				turn = TicTacToeBoard.PLAYER_O;
+			} else {
+				throw new Exception("Side to move must be X or O");
+			}
+		}
+		board.setTurn(turn);
+
+		//The board looks for lines over all of its squares after setState, but a game ends at the first one
+		if (board.hasLine(TicTacToeBoard.PLAYER_X) && board.hasLine(TicTacToeBoard.PLAYER_O)) {
+			throw new Exception("Both players have a line");
+		}
+		return board;
+	}
+
+	/**
+	 * The entry point for solving positions from the command line.
+	 *
+	 * @param args
+	 *            The command line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int numThreads = Runtime.getRuntime().availableProcessors();
+			int width = TicTacToeBoard.SIZE;
+			int height = TicTacToeBoard.SIZE;
+			int winLength = TicTacToeBoard.SIZE;
+			if( args.length > 5 || args.length == 3 || args.length == 4 ) {
+				System.out.println("Usage: program [<input file> [<threads> [<width> <height> <win length>]]]");
+				System.exit(-1);
+			}
+			if( args.length >= 2 ) {
+				numThreads = Integer.parseInt(args[1]);
+				if( numThreads < 1 ) {
+					throw new Exception("Threads must be positive");
+				}
+			}
+			if( args.length == 5 ) {
+				width = Integer.parseInt(args[2]);
+				height = Integer.parseInt(args[3]);
+				winLength = Integer.parseInt(args[4]);
+				if( width < 1 || height < 1 || winLength < 1 ) {
+					throw new Exception("Board dimensions must be positive");
+				}
+				//MiniMax refuses these boards too, but only once a line has been read
+				if( width * height > MiniMax.MAX_SQUARES ) {
+					throw new Exception("Boards can have at most " + MiniMax.MAX_SQUARES + " squares");
+				}
+			}
+
+			BufferedReader in;
+			if( args.length == 0 || args[0].equals("-") ) {
+				in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16);
+			} else {
+				in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.US_ASCII);
+			}
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(FileDescriptor.out), StandardCharsets.US_ASCII), 1 << 16);
+
+			BatchSolver solver = new BatchSolver(numThreads, width, height, winLength);
+			try {
+				solver.solve(in, out);
+			} finally {
+				solver.close();
+				in.close();
+			}
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,339 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Microbenchmarks for the board operations and the search players.
+ *
+ * Each benchmark is warmed up so the JIT has compiled it, then timed over
+ * several iterations. For every benchmark this prints the mean time per
+ * operation with its standard deviation across iterations, and the bytes
+ * allocated per operation and the allocation rate, read from the thread's
+ * allocation counter.
+ *
+ * Usage: java Benchmark [&lt;name filter&gt;]
+ * Only benchmarks whose name contains the filter are run.
+ *
+ */
+public class Benchmark {
+
+	/**
+	 * How long to warm up each benchmark, in milliseconds
+	 */
+	private static final long WARMUP_MILLIS = 1000;
+
+	/**
+	 * The number and length of the timed iterations
+	 */
+	private static final int ITERATIONS = 5;
+	private static final long ITERATION_MILLIS = 500;
+
+	/**
+	 * Results of the benchmarked operations are added into this, so the JIT
+	 * cannot throw the operations away.
+	 */
+	private static volatile long sink;
+
+	/**
+	 * Positions on the 3x3 board, in row-major order. '.' is empty. The
+	 * player to move follows from the number of Xs and Os.
+	 */
+	private static final String EMPTY = ".........";
+	private static final String OPENING = "O...X....";
+	private static final String MIDGAME = "X.O.X...O";
+	private static final String ENDGAME = "XOX.OX.XO";
+
+	/**
+	 * The names of the positions, as they appear in the benchmark names and
+	 * as the JMH benchmarks take them, and the positions themselves
+	 */
+	static final String[] POSITION_NAMES = { "empty", "opening", "midgame", "endgame" };
+	private static final String[] POSITIONS = { EMPTY, OPENING, MIDGAME, ENDGAME };
+
+	/**
+	 * One operation to time.
+	 */
+	static abstract class Case {
+		String name;
+
+		Case(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Does the operation once.
+		 * @return Anything that depends on the operation's result
+		 */
+		abstract long run() throws Exception;
+	}
+
+	/**
+	 * Plays out a game with setState, as Match and GameFrame do, asking
+	 * isGameOver after every move. The empty squares are taken in row-major
+	 * order, each by the player to move. The game is played on a copy, so the
+	 * board is left as it was.
+	 * @param board The position to play from
+	 * @return The number of moves played, times 3, plus the winner
+	 */
+	static long playOut(TicTacToeBoard board) throws Exception {
+		TicTacToeBoard copy = (TicTacToeBoard) board.clone();
+		int numSquares = copy.getWidth() * copy.getHeight();
+		int turn = copy.getTurn();
+		int numMoves = 0;
+		for (int square = 0; square < numSquares && !copy.isGameOver(); square++) {
+			if (copy.isEmpty(square)) {
+				copy.setState(square / copy.getWidth(), square % copy.getWidth(), turn);
+				turn = (turn == TicTacToeBoard.PLAYER_X) ? TicTacToeBoard.PLAYER_O : TicTacToeBoard.PLAYER_X;
+				numMoves++;
+			}
+		}
+		int winner = copy.isWin(TicTacToeBoard.PLAYER_X) ? 1 : (copy.isWin(TicTacToeBoard.PLAYER_O) ? 2 : 0);
+		return numMoves * 3 + winner;
+	}
+
+	/**
+	 * Plays a move, asks whether X has won, and takes the move back. The move
+	 * leaves the winner unknown, so isWin works it out from the lines through
+	 * the move rather than reading the cached winner.
+	 * @param board The position, which is not over
+	 * @param square An empty square
+	 * @return 1 if the move wins for X, otherwise 0
+	 */
+	static long isWinAfterMove(TicTacToeBoard board, int square) throws Exception {
+		board.makeMove(square);
+		boolean win = board.isWin(TicTacToeBoard.PLAYER_X);
+		board.unmakeMove(square);
+		return win ? 1 : 0;
+	}
+
+	/**
+	 * Returns the first empty square of a board in row-major order, or -1.
+	 */
+	static int getFirstEmptySquare(TicTacToeBoard board) {
+		int numSquares = board.getWidth() * board.getHeight();
+		for (int square = 0; square < numSquares; square++) {
+			if (board.isEmpty(square)) {
+				return square;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets up one of the named positions.
+	 * @param name One of POSITION_NAMES
+	 * @return The board, with the right player to move
+	 * @throws Exception If there is no position of that name
+	 */
+	static TicTacToeBoard getPosition(String name) throws Exception {
+		for (int i = 0; i < POSITION_NAMES.length; i++) {
+			if (POSITION_NAMES[i].equals(name)) {
+				return parseBoard(POSITIONS[i]);
+			}
+		}
+		throw new Exception("Unknown position " + name);
+	}
+
+	/**
+	 * Sets up a 3x3 board from a position string.
+	 * @param position The position, as in the constants above
+	 * @return The board, with the right player to move
+	 * @throws Exception If the string has a character other than X, O or '.'
+	 */
+	private static TicTacToeBoard parseBoard(String position) throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard();
+		int numMoves = 0;
+		for (int square = 0; square < position.length(); square++) {
+			char c = position.charAt(square);
+			int row = square / TicTacToeBoard.SIZE;
+			int col = square % TicTacToeBoard.SIZE;
+			if (c == 'X') {
+				board.setState(row, col, TicTacToeBoard.PLAYER_X);
+				numMoves++;
+			} else if (c == 'O') {
+				board.setState(row, col, TicTacToeBoard.PLAYER_O);
+				numMoves++;
+			} else if (c != '.') {
+				throw new Exception("Unrecognized square " + c);
+			}
+		}
+		board.setTurn(numMoves % 2 == 0 ? TicTacToeBoard.PLAYER_X : TicTacToeBoard.PLAYER_O);
+		return board;
+	}
+
+	/**
+	 * Returns the number of bytes this thread has allocated so far.
+	 */
+	private static long getAllocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Runs a case a number of times and returns the elapsed nanoseconds.
+	 */
+	private static long runBatch(Case c, long ops) throws Exception {
+		long result = 0;
+		long start = System.nanoTime();
+		for (long i = 0; i < ops; i++) {
+			result += c.run();
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += result;
+		return elapsed;
+	}
+
+	/**
+	 * Warms up, times and prints one case.
+	 */
+	private static void measure(Case c) throws Exception {
+		//Warm up, doubling the batch size until a batch takes a measurable time
+		long ops = 1;
+		long warmupEnd = System.nanoTime() + WARMUP_MILLIS * 1000000L;
+		while (System.nanoTime() < warmupEnd) {
+			if (runBatch(c, ops) < 10000000L) {
+				ops *= 2;
+			}
+		}
+
+		double[] nanosPerOp = new double[ITERATIONS];
+		long totalOps = 0;
+		long totalNanos = 0;
+		long allocatedStart = getAllocatedBytes();
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			long iterationOps = 0;
+			long iterationNanos = 0;
+			while (iterationNanos < ITERATION_MILLIS * 1000000L) {
+				iterationNanos += runBatch(c, ops);
+				iterationOps += ops;
+			}
+			nanosPerOp[iteration] = (double) iterationNanos / iterationOps;
+			totalOps += iterationOps;
+			totalNanos += iterationNanos;
+		}
+		long allocated = getAllocatedBytes() - allocatedStart;
+
+		double mean = 0;
+		for (double n : nanosPerOp) {
+			mean += n;
+		}
+		mean /= ITERATIONS;
+		double variance = 0;
+		for (double n : nanosPerOp) {
+			variance += (n - mean) * (n - mean);
+		}
+		double stdDev = Math.sqrt(variance / (ITERATIONS - 1));
+
+		System.out.println(String.format("%-40s %12.1f ns/op +- %8.1f %12.1f B/op %10.1f MB/s",
+				c.name, mean, stdDev, (double) allocated / totalOps,
+				allocated / (totalNanos / 1e9) / (1024 * 1024)));
+	}
+
+	/**
+	 * Builds the list of cases. Package-private so tests can run each case once.
+	 */
+	static List<Case> getCases() throws Exception {
+		List<Case> cases = new ArrayList<Case>();
+
+		for (final String name : POSITION_NAMES) {
+			final TicTacToeBoard board = getPosition(name);
+			final TicTacToeBoard bitBoard = new BitBoard(board);
+
+			//isWin only reads a cached winner when asked twice, so it is timed after the
+			//makeMove or setState that makes it work the winner out. playOut includes a clone,
+			//which is timed below.
+			final int square = getFirstEmptySquare(board);
+			cases.add(new Case("TicTacToeBoard.isWin after makeMove " + name) {
+				long run() throws Exception {
+					return isWinAfterMove(board, square);
+				}
+			});
+			cases.add(new Case("BitBoard.isWin after makeMove " + name) {
+				long run() throws Exception {
+					return isWinAfterMove(bitBoard, square);
+				}
+			});
+			cases.add(new Case("TicTacToeBoard.setState+isGameOver " + name) {
+				long run() throws Exception {
+					return playOut(board);
+				}
+			});
+			cases.add(new Case("BitBoard.setState+isGameOver " + name) {
+				long run() throws Exception {
+					return playOut(bitBoard);
+				}
+			});
+			cases.add(new Case("TicTacToeBoard.clone " + name) {
+				long run() {
+					return ((TicTacToeBoard) board.clone()).getNumEmptySquares();
+				}
+			});
+			cases.add(new Case("BitBoard.clone " + name) {
+				long run() {
+					return ((TicTacToeBoard) bitBoard.clone()).getNumEmptySquares();
+				}
+			});
+
+			final MiniMax successorPlayer = new MiniMax();
+			successorPlayer.getNextMove(board);
+			cases.add(new Case("MiniMax.getSuccessors " + name) {
+				long run() {
+					return successorPlayer.getSuccessors(bitBoard, 0);
+				}
+			});
+
+			//A cleared table makes this a full search. The table is allocated once, so
+			//this times the search and clearing the table, not allocating it.
+			final MiniMax coldPlayer = new MiniMax();
+			cases.add(new Case("MiniMax.getNextMove cold " + name) {
+				long run() throws Exception {
+					coldPlayer.clear();
+					return coldPlayer.getNextMove(board).row;
+				}
+			});
+
+			//Later moves of a game find the position in the table
+			final MiniMax warmPlayer = new MiniMax();
+			warmPlayer.getNextMove(board);
+			cases.add(new Case("MiniMax.getNextMove warm " + name) {
+				long run() throws Exception {
+					return warmPlayer.getNextMove(board).row;
+				}
+			});
+		}
+
+		//On a large board, the win check after setState should not grow with the board
+		final TicTacToeBoard gomoku = new TicTacToeBoard(15, 15, 5);
+		cases.add(new Case("TicTacToeBoard.setState+isGameOver 15x15") {
+			long run() throws Exception {
+				return playOut(gomoku);
+			}
+		});
+
+		return cases;
+	}
+
+	/**
+	 * The entry point for running the benchmarks.
+	 *
+	 * @param args
+	 *            An optional filter on the benchmark names
+	 */
+	public static void main(String[] args) {
+		try {
+			String filter = (args.length > 0) ? args[0] : "";
+			System.out.println(String.format("%-40s %30s %17s %15s",
+					"Benchmark", "Time", "Allocated", "Alloc rate"));
+			for (Case c : getCases()) {
+				if (c.name.contains(filter)) {
+					measure(c);
+				}
+			}
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,470 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * A TicTacToeBoard that keeps the squares of each player in an int bitmask
+ * instead of a String array. Square (row, col) is bit row * SIZE + col of
+ * the mask. Wins are checked by masking against the eight winning lines.
+ *
+ */
+public class BitBoard extends TicTacToeBoard {
+
+	/**
+	 * The mask with every square set.
+	 */
+	public static final int FULL = 0777;
+
+	/**
+	 * The eight winning lines: three rows, three columns and two diagonals.
+	 */
+	public static final int[] WIN_LINES = {
+		0007, 0070, 0700,
+		0111, 0222, 0444,
+		0421, 0124
+	};
+
+	/**
+	 * The Zobrist keys used to hash the board.
+	 */
+	private static final Zobrist ZOBRIST = Zobrist.forBoard(SIZE, SIZE, SIZE);
+
+	/**
+	 * The squares occupied by X.
+	 */
+	private int x;
+
+	/**
+	 * The squares occupied by O.
+	 */
+	private int o;
+
+	/**
+	 * Specifies whose turn it is.
+	 */
+	private int turn;
+
+	/**
+	 * The index of the previous move, or -1 if no move has been made.
+	 */
+	private int previousMove;
+
+	/**
+	 * The previous move from before each makeMove, so unmakeMove can restore it.
+	 */
+	private int[] undoStack = new int[SIZE * SIZE];
+
+	/**
+	 * The number of moves on the undo stack.
+	 */
+	private int undoCount;
+
+	/**
+	 * The Zobrist hash of the board under each of the 8 symmetries, updated
+	 * on every change. hashes[0] is the hash of the board as it is.
+	 */
+	private long[] hashes = new long[Symmetry.COUNT];
+
+	/**
+	 * The constructor for the class. It sets the current state of the game to
+	 * the initial state of the game.
+	 */
+	public BitBoard() {
+		super(false);
+		this.turn = PLAYER_X;
+		this.previousMove = -1;
+	}
+
+	/**
+	 * Builds a BitBoard with the same squares, turn and previous move as the
+	 * given board.
+	 *
+	 * @param board
+	 *            The board to copy.
+	 */
+	public BitBoard(TicTacToeBoard board) {
+		this();
+		for (int row = 0; row < SIZE; row++) {
+			for (int col = 0; col < SIZE; col++) {
+				String symbol = board.getState(row, col);
+				if (symbol == X) {
+					x |= bit(row, col);
+					toggleHashes(row * SIZE + col, PLAYER_X);
+				} else if (symbol == O) {
+					o |= bit(row, col);
+					toggleHashes(row * SIZE + col, PLAYER_O);
+				}
+			}
+		}
+		setTurn(board.getTurn());
+		Position p = board.getPreviousMove();
+		if (p.row >= 0) {
+			this.previousMove = p.row * SIZE + p.col;
+		}
+	}
+
+	/**
+	 * Returns the bit of a square.
+	 *
+	 * @param row
+	 *            The row of the square
+	 * @param col
+	 *            The col of the square
+	 * @return The bit of the square in a player's mask.
+	 */
+	private static int bit(int row, int col) {
+		return 1 << (row * SIZE + col);
+	}
+
+	/**
+	 * Returns the squares occupied by X.
+	 *
+	 * @return The bitmask of X's squares.
+	 */
+	public int getXMask() {
+		return x;
+	}
+
+	/**
+	 * Returns the squares occupied by O.
+	 *
+	 * @return The bitmask of O's squares.
+	 */
+	public int getOMask() {
+		return o;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the board, which covers the squares and
+	 * whose turn it is.
+	 *
+	 * @return The hash of the board.
+	 */
+	public long getHash() {
+		return hashes[0];
+	}
+
+	/**
+	 * Returns the hash of the canonical form of the board: the smallest hash
+	 * over the 8 symmetries. Boards that are rotations or reflections of each
+	 * other have the same canonical hash.
+	 *
+	 * @return The canonical hash of the board.
+	 */
+	public long getCanonicalHash() {
+		return hashes[getCanonicalTransform()];
+	}
+
+	/**
+	 * Returns the symmetry that maps this board onto its canonical form. Use
+	 * Symmetry.transform to map a square of this board onto the canonical
+	 * board and Symmetry.inverse to map it back.
+	 *
+	 * @return The transform, 0 to Symmetry.COUNT - 1
+	 */
+	public int getCanonicalTransform() {
+		int best = 0;
+		for (int t = 1; t < Symmetry.COUNT; t++) {
+			if (hashes[t] < hashes[best]) {
+				best = t;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Maps a square of this board onto the canonical board.
+	 *
+	 * @param square
+	 *            The index (row * SIZE + col) of a square on this board.
+	 * @return The index of the same square on the canonical board.
+	 */
+	public int toCanonicalSquare(int square) {
+		return Symmetry.transform(getCanonicalTransform(), square);
+	}
+
+	/**
+	 * Maps a square of the canonical board back onto this board.
+	 *
+	 * @param square
+	 *            The index of a square on the canonical board.
+	 * @return The index (row * SIZE + col) of the same square on this board.
+	 */
+	public int fromCanonicalSquare(int square) {
+		return Symmetry.inverse(getCanonicalTransform(), square);
+	}
+
+	/**
+	 * Returns true if a board is the default 3x3 board with 3 in a row, the
+	 * only size a BitBoard can represent.
+	 *
+	 * @param board
+	 *            The board to check.
+	 * @return True if the board can be copied into a BitBoard.
+	 */
+	public static boolean canRepresent(TicTacToeBoard board) {
+		return (board.getWidth() == SIZE) && (board.getHeight() == SIZE)
+				&& (board.getWinLength() == SIZE);
+	}
+
+	/**
+	 * XORs the key of a player's square into the hash under every symmetry.
+	 *
+	 * @param square
+	 *            The square index
+	 * @param player
+	 *            The player index, PLAYER_X or PLAYER_O
+	 */
+	private void toggleHashes(int square, int player) {
+		for (int t = 0; t < Symmetry.COUNT; t++) {
+			hashes[t] ^= ZOBRIST.getKey(Symmetry.transform(t, square), player);
+		}
+	}
+
+	/**
+	 * Returns the previous move
+	 */
+	public Position getPreviousMove() {
+		if (previousMove < 0) {
+			return new Position();
+		}
+		return new Position(previousMove / SIZE, previousMove % SIZE);
+	}
+
+	/**
+	 * The method to use when needing to update the game board's state.
+	 *
+	 * @param row
+	 *            The row of the square to update.
+	 * @param col
+	 *            The column of the square to update.
+	 * @param playerSymbol
+	 *            The String symbol of the player who now has the square.
+	 * @throws Exception If the playerSymbol is not "X" or "O"
+	 */
+	public void setState(int row, int col, String playerSymbol) throws Exception {
+		if (playerSymbol.equals(X)) {
+			setState(row, col, PLAYER_X);
+		} else if (playerSymbol.equals(O)) {
+			setState(row, col, PLAYER_O);
+		} else {
+			throw new Exception("Invalid player symbol");
+		}
+	}
+
+	/**
+	 * The method to use when needing to update the game board's state.
+	 *
+	 * @param row
+	 *            The row of the square to update.
+	 * @param col
+	 *            The column of the square to update.
+	 * @param playerIndex
+	 *            The integer index of the player who now has the square.
+	 * @throws Exception If the player index is invalid
+	 */
+	public void setState(int row, int col, int playerIndex) throws Exception {
+		if ((playerIndex != PLAYER_X) && (playerIndex != PLAYER_O)) {
+			throw new Exception("Invalid player symbol");
+		}
+		int square = row * SIZE + col;
+		int owner = getPlayerIndexOfSquare(row, col);
+		if (owner != PLAYER_NONE) {
+			toggleHashes(square, owner);
+		}
+		int b = 1 << square;
+		if (playerIndex == PLAYER_X) {
+			x |= b;
+			o &= ~b;
+		} else {
+			o |= b;
+			x &= ~b;
+		}
+		toggleHashes(square, playerIndex);
+		previousMove = square;
+	}
+
+	/**
+	 * Plays a move for the player whose turn it is and passes the turn to the
+	 * other player, without allocating or checking its input.
+	 *
+	 * @param square
+	 *            The index (row * SIZE + col) of an empty square.
+	 */
+	public void makeMove(int square) {
+		if (turn == PLAYER_X) {
+			x |= 1 << square;
+		} else {
+			o |= 1 << square;
+		}
+		toggleHashes(square, turn);
+		undoStack[undoCount++] = previousMove;
+		previousMove = square;
+		setTurn((turn == PLAYER_X) ? PLAYER_O : PLAYER_X);
+	}
+
+	/**
+	 * Takes back the last move played with makeMove.
+	 *
+	 * @param square
+	 *            The index (row * SIZE + col) of the last move played.
+	 */
+	public void unmakeMove(int square) {
+		setTurn((turn == PLAYER_X) ? PLAYER_O : PLAYER_X);
+		if (turn == PLAYER_X) {
+			x &= ~(1 << square);
+		} else {
+			o &= ~(1 << square);
+		}
+		toggleHashes(square, turn);
+		previousMove = undoStack[--undoCount];
+	}
+
+	/**
+	 * Returns the number of empty squares.
+	 *
+	 * @return The number of squares that neither player has taken.
+	 */
+	public int getNumEmptySquares() {
+		return SIZE * SIZE - Integer.bitCount(x | o);
+	}
+
+	/**
+	 * Returns whether a square is empty.
+	 *
+	 * @param square
+	 *            The index (row * SIZE + col) of the square.
+	 * @return True if neither player occupies the square.
+	 */
+	public boolean isEmpty(int square) {
+		return ((x | o) & (1 << square)) == 0;
+	}
+
+	/**
+	 * Returns the contents of a square where the contents are the constants X, O, or BLANK
+	 *
+	 * @param row
+	 *            The row of the square
+	 * @param col
+	 *            The col of the square
+	 * @return The contents of the square where the contents are the constants X, O, or BLANK
+	 */
+	public String getState(int row, int col) {
+		int b = bit(row, col);
+		if ((x & b) != 0) {
+			return X;
+		} else if ((o & b) != 0) {
+			return O;
+		}
+		return BLANK;
+	}
+
+	/**
+	 * Returns the index of the player who owns the square.  The player index can be PLAYER_X, PLAYER_O, or PLAYER_NONE.
+	 *
+	 * @param row
+	 *            The row of the square
+	 * @param col
+	 *            The col of the square
+	 * @return The index of the player who owns the square.
+	 */
+	public int getPlayerIndexOfSquare(int row, int col) {
+		int b = bit(row, col);
+		if ((x & b) != 0) {
+			return PLAYER_X;
+		} else if ((o & b) != 0) {
+			return PLAYER_O;
+		}
+		return PLAYER_NONE;
+	}
+
+	/**
+	 * Retrieves the player index who has the current turn.
+	 *
+	 * @return The player index who has the current turn.
+	 */
+	public int getTurn() {
+		return this.turn;
+	}
+
+	/**
+	 * Sets which player has the next turn.
+	 *
+	 * @param player
+	 *            The player who will have the next turn.
+	 */
+	public void setTurn(int player) {
+		if ((this.turn == PLAYER_O) != (player == PLAYER_O)) {
+			for (int t = 0; t < Symmetry.COUNT; t++) {
+				hashes[t] ^= ZOBRIST.getTurnKey();
+			}
+		}
+		this.turn = player;
+	}
+
+	/**
+	 * Returns if the game is over or not
+	 * @return True if the game is over and false otherwise.
+	 */
+	public boolean isGameOver() {
+		return ((x | o) == FULL) || isWinMask(x) || isWinMask(o);
+	}
+
+	/**
+	 * Returns true if a player wins the game.
+	 * @return True if a player wins the game and false if the game is a draw or it is still going on.
+	 */
+	public boolean isWin() {
+		return isWinMask(x) || isWinMask(o);
+	}
+
+	/**
+	 * Returns true if the specified player wins the game
+	 * @param player The index of the player
+	 * @return True if the specified player wins the game and false otherwise.
+	 * @throws Exception If player is not a legal player index.
+	 */
+	public boolean isWin(int player) throws Exception {
+		if (player == PLAYER_X) {
+			return isWinMask(x);
+		} else if (player == PLAYER_O) {
+			return isWinMask(o);
+		}
+		throw new Exception("Invalid player index -- must be 0 or 1");
+	}
+
+	/**
+	 * Returns true if a player has three in a row anywhere on the board
+	 * @param player The index of the player, PLAYER_X or PLAYER_O
+	 * @return True if the player has a line and false otherwise.
+	 */
+	public boolean hasLine(int player) {
+		return isWinMask((player == PLAYER_X) ? x : o);
+	}
+
+	/**
+	 * Checks a player's squares against the winning lines.
+	 * @param mask The squares occupied by the player
+	 * @return True if the squares contain a winning line and false otherwise.
+	 */
+	private static boolean isWinMask(int mask) {
+		for (int line : WIN_LINES) {
+			if ((mask & line) == line) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Does a copy of the board object.
+	 * @return A copy of the board object.
+	 */
+	public Object clone() {
+		BitBoard copy = new BitBoard();
+		copy.x = this.x;
+		copy.o = this.o;
+		copy.turn = this.turn;
+		copy.previousMove = this.previousMove;
+		System.arraycopy(this.hashes, 0, copy.hashes, 0, Symmetry.COUNT);
+		return copy;
+	}
+}
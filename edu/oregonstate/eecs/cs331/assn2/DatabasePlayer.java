@@ -0,0 +1,95 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.File;
+
+/**
+ * A player that looks its moves up in the endgame database of the board's
+ * size instead of searching. The database file is memory-mapped read-only,
+ * so every game (and every process) on the same board size shares one copy
+ * of it, and each move is a single entry read. The move wins as fast as
+ * possible or loses as slowly as possible.
+ *
+ * The database of a board size is opened the first time the player sees a
+ * board of that size, and written first if its file does not exist yet,
+ * which takes a few seconds for 4x4 and grows about sixfold with each
+ * square more.
+ *
+ */
+public class DatabasePlayer implements Player {
+
+	/**
+	 * The directory the database files are in.
+	 */
+	private String directory;
+
+	/**
+	 * The database of the last board size played, or null before the first move.
+	 */
+	private EndgameDatabase database;
+
+	/**
+	 * Uses the database files in a directory, named by
+	 * EndgameDatabase.getDefaultFileName.
+	 * @param directory The directory of the database files
+	 */
+	public DatabasePlayer(String directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Uses the database files in the current directory
+	 */
+	public DatabasePlayer() {
+		this(".");
+	}
+
+	/**
+	 * Returns the next move to do.
+	 * @param state The current board state
+	 * @return The next move, or null if the game is over.
+	 * @throws Exception If the board is too big for a database or not a legal position
+	 */
+	public Position getNextMove(TicTacToeBoard state) throws Exception {
+		int entry = getDatabase(state).getEntry(state);
+		if (entry == EndgameDatabase.NOT_FOUND) {
+			throw new Exception("The board is not a legal position");
+		}
+		int move = EndgameDatabase.getBestMove(entry);
+		if (move == EndgameDatabase.NO_MOVE) {
+			return null;
+		}
+		return new Position(move / state.getWidth(), move % state.getWidth());
+	}
+
+	/**
+	 * Returns the database of a board's size, opening it, and writing it
+	 * first if needed, when the size changed.
+	 */
+	private EndgameDatabase getDatabase(TicTacToeBoard state) throws Exception {
+		int width = state.getWidth();
+		int height = state.getHeight();
+		int winLength = state.getWinLength();
+		if (database != null && database.getWidth() == width && database.getHeight() == height
+				&& database.getWinLength() == winLength) {
+			return database;
+		}
+		if (width * height > EndgameDatabase.MAX_SQUARES) {
+			throw new Exception("The database player only plays on boards of up to " + EndgameDatabase.MAX_SQUARES
+					+ " squares");
+		}
+		File file = new File(directory, EndgameDatabase.getDefaultFileName(width, height, winLength));
+		if (!file.exists()) {
+			EndgameDatabase.write(width, height, winLength, file.getPath(), Runtime.getRuntime().availableProcessors());
+		}
+		database = new EndgameDatabase(file.getPath());
+		return database;
+	}
+
+	/**
+	 * Gets the player type
+	 * @return The player type
+	 */
+	public int getPlayerType() {
+		return Player.DATABASE_PLAYER;
+	}
+}
@@ -0,0 +1,573 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A read-only, memory-mapped file of the value, best move and distance to the
+ * end of every legal position of one board size. DatabasePlayer plays from it.
+ *
+ * The file is mapped rather than read, so opening it costs the same for any
+ * board size, the entries take no heap, and every process that maps the same
+ * file shares one copy of it in the page cache. Looking a board up reads its
+ * squares and one entry, and allocates nothing.
+ *
+ * Positions are numbered by a perfect index with no gaps: first by the number
+ * of stones, then by which squares are taken, then by which of the taken
+ * squares are X, each set of squares ranked in the combinatorial number
+ * system. Only boards where X has as many stones as O or one more are
+ * numbered, so 4x4 needs 10,165,779 entries instead of the 43,046,721 of a
+ * base-3 index.
+ *
+ * write() solves a board size the way RetrogradeSolver does, one level of
+ * stones at a time from the full board down, but in this index and straight
+ * into the mapped file: the successors of a level's positions are read back
+ * from the level written before. So the positions take no heap, and boards of
+ * up to MAX_SQUARES squares can be written where RetrogradeSolver stops at
+ * RetrogradeSolver.MAX_SQUARES.
+ *
+ * File format: the 4 byte MAGIC number, the width, height and win length as
+ * one byte each, a zero byte, and then one 2 byte entry per position. Each
+ * entry holds:
+ *   bits 0-4:   the best move's square index, or NO_MOVE if the game is over
+ *   bits 5-9:   the number of moves to the end with perfect play
+ *   bits 10-11: the value for X plus one (0 = O wins, 1 = draw, 2 = X wins)
+ * The best move wins as fast as possible or loses as slowly as possible, and
+ * is the first such move in row-major order.
+ *
+ * Usage: java EndgameDatabase &lt;width&gt; &lt;height&gt; &lt;win length&gt; [&lt;output file&gt; [&lt;threads&gt;]]
+ *
+ */
+public class EndgameDatabase {
+
+	/**
+	 * The number that starts every database file.
+	 */
+	public static final int MAGIC = 0x54544531; // "TTE1"
+
+	/**
+	 * The number of bytes before the first entry.
+	 */
+	public static final int HEADER_SIZE = 8;
+
+	/**
+	 * The number of bytes in an entry.
+	 */
+	public static final int ENTRY_SIZE = 2;
+
+	/**
+	 * The most squares a board can have, so that the file fits in one mapping
+	 * (1.4 GB at 20 squares) and a square index fits in the best move's bits.
+	 */
+	public static final int MAX_SQUARES = 20;
+
+	/**
+	 * The best move stored for positions where the game is over.
+	 */
+	public static final int NO_MOVE = 0x1F;
+
+	/**
+	 * Returned by getIndex and getEntry for boards that are not in the database.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	/**
+	 * The board size and win length
+	 */
+	private int width;
+	private int height;
+	private int winLength;
+	private int numSquares;
+
+	/**
+	 * choose[n][k] is the number of ways to pick k of n things
+	 */
+	private int[][] choose;
+
+	/**
+	 * The index of the first position with each number of stones, and the
+	 * number of positions as the last element
+	 */
+	private int[] levelStarts;
+
+	/**
+	 * The mapped file, or null while the database is being written
+	 */
+	private MappedByteBuffer entries;
+
+	/**
+	 * Maps a database file read-only.
+	 * @param fileName The file written by write()
+	 * @throws Exception If the file cannot be read or is not a database
+	 */
+	public EndgameDatabase(String fileName) throws Exception {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() < HEADER_SIZE) {
+				throw new Exception("Invalid database file " + fileName);
+			}
+			entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (entries.getInt(0) != MAGIC) {
+				throw new Exception("Invalid database file " + fileName);
+			}
+			setSize(entries.get(4), entries.get(5), entries.get(6));
+			if (channel.size() != HEADER_SIZE + (long) ENTRY_SIZE * getNumPositions()) {
+				throw new Exception("Invalid database file " + fileName);
+			}
+		} finally {
+			//The mapping stays valid after the file is closed
+			file.close();
+		}
+	}
+
+	/**
+	 * Creates the index of a board size, for writing.
+	 */
+	private EndgameDatabase(int width, int height, int winLength) throws Exception {
+		setSize(width, height, winLength);
+	}
+
+	/**
+	 * Sets the board size and works out the index tables.
+	 */
+	private void setSize(int width, int height, int winLength) throws Exception {
+		if (width < 1 || height < 1 || winLength < 1 || width * height > MAX_SQUARES) {
+			throw new Exception("Boards must have between 1 and " + MAX_SQUARES + " squares");
+		}
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+		this.numSquares = width * height;
+
+		choose = new int[numSquares + 1][numSquares + 2];
+		for (int n = 0; n <= numSquares; n++) {
+			choose[n][0] = 1;
+			for (int k = 1; k <= n; k++) {
+				choose[n][k] = choose[n - 1][k - 1] + ((k < n) ? choose[n - 1][k] : 0);
+			}
+		}
+
+		levelStarts = new int[numSquares + 2];
+		for (int stones = 0; stones <= numSquares; stones++) {
+			levelStarts[stones + 1] = levelStarts[stones]
+					+ choose[numSquares][stones] * choose[stones][(stones + 1) / 2];
+		}
+	}
+
+	/**
+	 * @return The number of positions in the database
+	 */
+	public int getNumPositions() {
+		return levelStarts[numSquares + 1];
+	}
+
+	/**
+	 * @return The number of squares in a row
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return The number of squares in a column
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return The number of Xs or Os in a row needed to win
+	 */
+	public int getWinLength() {
+		return winLength;
+	}
+
+	/**
+	 * Returns the index of a position.
+	 * @param xs The bit mask of the X squares
+	 * @param os The bit mask of the O squares
+	 * @return The index, or NOT_FOUND if X does not have as many stones as O or one more
+	 */
+	private int getIndex(int xs, int os) {
+		int xCount = Integer.bitCount(xs);
+		int stones = xCount + Integer.bitCount(os);
+		if (xCount != (stones + 1) / 2 || (xs & os) != 0) {
+			return NOT_FOUND;
+		}
+		int takenRank = 0;
+		int xRank = 0;
+		int taken = 0;
+		int xsSeen = 0;
+		for (int rest = xs | os; rest != 0; rest &= rest - 1) {
+			int square = Integer.numberOfTrailingZeros(rest);
+			takenRank += choose[square][taken + 1];
+			if ((xs & (1 << square)) != 0) {
+				xRank += choose[taken][xsSeen + 1];
+				xsSeen++;
+			}
+			taken++;
+		}
+		return levelStarts[stones] + takenRank * choose[stones][xCount] + xRank;
+	}
+
+	/**
+	 * Returns the index of a board. Allocates nothing.
+	 * @param state The board
+	 * @return The index, or NOT_FOUND if the board is not this database's size
+	 *         or not a legal position
+	 */
+	public int getIndex(TicTacToeBoard state) {
+		if (state.getWidth() != width || state.getHeight() != height || state.getWinLength() != winLength) {
+			return NOT_FOUND;
+		}
+		int xs = 0;
+		int os = 0;
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				String symbol = state.getState(row, col);
+				if (symbol == TicTacToeBoard.X) {
+					xs |= 1 << (row * width + col);
+				} else if (symbol == TicTacToeBoard.O) {
+					os |= 1 << (row * width + col);
+				}
+			}
+		}
+		return getIndex(xs, os);
+	}
+
+	/**
+	 * Returns the entry of a board. Allocates nothing.
+	 * @param state The board
+	 * @return The entry, or NOT_FOUND if the board is not in the database
+	 */
+	public int getEntry(TicTacToeBoard state) {
+		int index = getIndex(state);
+		if (index == NOT_FOUND) {
+			return NOT_FOUND;
+		}
+		return entries.getShort(HEADER_SIZE + ENTRY_SIZE * index) & 0xFFFF;
+	}
+
+	/**
+	 * Returns the value for X of an entry.
+	 * @param entry An entry that is not NOT_FOUND
+	 * @return 1 (X wins), -1 (O wins), or 0 (tie).
+	 */
+	public static int getValue(int entry) {
+		return ((entry >> 10) & 0x3) - 1;
+	}
+
+	/**
+	 * Returns the distance to the end of an entry.
+	 * @param entry An entry that is not NOT_FOUND
+	 * @return The number of moves left with perfect play, 0 if the game is over
+	 */
+	public static int getDistance(int entry) {
+		return (entry >> 5) & 0x1F;
+	}
+
+	/**
+	 * Returns the best move of an entry.
+	 * @param entry An entry that is not NOT_FOUND
+	 * @return The square index of the best move, or NO_MOVE
+	 */
+	public static int getBestMove(int entry) {
+		return entry & 0x1F;
+	}
+
+	/**
+	 * Returns the file name main() writes a board size's database to when no
+	 * name is given, and that DatabasePlayer looks for.
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 * @return The file name
+	 */
+	public static String getDefaultFileName(int width, int height, int winLength) {
+		return "endgame-" + width + "x" + height + "x" + winLength + ".db";
+	}
+
+	/**
+	 * Solves a board size and writes its database. The file is mapped and
+	 * filled under a temporary name and then renamed, as in TableBuilder.write,
+	 * so a process mapping the file at the same time never sees half of it.
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 * @param fileName The file to write
+	 * @param numThreads The number of threads to solve with
+	 * @throws Exception If the board has more than MAX_SQUARES squares or the file cannot be written
+	 */
+	public static void write(int width, int height, int winLength, String fileName, int numThreads) throws Exception {
+		EndgameDatabase index = new EndgameDatabase(width, height, winLength);
+		int[] lines = RetrogradeSolver.findLines(width, height, winLength);
+
+		File target = new File(fileName).getAbsoluteFile();
+		File temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			RandomAccessFile file = new RandomAccessFile(temp, "rw");
+			try {
+				long size = HEADER_SIZE + (long) ENTRY_SIZE * index.getNumPositions();
+				MappedByteBuffer out = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+				out.putInt(0, MAGIC);
+				out.put(4, (byte) width);
+				out.put(5, (byte) height);
+				out.put(6, (byte) winLength);
+
+				//The positions of a level only read the level written before, so each
+				//level is split into ranges of taken squares that are solved in parallel
+				for (int stones = index.numSquares; stones >= 0; stones--) {
+					int numTaken = index.choose[index.numSquares][stones];
+					int numTasks = Math.min(numTaken, numThreads * 8);
+					List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+					for (int t = 0; t < numTasks; t++) {
+						tasks.add(index.new LevelWriter(out.duplicate(), lines, stones,
+								(int) ((long) numTaken * t / numTasks), (int) ((long) numTaken * (t + 1) / numTasks)));
+					}
+					//Waiting for every range also makes the level's entries visible to the next level
+					for (Future<Void> result : executor.invokeAll(tasks)) {
+						result.get();
+					}
+				}
+				out.force();
+			} finally {
+				file.close();
+			}
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (ExecutionException e) {
+			throw new Exception("Solving failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdown();
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Solves and writes the positions of one level whose taken squares have
+	 * ranks in a range.
+	 */
+	private class LevelWriter implements Callable<Void> {
+		private ByteBuffer out;
+		private int[] lines;
+		private int stones;
+		private int fromRank;
+		private int toRank;
+
+		/**
+		 * @param out This task's view of the mapped file
+		 * @param lines The bit masks of the lines
+		 * @param stones The number of stones on the level's positions
+		 * @param fromRank The rank of the first set of taken squares
+		 * @param toRank One past the rank of the last set of taken squares
+		 */
+		LevelWriter(ByteBuffer out, int[] lines, int stones, int fromRank, int toRank) {
+			this.out = out;
+			this.lines = lines;
+			this.stones = stones;
+			this.fromRank = fromRank;
+			this.toRank = toRank;
+		}
+
+		public Void call() {
+			int xStones = (stones + 1) / 2;
+			int numXSets = choose[stones][xStones];
+			boolean xToMove = (xStones == stones / 2);
+			int full = (int) ((1L << numSquares) - 1);
+			int childStart = (stones < numSquares) ? levelStarts[stones + 1] : 0;
+			int childXSets = (stones < numSquares) ? choose[stones + 1][xToMove ? xStones + 1 : xStones] : 0;
+
+			//A successor's index is getIndex's sums with a stone put in among the taken
+			//squares. The sums over the taken squares before and after each place it can
+			//go are worked out once per position, so each successor costs a few lookups.
+			int[] squares = new int[stones];
+			int[] takenBefore = new int[stones + 1];
+			int[] takenAfter = new int[stones + 1];
+			int[] xsBefore = new int[stones + 1];
+			int[] xRankBefore = new int[stones + 1];
+			int[] xRankAfter = new int[stones + 1];
+
+			//The sets of taken squares and of X squares among them are visited in
+			//increasing order of their bit masks, which is the order of their ranks
+			int taken = unrank(fromRank, stones);
+			int index = levelStarts[stones] + fromRank * numXSets;
+			for (int rank = fromRank; rank < toRank; rank++) {
+				int xSet = (1 << xStones) - 1;
+				for (int i = 0; i < numXSets; i++) {
+					//Spread the bits of xSet over the taken squares
+					int xs = 0;
+					int rest = taken;
+					for (int bits = xSet; rest != 0; bits >>>= 1) {
+						if ((bits & 1) != 0) {
+							xs |= rest & -rest;
+						}
+						rest &= rest - 1;
+					}
+					int os = taken & ~xs;
+
+					//Before place p are the first p taken squares, and after it the rest, which
+					//move up one place, and for an X move the Xs among them one X further on
+					int p = 0;
+					for (int left = taken; left != 0; left &= left - 1) {
+						int square = Integer.numberOfTrailingZeros(left);
+						squares[p] = square;
+						takenBefore[p + 1] = takenBefore[p] + choose[square][p + 1];
+						boolean isX = (xs & (1 << square)) != 0;
+						xsBefore[p + 1] = xsBefore[p] + (isX ? 1 : 0);
+						xRankBefore[p + 1] = xRankBefore[p] + (isX ? choose[p][xsBefore[p] + 1] : 0);
+						p++;
+					}
+					for (p = stones - 1; p >= 0; p--) {
+						takenAfter[p] = takenAfter[p + 1] + choose[squares[p]][p + 2];
+						boolean isX = (xs & (1 << squares[p])) != 0;
+						xRankAfter[p] = xRankAfter[p + 1]
+								+ (isX ? choose[p + 1][xsBefore[p] + (xToMove ? 2 : 1)] : 0);
+					}
+
+					int value;
+					int distance = 0;
+					int bestMove = NO_MOVE;
+					if (hasLine(xs)) {
+						value = 1;
+					} else if (hasLine(os)) {
+						value = -1;
+					} else if (stones == numSquares) {
+						value = 0;
+					} else {
+						//As in RetrogradeSolver, a win is taken by the shortest way and a loss put
+						//off as long as possible. Only a strictly better successor replaces the
+						//best move, so it is the first such move in row-major order.
+						int win = xToMove ? 1 : -1;
+						value = -win;
+						distance = -1;
+						int empty = full & ~taken;
+						while (empty != 0) {
+							int square = Integer.numberOfTrailingZeros(empty);
+							int bit = empty & -empty;
+							empty &= empty - 1;
+							p = Integer.bitCount(taken & (bit - 1));
+							int takenRank = takenBefore[p] + choose[square][p + 1] + takenAfter[p];
+							int xRank = xRankBefore[p] + (xToMove ? choose[p][xsBefore[p] + 1] : 0) + xRankAfter[p];
+							int child = childStart + takenRank * childXSets + xRank;
+							int entry = out.getShort(HEADER_SIZE + ENTRY_SIZE * child);
+							int v = getValue(entry);
+							int d = getDistance(entry);
+							if ((xToMove ? (v > value) : (v < value))
+									|| (v == value && ((v == win) ? (d < distance) : (d > distance)))) {
+								value = v;
+								distance = d;
+								bestMove = square;
+							}
+						}
+						distance++;
+					}
+					out.putShort(HEADER_SIZE + ENTRY_SIZE * index, (short) (((value + 1) << 10) | (distance << 5) | bestMove));
+					index++;
+
+					if (i + 1 < numXSets) {
+						xSet = nextSet(xSet);
+					}
+				}
+				if (rank + 1 < toRank) {
+					taken = nextSet(taken);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Returns true if a player's squares hold a whole line.
+		 */
+		private boolean hasLine(int squares) {
+			for (int line : lines) {
+				if ((squares & line) == line) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the set of squares with a rank among the sets of the same size,
+	 * the inverse of the ranking in getIndex.
+	 * @param rank The rank
+	 * @param size The number of squares in the set
+	 * @return The bit mask of the squares
+	 */
+	private int unrank(int rank, int size) {
+		int set = 0;
+		int square = numSquares;
+		for (int k = size; k > 0; k--) {
+			do {
+				square--;
+			} while (choose[square][k] > rank);
+			set |= 1 << square;
+			rank -= choose[square][k];
+		}
+		return set;
+	}
+
+	/**
+	 * Returns the next larger bit mask with as many bits set.
+	 * @param set A bit mask that is not 0
+	 */
+	private static int nextSet(int set) {
+		int lowest = set & -set;
+		int ripple = set + lowest;
+		return ripple | (((set ^ ripple) >>> 2) / lowest);
+	}
+
+	/**
+	 * The entry point for building a database from the command line.
+	 *
+	 * @param args
+	 *            The command line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int numThreads = Runtime.getRuntime().availableProcessors();
+			if( args.length < 3 || args.length > 5 ) {
+				System.out.println("Usage: program <width> <height> <win length> [<output file> [<threads>]]");
+				System.exit(-1);
+			}
+			int width = Integer.parseInt(args[0]);
+			int height = Integer.parseInt(args[1]);
+			int winLength = Integer.parseInt(args[2]);
+			String fileName = (args.length >= 4) ? args[3] : getDefaultFileName(width, height, winLength);
+			if( args.length == 5 ) {
+				numThreads = Integer.parseInt(args[4]);
+				if( numThreads < 1 ) {
+					throw new Exception("Threads must be positive");
+				}
+			}
+
+			long start = System.nanoTime();
+			write(width, height, winLength, fileName, numThreads);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			EndgameDatabase database = new EndgameDatabase(fileName);
+			double openMillis = (System.nanoTime() - start) / 1e6;
+			System.out.println(String.format("Wrote %d positions to %s in %.3f s; mapping it took %.3f ms",
+					database.getNumPositions(), fileName, seconds, openMillis));
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
@@ -1,4 +1,4 @@
-//package edu.oregonstate.eecs.cs331.assn2;
+package edu.oregonstate.eecs.cs331.assn2;
 
 import java.awt.*;
 import javax.swing.*;
@@ -11,18 +11,16 @@ import javax.swing.*;
  */
 public class GameFrame extends JFrame {
 	
-	/**q
-	 * Command line strings that specify the types of the players
-	 */
-	private final static String HUMAN_PLAYER_STRING = "human";
-	private final static String RANDOM_PLAYER_STRING = "random";
-	private final static String MINIMAX_PLAYER_STRING = "minimax";
-
 	/**
 	 * This is to keep the compiler happy.
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The size in pixels of a cell on boards too big for the default window.
+	 */
+	private static final int CELL_SIZE = 40;
+
 	/**
 	 * The JPanel that contains the TicTacToe board.
 	 */
@@ -55,6 +53,11 @@ public class GameFrame extends JFrame {
 	private Player playerX;
 	private Player playerO;
 
+	/**
+	 * The time budget per move in milliseconds for players that search with one.
+	 */
+	private long searchBudgetMillis;
+
 	/**
 	 * This is the content pane for the main JFrame
 	 */
@@ -64,13 +67,14 @@ public class GameFrame extends JFrame {
 	 *
 	 */
 	private void buildGameBoard() {
-		gameGrid = new JPanel(new GridLayout(TicTacToeBoard.SIZE,
-				TicTacToeBoard.SIZE));
-		cellGrid = new CustomPanel[TicTacToeBoard.SIZE * TicTacToeBoard.SIZE];
-		cellLabel = new JLabel[TicTacToeBoard.SIZE * TicTacToeBoard.SIZE];
+		int width = boardState.getWidth();
+		int height = boardState.getHeight();
+		gameGrid = new JPanel(new GridLayout(height, width));
+		cellGrid = new CustomPanel[width * height];
+		cellLabel = new JLabel[width * height];
 		for (int count = 0; count < cellGrid.length; count++) {
-			cellGrid[count] = new CustomPanel(count / TicTacToeBoard.SIZE,
-					count % TicTacToeBoard.SIZE, playerX, playerO, boardState);
+			cellGrid[count] = new CustomPanel(count / width,
+					count % width, playerX, playerO, boardState);
 			cellLabel[count] = new JLabel("");
 			cellLabel[count].setHorizontalAlignment(SwingConstants.CENTER);
 			cellLabel[count].setVerticalAlignment(SwingConstants.CENTER);
@@ -78,31 +82,17 @@ public class GameFrame extends JFrame {
 			cellGrid[count].add(cellLabel[count], BorderLayout.CENTER);
 			gameGrid.add(cellGrid[count]);
 		}
+		// Every cell but the bottom row gets a line below it, and every cell
+		// but the right column gets a line to its right.
 		for (int cellCount = 0; cellCount < cellGrid.length; cellCount++) {
-			switch (cellCount) {
-			case 0:
-			case 1:
-			case 3:
-			case 4:
-				cellGrid[cellCount].add(new JSeparator(
-						SwingConstants.HORIZONTAL), BorderLayout.SOUTH);
-				cellGrid[cellCount].add(
-						new JSeparator(SwingConstants.VERTICAL),
-						BorderLayout.EAST);
-				break;
-			case 2:
-			case 5:
+			if (cellCount / width < height - 1) {
 				cellGrid[cellCount].add(new JSeparator(
 						SwingConstants.HORIZONTAL), BorderLayout.SOUTH);
-				break;
-			case 6:
-			case 7:
+			}
+			if (cellCount % width < width - 1) {
 				cellGrid[cellCount].add(
 						new JSeparator(SwingConstants.VERTICAL),
 						BorderLayout.EAST);
-				break;
-			default:
-				break;
 			}
 		}
 		contentPane.add(gameGrid);
@@ -127,11 +117,56 @@ public class GameFrame extends JFrame {
 
 	/**
 	 * This constructor builds and places of all of the objects on the Game
-	 * Frame.
+	 * Frame, for the default 3x3 board.
 	 */
 	public GameFrame(int playerType1, int playerType2) throws Exception {
+		this(playerType1, playerType2, TicTacToeBoard.SIZE, TicTacToeBoard.SIZE,
+				TicTacToeBoard.SIZE);
+	}
+
+	/**
+	 * This constructor builds and places of all of the objects on the Game
+	 * Frame.
+	 * 
+	 * @param playerType1
+	 *            Player1's type.
+	 * @param playerType2
+	 *            Player2's type.
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 */
+	public GameFrame(int playerType1, int playerType2, int width, int height,
+			int winLength) throws Exception {
+		this(playerType1, playerType2, width, height, winLength,
+				IterativeDeepening.DEFAULT_BUDGET_MILLIS);
+	}
+
+	/**
+	 * This constructor builds and places of all of the objects on the Game
+	 * Frame.
+	 * 
+	 * @param playerType1
+	 *            Player1's type.
+	 * @param playerType2
+	 *            Player2's type.
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 * @param searchBudgetMillis
+	 *            The time budget per move for players that search with one.
+	 */
+	public GameFrame(int playerType1, int playerType2, int width, int height,
+			int winLength, long searchBudgetMillis) throws Exception {
 		super("TicTacToe");
-		boardState = new TicTacToeBoard();
+		this.searchBudgetMillis = searchBudgetMillis;
+		boardState = new TicTacToeBoard(width, height, winLength);
 		turnString = new String[2];
 		turnString[0] = "X's Turn";
 		turnString[1] = "O's Turn";
@@ -142,7 +177,7 @@ public class GameFrame extends JFrame {
 		buildGameBoard();
 		buildTurnLabel();
 		// A fixed size so that the form looks clean
-		setSize(200, 200);
+		setSize(Math.max(200, CELL_SIZE * width), Math.max(200, CELL_SIZE * height + 50));
 		setVisible(true);
 		setResizable(false);
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -156,30 +191,20 @@ public class GameFrame extends JFrame {
 	 *            Player1's type.
 	 * @param type2
 	 *            Player2's type.
+	 * @throws Exception If a player cannot be created
 	 */
-	private void newGame(int type1, int type2) {
-		switch (type1) {
-		case Player.RANDOM_PLAYER:
-			playerX = new RandomPlayer();
-			break;
-		case Player.MINIMAX_PLAYER:
-			playerX = new MiniMax();
-			break;
-		default:
-			playerX = new Human();
-			break;
+	private void newGame(int type1, int type2) throws Exception {
+		Match.closePlayer(playerX);
+		Match.closePlayer(playerO);
+		playerX = Match.newPlayer(type1, searchBudgetMillis);
+		playerO = Match.newPlayer(type2, searchBudgetMillis);
+		// A computer player facing a human searches on its own thread and
+		// ponders the human's replies while the human is thinking.
+		if (type1 != Player.HUMAN_PLAYER && type2 == Player.HUMAN_PLAYER) {
+			playerX = new AsyncPlayer(playerX, Match.newPlayer(type1, searchBudgetMillis));
 		}
-
-		switch (type2) {
-		case Player.RANDOM_PLAYER:
-			playerO = new RandomPlayer();
-			break;
-		case Player.MINIMAX_PLAYER:
-			playerO = new MiniMax();
-			break;
-		default:
-			playerO = new Human();
-			break;
+		if (type2 != Player.HUMAN_PLAYER && type1 == Player.HUMAN_PLAYER) {
+			playerO = new AsyncPlayer(playerO, Match.newPlayer(type2, searchBudgetMillis));
 		}
 		for (int count = 0; count < cellGrid.length; count++) {
 			cellGrid[count].reset(playerX, playerO);
@@ -191,13 +216,14 @@ public class GameFrame extends JFrame {
 
 	/**
 	 * Returns true if the position is a legal one.  A legal position is one in which
-	 * the row takes a value of 0, 1, or 2 and the column takes the value of 0, 1, or 2.
+	 * the row is between 0 and the board's height - 1 and the column is between 0 and
+	 * the board's width - 1.
 	 * @param p The position you want to check the legality of
 	 * @return True if the position is legal, false otherwise
 	 */
 	private boolean isLegalPosition(Position p) {
-		if ((p != null) && (p.row >= 0) && (p.row < TicTacToeBoard.SIZE)
-				&& (p.col >= 0) && (p.col < TicTacToeBoard.SIZE)) {
+		if ((p != null) && (p.row >= 0) && (p.row < boardState.getHeight())
+				&& (p.col >= 0) && (p.col < boardState.getWidth())) {
 			return true;
 		} else {
 			return false;
@@ -216,7 +242,7 @@ public class GameFrame extends JFrame {
 				if (isLegalPosition(updatedCell)) {
 					boardState.setState(updatedCell.row, updatedCell.col,
 							TicTacToeBoard.X);
-					cellGrid[updatedCell.row*TicTacToeBoard.SIZE+updatedCell.col].setChosen(true);
+					cellGrid[updatedCell.row*boardState.getWidth()+updatedCell.col].setChosen(true);
 				} else {
 					throw new Exception("Illegal board position returned");
 				}
@@ -226,7 +252,7 @@ public class GameFrame extends JFrame {
 				if (isLegalPosition(updatedCell)) {
 					boardState.setState(updatedCell.row, updatedCell.col,
 							TicTacToeBoard.O);
-					cellGrid[updatedCell.row*TicTacToeBoard.SIZE+updatedCell.col].setChosen(true);
+					cellGrid[updatedCell.row*boardState.getWidth()+updatedCell.col].setChosen(true);
 				} else {
 					throw new Exception("Illegal board position returned");
 				}
@@ -255,14 +281,15 @@ public class GameFrame extends JFrame {
 	 *            The state of the game.
 	 */
 	private void displayBoard(TicTacToeBoard state) {
-		for (int row = 0; row < TicTacToeBoard.SIZE; row++) {
-			for (int col = 0; col < TicTacToeBoard.SIZE; col++) {
+		int width = state.getWidth();
+		for (int row = 0; row < state.getHeight(); row++) {
+			for (int col = 0; col < width; col++) {
 				if (state.getState(row, col) == TicTacToeBoard.X) {
-					cellLabel[row * TicTacToeBoard.SIZE + col].setText("X");
+					cellLabel[row * width + col].setText("X");
 				} else if (state.getState(row, col) == TicTacToeBoard.O) {
-					cellLabel[row * TicTacToeBoard.SIZE + col].setText("O");
+					cellLabel[row * width + col].setText("O");
 				} else {
-					cellLabel[row * TicTacToeBoard.SIZE + col].setText("");
+					cellLabel[row * width + col].setText("");
 				}
 			}
 		}
@@ -278,33 +305,37 @@ public class GameFrame extends JFrame {
 		try {
 			int player1Type = Player.HUMAN_PLAYER;
 			int player2Type = Player.HUMAN_PLAYER;
-			if( args.length != 2  ) {
-				System.out.println("Usage: program <player 1 type> <player 2 type>");
-				System.out.println("       where player type = human, random, or minimax");
+			int width = TicTacToeBoard.SIZE;
+			int height = TicTacToeBoard.SIZE;
+			int winLength = TicTacToeBoard.SIZE;
+			long searchBudgetMillis = IterativeDeepening.DEFAULT_BUDGET_MILLIS;
+			if( args.length != 2 && args.length != 5 && args.length != 6 ) {
+				System.out.println("Usage: program <player 1 type> <player 2 type> [<width> <height> <win length> [<budget ms>]]");
+				System.out.println("       where player type = human, random, minimax, alphabeta, table, deepening, parallel, lazysmp, mcts, or database");
+				System.out.println("       the board is 3 3 3 unless given");
+				System.out.println("       and budget ms is the time per move for deepening, lazysmp and mcts players (default " + IterativeDeepening.DEFAULT_BUDGET_MILLIS + ")");
 				System.exit(-1);
 			}
-			if( args[0].equals(HUMAN_PLAYER_STRING) ) {
-				player1Type = Player.HUMAN_PLAYER;
-			} else if( args[0].equals(RANDOM_PLAYER_STRING)) {
-				player1Type = Player.RANDOM_PLAYER;
-			} else if( args[0].equals(MINIMAX_PLAYER_STRING)) {
-				player1Type = Player.MINIMAX_PLAYER;
-			} else {
-				throw new Exception("Unrecognized player type");
+			if( args.length == 6 ) {
+				searchBudgetMillis = Long.parseLong(args[5]);
+				if( searchBudgetMillis < 1 ) {
+					throw new Exception("Budget must be positive");
+				}
 			}
-			
-			if( args[1].equals(HUMAN_PLAYER_STRING) ) {
-				player2Type = Player.HUMAN_PLAYER;
-			} else if( args[1].equals(RANDOM_PLAYER_STRING)) {
-				player2Type = Player.RANDOM_PLAYER;
-			} else if( args[1].equals(MINIMAX_PLAYER_STRING)) {
-				player2Type = Player.MINIMAX_PLAYER;
-			} else {
-				throw new Exception("Unrecognized player type");
+			if( args.length >= 5 ) {
+				width = Integer.parseInt(args[2]);
+				height = Integer.parseInt(args[3]);
+				winLength = Integer.parseInt(args[4]);
+				if( width < 1 || height < 1 || winLength < 1 ) {
+					throw new Exception("Board dimensions must be positive");
+				}
 			}
+			player1Type = Match.parsePlayerType(args[0]);
+			
+			player2Type = Match.parsePlayerType(args[1]);
 
 			GameFrame application = new GameFrame(player1Type,
-					player2Type);
+					player2Type, width, height, winLength, searchBudgetMillis);
 			application.playGame();
 		} catch (Exception e) {
 			System.out.println(e.getMessage());
@@ -0,0 +1,634 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many games at once against the computer players, over a line-based
+ * TCP protocol on localhost.
+ *
+ * Every connection is a session with a thread and a board of its own. The
+ * computer players are kept in a pool per player type and board setup, and
+ * lent to a session for one move at a time, so a few engines serve every
+ * session and their tables stay warm across games. A player is only used by
+ * one session at a time, and only on boards of one width, height and win
+ * length, so players that keep state between searches are safe to share.
+ * The pool keeps at most MAX_IDLE_PLAYERS players, and drops those of the
+ * setups that were used least recently first. Dropped players are closed,
+ * so players that search on threads of their own do not leak them, and
+ * close() closes every player in the pool.
+ *
+ * The lazysmp and mcts players start a search thread per core, so at most
+ * MAX_LIVE_THREADED_PLAYERS of each of them are alive at once, idle or lent
+ * out, however many sessions there are. A session that needs one when they
+ * are all taken closes an idle one of another board setup to make room, or
+ * waits for one to be returned.
+ *
+ * MiniMax, AlphaBeta and ParallelMiniMax search every move to the end of the
+ * game, so they are only offered on boards small enough to finish in a few
+ * seconds, the table player only on 3x3, and the database player only on
+ * boards whose database is written in a few seconds if it is missing.
+ *
+ * The protocol, one command or response per line:
+ *
+ * NEW &lt;player type&gt; &lt;X|O&gt; [&lt;width&gt; &lt;height&gt; &lt;win length&gt;]
+ *     Starts a game against the player type, with the client playing the
+ *     given side. The server answers OK, followed by MOVE if the server
+ *     moves first.
+ * MOVE &lt;row&gt; &lt;col&gt;
+ *     Plays the client's move. Unless that ends the game, the server answers
+ *     MOVE &lt;row&gt; &lt;col&gt; with its own move.
+ * QUIT
+ *     Closes the connection.
+ *
+ * When a move ends the game the server also sends END X, END O or END DRAW.
+ * A bad command gets ERROR &lt;message&gt; and leaves the game as it was,
+ * including a NEW that fails.
+ *
+ * Usage: java GameServer [&lt;port&gt; [&lt;budget ms&gt;]]
+ *
+ */
+public class GameServer {
+
+	/**
+	 * The port used when none is given
+	 */
+	public static final int DEFAULT_PORT = 3310;
+
+	/**
+	 * The largest board width or height a client can ask for
+	 */
+	private static final int MAX_SIZE = 32;
+
+	/**
+	 * The most squares a board can have for the players that search to the
+	 * end of the game. From the empty board at these sizes a move takes about
+	 * a second, and one more row or column takes minutes or more.
+	 */
+	private static final int MAX_MINIMAX_SQUARES = MiniMax.MAX_SQUARES;
+	private static final int MAX_ALPHABETA_SQUARES = 16;
+	private static final int MAX_PARALLEL_SQUARES = ParallelMiniMax.MAX_SQUARES;
+	private static final int MAX_DATABASE_SQUARES = 16;
+
+	/**
+	 * The most idle players the pool keeps, over all player types and board setups
+	 */
+	static final int MAX_IDLE_PLAYERS = 64;
+
+	/**
+	 * The most players of a type with a search thread per core that are
+	 * alive at once. More of them would only take turns on the cores.
+	 */
+	static final int MAX_LIVE_THREADED_PLAYERS = 2;
+
+	/**
+	 * The socket the server listens on
+	 */
+	private ServerSocket serverSocket;
+
+	/**
+	 * Runs the sessions, one thread each
+	 */
+	private ExecutorService sessions;
+
+	/**
+	 * The connections of the running sessions, so close() can end them
+	 */
+	private Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The time budget per move for players that search with one
+	 */
+	private long searchBudgetMillis;
+
+	/**
+	 * Idle computer players, by player type and board setup, with the setup
+	 * used least recently first. Guarded by the server's lock.
+	 */
+	private Map<String, Queue<Player>> idlePlayers = new LinkedHashMap<String, Queue<Player>>(16, 0.75f, true);
+	private int numIdlePlayers;
+
+	/**
+	 * The number of players alive, idle or lent out, of each player type that
+	 * searches on threads of its own, indexed by player type. Guarded by the
+	 * server's lock, which sessions wait on for one of them to be returned.
+	 */
+	private int[] liveThreadedPlayers = new int[Player.DATABASE_PLAYER + 1];
+
+	/**
+	 * Set by close(), after which players are closed instead of pooled.
+	 * Guarded by the server's lock.
+	 */
+	private boolean closed;
+
+	/**
+	 * Counts for the server's lifetime
+	 */
+	private AtomicInteger activeSessions = new AtomicInteger();
+	private AtomicLong gamesStarted = new AtomicLong();
+	private AtomicLong movesPlayed = new AtomicLong();
+
+	/**
+	 * Creates a server listening on a localhost port.
+	 *
+	 * @param port
+	 *            The port to listen on, or 0 for any free port.
+	 * @param searchBudgetMillis
+	 *            The time budget per move for players that search with one.
+	 * @throws IOException
+	 *             If the port cannot be opened.
+	 */
+	public GameServer(int port, long searchBudgetMillis) throws IOException {
+		this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		this.sessions = Executors.newCachedThreadPool();
+		this.searchBudgetMillis = searchBudgetMillis;
+	}
+
+	/**
+	 * @return The port the server is listening on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return The number of connections open now
+	 */
+	public int getActiveSessions() {
+		return activeSessions.get();
+	}
+
+	/**
+	 * @return The number of games started since the server started
+	 */
+	public long getGamesStarted() {
+		return gamesStarted.get();
+	}
+
+	/**
+	 * @return The number of moves played by clients and the server since the
+	 *         server started
+	 */
+	public long getMovesPlayed() {
+		return movesPlayed.get();
+	}
+
+	/**
+	 * Accepts connections until the server is closed, starting a session for
+	 * each one.
+	 */
+	public void serve() {
+		while (!serverSocket.isClosed()) {
+			try {
+				final Socket socket = serverSocket.accept();
+				sessions.execute(new Runnable() {
+					public void run() {
+						runSession(socket);
+					}
+				});
+			} catch (IOException e) {
+				//The server socket was closed
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting connections, closes the open ones, and closes the
+	 * pooled players.
+	 */
+	public void close() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			//Already closed
+		}
+		sessions.shutdownNow();
+		for (Socket socket : openSockets) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				//Already closed
+			}
+		}
+		synchronized (this) {
+			closed = true;
+			for (Queue<Player> idle : idlePlayers.values()) {
+				for (Player player : idle) {
+					closePlayer(player);
+				}
+			}
+			idlePlayers.clear();
+			numIdlePlayers = 0;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @return The number of players in the pool now
+	 */
+	synchronized int getIdlePlayers() {
+		return numIdlePlayers;
+	}
+
+	/**
+	 * @return The number of players of a type that searches on threads of its
+	 *         own that are alive now, idle or lent out
+	 */
+	synchronized int getLiveThreadedPlayers(int type) {
+		return liveThreadedPlayers[type];
+	}
+
+	/**
+	 * Returns true for the player types that start a search thread per core.
+	 */
+	private static boolean hasOwnThreads(int type) {
+		return type == Player.LAZYSMP_PLAYER || type == Player.MCTS_PLAYER;
+	}
+
+	/**
+	 * Checks that a player type can play on a board setup.
+	 * @throws Exception If the player cannot play on boards of that size
+	 */
+	private static void checkSetup(int type, int width, int height, int winLength) throws Exception {
+		int numSquares = width * height;
+		if (type == Player.MINIMAX_PLAYER && numSquares > MAX_MINIMAX_SQUARES) {
+			throw new Exception("The minimax player only plays on boards of up to " + MAX_MINIMAX_SQUARES + " squares");
+		}
+		if (type == Player.ALPHABETA_PLAYER && numSquares > MAX_ALPHABETA_SQUARES) {
+			throw new Exception("The alphabeta player only plays on boards of up to " + MAX_ALPHABETA_SQUARES + " squares");
+		}
+		if (type == Player.PARALLEL_PLAYER && numSquares > MAX_PARALLEL_SQUARES) {
+			throw new Exception("The parallel player only plays on boards of up to " + MAX_PARALLEL_SQUARES + " squares");
+		}
+		if (type == Player.TABLE_PLAYER && (width != TicTacToeBoard.SIZE || height != TicTacToeBoard.SIZE
+				|| winLength != TicTacToeBoard.SIZE)) {
+			throw new Exception("The table player only plays on the 3x3 board");
+		}
+		if (type == Player.DATABASE_PLAYER && numSquares > MAX_DATABASE_SQUARES) {
+			throw new Exception("The database player only plays on boards of up to " + MAX_DATABASE_SQUARES + " squares");
+		}
+	}
+
+	/**
+	 * The pool key of a player type and the setup of the boards it plays on
+	 */
+	private static String getPoolKey(int type, TicTacToeBoard board) {
+		return type + " " + board.getWidth() + " " + board.getHeight() + " " + board.getWinLength();
+	}
+
+	/**
+	 * Takes an idle player of a type for a board setup from the pool, or
+	 * creates one. If the type searches on threads of its own and
+	 * MAX_LIVE_THREADED_PLAYERS of it are alive, an idle one of another setup
+	 * is closed to make room, or else this waits for one to be returned.
+	 * @throws Exception If the server is closed while waiting, or the player
+	 *                   cannot be created
+	 */
+	private Player borrowPlayer(int type, TicTacToeBoard board) throws Exception {
+		synchronized (this) {
+			String key = getPoolKey(type, board);
+			while (true) {
+				if (closed) {
+					throw new Exception("The server is closed");
+				}
+				Queue<Player> idle = idlePlayers.get(key);
+				if (idle != null) {
+					Player player = idle.poll();
+					if (idle.isEmpty()) {
+						idlePlayers.remove(key);
+					}
+					numIdlePlayers--;
+					return player;
+				}
+				if (!hasOwnThreads(type)) {
+					break;
+				}
+				if (liveThreadedPlayers[type] < MAX_LIVE_THREADED_PLAYERS) {
+					liveThreadedPlayers[type]++;
+					break;
+				}
+				if (!dropIdlePlayer(type)) {
+					wait();
+				}
+			}
+		}
+		try {
+			return Match.newPlayer(type, searchBudgetMillis);
+		} catch (Exception e) {
+			if (hasOwnThreads(type)) {
+				synchronized (this) {
+					liveThreadedPlayers[type]--;
+					notifyAll();
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Closes and drops the idle player of a type on the setup used least
+	 * recently. The caller holds the server's lock.
+	 * @return False if the pool has no player of the type
+	 */
+	private boolean dropIdlePlayer(int type) {
+		Iterator<Queue<Player>> oldest = idlePlayers.values().iterator();
+		while (oldest.hasNext()) {
+			Queue<Player> idle = oldest.next();
+			if (idle.peek().getPlayerType() == type) {
+				closePlayer(idle.poll());
+				if (idle.isEmpty()) {
+					oldest.remove();
+				}
+				numIdlePlayers--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Closes a player that leaves the pool for good, and makes room for
+	 * another of its type if it searches on threads of its own. The caller
+	 * holds the server's lock.
+	 */
+	private void closePlayer(Player player) {
+		Match.closePlayer(player);
+		int type = player.getPlayerType();
+		if (hasOwnThreads(type)) {
+			liveThreadedPlayers[type]--;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Puts a player back into the pool. If the pool is full, a player of the
+	 * setup used least recently is closed and dropped to make room. Once the
+	 * server is closed, the player is closed instead.
+	 */
+	private synchronized void returnPlayer(int type, TicTacToeBoard board, Player player) {
+		if (closed) {
+			closePlayer(player);
+			return;
+		}
+		if (numIdlePlayers == MAX_IDLE_PLAYERS) {
+			Iterator<Queue<Player>> oldest = idlePlayers.values().iterator();
+			Queue<Player> idle = oldest.next();
+			closePlayer(idle.poll());
+			if (idle.isEmpty()) {
+				oldest.remove();
+			}
+			numIdlePlayers--;
+		}
+		String key = getPoolKey(type, board);
+		Queue<Player> idle = idlePlayers.get(key);
+		if (idle == null) {
+			idle = new ArrayDeque<Player>();
+			idlePlayers.put(key, idle);
+		}
+		idle.offer(player);
+		numIdlePlayers++;
+		if (hasOwnThreads(type)) {
+			//Wake the sessions waiting for a player of this type
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Reads commands from one connection and answers them until the client
+	 * quits or disconnects.
+	 */
+	private void runSession(Socket socket) {
+		activeSessions.incrementAndGet();
+		openSockets.add(socket);
+		try {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "US-ASCII"));
+			Session session = new Session(out);
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] words = line.trim().split("\\s+");
+				if (words[0].equalsIgnoreCase("QUIT")) {
+					break;
+				}
+				try {
+					session.handle(words);
+				} catch (Exception e) {
+					out.write("ERROR " + e.getMessage() + "\n");
+				}
+				out.flush();
+			}
+		} catch (IOException e) {
+			//The client went away
+		} finally {
+			activeSessions.decrementAndGet();
+			openSockets.remove(socket);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				//Already closed
+			}
+		}
+	}
+
+	/**
+	 * The game of one connection.
+	 */
+	private class Session {
+		private Writer out;
+
+		/**
+		 * The current game, or null before the first NEW
+		 */
+		private TicTacToeBoard board;
+		private int playerType;
+		private int clientSide;
+
+		Session(Writer out) {
+			this.out = out;
+		}
+
+		/**
+		 * Carries out one command.
+		 * @param words The command line, split on whitespace
+		 * @throws Exception If the command is not valid now
+		 */
+		void handle(String[] words) throws Exception {
+			String command = words[0].toUpperCase();
+			if (command.equals("NEW")) {
+				newGame(words);
+			} else if (command.equals("MOVE")) {
+				if (words.length != 3) {
+					throw new Exception("Usage: MOVE <row> <col>");
+				}
+				clientMove(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+			} else {
+				throw new Exception("Unrecognized command " + words[0]);
+			}
+		}
+
+		private void newGame(String[] words) throws Exception {
+			if (words.length != 3 && words.length != 6) {
+				throw new Exception("Usage: NEW <player type> <X|O> [<width> <height> <win length>]");
+			}
+			int type = Match.parsePlayerType(words[1]);
+			if (type == Player.HUMAN_PLAYER) {
+				throw new Exception("The server cannot play a human player");
+			}
+			int side;
+			if (words[2].equalsIgnoreCase("X")) {
+				side = TicTacToeBoard.PLAYER_X;
+			} else if (words[2].equalsIgnoreCase("O")) {
+				side = TicTacToeBoard.PLAYER_O;
+			} else {
+				throw new Exception("Side must be X or O");
+			}
+			int width = TicTacToeBoard.SIZE;
+			int height = TicTacToeBoard.SIZE;
+			int winLength = TicTacToeBoard.SIZE;
+			if (words.length == 6) {
+				width = Integer.parseInt(words[3]);
+				height = Integer.parseInt(words[4]);
+				winLength = Integer.parseInt(words[5]);
+				if (width < 1 || height < 1 || winLength < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+					throw new Exception("Board dimensions must be between 1 and " + MAX_SIZE);
+				}
+			}
+			checkSetup(type, width, height, winLength);
+
+			//Find the server's first move before replacing the game, so the old game stays if it fails
+			TicTacToeBoard newBoard = new TicTacToeBoard(width, height, winLength);
+			newBoard.setTurn(TicTacToeBoard.PLAYER_X);
+			Position move = null;
+			if (side == TicTacToeBoard.PLAYER_O) {
+				move = findMove(type, newBoard);
+			}
+			board = newBoard;
+			playerType = type;
+			clientSide = side;
+			gamesStarted.incrementAndGet();
+			out.write("OK\n");
+			if (move != null) {
+				play(move);
+			}
+		}
+
+		private void clientMove(int row, int col) throws Exception {
+			if (board == null || board.isGameOver()) {
+				throw new Exception("No game in progress");
+			}
+			if (board.getTurn() != clientSide) {
+				throw new Exception("Not your turn");
+			}
+			if (row < 0 || row >= board.getHeight() || col < 0 || col >= board.getWidth()
+					|| !board.isEmpty(row * board.getWidth() + col)) {
+				throw new Exception("Illegal move");
+			}
+			int square = row * board.getWidth() + col;
+			play(square);
+			if (!board.isGameOver()) {
+				try {
+					play(findMove(playerType, board));
+				} catch (Exception e) {
+					//Take the client's move back, so the client can try again
+					board.unmakeMove(square);
+					movesPlayed.decrementAndGet();
+					throw e;
+				}
+			}
+		}
+
+		/**
+		 * Finds the server's move on a board with a player from the pool.
+		 */
+		private Position findMove(int type, TicTacToeBoard board) throws Exception {
+			Player player = borrowPlayer(type, board);
+			Position move;
+			try {
+				move = player.getNextMove(board);
+			} finally {
+				returnPlayer(type, board, player);
+			}
+			if (move == null || move.row < 0 || move.row >= board.getHeight() || move.col < 0
+					|| move.col >= board.getWidth() || !board.isEmpty(move.row * board.getWidth() + move.col)) {
+				throw new Exception("The server player returned an illegal move");
+			}
+			return move;
+		}
+
+		/**
+		 * Sends and plays the server's move.
+		 */
+		private void play(Position move) throws Exception {
+			out.write("MOVE " + move.row + " " + move.col + "\n");
+			play(move.row * board.getWidth() + move.col);
+		}
+
+		/**
+		 * Plays a move for the player whose turn it is, and sends END if the game is over.
+		 */
+		private void play(int square) throws Exception {
+			board.makeMove(square);
+			movesPlayed.incrementAndGet();
+			if (board.isGameOver()) {
+				if (board.isWin(TicTacToeBoard.PLAYER_X)) {
+					out.write("END X\n");
+				} else if (board.isWin(TicTacToeBoard.PLAYER_O)) {
+					out.write("END O\n");
+				} else {
+					out.write("END DRAW\n");
+				}
+			}
+		}
+	}
+
+	/**
+	 * The entry point for running the server.
+	 *
+	 * @param args
+	 *            The command line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int port = DEFAULT_PORT;
+			long searchBudgetMillis = IterativeDeepening.DEFAULT_BUDGET_MILLIS;
+			if( args.length > 2 ) {
+				System.out.println("Usage: program [<port> [<budget ms>]]");
+				System.exit(-1);
+			}
+			if( args.length >= 1 ) {
+				port = Integer.parseInt(args[0]);
+			}
+			if( args.length == 2 ) {
+				searchBudgetMillis = Long.parseLong(args[1]);
+				if( searchBudgetMillis < 1 ) {
+					throw new Exception("Budget must be positive");
+				}
+			}
+			GameServer server = new GameServer(port, searchBudgetMillis);
+			System.out.println("Listening on localhost port " + server.getPort());
+			server.serve();
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * The evaluation function and move generation shared by the depth-limited
+ * searches (IterativeDeepening and LazySMP).
+ *
+ * Searches that stop before the end of the game need a value for positions
+ * that are not over, and on big boards they need to leave out moves far from
+ * the action to keep the branching factor small.
+ *
+ */
+
+public class Heuristic {
+    /**
+     * The value of a win for MAX. Wins sooner in the game are worth slightly more.
+     * Heuristic values are always much smaller than this.
+     */
+    public static final int WIN_SCORE = 1000000000;
+
+    /**
+     * Values further than this from zero are wins or losses rather than heuristic values.
+     */
+    public static final int WIN_THRESHOLD = WIN_SCORE - 10000;
+
+    /**
+     * Only empty squares within this distance of a taken square are searched.
+     * On a 3x3 board that is every empty square.
+     */
+    private static final int NEIGHBORHOOD = 2;
+
+    /**
+     * The four directions a line can run in, as {row step, column step} pairs.
+     */
+    private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+    /**
+     * Heuristic value of a position that is not over: for every line of winLength squares that
+     * only one player has taken squares in, that player gets points that grow quickly with the
+     * number of squares taken.
+     * @param state The current board state in the game
+     * @return The heuristic value for X, the maximizing player
+     */
+    public static int evaluate(TicTacToeBoard state) {
+        int width = state.getWidth();
+        int height = state.getHeight();
+        int k = state.getWinLength();
+        int value = 0;
+
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                for (int[] d : DIRECTIONS) {
+                    int endRow = row + d[0] * (k - 1);
+                    int endCol = col + d[1] * (k - 1);
+                    if (endRow >= height || endCol < 0 || endCol >= width) {
+                        continue;
+                    }
+                    int xs = 0;
+                    int os = 0;
+                    for (int i = 0; i < k; i++) {
+                        String symbol = state.getState(row + d[0] * i, col + d[1] * i);
+                        if (symbol == TicTacToeBoard.X) {
+                            xs++;
+                        } else if (symbol == TicTacToeBoard.O) {
+                            os++;
+                        }
+                    }
+                    if (os == 0 && xs > 0) {
+                        value += 1 << Math.min(2 * xs, 20);
+                    } else if (xs == 0 && os > 0) {
+                        value -= 1 << Math.min(2 * os, 20);
+                    }
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Successor method
+     *
+     * Writes the moves to the empty squares within NEIGHBORHOOD of a taken square into a
+     * buffer, in row-major order. Squares far from the action are almost never good moves on
+     * big boards, and leaving them out keeps the branching factor small.
+     * On an empty board the only move is the center.
+     * @param state The current board state in the game
+     * @param moves The buffer to write the moves to, with room for every square
+     * @return The number of moves written
+     */
+    public static int getCandidateMoves(TicTacToeBoard state, int[] moves) {
+        int numMoves = 0;
+        int width = state.getWidth();
+        int height = state.getHeight();
+        boolean anyTaken = false;
+
+        for (int square = 0; square < width * height; square++) {
+            if (!state.isEmpty(square)) {
+                anyTaken = true;
+                continue;
+            }
+            int row = square / width;
+            int col = square % width;
+            boolean nearTaken = false;
+            for (int r = Math.max(0, row - NEIGHBORHOOD); r <= Math.min(height - 1, row + NEIGHBORHOOD) && !nearTaken; r++) {
+                for (int c = Math.max(0, col - NEIGHBORHOOD); c <= Math.min(width - 1, col + NEIGHBORHOOD); c++) {
+                    if (!state.isEmpty(r * width + c)) {
+                        nearTaken = true;
+                        break;
+                    }
+                }
+            }
+            if (nearTaken) {
+                moves[numMoves++] = square;
+            }
+        }
+
+        if (!anyTaken) {
+            moves[numMoves++] = (height / 2) * width + (width / 2);
+        }
+
+        return numMoves;
+    }
+}
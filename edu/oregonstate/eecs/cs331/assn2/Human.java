@@ -1,4 +1,8 @@
-//package edu.oregonstate.eecs.cs331.assn2;
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class defines the Player Interface implemenation for human players. 
@@ -8,45 +12,51 @@
 public class Human implements Player {
 
 	/**
-	 * This constant is used to specify that a square is invalid.
+	 * The square that the player has chosen and the game has not taken yet.
+	 * The GUI thread puts the clicked square in and getNextMove takes it out,
+	 * sleeping until there is one. It holds at most one square, so a click
+	 * made while an earlier one is still waiting is ignored.
 	 */
-	private static final int INVALID = -1;
+	private BlockingQueue<Position> chosenSquare;
 	
 	/**
-	 * The square that the player has chosen.
+	 * How long getNextMove waits for a click, in milliseconds. 0 waits forever.
 	 */
-	private Position chosenSquare;
-	
-	/**
-	 * Flag specifying whether the human player has taken his/her action
-	 * in the game.
-	 */
-	private boolean actionTaken;
+	private long timeoutMillis;
 
 	/**
 	 * The constructor for the Human class. It sets the default settings.
 	 *
 	 */
 	public Human() {
-		chosenSquare = new Position();
-		chosenSquare.row = INVALID;
-		chosenSquare.col = INVALID;
-		actionTaken = true;
+		this(0);
+	}
+	
+	/**
+	 * Creates a human player that only waits so long for each move.
+	 * @param timeoutMillis How long to wait for a click, in milliseconds. 0 waits forever.
+	 */
+	public Human(long timeoutMillis) {
+		chosenSquare = new ArrayBlockingQueue<Position>(1);
+		this.timeoutMillis = timeoutMillis;
 	}
 	
 	/**
 	 * Returns the next move to do.
 	 * @param state The current board state
 	 * @return The next move to do.
+	 * @throws Exception If the wait is interrupted or times out
 	 */
 	public Position getNextMove(TicTacToeBoard state) throws Exception {
-		/* Keep waiting until the user has actually taken action */
-		while(getActionTaken()) {
-			
+		/* Sleep until the user has actually taken action */
+		if (timeoutMillis == 0) {
+			return chosenSquare.take();
+		}
+		Position square = chosenSquare.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+		if (square == null) {
+			throw new Exception("No square chosen within " + timeoutMillis + " ms");
 		}
-		setActionTaken(true);
-		
-		return chosenSquare;
+		return square;
 	}
 
 	/**
@@ -62,27 +72,7 @@ public class Human implements Player {
 	 * @param row The row of the chosen square.
 	 * @param col The column of the chosen square.
 	 */
-	public synchronized void setChosenSquare(int row, int col){
-		if(actionTaken) {
-			chosenSquare.row = row;
-			chosenSquare.col = col;
-			actionTaken = false;
-		}
-	}
-
-	/**
-	 * Retrieves the actionTaken flag.
-	 * @return Whether the user has acted or not.
-	 */
-	private synchronized boolean getActionTaken() {
-		return actionTaken;
-	}
-	
-	/**
-	 * Sets the actionTaken flag.
-	 * @param value
-	 */
-	private synchronized void setActionTaken(boolean value) {
-		actionTaken = value;
+	public void setChosenSquare(int row, int col){
+		chosenSquare.offer(new Position(row, col));
 	}
 }
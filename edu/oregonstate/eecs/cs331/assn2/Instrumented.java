@@ -0,0 +1,20 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * Implemented by players that count the work their searches do.
+ *
+ */
+public interface Instrumented {
+
+	/**
+	 * Returns what the search for the last move did.
+	 * @return A copy of the last move's counts
+	 */
+	public SearchStats getLastMoveStats();
+
+	/**
+	 * Returns what the searches for every move so far did, added together.
+	 * @return A copy of the total counts
+	 */
+	public SearchStats getTotalStats();
+}
@@ -0,0 +1,423 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * This class represents the module for iterative-deepening alpha-beta search
+ * with a time budget per move.
+ *
+ * On boards bigger than 3x3 the full game tree is far too big to search, so
+ * this player searches 1 move ahead, then 2, then 3 and so on until its time
+ * budget runs out, and plays the best move of the deepest search that finished.
+ * Positions at the search horizon that are not over yet get a heuristic value
+ * from Heuristic.evaluate().
+ *
+ * Each search tries the previous search's best move first. That is usually
+ * still the best move, and searching it first gives alpha-beta the tightest
+ * bounds for the other moves. Below the root, the moves are sorted by
+ * MoveOrdering, whose killer moves and history scores carry over from one
+ * iteration to the next.
+ *
+ * The search is negamax: one function searches for both players, with values
+ * from the point of view of the player to move. It is a principal variation
+ * search. The first move of a node is searched with the full window, and the
+ * others only with a null window, which just proves that they are no better.
+ * The rare move that turns out better is searched again with the full window.
+ * Each iteration after the first starts with an aspiration window of
+ * ASPIRATION_WINDOW around the previous iteration's score. If the score falls
+ * outside it, the iteration is searched again with that side of the window
+ * opened up.
+ *
+ */
+
+public class IterativeDeepening implements Player, Instrumented {
+    /**
+     * The budget used when none is given.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+    /**
+     * The clock is checked every (CHECK_INTERVAL + 1) nodes.
+     */
+    private static final int CHECK_INTERVAL = 255;
+
+    /**
+     * Half the width of the aspiration window, in Heuristic.evaluate units
+     */
+    private static final int ASPIRATION_WINDOW = 64;
+
+    /**
+     * Bigger than any value a search can return
+     */
+    private static final int INFINITY = Heuristic.WIN_SCORE + 1;
+
+    /**
+     * The time budget per move in nanoseconds
+     */
+    private long budgetNanos;
+
+    /**
+     * State of the current search
+     */
+    private long deadline;
+    private boolean depthOneDone;
+    private boolean outOfTime;
+    private boolean reachedHorizon;
+    private int rootBestMove;
+
+    /**
+     * Per-depth buffers for the successor moves.
+     */
+    private int[][] successorBuffers;
+
+    /**
+     * Sorts the moves below the root, or null if they are searched in the order they are generated
+     */
+    private MoveOrdering ordering;
+    private boolean orderMoves;
+
+    /**
+     * What the search for the last move did, and for every move so far
+     */
+    private SearchStats moveStats = new SearchStats();
+    private SearchStats totalStats = new SearchStats();
+
+    /**
+     * Constructor
+     * @param budgetMillis The time budget per move in milliseconds
+     */
+    public IterativeDeepening(long budgetMillis) {
+        this(budgetMillis, true);
+    }
+
+    /**
+     * Constructor
+     * @param budgetMillis The time budget per move in milliseconds
+     * @param orderMoves Whether to sort the moves below the root
+     */
+    public IterativeDeepening(long budgetMillis, boolean orderMoves) {
+        this.budgetNanos = budgetMillis * 1000000L;
+        this.orderMoves = orderMoves;
+    }
+
+    /**
+     * Constructor, with the default budget of DEFAULT_BUDGET_MILLIS
+     */
+    public IterativeDeepening() {
+        this(DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Returns the player type
+     */
+    public int getPlayerType() {
+        return DEEPENING_PLAYER;
+    }
+
+    /**
+     * Returns what the search for the last move did
+     */
+    public SearchStats getLastMoveStats() {
+        return new SearchStats(moveStats);
+    }
+
+    /**
+     * Returns what the searches for every move so far did
+     */
+    public SearchStats getTotalStats() {
+        return new SearchStats(totalStats);
+    }
+
+    //The players
+    //We will use the convention that the X player is the maximizing player and the O player is the minimizing player.
+    private int MAX = TicTacToeBoard.PLAYER_X;
+    private int MIN = TicTacToeBoard.PLAYER_O;
+
+    /**
+     * Returns the next move.
+     *
+     * Depth 1 is always searched to the end, so a move is returned even if the budget is tiny.
+     * The clock is only checked once it has finished.
+     * @param state The current board state in the game
+     * @return The best move of the deepest search that finished within the budget,
+     *         or null if the game is over
+     */
+    public Position getNextMove(TicTacToeBoard state) {
+        long start = System.nanoTime();
+        deadline = start + budgetNanos;
+        moveStats.reset();
+        depthOneDone = false;
+        outOfTime = false;
+
+        //The search plays and takes back moves on one copy of the board, so the game's board is never touched.
+        TicTacToeBoard board;
+        if (BitBoard.canRepresent(state)) {
+            board = new BitBoard(state);
+        } else {
+            board = (TicTacToeBoard) state.clone();
+        }
+
+        int numSquares = board.getWidth() * board.getHeight();
+        if (successorBuffers == null || successorBuffers[0].length != numSquares) {
+            successorBuffers = new int[numSquares + 1][numSquares];
+        }
+        if (orderMoves) {
+            if (ordering == null || !ordering.fits(board)) {
+                ordering = new MoveOrdering(board.getWidth(), board.getHeight(), board.getWinLength());
+            }
+            ordering.clear();
+        }
+
+        if (isGameOver(board)) {
+            return null;
+        }
+        int numMoves = Heuristic.getCandidateMoves(board, successorBuffers[0]);
+        moveStats.successors += numMoves;
+        if (numMoves == 0) {
+            return null;
+        }
+        int[] moves = successorBuffers[0];
+        int bestMove = moves[0];
+        int score = 0;
+
+        for (int depth = 1; depth <= numSquares; depth++) {
+            //Search the previous iteration's best move first
+            moveToFront(moves, numMoves, bestMove);
+
+            //Wins are exact, so there is nothing to aim a window at
+            int alpha = -INFINITY;
+            int beta = INFINITY;
+            if (depth > 1 && Math.abs(score) < Heuristic.WIN_THRESHOLD) {
+                alpha = score - ASPIRATION_WINDOW;
+                beta = score + ASPIRATION_WINDOW;
+            }
+            int value;
+            while (true) {
+                reachedHorizon = false;
+                value = searchRoot(board, moves, numMoves, depth, alpha, beta);
+                if (outOfTime) {
+                    break;
+                }
+                if (value <= alpha && alpha > -INFINITY) {
+                    moveStats.researches++;
+                    alpha = -INFINITY;
+                } else if (value >= beta && beta < INFINITY) {
+                    moveStats.researches++;
+                    beta = INFINITY;
+                } else {
+                    break;
+                }
+            }
+            if (outOfTime) {
+                //This iteration did not finish, so its result cannot be trusted
+                break;
+            }
+            bestMove = rootBestMove;
+            score = value;
+            depthOneDone = true;
+
+            if (!reachedHorizon) {
+                //Every line was searched to the end of the game, so searching deeper changes nothing
+                break;
+            }
+        }
+
+        moveStats.elapsedNanos = System.nanoTime() - start;
+        totalStats.add(moveStats);
+        return new Position(bestMove / board.getWidth(), bestMove % board.getWidth());
+    }
+
+    /**
+     * Moves a move to the front of a list, keeping the order of the others
+     * @param moves The moves
+     * @param numMoves The number of moves
+     * @param move The move to put first
+     */
+    private void moveToFront(int[] moves, int numMoves, int move) {
+        for (int i = 0; i < numMoves; i++) {
+            if (moves[i] == move) {
+                for (int j = i; j > 0; j--) {
+                    moves[j] = moves[j - 1];
+                }
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Searches every root move to a fixed depth. The first move gets the full
+     * window and the others a null window, and the best move is left in rootBestMove.
+     * @param state The current board state in the game
+     * @param moves The root moves, in the order to search them
+     * @param numMoves The number of root moves
+     * @param depth The number of moves to look ahead
+     * @param alpha The lower end of the window, for the player to move
+     * @param beta The upper end of the window, for the player to move
+     * @return The value of the best root move for the player to move, or a bound
+     *         on it if it falls outside the window
+     */
+    private int searchRoot(TicTacToeBoard state, int[] moves, int numMoves, int depth, int alpha, int beta) {
+        int value = -INFINITY;
+        rootBestMove = moves[0];
+        moveStats.visit(0);
+
+        for (int i = 0; i < numMoves; i++) {
+            state.makeMove(moves[i]);
+            int bValue = searchChild(state, i, 1, depth, alpha, beta);
+            state.unmakeMove(moves[i]);
+            //Only a strictly better move replaces the best one, so the first of equal moves is kept
+            if (bValue > value) {
+                value = bValue;
+                rootBestMove = moves[i];
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Searches a successor, with the full window if it is the first one and
+     * with a null window otherwise. A null window search that shows the
+     * successor is better than alpha is repeated with the full window.
+     * @param state The board after the move to the successor
+     * @param index The successor's place in the search order
+     * @param ply The number of moves played since the root of the search, including the move to the successor
+     * @param depth The number of moves to look ahead from the root
+     * @param alpha The lower end of the window, for the player who moved
+     * @param beta The upper end of the window, for the player who moved
+     * @return The value of the successor for the player who moved
+     */
+    private int searchChild(TicTacToeBoard state, int index, int ply, int depth, int alpha, int beta) {
+        if (index == 0) {
+            return -negamax(state, ply, depth, -beta, -alpha);
+        }
+        int value = -negamax(state, ply, depth, -alpha - 1, -alpha);
+        if (value > alpha && value < beta) {
+            moveStats.researches++;
+            value = -negamax(state, ply, depth, -beta, -alpha);
+        }
+        return value;
+    }
+
+    /**
+     * Checks the clock every (CHECK_INTERVAL + 1) nodes, once depth 1 has
+     * finished. An interrupted search stops as if its time had run out.
+     * @return True if the budget has run out
+     */
+    private boolean isOutOfTime() {
+        if (depthOneDone && (moveStats.nodes & CHECK_INTERVAL) == 0
+                && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+            outOfTime = true;
+        }
+        return outOfTime;
+    }
+
+    /**
+     * Returns the utility at terminal states. Wins that take fewer moves are worth more.
+     * @param state The current board state in the game
+     * @param ply The number of moves played since the root of the search
+     * @return The value of the state for MAX
+     */
+    private int getValue(TicTacToeBoard state, int ply) {
+        try {
+            if (state.isWin(MAX)) {
+                return Heuristic.WIN_SCORE - ply;
+            } else if (state.isWin(MIN)) {
+                return -Heuristic.WIN_SCORE + ply;
+            }
+        } catch (Exception e) {
+            //player is not a legal player index
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether the game is over
+     * @param state The current board state in the game
+     * @return Boolean. True if game over, otherwise false
+     */
+    private boolean isGameOver(TicTacToeBoard state) {
+        try {
+            return state.isGameOver();
+        }
+        catch (Exception e) {
+            //Generic exception
+        }
+        return false;
+    }
+
+    /**
+     * Counts a cutoff and tells the move ordering about it
+     * @param move The move that caused the cutoff
+     * @param index The move's place in the node's search order
+     * @param ply The number of moves played since the root of the search
+     * @param depth The number of moves to look ahead from the root
+     * @param turn The player to move at the node
+     */
+    private void recordCutoff(int move, int index, int ply, int depth, int turn) {
+        moveStats.cutoffs++;
+        if (index == 0) {
+            moveStats.firstMoveCutoffs++;
+        }
+        if (ordering != null) {
+            ordering.recordCutoff(move, ply, turn, depth - ply);
+        }
+    }
+
+    /**
+     * Returns the value of the game state for the player to move
+     * @param state The current board state in the game
+     * @param ply The number of moves played since the root of the search
+     * @param depth The number of moves to look ahead from the root
+     * @param alpha The value the player to move can already guarantee
+     * @param beta The value the opponent can already hold the player to move to
+     * @return The value, or a bound on it if it falls outside the window
+     */
+    private int negamax(TicTacToeBoard state, int ply, int depth, int alpha, int beta) {
+        moveStats.visit(ply);
+        int turn = state.getTurn();
+        int sign = (turn == MAX) ? 1 : -1;
+        if (isGameOver(state)) {
+            moveStats.evaluations++;
+            return sign * getValue(state, ply);
+        }
+        if (isOutOfTime()) {
+            return 0;
+        }
+        if (ply == depth) {
+            reachedHorizon = true;
+            moveStats.evaluations++;
+            return sign * Heuristic.evaluate(state);
+        }
+
+        int value = -INFINITY;
+        int numMoves = Heuristic.getCandidateMoves(state, successorBuffers[ply]);
+        moveStats.successors += numMoves;
+        int[] moves = successorBuffers[ply];
+        if (ordering != null) {
+            ordering.order(moves, numMoves, ply, turn, -1);
+        }
+        for (int i = 0; i < numMoves; i++) {
+            state.makeMove(moves[i]);
+            int bValue = searchChild(state, i, ply + 1, depth, alpha, beta);
+            state.unmakeMove(moves[i]);
+            if (bValue > value) {
+                value = bValue;
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                recordCutoff(moves[i], i, ply, depth, turn);
+                return value;
+            }
+        }
+
+        return value;
+    }
+}
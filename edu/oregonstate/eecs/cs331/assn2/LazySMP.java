@@ -0,0 +1,589 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * This class represents the module for multithreaded "lazy SMP" search.
+ *
+ * Several worker threads run the same iterative-deepening alpha-beta search on
+ * the same position at the same time. They do not split the tree between them;
+ * instead they share one lock-free transposition table, so whatever one thread
+ * finds out about a position the others get for free. The threads search the
+ * root moves in slightly different orders and odd threads start one ply deeper,
+ * which spreads them over different parts of the tree. Below the root, each
+ * thread sorts the moves with its own MoveOrdering, with the table's best move
+ * for the node first.
+ *
+ * When the time budget runs out, the move of the deepest iteration that any
+ * thread finished is played. The first thread always finishes depth 1, so
+ * there is a searched move however small the budget.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LazySMP implements Player, Instrumented {
+    /**
+     * The shared table has 2^TABLE_SIZE_BITS slots of 16 bytes each.
+     */
+    private static final int TABLE_SIZE_BITS = 20;
+
+    /**
+     * The clock is checked every (CHECK_INTERVAL + 1) nodes of each thread.
+     */
+    private static final int CHECK_INTERVAL = 255;
+
+    /**
+     * Returned by probe when the table does not settle a node.
+     */
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    //The players
+    //We will use the convention that the X player is the maximizing player and the O player is the minimizing player.
+    private static final int MAX = TicTacToeBoard.PLAYER_X;
+    private static final int MIN = TicTacToeBoard.PLAYER_O;
+
+    /**
+     * The number of worker threads
+     */
+    private int numThreads;
+
+    /**
+     * The time budget per move in nanoseconds
+     */
+    private long budgetNanos;
+
+    /**
+     * The table shared by all workers. It is kept for the whole game.
+     */
+    private SharedTranspositionTable table;
+
+    /**
+     * Runs the workers
+     */
+    private ExecutorService executor;
+
+    /**
+     * What the search for the last move did, and for every move so far.
+     * Each worker counts into its own SearchStats, and they are added up here when the move is done.
+     */
+    private SearchStats moveStats = new SearchStats();
+    private SearchStats totalStats = new SearchStats();
+
+    /**
+     * The depth of the iteration the last move came from, or 0 if there was no move
+     */
+    private int lastCompletedDepth;
+
+    /**
+     * Constructor
+     * @param numThreads The number of worker threads
+     * @param budgetMillis The time budget per move in milliseconds
+     */
+    public LazySMP(int numThreads, long budgetMillis) {
+        this.numThreads = numThreads;
+        this.budgetNanos = budgetMillis * 1000000L;
+        this.table = new SharedTranspositionTable(TABLE_SIZE_BITS);
+        this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "LazySMP worker");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Constructor, with one thread per core and the default budget
+     */
+    public LazySMP() {
+        this(Runtime.getRuntime().availableProcessors(), IterativeDeepening.DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Shuts down the worker threads. The player cannot be used afterwards.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the player type
+     */
+    public int getPlayerType() {
+        return LAZYSMP_PLAYER;
+    }
+
+    /**
+     * Returns the depth of the iteration the last move came from. Package-private for tests.
+     */
+    int getLastCompletedDepth() {
+        return lastCompletedDepth;
+    }
+
+    /**
+     * Returns what the searches of all the workers for the last move did
+     */
+    public SearchStats getLastMoveStats() {
+        return new SearchStats(moveStats);
+    }
+
+    /**
+     * Returns what the searches for every move so far did
+     */
+    public SearchStats getTotalStats() {
+        return new SearchStats(totalStats);
+    }
+
+    /**
+     * Returns the next move.
+     * @param state The current board state in the game
+     * @return The best move of the deepest iteration any worker finished
+     * @throws Exception If the search is interrupted
+     */
+    public Position getNextMove(TicTacToeBoard state) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+
+        //Each search has its own flag, so workers of an earlier search that was
+        //interrupted, and are still winding down, cannot stop this one
+        AtomicBoolean stop = new AtomicBoolean();
+
+        List<Worker> workers = new ArrayList<Worker>();
+        for (int id = 0; id < numThreads; id++) {
+            TicTacToeBoard board;
+            if (BitBoard.canRepresent(state)) {
+                board = new BitBoard(state);
+            } else {
+                board = (TicTacToeBoard) state.clone();
+            }
+            workers.add(new Worker(id, board, stop, deadline));
+        }
+        try {
+            executor.invokeAll(workers);
+        } catch (InterruptedException e) {
+            //invokeAll cancels the workers, but they only see the interrupt every few nodes
+            //and worker 0 finishes depth 1 regardless. Tell them all to end.
+            stop.set(true);
+            throw e;
+        }
+
+        moveStats.reset();
+        for (Worker w : workers) {
+            moveStats.add(w.stats);
+        }
+        moveStats.elapsedNanos = System.nanoTime() - start;
+        totalStats.add(moveStats);
+
+        //The deepest finished iteration wins. Ties go to the lowest thread id.
+        Worker best = null;
+        for (Worker w : workers) {
+            if (w.bestMove >= 0 && (best == null || w.completedDepth > best.completedDepth)) {
+                best = w;
+            }
+        }
+        if (best == null) {
+            lastCompletedDepth = 0;
+            return null;
+        }
+        lastCompletedDepth = best.completedDepth;
+        return new Position(best.bestMove / state.getWidth(), best.bestMove % state.getWidth());
+    }
+
+    /**
+     * Returns the utility at terminal states. Wins that take fewer moves are worth more.
+     * @param state The current board state in the game
+     * @param ply The number of moves played since the root of the search
+     * @return The value of the state for MAX
+     */
+    private static int getValue(TicTacToeBoard state, int ply) {
+        try {
+            if (state.isWin(MAX)) {
+                return Heuristic.WIN_SCORE - ply;
+            } else if (state.isWin(MIN)) {
+                return -Heuristic.WIN_SCORE + ply;
+            }
+        } catch (Exception e) {
+            //player is not a legal player index
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether the game is over
+     * @param state The current board state in the game
+     * @return Boolean. True if game over, otherwise false
+     */
+    private static boolean isGameOver(TicTacToeBoard state) {
+        try {
+            return state.isGameOver();
+        }
+        catch (Exception e) {
+            //Generic exception
+        }
+        return false;
+    }
+
+    /**
+     * Converts a value relative to the search root into one relative to the node, for storing.
+     * Win values count the moves from the root, and the same position can be at different
+     * distances from the root in different searches.
+     */
+    private static int toTableValue(int value, int ply) {
+        if (value > Heuristic.WIN_THRESHOLD) {
+            return value + ply;
+        } else if (value < -Heuristic.WIN_THRESHOLD) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /**
+     * Converts a stored value back into one relative to the search root.
+     */
+    private static int fromTableValue(int value, int ply) {
+        if (value > Heuristic.WIN_THRESHOLD) {
+            return value - ply;
+        } else if (value < -Heuristic.WIN_THRESHOLD) {
+            return value + ply;
+        }
+        return value;
+    }
+
+    /**
+     * One search thread. Each worker has its own copy of the board and its own move buffers;
+     * only the table is shared.
+     */
+    private class Worker implements Callable<Void> {
+        private int id;
+        private TicTacToeBoard state;
+
+        /**
+         * Set once the budget runs out, a worker has searched the whole tree,
+         * or the search is interrupted. Shared by the workers of one search.
+         */
+        private AtomicBoolean stop;
+
+        /**
+         * When the search's budget runs out, in System.nanoTime() terms.
+         */
+        private long deadline;
+        private int[][] successorBuffers;
+        private MoveOrdering ordering;
+        private boolean reachedHorizon;
+
+        /**
+         * Set while worker 0 searches depth 1, which neither the clock nor the other workers stop
+         */
+        private boolean mustFinish;
+
+        /**
+         * What this worker's search did
+         */
+        SearchStats stats = new SearchStats();
+
+        /**
+         * The result of the deepest finished iteration
+         */
+        int completedDepth;
+        int bestMove = -1;
+
+        Worker(int id, TicTacToeBoard state, AtomicBoolean stop, long deadline) {
+            this.id = id;
+            this.state = state;
+            this.stop = stop;
+            this.deadline = deadline;
+            int numSquares = state.getWidth() * state.getHeight();
+            this.successorBuffers = new int[numSquares + 1][numSquares];
+            this.ordering = new MoveOrdering(state.getWidth(), state.getHeight(), state.getWinLength());
+        }
+
+        public Void call() {
+            int numMoves = Heuristic.getCandidateMoves(state, successorBuffers[0]);
+            stats.successors += numMoves;
+            if (numMoves == 0 || isGameOver(state)) {
+                return null;
+            }
+            int[] moves = successorBuffers[0];
+
+            //Helper threads search the root moves in a rotated order
+            rotate(moves, numMoves, id % numMoves);
+            int move = moves[0];
+
+            int maxDepth = state.getNumEmptySquares();
+            for (int depth = 1 + (id & 1); depth <= maxDepth; depth++) {
+                //Search the previous iteration's best move first
+                moveToFront(moves, numMoves, move);
+
+                reachedHorizon = false;
+                mustFinish = (id == 0 && depth == 1);
+                move = searchRoot(moves, numMoves, depth);
+                if (stop.get() && !mustFinish) {
+                    //This iteration did not finish, so its result cannot be trusted
+                    break;
+                }
+                completedDepth = depth;
+                bestMove = move;
+
+                if (!reachedHorizon) {
+                    //Every line was searched to the end of the game, so nobody needs to search deeper
+                    stop.set(true);
+                    break;
+                }
+            }
+
+            if (bestMove < 0 && completedDepth == 0) {
+                //Not even depth 1 finished. Play the first move rather than nothing.
+                bestMove = moves[0];
+            }
+            return null;
+        }
+
+        /**
+         * Rotates the first numMoves moves left by amount
+         */
+        private void rotate(int[] moves, int numMoves, int amount) {
+            for (int r = 0; r < amount; r++) {
+                int first = moves[0];
+                for (int i = 1; i < numMoves; i++) {
+                    moves[i - 1] = moves[i];
+                }
+                moves[numMoves - 1] = first;
+            }
+        }
+
+        /**
+         * Moves a move to the front of a list, keeping the order of the others
+         */
+        private void moveToFront(int[] moves, int numMoves, int move) {
+            for (int i = 0; i < numMoves; i++) {
+                if (moves[i] == move) {
+                    for (int j = i; j > 0; j--) {
+                        moves[j] = moves[j - 1];
+                    }
+                    moves[0] = move;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Checks the clock every (CHECK_INTERVAL + 1) nodes, and returns true if the search should stop.
+         * A worker is interrupted when the thread waiting for the workers is.
+         */
+        private boolean isStopped() {
+            if (mustFinish) {
+                return false;
+            }
+            if ((stats.nodes & CHECK_INTERVAL) == 0
+                    && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+                stop.set(true);
+            }
+            return stop.get();
+        }
+
+        /**
+         * Searches every root move to a fixed depth and returns the best one
+         */
+        private int searchRoot(int[] moves, int numMoves, int depth) {
+            int alpha = -Heuristic.WIN_SCORE - 1;
+            int beta = Heuristic.WIN_SCORE + 1;
+            int best = moves[0];
+            stats.visit(0);
+
+            if (state.getTurn() == MAX) {
+                int value = -Heuristic.WIN_SCORE - 1;
+                for (int i = 0; i < numMoves; i++) {
+                    state.makeMove(moves[i]);
+                    int bValue = getMinValue(1, depth, alpha, beta);
+                    state.unmakeMove(moves[i]);
+                    if (bValue > value) {
+                        value = bValue;
+                        best = moves[i];
+                    }
+                    alpha = Math.max(alpha, value);
+                }
+            } else {
+                int value = Heuristic.WIN_SCORE + 1;
+                for (int i = 0; i < numMoves; i++) {
+                    state.makeMove(moves[i]);
+                    int bValue = getMaxValue(1, depth, alpha, beta);
+                    state.unmakeMove(moves[i]);
+                    if (bValue < value) {
+                        value = bValue;
+                        best = moves[i];
+                    }
+                    beta = Math.min(beta, value);
+                }
+            }
+
+            return best;
+        }
+
+        /**
+         * Looks the node up in the shared table
+         * @return The node's value if the stored result settles it, or NO_VALUE
+         */
+        private int probe(long key, int ply, int depth, int alpha, int beta) {
+            long data = table.find(key);
+            if (data == 0 || SharedTranspositionTable.getDepth(data) < depth - ply) {
+                stats.tableMisses++;
+                return NO_VALUE;
+            }
+            int value = fromTableValue(SharedTranspositionTable.getValue(data), ply);
+            byte bound = SharedTranspositionTable.getBound(data);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && value >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                //The stored search may have been cut off by its own horizon
+                reachedHorizon = true;
+                stats.tableHits++;
+                return value;
+            }
+            stats.tableMisses++;
+            return NO_VALUE;
+        }
+
+        /**
+         * Stores the node's result in the shared table, unless the search was stopped
+         * part way through the node.
+         */
+        private void store(long key, int ply, int depth, int value, int alphaOrig, int betaOrig, int move) {
+            if (stop.get()) {
+                return;
+            }
+            byte bound;
+            if (value <= alphaOrig) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (value >= betaOrig) {
+                bound = TranspositionTable.LOWER_BOUND;
+            } else {
+                bound = TranspositionTable.EXACT;
+            }
+            table.store(key, toTableValue(value, ply), bound, move, depth - ply);
+        }
+
+        /**
+         * Sorts the node's moves, with the table's best move for the node first
+         */
+        private void orderMoves(long key, int ply, int[] moves, int numMoves) {
+            int tableMove = -1;
+            long data = table.find(key);
+            if (data != 0 && SharedTranspositionTable.getBestMove(data) != TranspositionTable.NO_MOVE) {
+                tableMove = SharedTranspositionTable.getBestMove(data);
+            }
+            ordering.order(moves, numMoves, ply, state.getTurn(), tableMove);
+        }
+
+        /**
+         * Counts a cutoff and tells the move ordering about it
+         */
+        private void recordCutoff(int move, int index, int ply, int depth) {
+            stats.cutoffs++;
+            if (index == 0) {
+                stats.firstMoveCutoffs++;
+            }
+            ordering.recordCutoff(move, ply, state.getTurn(), depth - ply);
+        }
+
+        private int getMinValue(int ply, int depth, int alpha, int beta) {
+            stats.visit(ply);
+            if (isGameOver(state)) {
+                stats.evaluations++;
+                return getValue(state, ply);
+            }
+            if (isStopped()) {
+                return 0;
+            }
+            if (ply == depth) {
+                reachedHorizon = true;
+                stats.evaluations++;
+                return Heuristic.evaluate(state);
+            }
+
+            long key = state.getHash();
+            int tableValue = probe(key, ply, depth, alpha, beta);
+            if (tableValue != NO_VALUE) {
+                return tableValue;
+            }
+
+            int alphaOrig = alpha;
+            int betaOrig = beta;
+            int value = Heuristic.WIN_SCORE + 1;
+            int best = TranspositionTable.NO_MOVE;
+            int numMoves = Heuristic.getCandidateMoves(state, successorBuffers[ply]);
+            stats.successors += numMoves;
+            int[] moves = successorBuffers[ply];
+            orderMoves(key, ply, moves, numMoves);
+            for (int i = 0; i < numMoves; i++) {
+                state.makeMove(moves[i]);
+                int bValue = getMaxValue(ply + 1, depth, alpha, beta);
+                state.unmakeMove(moves[i]);
+                if (bValue < value) {
+                    value = bValue;
+                    best = moves[i];
+                }
+                if (value <= alpha) {
+                    recordCutoff(moves[i], i, ply, depth);
+                    break;
+                }
+                beta = Math.min(beta, value);
+            }
+
+            store(key, ply, depth, value, alphaOrig, betaOrig, best);
+            return value;
+        }
+
+        private int getMaxValue(int ply, int depth, int alpha, int beta) {
+            stats.visit(ply);
+            if (isGameOver(state)) {
+                stats.evaluations++;
+                return getValue(state, ply);
+            }
+            if (isStopped()) {
+                return 0;
+            }
+            if (ply == depth) {
+                reachedHorizon = true;
+                stats.evaluations++;
+                return Heuristic.evaluate(state);
+            }
+
+            long key = state.getHash();
+            int tableValue = probe(key, ply, depth, alpha, beta);
+            if (tableValue != NO_VALUE) {
+                return tableValue;
+            }
+
+            int alphaOrig = alpha;
+            int betaOrig = beta;
+            int value = -Heuristic.WIN_SCORE - 1;
+            int best = TranspositionTable.NO_MOVE;
+            int numMoves = Heuristic.getCandidateMoves(state, successorBuffers[ply]);
+            stats.successors += numMoves;
+            int[] moves = successorBuffers[ply];
+            orderMoves(key, ply, moves, numMoves);
+            for (int i = 0; i < numMoves; i++) {
+                state.makeMove(moves[i]);
+                int bValue = getMinValue(ply + 1, depth, alpha, beta);
+                state.unmakeMove(moves[i]);
+                if (bValue > value) {
+                    value = bValue;
+                    best = moves[i];
+                }
+                if (value >= beta) {
+                    recordCutoff(moves[i], i, ply, depth);
+                    break;
+                }
+                alpha = Math.max(alpha, value);
+            }
+
+            store(key, ply, depth, value, alphaOrig, betaOrig, best);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Puts load on a GameServer: opens many sessions at once, and plays games in
+ * each of them with a RandomPlayer as the client.
+ *
+ * It keeps its own copy of every board, so it checks the server's moves, and
+ * times every request from sending it to having the server's full answer.
+ * At the end it prints the MOVE round trips per second and their latency
+ * percentiles, and the NEW requests and their latency separately, since a
+ * NEW where the server moves first also waits for that move.
+ *
+ * Usage: java LoadGenerator &lt;port&gt; &lt;sessions&gt; &lt;games per session&gt;
+ * &lt;player type&gt; [&lt;width&gt; &lt;height&gt; &lt;win length&gt;]
+ *
+ */
+public class LoadGenerator {
+
+	/**
+	 * The server's port
+	 */
+	private int port;
+
+	/**
+	 * How many sessions to open, and how many games to play in each
+	 */
+	private int numSessions;
+	private int gamesPerSession;
+
+	/**
+	 * What to ask the server to play
+	 */
+	private String playerType;
+	private int width;
+	private int height;
+	private int winLength;
+
+	/**
+	 * Results of the last run: the sorted latencies of the MOVE and NEW requests
+	 */
+	private long[] moveLatencies;
+	private long[] newLatencies;
+	private long elapsedNanos;
+
+	/**
+	 * Creates a load generator.
+	 *
+	 * @param port
+	 *            The server's port on localhost.
+	 * @param numSessions
+	 *            The number of sessions to run at the same time.
+	 * @param gamesPerSession
+	 *            The number of games to play in each session.
+	 * @param playerType
+	 *            The player type for the server to play, as on the command line.
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 */
+	public LoadGenerator(int port, int numSessions, int gamesPerSession,
+			String playerType, int width, int height, int winLength) {
+		this.port = port;
+		this.numSessions = numSessions;
+		this.gamesPerSession = gamesPerSession;
+		this.playerType = playerType;
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+	}
+
+	/**
+	 * Runs every session and waits for them to finish.
+	 *
+	 * @throws Exception
+	 *             If a session fails or the server answers wrongly.
+	 */
+	public void run() throws Exception {
+		List<Callable<long[][]>> clients = new ArrayList<Callable<long[][]>>();
+		for (int i = 0; i < numSessions; i++) {
+			clients.add(new Callable<long[][]>() {
+				public long[][] call() throws Exception {
+					return runSession();
+				}
+			});
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numSessions);
+		long start = System.nanoTime();
+		try {
+			List<long[]> moveResults = new ArrayList<long[]>();
+			List<long[]> newResults = new ArrayList<long[]>();
+			for (Future<long[][]> result : executor.invokeAll(clients)) {
+				long[][] sessionLatencies = result.get();
+				moveResults.add(sessionLatencies[0]);
+				newResults.add(sessionLatencies[1]);
+			}
+			moveLatencies = merge(moveResults);
+			newLatencies = merge(newResults);
+		} catch (ExecutionException e) {
+			throw new Exception("Session failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			elapsedNanos = System.nanoTime() - start;
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Puts the latencies of every session into one sorted array.
+	 */
+	private static long[] merge(List<long[]> results) {
+		int numLatencies = 0;
+		for (long[] sessionLatencies : results) {
+			numLatencies += sessionLatencies.length;
+		}
+		long[] latencies = new long[numLatencies];
+		int n = 0;
+		for (long[] sessionLatencies : results) {
+			System.arraycopy(sessionLatencies, 0, latencies, n, sessionLatencies.length);
+			n += sessionLatencies.length;
+		}
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	/**
+	 * Plays the games of one session.
+	 *
+	 * @return The latency of every MOVE request, then of every NEW request,
+	 *         in nanoseconds.
+	 */
+	private long[][] runSession() throws Exception {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "US-ASCII"));
+			Player client = new RandomPlayer();
+			long[] sessionMoveLatencies = new long[gamesPerSession * width * height];
+			long[] sessionNewLatencies = new long[gamesPerSession];
+			int numMoves = 0;
+
+			for (int game = 0; game < gamesPerSession; game++) {
+				//Take turns being X and O
+				int clientSide = (game % 2 == 0) ? TicTacToeBoard.PLAYER_X : TicTacToeBoard.PLAYER_O;
+				TicTacToeBoard board = new TicTacToeBoard(width, height, winLength);
+				board.setTurn(TicTacToeBoard.PLAYER_X);
+
+				long start = System.nanoTime();
+				out.write("NEW " + playerType + " " + (clientSide == TicTacToeBoard.PLAYER_X ? "X" : "O")
+						+ " " + width + " " + height + " " + winLength + "\n");
+				out.flush();
+				expect(in, "OK");
+				if (clientSide == TicTacToeBoard.PLAYER_O) {
+					readServerMove(in, board);
+				}
+				sessionNewLatencies[game] = System.nanoTime() - start;
+
+				while (!board.isGameOver()) {
+					Position move = client.getNextMove(board);
+					start = System.nanoTime();
+					out.write("MOVE " + move.row + " " + move.col + "\n");
+					out.flush();
+					board.setState(move.row, move.col, board.getTurn());
+					board.setTurn(1 - board.getTurn());
+					if (board.isGameOver()) {
+						expectEnd(in);
+					} else {
+						readServerMove(in, board);
+					}
+					sessionMoveLatencies[numMoves++] = System.nanoTime() - start;
+				}
+			}
+
+			out.write("QUIT\n");
+			out.flush();
+			return new long[][] { Arrays.copyOf(sessionMoveLatencies, numMoves), sessionNewLatencies };
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * Reads the server's move, checks it and plays it on the client's board.
+	 * Reads the END line too if the move ends the game.
+	 */
+	private void readServerMove(BufferedReader in, TicTacToeBoard board) throws Exception {
+		String line = in.readLine();
+		if (line == null || !line.startsWith("MOVE ")) {
+			throw new Exception("Expected MOVE, got " + line);
+		}
+		String[] words = line.split(" ");
+		int row = Integer.parseInt(words[1]);
+		int col = Integer.parseInt(words[2]);
+		if (!board.isEmpty(row * board.getWidth() + col)) {
+			throw new Exception("Server played on a taken square");
+		}
+		board.setState(row, col, board.getTurn());
+		board.setTurn(1 - board.getTurn());
+		if (board.isGameOver()) {
+			expectEnd(in);
+		}
+	}
+
+	/**
+	 * Reads the line that ends a game.
+	 */
+	private static void expectEnd(BufferedReader in) throws Exception {
+		String line = in.readLine();
+		if (line == null || !line.startsWith("END")) {
+			throw new Exception("Expected END, got " + line);
+		}
+	}
+
+	/**
+	 * Reads a line and checks that it is the expected one.
+	 */
+	private static void expect(BufferedReader in, String expected) throws Exception {
+		String line = in.readLine();
+		if (!expected.equals(line)) {
+			throw new Exception("Expected " + expected + ", got " + line);
+		}
+	}
+
+	/**
+	 * @return The number of MOVE requests timed in the last run.
+	 */
+	public long getMoves() {
+		return moveLatencies.length;
+	}
+
+	/**
+	 * @return The number of NEW requests timed in the last run.
+	 */
+	public long getNewGames() {
+		return newLatencies.length;
+	}
+
+	/**
+	 * @return The wall-clock time of the last run in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns a latency percentile of the MOVE requests of the last run.
+	 *
+	 * @param percentile
+	 *            Between 0 and 100.
+	 * @return The latency in nanoseconds that this percentage of MOVE
+	 *         requests took at most.
+	 */
+	public long getLatencyPercentile(double percentile) {
+		return getPercentile(moveLatencies, percentile);
+	}
+
+	/**
+	 * Returns a latency percentile of the NEW requests of the last run.
+	 *
+	 * @param percentile
+	 *            Between 0 and 100.
+	 * @return The latency in nanoseconds that this percentage of NEW requests
+	 *         took at most.
+	 */
+	public long getNewLatencyPercentile(double percentile) {
+		return getPercentile(newLatencies, percentile);
+	}
+
+	/**
+	 * Returns a percentile of sorted latencies.
+	 */
+	private static long getPercentile(long[] latencies, double percentile) {
+		if (latencies.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+		return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+	}
+
+	/**
+	 * The entry point for running the load generator.
+	 *
+	 * @param args
+	 *            The command line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int width = TicTacToeBoard.SIZE;
+			int height = TicTacToeBoard.SIZE;
+			int winLength = TicTacToeBoard.SIZE;
+			if( args.length != 4 && args.length != 7 ) {
+				System.out.println("Usage: program <port> <sessions> <games per session> <player type> [<width> <height> <win length>]");
+				System.exit(-1);
+			}
+			int port = Integer.parseInt(args[0]);
+			int numSessions = Integer.parseInt(args[1]);
+			int gamesPerSession = Integer.parseInt(args[2]);
+			if( numSessions < 1 || gamesPerSession < 1 ) {
+				throw new Exception("Sessions and games must be positive");
+			}
+			if( args.length == 7 ) {
+				width = Integer.parseInt(args[4]);
+				height = Integer.parseInt(args[5]);
+				winLength = Integer.parseInt(args[6]);
+			}
+
+			LoadGenerator generator = new LoadGenerator(port, numSessions,
+					gamesPerSession, args[3], width, height, winLength);
+			generator.run();
+
+			double seconds = generator.getElapsedNanos() / 1e9;
+			System.out.println(String.format("%d sessions, %d games, %d moves in %.3f s, %.0f moves/s",
+					numSessions, generator.getNewGames(), generator.getMoves(),
+					seconds, generator.getMoves() / seconds));
+			System.out.println(String.format("MOVE latency p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+					generator.getLatencyPercentile(50) / 1e6,
+					generator.getLatencyPercentile(99) / 1e6,
+					generator.getLatencyPercentile(100) / 1e6));
+			System.out.println(String.format("NEW latency p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+					generator.getNewLatencyPercentile(50) / 1e6,
+					generator.getNewLatencyPercentile(99) / 1e6,
+					generator.getNewLatencyPercentile(100) / 1e6));
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,546 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Monte Carlo Tree Search player (UCT), for boards too big for MiniMax to
+ * search to the end.
+ *
+ * Each iteration walks down the tree, picking at every node the child with
+ * the best upper confidence bound, grows the tree by one node's children,
+ * plays the rest of the game out at random like RandomPlayer, and adds the
+ * result to every node on the way down. The tree only gets the moves near
+ * the taken squares (see Heuristic.getCandidateMoves), while the playouts
+ * pick from every empty square. The search has a time budget, an iteration
+ * budget or both, and stops at whichever runs out first. With only an
+ * iteration budget every move costs the same number of playouts however busy
+ * the machine is. When the search stops, the root move that was visited most
+ * is played.
+ *
+ * With more than one thread, every thread runs iterations on the same tree.
+ * A thread counts a virtual loss on each node it walks through until its
+ * playout is done, so the other threads are steered towards other parts of
+ * the tree. A node's statistics are guarded by its parent's lock.
+ *
+ * The tree is kept between moves. When the next position is the one after the
+ * move that was played and one of the replies that the tree already has, that
+ * reply's subtree becomes the new root, with all its statistics. The rest of
+ * the tree is dropped, and the nodes of the kept subtree are counted again,
+ * so the tree can grow back up to MAX_NODES.
+ *
+ * Playouts do not allocate: each thread plays them out on its own copy of the
+ * board with makeMove and takes them back with unmakeMove.
+ *
+ */
+public class MCTSPlayer implements Player, Instrumented {
+
+	/**
+	 * The weight of the exploration term of the upper confidence bound
+	 */
+	private static final double EXPLORATION = 1.4;
+
+	/**
+	 * The tree stops growing at this many nodes, and later iterations play
+	 * out from the leaves they reach.
+	 */
+	private static final int MAX_NODES = 1 << 21;
+
+	/**
+	 * The number of search threads
+	 */
+	private int numThreads;
+
+	/**
+	 * The time budget per move in nanoseconds, or 0 for no limit
+	 */
+	private long budgetNanos;
+
+	/**
+	 * The iteration budget per move, or 0 for no limit
+	 */
+	private long maxIterations;
+
+	/**
+	 * Runs the search threads
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * The root of the tree kept from the last move, or null
+	 */
+	private Node root;
+	private int rootWidth;
+	private int rootHeight;
+	private int rootWinLength;
+
+	/**
+	 * The number of nodes in the tree under root
+	 */
+	private AtomicInteger numNodes = new AtomicInteger();
+
+	/**
+	 * The iterations started for the current move
+	 */
+	private AtomicLong iterations = new AtomicLong();
+
+	/**
+	 * When the current move's budget runs out, in System.nanoTime() terms.
+	 */
+	private volatile long deadline;
+
+	/**
+	 * What the search for the last move did, and for every move so far.
+	 * Each thread counts into its own SearchStats, and they are added up here when the move is done.
+	 * Nodes are tree nodes walked through, evaluations are playouts, successors are tree nodes
+	 * created, and table hits are iterations inherited from the last move's tree.
+	 */
+	private SearchStats moveStats = new SearchStats();
+	private SearchStats totalStats = new SearchStats();
+
+	/**
+	 * A position in the tree. The statistics are from the point of view of
+	 * the player who made the move into the node, and are guarded by the
+	 * parent's lock (the root's by its own).
+	 */
+	private static class Node {
+		/**
+		 * The square played to get here, or -1 at a new root
+		 */
+		final int move;
+
+		/**
+		 * The hash of the board at this node
+		 */
+		final long hash;
+
+		/**
+		 * The winner if the game is over here, PLAYER_NONE for a draw, or
+		 * NOT_OVER if it is not over
+		 */
+		final int winner;
+
+		/**
+		 * The children, once the node has been expanded
+		 */
+		volatile Node[] children;
+
+		/**
+		 * Playouts through this node, the points they scored (2 for a win, 1
+		 * for a draw) and the threads walking through it now
+		 */
+		int visits;
+		int points;
+		int virtualLosses;
+
+		Node(int move, long hash, int winner) {
+			this.move = move;
+			this.hash = hash;
+			this.winner = winner;
+		}
+	}
+
+	/**
+	 * The winner of a Node whose game is not over
+	 */
+	private static final int NOT_OVER = -2;
+
+	/**
+	 * Constructor
+	 * @param numThreads The number of search threads
+	 * @param budgetMillis The time budget per move in milliseconds, or 0 to only use the iteration budget
+	 * @param maxIterations The number of iterations per move, or 0 to only use the time budget.
+	 *                      The search stops at whichever budget runs out first. If both are 0,
+	 *                      the default time budget is used.
+	 */
+	public MCTSPlayer(int numThreads, long budgetMillis, long maxIterations) {
+		if (budgetMillis <= 0 && maxIterations <= 0) {
+			budgetMillis = IterativeDeepening.DEFAULT_BUDGET_MILLIS;
+		}
+		this.numThreads = numThreads;
+		this.budgetNanos = Math.max(0, budgetMillis) * 1000000L;
+		this.maxIterations = Math.max(0, maxIterations);
+		this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MCTSPlayer worker");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Constructor, with only a time budget
+	 * @param numThreads The number of search threads
+	 * @param budgetMillis The time budget per move in milliseconds
+	 */
+	public MCTSPlayer(int numThreads, long budgetMillis) {
+		this(numThreads, budgetMillis, 0);
+	}
+
+	/**
+	 * Constructor, with one thread per core and the default budget
+	 */
+	public MCTSPlayer() {
+		this(Runtime.getRuntime().availableProcessors(), IterativeDeepening.DEFAULT_BUDGET_MILLIS);
+	}
+
+	/**
+	 * Shuts down the search threads. The player cannot be used afterwards.
+	 */
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the player type
+	 */
+	public int getPlayerType() {
+		return Player.MCTS_PLAYER;
+	}
+
+	/**
+	 * Returns the number of nodes in the tree kept for the next move.
+	 * It is package-private so the tests can check that dropped subtrees are not counted.
+	 */
+	int getNumNodes() {
+		return numNodes.get();
+	}
+
+	/**
+	 * Returns what the search for the last move did
+	 */
+	public SearchStats getLastMoveStats() {
+		return new SearchStats(moveStats);
+	}
+
+	/**
+	 * Returns what the searches for every move so far did
+	 */
+	public SearchStats getTotalStats() {
+		return new SearchStats(totalStats);
+	}
+
+	/**
+	 * Returns the next move.
+	 * @param state The current board state
+	 * @return The root move with the most playouts, or null if the game is over
+	 * @throws Exception If the search is interrupted
+	 */
+	public Position getNextMove(TicTacToeBoard state) throws Exception {
+		moveStats.reset();
+		if (state.isGameOver()) {
+			return null;
+		}
+		long start = System.nanoTime();
+		deadline = start + budgetNanos;
+		iterations.set(0);
+
+		List<Worker> workers = new ArrayList<Worker>();
+		for (int id = 0; id < numThreads; id++) {
+			TicTacToeBoard board;
+			if (BitBoard.canRepresent(state)) {
+				board = new BitBoard(state);
+			} else {
+				board = (TicTacToeBoard) state.clone();
+			}
+			workers.add(new Worker(id, board));
+		}
+
+		findRoot(workers.get(0).state);
+		moveStats.tableHits = root.visits;
+		executor.invokeAll(workers);
+
+		for (Worker w : workers) {
+			moveStats.add(w.stats);
+		}
+		moveStats.elapsedNanos = System.nanoTime() - start;
+		totalStats.add(moveStats);
+
+		Node[] children = root.children;
+		if (children == null) {
+			//No iteration got to grow the root. Play the first candidate move rather than nothing.
+			int[] moves = new int[state.getWidth() * state.getHeight()];
+			Heuristic.getCandidateMoves(state, moves);
+			root = null;
+			return new Position(moves[0] / state.getWidth(), moves[0] % state.getWidth());
+		}
+		Node best = children[0];
+		for (Node child : children) {
+			if (child.visits > best.visits) {
+				best = child;
+			}
+		}
+		//Keep the subtree of the move played, so the next search can start from the reply
+		root = best;
+		return new Position(best.move / state.getWidth(), best.move % state.getWidth());
+	}
+
+	/**
+	 * Makes root the node for a board: the kept root itself, one of its
+	 * children, or a new node if the tree does not have the board.
+	 * @param board The board to search, as the workers see it
+	 */
+	private void findRoot(TicTacToeBoard board) {
+		long hash = board.getHash();
+		if (root != null && rootWidth == board.getWidth() && rootHeight == board.getHeight()
+				&& rootWinLength == board.getWinLength()) {
+			if (root.hash == hash) {
+				numNodes.set(countNodes(root));
+				return;
+			}
+			Node[] children = root.children;
+			if (children != null) {
+				for (Node child : children) {
+					if (child.hash == hash) {
+						root = child;
+						numNodes.set(countNodes(root));
+						return;
+					}
+				}
+			}
+		}
+		root = new Node(-1, hash, NOT_OVER);
+		rootWidth = board.getWidth();
+		rootHeight = board.getHeight();
+		rootWinLength = board.getWinLength();
+		numNodes.set(1);
+	}
+
+	/**
+	 * Counts the nodes of a subtree. No worker is running, so the children can be read without locks.
+	 * @param top The root of the subtree
+	 * @return The number of nodes, including top
+	 */
+	private static int countNodes(Node top) {
+		int count = 0;
+		ArrayDeque<Node> pending = new ArrayDeque<Node>();
+		pending.push(top);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			count++;
+			Node[] children = node.children;
+			if (children != null) {
+				for (Node child : children) {
+					pending.push(child);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the winner of a board.
+	 * @return The winner's player index, PLAYER_NONE for a draw, or NOT_OVER
+	 */
+	private static int getWinner(TicTacToeBoard board) {
+		try {
+			if (!board.isGameOver()) {
+				return NOT_OVER;
+			} else if (board.isWin(TicTacToeBoard.PLAYER_X)) {
+				return TicTacToeBoard.PLAYER_X;
+			} else if (board.isWin(TicTacToeBoard.PLAYER_O)) {
+				return TicTacToeBoard.PLAYER_O;
+			}
+		} catch (Exception e) {
+			//player is not a legal player index
+		}
+		return TicTacToeBoard.PLAYER_NONE;
+	}
+
+	/**
+	 * One search thread. Each worker has its own copy of the board and its
+	 * own buffers; only the tree is shared.
+	 */
+	private class Worker implements Callable<Void> {
+		private int id;
+		private TicTacToeBoard state;
+		private Random random;
+
+		/**
+		 * The nodes of the current iteration's walk, root first
+		 */
+		private Node[] path;
+
+		/**
+		 * The moves of the current playout, and the empty squares left to pick from
+		 */
+		private int[] playoutMoves;
+		private int[] emptySquares;
+		private int[] candidates;
+
+		/**
+		 * What this worker's search did
+		 */
+		SearchStats stats = new SearchStats();
+
+		Worker(int id, TicTacToeBoard state) {
+			this.id = id;
+			this.state = state;
+			this.random = new Random();
+			int numSquares = state.getWidth() * state.getHeight();
+			this.path = new Node[numSquares + 2];
+			this.playoutMoves = new int[numSquares];
+			this.emptySquares = new int[numSquares];
+			this.candidates = new int[numSquares];
+		}
+
+		public Void call() {
+			//A worker is interrupted when the thread waiting for the workers is
+			while ((budgetNanos == 0 || System.nanoTime() < deadline) && !Thread.currentThread().isInterrupted()) {
+				if (maxIterations > 0 && iterations.incrementAndGet() > maxIterations) {
+					break;
+				}
+				iterate();
+			}
+			return null;
+		}
+
+		/**
+		 * Runs one iteration: walk down, expand, play out and back up.
+		 */
+		private void iterate() {
+			Node node = root;
+			path[0] = node;
+			int depth = 0;
+			stats.visit(0);
+			synchronized (node) {
+				node.virtualLosses++;
+			}
+
+			//Walk down the tree while the nodes have children
+			while (node.winner == NOT_OVER) {
+				Node[] children = node.children;
+				if (children == null) {
+					if (node.visits == 0 && node != root) {
+						//Play out from a node the first time it is reached, before growing the tree under it
+						break;
+					}
+					children = expand(node);
+					if (children == null) {
+						break;
+					}
+				}
+				Node child = select(node, children);
+				state.makeMove(child.move);
+				path[++depth] = child;
+				node = child;
+				stats.visit(depth);
+			}
+
+			int winner = (node.winner == NOT_OVER) ? playOut() : node.winner;
+
+			for (int i = depth; i >= 0; i--) {
+				Node n = path[i];
+				synchronized ((i > 0) ? path[i - 1] : n) {
+					n.virtualLosses--;
+					n.visits++;
+					if (winner == TicTacToeBoard.PLAYER_NONE) {
+						n.points += 1;
+					} else if (winner != state.getTurn()) {
+						//The player who made the move into this node won
+						n.points += 2;
+					}
+				}
+				if (i > 0) {
+					state.unmakeMove(n.move);
+				}
+				path[i] = null;
+			}
+		}
+
+		/**
+		 * Gives a node its children, unless another thread did first or the tree is full.
+		 * @return The children, or null if the tree is full
+		 */
+		private Node[] expand(Node node) {
+			synchronized (node) {
+				if (node.children != null) {
+					return node.children;
+				}
+				if (numNodes.get() >= MAX_NODES) {
+					return null;
+				}
+				int numMoves = Heuristic.getCandidateMoves(state, candidates);
+				Node[] children = new Node[numMoves];
+				for (int i = 0; i < numMoves; i++) {
+					state.makeMove(candidates[i]);
+					children[i] = new Node(candidates[i], state.getHash(), getWinner(state));
+					state.unmakeMove(candidates[i]);
+				}
+				numNodes.addAndGet(numMoves);
+				stats.successors += numMoves;
+				node.children = children;
+				return children;
+			}
+		}
+
+		/**
+		 * Picks the child with the best upper confidence bound and counts a
+		 * virtual loss on it. Children nobody has walked through yet come first.
+		 */
+		private Node select(Node node, Node[] children) {
+			synchronized (node) {
+				double logVisits = Math.log(Math.max(1, node.visits + node.virtualLosses));
+				Node best = null;
+				double bestScore = Double.NEGATIVE_INFINITY;
+				//Threads start looking at different children, so they spread over the unvisited ones
+				int offset = id % children.length;
+				for (int j = 0; j < children.length; j++) {
+					Node child = children[(j + offset) % children.length];
+					int n = child.visits + child.virtualLosses;
+					if (n == 0) {
+						best = child;
+						break;
+					}
+					double score = child.points / (2.0 * n) + EXPLORATION * Math.sqrt(logVisits / n);
+					if (score > bestScore) {
+						bestScore = score;
+						best = child;
+					}
+				}
+				best.virtualLosses++;
+				return best;
+			}
+		}
+
+		/**
+		 * Plays random moves until the game is over, then takes them back.
+		 * @return The winner's player index, or PLAYER_NONE for a draw
+		 */
+		private int playOut() {
+			stats.evaluations++;
+			int numSquares = state.getWidth() * state.getHeight();
+			int numEmpty = 0;
+			for (int square = 0; square < numSquares; square++) {
+				if (state.isEmpty(square)) {
+					emptySquares[numEmpty++] = square;
+				}
+			}
+
+			int numMoves = 0;
+			int winner = NOT_OVER;
+			while (winner == NOT_OVER) {
+				int pick = random.nextInt(numEmpty);
+				int square = emptySquares[pick];
+				emptySquares[pick] = emptySquares[--numEmpty];
+				state.makeMove(square);
+				playoutMoves[numMoves++] = square;
+				winner = getWinner(state);
+			}
+
+			while (numMoves > 0) {
+				state.unmakeMove(playoutMoves[--numMoves]);
+			}
+			return winner;
+		}
+	}
+}
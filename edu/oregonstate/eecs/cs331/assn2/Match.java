@@ -0,0 +1,241 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * Plays one game between two players without a GUI.
+ *
+ * This is the game loop of GameFrame.playGame() with the Swing updates left
+ * out, so engines can be played against each other as fast as they can move.
+ * It also knows the command line names of the player types and how to create
+ * and close each one, for GameFrame, GameServer and Tournament.
+ *
+ */
+public class Match {
+
+	/**
+	 * Returned by play() when neither player wins.
+	 */
+	public static final int DRAW = -1;
+
+	/**
+	 * Command line strings that specify the types of the players
+	 */
+	public final static String HUMAN_PLAYER_STRING = "human";
+	public final static String RANDOM_PLAYER_STRING = "random";
+	public final static String MINIMAX_PLAYER_STRING = "minimax";
+	public final static String ALPHABETA_PLAYER_STRING = "alphabeta";
+	public final static String TABLE_PLAYER_STRING = "table";
+	public final static String DEEPENING_PLAYER_STRING = "deepening";
+	public final static String PARALLEL_PLAYER_STRING = "parallel";
+	public final static String LAZYSMP_PLAYER_STRING = "lazysmp";
+	public final static String MCTS_PLAYER_STRING = "mcts";
+	public final static String DATABASE_PLAYER_STRING = "database";
+
+	/**
+	 * The players. X always moves first.
+	 */
+	private Player playerX;
+	private Player playerO;
+
+	/**
+	 * The board size and win length
+	 */
+	private int width;
+	private int height;
+	private int winLength;
+
+	/**
+	 * Creates a match on the default 3x3 board.
+	 *
+	 * @param playerX
+	 *            The X player.
+	 * @param playerO
+	 *            The O player.
+	 */
+	public Match(Player playerX, Player playerO) {
+		this(playerX, playerO, TicTacToeBoard.SIZE, TicTacToeBoard.SIZE,
+				TicTacToeBoard.SIZE);
+	}
+
+	/**
+	 * Creates a match.
+	 *
+	 * @param playerX
+	 *            The X player.
+	 * @param playerO
+	 *            The O player.
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 */
+	public Match(Player playerX, Player playerO, int width, int height,
+			int winLength) {
+		this.playerX = playerX;
+		this.playerO = playerO;
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+	}
+
+	/**
+	 * Plays a game on a new board.
+	 *
+	 * @return TicTacToeBoard.PLAYER_X or TicTacToeBoard.PLAYER_O for the
+	 *         winner, or DRAW.
+	 * @throws Exception
+	 *             If a player returns a move off the board or onto a taken
+	 *             square, or fails to move.
+	 */
+	public int play() throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard(width, height, winLength);
+		board.setTurn(TicTacToeBoard.PLAYER_X);
+
+		while (!board.isGameOver()) {
+			int turn = board.getTurn();
+			Player player = (turn == TicTacToeBoard.PLAYER_X) ? playerX : playerO;
+			Position move = player.getNextMove(board);
+			if (!isLegalMove(board, move)) {
+				throw new Exception("Illegal board position returned");
+			}
+			board.setState(move.row, move.col, turn);
+			board.setTurn(1 - turn);
+		}
+
+		if (board.isWin(TicTacToeBoard.PLAYER_X)) {
+			return TicTacToeBoard.PLAYER_X;
+		} else if (board.isWin(TicTacToeBoard.PLAYER_O)) {
+			return TicTacToeBoard.PLAYER_O;
+		}
+		return DRAW;
+	}
+
+	/**
+	 * Returns true if the move is on the board and the square is empty.
+	 *
+	 * @param board
+	 *            The board the move is for.
+	 * @param p
+	 *            The move.
+	 * @return True if the move is legal, false otherwise.
+	 */
+	private static boolean isLegalMove(TicTacToeBoard board, Position p) {
+		return (p != null) && (p.row >= 0) && (p.row < board.getHeight())
+				&& (p.col >= 0) && (p.col < board.getWidth())
+				&& board.isEmpty(p.row * board.getWidth() + p.col);
+	}
+
+	/**
+	 * Returns the player type for a command line string.
+	 *
+	 * @param s
+	 *            One of the *_PLAYER_STRING constants.
+	 * @return The player type, one of the constants in Player.
+	 * @throws Exception
+	 *             If the string is not a player type.
+	 */
+	public static int parsePlayerType(String s) throws Exception {
+		if (s.equals(HUMAN_PLAYER_STRING)) {
+			return Player.HUMAN_PLAYER;
+		} else if (s.equals(RANDOM_PLAYER_STRING)) {
+			return Player.RANDOM_PLAYER;
+		} else if (s.equals(MINIMAX_PLAYER_STRING)) {
+			return Player.MINIMAX_PLAYER;
+		} else if (s.equals(ALPHABETA_PLAYER_STRING)) {
+			return Player.ALPHABETA_PLAYER;
+		} else if (s.equals(TABLE_PLAYER_STRING)) {
+			return Player.TABLE_PLAYER;
+		} else if (s.equals(DEEPENING_PLAYER_STRING)) {
+			return Player.DEEPENING_PLAYER;
+		} else if (s.equals(PARALLEL_PLAYER_STRING)) {
+			return Player.PARALLEL_PLAYER;
+		} else if (s.equals(LAZYSMP_PLAYER_STRING)) {
+			return Player.LAZYSMP_PLAYER;
+		} else if (s.equals(MCTS_PLAYER_STRING)) {
+			return Player.MCTS_PLAYER;
+		} else if (s.equals(DATABASE_PLAYER_STRING)) {
+			return Player.DATABASE_PLAYER;
+		}
+		throw new Exception("Unrecognized player type");
+	}
+
+	/**
+	 * Creates a player, with one search thread per core for players that
+	 * search on several.
+	 *
+	 * @param type
+	 *            The player type, one of the constants in Player.
+	 * @param searchBudgetMillis
+	 *            The time budget per move for players that search with one.
+	 * @return A new player. Unknown types get a Human.
+	 * @throws Exception
+	 *             If the player cannot be created.
+	 */
+	public static Player newPlayer(int type, long searchBudgetMillis)
+			throws Exception {
+		return newPlayer(type, searchBudgetMillis,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a player.
+	 *
+	 * @param type
+	 *            The player type, one of the constants in Player.
+	 * @param searchBudgetMillis
+	 *            The time budget per move for players that search with one.
+	 * @param numSearchThreads
+	 *            The number of threads for players with a pool of their own
+	 *            to search on.
+	 * @return A new player. Unknown types get a Human. Pass it to
+	 *         closePlayer when it is no longer needed.
+	 * @throws Exception
+	 *             If the player cannot be created.
+	 */
+	public static Player newPlayer(int type, long searchBudgetMillis,
+			int numSearchThreads) throws Exception {
+		switch (type) {
+		case Player.RANDOM_PLAYER:
+			return new RandomPlayer();
+		case Player.MINIMAX_PLAYER:
+			return new MiniMax();
+		case Player.ALPHABETA_PLAYER:
+			return new AlphaBeta();
+		case Player.TABLE_PLAYER:
+			return new TablePlayer();
+		case Player.DEEPENING_PLAYER:
+			return new IterativeDeepening(searchBudgetMillis);
+		case Player.PARALLEL_PLAYER:
+			return new ParallelMiniMax();
+		case Player.LAZYSMP_PLAYER:
+			return new LazySMP(numSearchThreads, searchBudgetMillis);
+		case Player.MCTS_PLAYER:
+			return new MCTSPlayer(numSearchThreads, searchBudgetMillis);
+		case Player.DATABASE_PLAYER:
+			return new DatabasePlayer();
+		default:
+			return new Human();
+		}
+	}
+
+	/**
+	 * Shuts down the threads of a player that searches on a pool of its own,
+	 * or of an AsyncPlayer and the players it wraps. Other players need no
+	 * closing. The player cannot be used afterwards.
+	 *
+	 * @param player
+	 *            The player, or null.
+	 */
+	public static void closePlayer(Player player) {
+		if (player instanceof LazySMP) {
+			((LazySMP) player).close();
+		} else if (player instanceof MCTSPlayer) {
+			((MCTSPlayer) player).close();
+		} else if (player instanceof ParallelMiniMax) {
+			((ParallelMiniMax) player).close();
+		} else if (player instanceof AsyncPlayer) {
+			((AsyncPlayer) player).close();
+		}
+	}
+}
@@ -1,244 +1,404 @@
-/**
- * This class represents the module for minimax.
- * @author David Merrick
- *
- * Code structure based on:
- * http://youtu.be/OkP8BAwfO24
- * http://classes.engr.oregonstate.edu/eecs/spring2014/cs331/slides/AdversarialSearch1.2pp.pdf
- *
- *
- * How this works, in a nutshell:
- *
- * The computer is MAX. Human is MIN.
- * We want to maximize each node's utility value if it's MAX's turn.
- * And minimize each node's utility value if it's MIN's turn.
- *
- * In other words,
- * When it's our turn, we want to maximize the chances of winning.
- * When it's the opponents turn, we want to minimize the chances of them winning.
- *
- */
-
-import java.util.*;
-import static java.lang.Math.*;
-
-public class MiniMax implements Player {
-    /**
-     * Constructor
-     *
-     */
-    public MiniMax() {
-    }
-
-    /**
-     * Returns the next move.
-     * @param state The current board state in the game
-     * @return The next position
-     */
-    public Position getNextMove(TicTacToeBoard state) {
-        //Make a miniMax decision to determine the optimal next position and return that
-        return decideMiniMax(state);
-    }
-
-    /**
-     * Returns the player type
-     */
-    public int getPlayerType() {
-        return MINIMAX_PLAYER;
-    }
-
-    //The players
-    //We will use the convention that the X player is the maximizing player and the O player is the minimizing player.
-    private int MAX = TicTacToeBoard.PLAYER_X;
-    private int MIN = TicTacToeBoard.PLAYER_O;
-
-    /**
-     * Returns the integer value of the next player's turn
-     */
-    private int getNextPlayer(int turn) {
-        //return next player's turn.
-        if (turn == MAX) {
-            return MIN;
-        }
-
-        return MAX;
-    }
-
-    /**
-     * Returns the utility at terminal states.
-     * The purpose is to give a value to a terminal state.
-     * High values are good for MAX and bad for MIN.
-     * Low values are bad for MAX and good for MIN.
-     * @param state The current board state in the game
-     * @return 1 (MAX wins), -1 (MIN wins), or 0 (tie).
-     */
-    private int getUtility(TicTacToeBoard state) {
-        try {
-            if (state.isWin(MAX)) {
-                //MAX wins. Good!
-                return 1;
-            } else if(state.isWin(MIN)) {
-                //MIN wins. Bad!
-                return -1;
-            }
-        } catch (Exception e) {
-            //state.isWin can throw an exception in this case:
-            //player is not a legal player index
-        }
-
-        //It was a tie. Meh.
-        return 0;
-    }
-
-    /**
-     * Checks whether the game is over
-     * @param state The current board state in the game
-     * @return Boolean. True if game over, otherwise false
-     */
-    private boolean isGameOver(TicTacToeBoard state) {
-        try {
-            return state.isGameOver();
-        }
-        catch (Exception e) {
-            //Generic exception
-        }
-        //Default to false
-        return false;
-    }
-
-    /**
-     * Returns the minimax decision
-     * @param state The current board state in the game
-     * @return The optimal move
-     */
-    private Position decideMiniMax(TicTacToeBoard state) {
-        //Get current player's turn
-        int turn = state.getTurn();
-
-        //value represents the maximum or minimum possible utility value of any successor state
-        int value;
-
-        //Find out which player's turn it is. This determines whether to maximize or minimize.
-        if (turn == MAX) {
-            //MAX's turn, maximize; Find the maximum possible value recursively.
-            value = getMaxValue(state);
-        } else {
-            //MIN's turn, minimize; Find the minimum possible value recursively.
-            value = getMinValue(state);
-        }
-
-        //Get the successors and find the utility values of the nodes
-        for (TicTacToeBoard b : getSuccessors(state)) {
-            //bUtil represents the utility value of board state b
-            int bUtil;
-
-            //Find out which player's turn it is. This determines whether to maximize or minimize.
-            if (turn == MAX) {
-                //Minimize the maximum utility value of player X. Find this value recursively.
-                bUtil = getMinValue(b);
-            } else {
-                //Maximize the minimum utility value of player O. Find this value recursively.
-                bUtil = getMaxValue(b);
-            }
-
-            if (bUtil == value) {
-                //Found the optimal move and it's the previous one. Return it.
-                return b.getPreviousMove();
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * Successor method
-     *
-     * This method takes the current state of the game and generates a list of
-     * all the successors that can be reached within one move of the current state.
-     * @param state The current board state in the game
-     * @return The list of successor board states
-     */
-    private List<TicTacToeBoard> getSuccessors(TicTacToeBoard state) {
-        //Create a new list for the successors
-        List<TicTacToeBoard> successorList = new ArrayList<TicTacToeBoard>();
-
-        //Generate the possible successor board states and append them to the successor list
-        for (int row=0; row<3; row++) {
-            for (int col=0; col<3; col++) {
-                //Skip over non-blank squares
-                if (state.getState(row, col) == TicTacToeBoard.BLANK) {
-                    //Clone the current board so we can append it to the
-                    //successorList without interfering with the current state of the game
-                    TicTacToeBoard b = (TicTacToeBoard) state.clone();
-
-                    //Get current player's turn
-                    int turn = state.getTurn();
-
-                    try {
-                        //"play" the game ahead
-                        b.setState(row, col, turn);
-                    } catch (Exception e) {
-                        //Invalid player symbol
-                    }
-
-                    //Set the next player.
-                    int nextTurn = getNextPlayer(turn);
-                    b.setTurn(nextTurn);
-
-                    //Append board to list of successors.
-                    successorList.add(b);
-                }
-            }
-        }
-
-        return successorList;
-    }
-
-    /**
-     * Returns min utility value of game state
-     * @param state The current board state in the game
-     * @return The min utility value
-     */
-    private int getMinValue(TicTacToeBoard state) {
-        //If state is a terminal or leaf node, then return utility(state)
-        if (isGameOver(state)) {
-            return getUtility(state);
-        }
-
-        //Set value to "+infinity" (Just needs to be greater than 1)
-        int value = 2;
-
-        //Iterate through the successor list
-        //Recursively find the minimum of the max values of all the successor states
-        List<TicTacToeBoard> successorList = getSuccessors(state);
-        for (TicTacToeBoard b : successorList) {
-            value = Math.min(value, getMaxValue(b));
-        }
-
-        return value;
-    }
-
-    /**
-     * Returns the max utility value of the game state
-     * @param state The current board state in the game
-     * @return The max utility value
-     */
-    private int getMaxValue(TicTacToeBoard state) {
-        //If state is a terminal or leaf node, then return utility(state)
-        if (isGameOver(state)) {
-            return getUtility(state);
-        }
-
-        //Set value to "-infinity" (Just needs to be less than -1)
-        int value = -2;
-
-        //Iterate through the successor list
-        //Recursively find the maximum of the min values of all the successor states
-        List<TicTacToeBoard> successorList = getSuccessors(state);
-        for (TicTacToeBoard b : successorList) {
-            value = Math.max(value, getMinValue(b));
-        }
-
-        return value;
-    }
-}
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * This class represents the module for minimax.
+ * @author David Merrick
+ *
+ * Code structure based on:
+ * http://youtu.be/OkP8BAwfO24
+ * http://classes.engr.oregonstate.edu/eecs/spring2014/cs331/slides/AdversarialSearch1.2pp.pdf
+ *
+ *
+ * How this works, in a nutshell:
+ *
+ * The computer is MAX. Human is MIN.
+ * We want to maximize each node's utility value if it's MAX's turn.
+ * And minimize each node's utility value if it's MIN's turn.
+ *
+ * In other words,
+ * When it's our turn, we want to maximize the chances of winning.
+ * When it's the opponents turn, we want to minimize the chances of them winning.
+ *
+ */
+
+import static java.lang.Math.*;
+
+public class MiniMax implements Player, Instrumented {
+    /**
+     * The table has 2^TABLE_SIZE_BITS slots, plenty for the 5,478 legal tic-tac-toe states.
+     */
+    private static final int TABLE_SIZE_BITS = 16;
+
+    /**
+     * The most squares a board should have for a search to the end of the
+     * game. From the empty board at this size a move takes about a second,
+     * and one more row or column takes minutes or more, so larger boards are
+     * refused.
+     */
+    public static final int MAX_SQUARES = 12;
+
+    /**
+     * Values of searched positions, keyed by canonical Zobrist hash.
+     * Boards that are rotations or reflections of each other share one entry.
+     * It is kept for the whole game, so once the first move has been searched
+     * every later position is already in the table.
+     */
+    private TranspositionTable table;
+
+    /**
+     * Per-depth buffers for the successor moves and their canonical hashes.
+     * A game has at most width * height moves, so the search is never deeper than that.
+     */
+    private int[][] successorBuffers;
+    private long[][] seenBuffers;
+
+    /**
+     * What the search for the last move did, and for every move so far
+     */
+    private SearchStats moveStats = new SearchStats();
+    private SearchStats totalStats = new SearchStats();
+
+    /**
+     * Constructor
+     *
+     */
+    public MiniMax() {
+        table = new TranspositionTable(TABLE_SIZE_BITS);
+    }
+
+    /**
+     * Returns the next move.
+     * @param state The current board state in the game
+     * @return The next position, or null if the game is over
+     * @throws Exception If the board has more than MAX_SQUARES squares
+     */
+    public Position getNextMove(TicTacToeBoard state) throws Exception {
+        //Make a miniMax decision to determine the optimal next position and return that.
+        TicTacToeBoard board = copyBoard(state);
+
+        moveStats.reset();
+        long start = System.nanoTime();
+        Position move = decideMiniMax(board);
+        moveStats.elapsedNanos = System.nanoTime() - start;
+        totalStats.add(moveStats);
+        return move;
+    }
+
+    /**
+     * Returns the value of a board with perfect play from both sides.
+     * Searching a board also stores its value, so asking for the move and then
+     * the value of the same board only searches once.
+     * @param state The board state to solve
+     * @return 1 (MAX wins), -1 (MIN wins), or 0 (tie).
+     * @throws Exception If the board has more than MAX_SQUARES squares
+     */
+    public int getValue(TicTacToeBoard state) throws Exception {
+        return solve(copyBoard(state));
+    }
+
+    /**
+     * Forgets every position searched so far, so the next move is searched
+     * from scratch, as by a new player but without allocating a table.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Returns the value of a board, from the table if it is there, and searches it otherwise
+     * @param board The board, already copied for searching
+     * @return 1 (MAX wins), -1 (MIN wins), or 0 (tie).
+     */
+    private int solve(TicTacToeBoard board) {
+        if (isGameOver(board)) {
+            return getUtility(board);
+        }
+
+        //A miss is counted by getMaxValue or getMinValue, which look the board up again
+        int slot = table.find(board.getCanonicalHash());
+        if (slot >= 0) {
+            moveStats.tableHits++;
+            return table.getValue(slot);
+        }
+        if (board.getTurn() == MAX) {
+            return getMaxValue(board, 0);
+        }
+        return getMinValue(board, 0);
+    }
+
+    /**
+     * Copies a board for searching, and makes sure the buffers fit it.
+     * The search plays and takes back moves on one copy of the board, so the game's board is never touched.
+     * The default 3x3 board is copied into a BitBoard, which is much faster to search and knows its symmetries.
+     * @param state The board to copy
+     * @return The copy
+     * @throws Exception If the board has more than MAX_SQUARES squares
+     */
+    private TicTacToeBoard copyBoard(TicTacToeBoard state) throws Exception {
+        if (state.getWidth() * state.getHeight() > MAX_SQUARES) {
+            throw new Exception("MiniMax only searches boards of up to " + MAX_SQUARES + " squares");
+        }
+        TicTacToeBoard board;
+        if (BitBoard.canRepresent(state)) {
+            board = new BitBoard(state);
+        } else {
+            board = (TicTacToeBoard) state.clone();
+        }
+
+        int numSquares = board.getWidth() * board.getHeight();
+        if (successorBuffers == null || successorBuffers[0].length != numSquares) {
+            successorBuffers = new int[numSquares + 1][numSquares];
+            seenBuffers = new long[numSquares + 1][numSquares];
+        }
+        return board;
+    }
+
+    /**
+     * Returns the player type
+     */
+    public int getPlayerType() {
+        return MINIMAX_PLAYER;
+    }
+
+    /**
+     * Returns what the search for the last move did
+     */
+    public SearchStats getLastMoveStats() {
+        return new SearchStats(moveStats);
+    }
+
+    /**
+     * Returns what the searches for every move so far did
+     */
+    public SearchStats getTotalStats() {
+        return new SearchStats(totalStats);
+    }
+
+    //The players
+    //We will use the convention that the X player is the maximizing player and the O player is the minimizing player.
+    private int MAX = TicTacToeBoard.PLAYER_X;
+    private int MIN = TicTacToeBoard.PLAYER_O;
+
+    /**
+     * Returns the utility at terminal states.
+     * The purpose is to give a value to a terminal state.
+     * High values are good for MAX and bad for MIN.
+     * Low values are bad for MAX and good for MIN.
+     * @param state The current board state in the game
+     * @return 1 (MAX wins), -1 (MIN wins), or 0 (tie).
+     */
+    private int getUtility(TicTacToeBoard state) {
+        try {
+            if (state.isWin(MAX)) {
+                //MAX wins. Good!
+                return 1;
+            } else if(state.isWin(MIN)) {
+                //MIN wins. Bad!
+                return -1;
+            }
+        } catch (Exception e) {
+            //state.isWin can throw an exception in this case:
+            //player is not a legal player index
+        }
+
+        //It was a tie. Meh.
+        return 0;
+    }
+
+    /**
+     * Checks whether the game is over
+     * @param state The current board state in the game
+     * @return Boolean. True if game over, otherwise false
+     */
+    private boolean isGameOver(TicTacToeBoard state) {
+        try {
+            return state.isGameOver();
+        }
+        catch (Exception e) {
+            //Generic exception
+        }
+        //Default to false
+        return false;
+    }
+
+    /**
+     * Returns the minimax decision: the first optimal move in row-major order
+     *
+     * This takes two passes over the root's successors: solve finds the root's
+     * value, and then the successors are played in row-major order until one
+     * keeps it. Unlike IterativeDeepening, the search is not moved onto
+     * negamax with a principal variation. It searches every position to the
+     * end without a window, so PVS and aspiration windows would cut nothing,
+     * and the mirrored getMaxValue and getMinValue stay as the assignment
+     * wrote them. The second pass is cheap, since every successor's value is
+     * already in the table.
+     * @param state The current board state in the game
+     * @return The optimal move, or null if the game is over
+     */
+    private Position decideMiniMax(TicTacToeBoard state) {
+        if (isGameOver(state)) {
+            return null;
+        }
+
+        //If this position (or a symmetric one) was searched earlier in the game, the table already has its value.
+        //Otherwise the search finds it, and stores it along with the value of every position below it.
+        int value = solve(state);
+
+        //The move is picked on the real board rather than kept in the table, since a table entry
+        //is shared by every rotation and reflection of the board, and which of them was searched
+        //first depends on the game. Every successor was searched along with the board, so their
+        //values come straight out of the table.
+        int numSquares = state.getWidth() * state.getHeight();
+        for (int square = 0; square < numSquares; square++) {
+            if (state.isEmpty(square)) {
+                state.makeMove(square);
+                int moveValue = solve(state);
+                state.unmakeMove(square);
+                if (moveValue == value) {
+                    return new Position(square / state.getWidth(), square % state.getWidth());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Successor method
+     *
+     * This method takes the current state of the game and generates the moves
+     * to all the successors that can be reached within one move of the current state.
+     * Successors that are rotations or reflections of an earlier successor are left out,
+     * since they have the same value. E.g. the empty board only has 3 distinct successors:
+     * corner, edge and center.
+     *
+     * Instead of building a list of cloned boards, the moves are written into a buffer
+     * that belongs to the depth of the search, so generating successors never allocates.
+     * It is package-private so Benchmark can time it; the buffers exist after the first getNextMove.
+     * @param state The current board state in the game
+     * @param depth The number of moves played since the root of the search
+     * @return The number of moves written to successorBuffers[depth]
+     */
+    int getSuccessors(TicTacToeBoard state, int depth) {
+        int[] moves = successorBuffers[depth];
+        int numMoves = 0;
+
+        //Canonical hashes of the successors generated so far
+        long[] seen = seenBuffers[depth];
+
+        //Generate the possible successor moves and append them to the buffer
+        int numSquares = state.getWidth() * state.getHeight();
+        for (int square=0; square<numSquares; square++) {
+            //Skip over non-blank squares
+            if (state.isEmpty(square)) {
+                //"play" the game ahead just long enough to hash the successor
+                state.makeMove(square);
+                long canonicalHash = state.getCanonicalHash();
+                state.unmakeMove(square);
+
+                //Skip the move if its successor is symmetric to one already in the buffer.
+                boolean duplicate = false;
+                for (int i = 0; i < numMoves; i++) {
+                    if (seen[i] == canonicalHash) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (duplicate) {
+                    continue;
+                }
+                seen[numMoves] = canonicalHash;
+                moves[numMoves++] = square;
+            }
+        }
+
+        return numMoves;
+    }
+
+    /**
+     * Returns min utility value of game state
+     * @param state The current board state in the game
+     * @param depth The number of moves played since the root of the search
+     * @return The min utility value
+     */
+    private int getMinValue(TicTacToeBoard state, int depth) {
+        moveStats.visit(depth);
+
+        //If state is a terminal or leaf node, then return utility(state)
+        if (isGameOver(state)) {
+            moveStats.evaluations++;
+            return getUtility(state);
+        }
+
+        //Positions already searched, possibly through a different order of moves or
+        //as a rotation or reflection of this one, are looked up
+        long key = state.getCanonicalHash();
+        int slot = table.find(key);
+        if (slot >= 0) {
+            moveStats.tableHits++;
+            return table.getValue(slot);
+        }
+        moveStats.tableMisses++;
+
+        //Set value to "+infinity" (Just needs to be greater than 1)
+        int value = 2;
+
+        //Iterate through the successors, playing each move on the board and taking it back afterwards
+        //Recursively find the minimum of the max values of all the successor states
+        int numMoves = getSuccessors(state, depth);
+        moveStats.successors += numMoves;
+        int[] moves = successorBuffers[depth];
+        for (int i = 0; i < numMoves; i++) {
+            state.makeMove(moves[i]);
+            int bValue = getMaxValue(state, depth + 1);
+            state.unmakeMove(moves[i]);
+            value = Math.min(value, bValue);
+        }
+
+        table.store(key, value, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        return value;
+    }
+
+    /**
+     * Returns the max utility value of the game state
+     * @param state The current board state in the game
+     * @param depth The number of moves played since the root of the search
+     * @return The max utility value
+     */
+    private int getMaxValue(TicTacToeBoard state, int depth) {
+        moveStats.visit(depth);
+
+        //If state is a terminal or leaf node, then return utility(state)
+        if (isGameOver(state)) {
+            moveStats.evaluations++;
+            return getUtility(state);
+        }
+
+        //Positions already searched, possibly through a different order of moves or
+        //as a rotation or reflection of this one, are looked up
+        long key = state.getCanonicalHash();
+        int slot = table.find(key);
+        if (slot >= 0) {
+            moveStats.tableHits++;
+            return table.getValue(slot);
+        }
+        moveStats.tableMisses++;
+
+        //Set value to "-infinity" (Just needs to be less than -1)
+        int value = -2;
+
+        //Iterate through the successors, playing each move on the board and taking it back afterwards
+        //Recursively find the maximum of the min values of all the successor states
+        int numMoves = getSuccessors(state, depth);
+        moveStats.successors += numMoves;
+        int[] moves = successorBuffers[depth];
+        for (int i = 0; i < numMoves; i++) {
+            state.makeMove(moves[i]);
+            int bValue = getMinValue(state, depth + 1);
+            state.unmakeMove(moves[i]);
+            value = Math.max(value, bValue);
+        }
+
+        table.store(key, value, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        return value;
+    }
+}
@@ -0,0 +1,190 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * The move ordering shared by the alpha-beta searches.
+ *
+ * Alpha-beta prunes the most when the best move of a node is searched first,
+ * so the moves of a node are sorted before they are searched:
+ *   1. the transposition table's best move for the node, if the search has a table
+ *   2. the killer moves of the ply: the last two moves that caused a cutoff at
+ *      the same distance from the root, which are often good in the sibling
+ *      positions too
+ *   3. the history score of the move: how much search it has saved by causing
+ *      cutoffs anywhere in the tree for the player to move
+ *   4. the number of lines of winLength squares through the square, so the
+ *      center comes before the corners and the corners before the edges
+ * Moves that tie on all of these keep the order they were generated in.
+ *
+ * A search keeps one MoveOrdering per thread, clears it at the start of each
+ * move, and tells it about every cutoff.
+ *
+ */
+
+public class MoveOrdering {
+    /**
+     * The number of killer moves kept per ply
+     */
+    private static final int KILLERS_PER_PLY = 2;
+
+    /**
+     * Sort scores of the table move and the killer moves, above any history score
+     */
+    private static final int TABLE_MOVE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+
+    /**
+     * History scores are halved when one of them gets above this, so they stay below KILLER_SCORE
+     */
+    private static final int HISTORY_LIMIT = 1 << 28;
+
+    /**
+     * killers[ply][i] is a move that caused a cutoff at ply, or -1. killers[ply][0] is the newest.
+     */
+    private int[][] killers;
+
+    /**
+     * history[player][square] grows by the square of the remaining depth every time the
+     * player's move to the square causes a cutoff
+     */
+    private int[][] history;
+
+    /**
+     * The board setup this ordering was made for
+     */
+    private int width;
+    private int height;
+    private int winLength;
+
+    /**
+     * The number of winning lines through each square
+     */
+    private int[] lineCounts;
+
+    /**
+     * The sort scores of the moves being ordered
+     */
+    private int[] scores;
+
+    /**
+     * Constructor
+     * @param width The number of squares in a row
+     * @param height The number of squares in a column
+     * @param winLength The number of Xs or Os in a row needed to win
+     */
+    public MoveOrdering(int width, int height, int winLength) {
+        int numSquares = width * height;
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.killers = new int[numSquares + 1][KILLERS_PER_PLY];
+        this.history = new int[2][numSquares];
+        this.scores = new int[numSquares];
+        this.lineCounts = new int[numSquares];
+        int[][] directions = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                for (int[] direction : directions) {
+                    int endRow = row + (winLength - 1) * direction[0];
+                    int endCol = col + (winLength - 1) * direction[1];
+                    if (endRow < 0 || endRow >= height || endCol < 0 || endCol >= width) {
+                        continue;
+                    }
+                    for (int i = 0; i < winLength; i++) {
+                        lineCounts[(row + i * direction[0]) * width + col + i * direction[1]]++;
+                    }
+                }
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Returns true if this ordering was made for a board's width, height and win length.
+     * The line counts depend on all three, not just on the number of squares.
+     * @param state The board
+     */
+    public boolean fits(TicTacToeBoard state) {
+        return width == state.getWidth() && height == state.getHeight() && winLength == state.getWinLength();
+    }
+
+    /**
+     * Forgets the killer moves and history scores, before searching a new position.
+     */
+    public void clear() {
+        for (int[] plyKillers : killers) {
+            for (int i = 0; i < KILLERS_PER_PLY; i++) {
+                plyKillers[i] = -1;
+            }
+        }
+        for (int[] playerHistory : history) {
+            for (int square = 0; square < playerHistory.length; square++) {
+                playerHistory[square] = 0;
+            }
+        }
+    }
+
+    /**
+     * Sorts a node's moves, best first.
+     * @param moves The moves of the node
+     * @param numMoves The number of moves
+     * @param ply The number of moves played since the root of the search
+     * @param turn The player to move
+     * @param tableMove The transposition table's best move for the node, or -1
+     */
+    public void order(int[] moves, int numMoves, int ply, int turn, int tableMove) {
+        int[] plyKillers = killers[ply];
+        int[] playerHistory = history[turn];
+        for (int i = 0; i < numMoves; i++) {
+            int move = moves[i];
+            if (move == tableMove) {
+                scores[i] = TABLE_MOVE_SCORE;
+            } else if (move == plyKillers[0]) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == plyKillers[1]) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = playerHistory[move];
+            }
+        }
+
+        //Insertion sort: the lists are short, and it keeps ties in their original order
+        for (int i = 1; i < numMoves; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && (scores[j] < score
+                    || (scores[j] == score && lineCounts[moves[j]] < lineCounts[move]))) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Records that a move caused a cutoff.
+     * @param move The move
+     * @param ply The number of moves played since the root of the search
+     * @param turn The player who made the move
+     * @param remainingDepth The number of moves the search looked ahead from the node
+     */
+    public void recordCutoff(int move, int ply, int turn, int remainingDepth) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int[] playerHistory = history[turn];
+        playerHistory[move] += remainingDepth * remainingDepth;
+        if (playerHistory[move] > HISTORY_LIMIT) {
+            for (int[] h : history) {
+                for (int square = 0; square < h.length; square++) {
+                    h[square] /= 2;
+                }
+            }
+        }
+    }
+}
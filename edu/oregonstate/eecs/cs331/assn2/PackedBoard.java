@@ -0,0 +1,292 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * An immutable board position packed into one long: the squares of each
+ * player and whose turn it is. Two PackedBoards are equal when they have the
+ * same board size, the same squares and the same player to move, and equals
+ * and hashCode only look at a few fields, so positions can be kept in hash
+ * maps and sets, and shared between threads, without copying or locking.
+ *
+ * Bits 0 to 30 are X's squares and bits 31 to 61 are O's, with square
+ * (row, col) at bit row * width + col of each, the same layout as BitBoard's
+ * masks. Bit 62 is set when it is O's turn. Boards of up to MAX_SQUARES
+ * squares fit. A table for one board size can key on getBits() directly.
+ *
+ * The previous move is not part of the position, so it is not kept.
+ *
+ */
+public final class PackedBoard {
+
+	/**
+	 * The largest number of squares that fits
+	 */
+	public static final int MAX_SQUARES = 31;
+
+	/**
+	 * Where O's squares and the turn bit start
+	 */
+	private static final int O_SHIFT = MAX_SQUARES;
+	private static final int TURN_SHIFT = 2 * MAX_SQUARES;
+
+	/**
+	 * The mask of one player's squares, before shifting
+	 */
+	private static final long SQUARES_MASK = (1L << MAX_SQUARES) - 1;
+
+	/**
+	 * The squares of each player and the turn
+	 */
+	private final long bits;
+
+	/**
+	 * The board size and win length
+	 */
+	private final int width;
+	private final int height;
+	private final int winLength;
+
+	/**
+	 * Packs a board.
+	 *
+	 * @param board
+	 *            The board to pack, which has at most MAX_SQUARES squares.
+	 * @throws Exception
+	 *             If the board is too big.
+	 */
+	public PackedBoard(TicTacToeBoard board) throws Exception {
+		if (!canRepresent(board)) {
+			throw new Exception("Boards of more than " + MAX_SQUARES + " squares cannot be packed");
+		}
+		this.width = board.getWidth();
+		this.height = board.getHeight();
+		this.winLength = board.getWinLength();
+
+		long x;
+		long o;
+		if (board instanceof BitBoard) {
+			x = ((BitBoard) board).getXMask();
+			o = ((BitBoard) board).getOMask();
+		} else {
+			x = 0;
+			o = 0;
+			for (int row = 0; row < height; row++) {
+				for (int col = 0; col < width; col++) {
+					String symbol = board.getState(row, col);
+					if (symbol == TicTacToeBoard.X) {
+						x |= 1L << (row * width + col);
+					} else if (symbol == TicTacToeBoard.O) {
+						o |= 1L << (row * width + col);
+					}
+				}
+			}
+		}
+		long turn = (board.getTurn() == TicTacToeBoard.PLAYER_O) ? 1 : 0;
+		this.bits = x | (o << O_SHIFT) | (turn << TURN_SHIFT);
+	}
+
+	/**
+	 * Creates a position from its bits.
+	 */
+	private PackedBoard(long bits, int width, int height, int winLength) {
+		this.bits = bits;
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+	}
+
+	/**
+	 * Returns true if a board is small enough to pack.
+	 *
+	 * @param board
+	 *            The board.
+	 * @return True if the board has at most MAX_SQUARES squares.
+	 */
+	public static boolean canRepresent(TicTacToeBoard board) {
+		return board.getWidth() * board.getHeight() <= MAX_SQUARES;
+	}
+
+	/**
+	 * Creates a position from the bits of another one with the same board
+	 * size, e.g. a key read back from a table.
+	 *
+	 * @param bits
+	 *            The bits, as returned by getBits().
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 * @return The position.
+	 */
+	public static PackedBoard fromBits(long bits, int width, int height, int winLength) {
+		return new PackedBoard(bits, width, height, winLength);
+	}
+
+	/**
+	 * Returns the squares of each player and the turn, packed as described
+	 * above.
+	 *
+	 * @return The bits of the position.
+	 */
+	public long getBits() {
+		return bits;
+	}
+
+	/**
+	 * Returns the number of squares in a row.
+	 *
+	 * @return The width of the board.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the number of squares in a column.
+	 *
+	 * @return The height of the board.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the number of Xs or Os in a row needed to win.
+	 *
+	 * @return The win length.
+	 */
+	public int getWinLength() {
+		return winLength;
+	}
+
+	/**
+	 * Returns the squares occupied by X.
+	 *
+	 * @return The bitmask of X's squares.
+	 */
+	public int getXMask() {
+		return (int) (bits & SQUARES_MASK);
+	}
+
+	/**
+	 * Returns the squares occupied by O.
+	 *
+	 * @return The bitmask of O's squares.
+	 */
+	public int getOMask() {
+		return (int) ((bits >>> O_SHIFT) & SQUARES_MASK);
+	}
+
+	/**
+	 * Returns whose turn it is.
+	 *
+	 * @return PLAYER_X or PLAYER_O.
+	 */
+	public int getTurn() {
+		return (int) (bits >>> TURN_SHIFT);
+	}
+
+	/**
+	 * Returns the index of the player who owns a square.
+	 *
+	 * @param square
+	 *            The index (row * width + col) of the square.
+	 * @return PLAYER_X, PLAYER_O, or PLAYER_NONE.
+	 */
+	public int getPlayer(int square) {
+		if ((getXMask() & (1 << square)) != 0) {
+			return TicTacToeBoard.PLAYER_X;
+		} else if ((getOMask() & (1 << square)) != 0) {
+			return TicTacToeBoard.PLAYER_O;
+		}
+		return TicTacToeBoard.PLAYER_NONE;
+	}
+
+	/**
+	 * Returns the number of empty squares.
+	 *
+	 * @return The number of squares that neither player has taken.
+	 */
+	public int getNumEmptySquares() {
+		return width * height - Integer.bitCount(getXMask() | getOMask());
+	}
+
+	/**
+	 * Returns the position after the player whose turn it is takes a square.
+	 *
+	 * @param square
+	 *            The index (row * width + col) of an empty square.
+	 * @return The new position. This one is unchanged.
+	 */
+	public PackedBoard withMove(int square) {
+		int turn = getTurn();
+		long stone = 1L << (square + ((turn == TicTacToeBoard.PLAYER_O) ? O_SHIFT : 0));
+		return new PackedBoard((bits | stone) ^ (1L << TURN_SHIFT), width, height, winLength);
+	}
+
+	/**
+	 * Unpacks the position onto a new board. The board looks for lines over
+	 * all of its squares after setState, so a win anywhere is found.
+	 *
+	 * @return The board.
+	 */
+	public TicTacToeBoard toBoard() {
+		TicTacToeBoard board = new TicTacToeBoard(width, height, winLength);
+		try {
+			for (int square = 0; square < width * height; square++) {
+				int player = getPlayer(square);
+				if (player != TicTacToeBoard.PLAYER_NONE) {
+					board.setState(square / width, square % width, player);
+				}
+			}
+		} catch (Exception e) {
+			//The player indexes are always legal
+		}
+		board.setTurn(getTurn());
+		return board;
+	}
+
+	/**
+	 * Returns true if another position has the same board size, squares and
+	 * player to move.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof PackedBoard)) {
+			return false;
+		}
+		PackedBoard board = (PackedBoard) other;
+		return bits == board.bits && width == board.width && height == board.height
+				&& winLength == board.winLength;
+	}
+
+	/**
+	 * Mixes the bits so that positions differing in a few squares spread
+	 * over the buckets of a hash table.
+	 */
+	@Override
+	public int hashCode() {
+		long h = bits * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) ^ ((width * 31 + height) * 31 + winLength);
+	}
+
+	/**
+	 * Returns the squares in row-major order with X, O and _, followed by the
+	 * player to move, the format BatchSolver reads.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder(width * height + 2);
+		for (int square = 0; square < width * height; square++) {
+			int player = getPlayer(square);
+			s.append(player == TicTacToeBoard.PLAYER_X ? TicTacToeBoard.X
+					: player == TicTacToeBoard.PLAYER_O ? TicTacToeBoard.O : TicTacToeBoard.BLANK);
+		}
+		s.append(' ').append(getTurn() == TicTacToeBoard.PLAYER_X ? TicTacToeBoard.X : TicTacToeBoard.O);
+		return s.toString();
+	}
+}
@@ -0,0 +1,431 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * This class represents the module for minimax searched in parallel on a ForkJoinPool.
+ *
+ * Every root successor is searched as its own RecursiveTask. Subtrees that still have
+ * at least splitThreshold empty squares are split further, one task per successor, so
+ * idle threads can steal work from the big subtrees. Smaller subtrees are searched
+ * serially with alpha-beta on the task's own copy of the board.
+ *
+ * All tasks share one SharedTranspositionTable, kept for the whole game: the exact
+ * values of split subtrees, and the values and bounds of the serial searches. A
+ * position reached by different move orders in different tasks is then searched once,
+ * which is most of the tree on these boards.
+ *
+ * The default player runs on the common pool. A player given its own parallelism owns
+ * a pool, which close() shuts down. Boards of more than MAX_SQUARES squares are refused.
+ *
+ * Every root successor gets its exact value, and the first optimal one in row-major order
+ * is returned, so the move is the same one MiniMax returns.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelMiniMax implements Player, Instrumented {
+    /**
+     * The most squares of a board this player searches. The levels above the serial
+     * subtrees are searched without cutoffs, so from the empty board 4x3 takes about
+     * a second and 4x4 minutes.
+     */
+    public static final int MAX_SQUARES = 12;
+
+    /**
+     * Subtrees with at least this many empty squares are split into one task per successor
+     * when no threshold is given.
+     */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 7;
+
+    //The players
+    //We will use the convention that the X player is the maximizing player and the O player is the minimizing player.
+    private static final int MAX = TicTacToeBoard.PLAYER_X;
+    private static final int MIN = TicTacToeBoard.PLAYER_O;
+
+    //"-infinity" and "+infinity". Just need to be outside of the utility range.
+    private static final int NEG_INFINITY = -2;
+    private static final int POS_INFINITY = 2;
+
+    /**
+     * The table has 2^TABLE_SIZE_BITS slots of 16 bytes each.
+     */
+    private static final int TABLE_SIZE_BITS = 18;
+
+    /**
+     * The pool the tasks run on, and whether this player created it
+     */
+    private ForkJoinPool pool;
+    private boolean ownsPool;
+
+    /**
+     * Values of searched positions, keyed by Zobrist hash, shared by every task
+     */
+    private SharedTranspositionTable table = new SharedTranspositionTable(TABLE_SIZE_BITS);
+
+    /**
+     * Subtrees with at least this many empty squares are split
+     */
+    private int splitThreshold;
+
+    /**
+     * What the search for the last move did, and for every move so far.
+     * Each task counts into its own SearchStats, which its parent adds to its own after joining it.
+     */
+    private SearchStats moveStats = new SearchStats();
+    private SearchStats totalStats = new SearchStats();
+
+    /**
+     * Constructor, with a pool of its own that close() shuts down
+     * @param parallelism The number of threads to search with
+     * @param splitThreshold Subtrees with at least this many empty squares are split into one task
+     *                       per successor. The root is always split.
+     */
+    public ParallelMiniMax(int parallelism, int splitThreshold) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.ownsPool = true;
+        this.splitThreshold = splitThreshold;
+    }
+
+    /**
+     * Constructor, on the common pool and with the default split threshold
+     */
+    public ParallelMiniMax() {
+        this.pool = ForkJoinPool.commonPool();
+        this.splitThreshold = DEFAULT_SPLIT_THRESHOLD;
+    }
+
+    /**
+     * Shuts down the pool if this player created it. The player cannot be used afterwards.
+     */
+    public void close() {
+        if (ownsPool) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the player type
+     */
+    public int getPlayerType() {
+        return PARALLEL_PLAYER;
+    }
+
+    /**
+     * Returns what the search for the last move did
+     */
+    public SearchStats getLastMoveStats() {
+        return new SearchStats(moveStats);
+    }
+
+    /**
+     * Returns what the searches for every move so far did
+     */
+    public SearchStats getTotalStats() {
+        return new SearchStats(totalStats);
+    }
+
+    /**
+     * Returns the next move.
+     * @param state The current board state in the game
+     * @return The next position, or null if the game is over
+     * @throws Exception If the board has more than MAX_SQUARES squares
+     */
+    public Position getNextMove(TicTacToeBoard state) throws Exception {
+        if (state.getWidth() * state.getHeight() > MAX_SQUARES) {
+            throw new Exception("ParallelMiniMax only searches boards of up to " + MAX_SQUARES + " squares");
+        }
+        long start = System.nanoTime();
+        moveStats.reset();
+        TicTacToeBoard board;
+        if (BitBoard.canRepresent(state)) {
+            board = new BitBoard(state);
+        } else {
+            board = (TicTacToeBoard) state.clone();
+        }
+        if (isGameOver(board)) {
+            return null;
+        }
+
+        //Fork one task per root successor, in row-major order
+        int turn = board.getTurn();
+        int numSquares = board.getWidth() * board.getHeight();
+        List<Integer> moves = new ArrayList<Integer>();
+        List<ValueTask> tasks = new ArrayList<ValueTask>();
+        for (int square = 0; square < numSquares; square++) {
+            if (board.isEmpty(square)) {
+                TicTacToeBoard b = (TicTacToeBoard) board.clone();
+                b.makeMove(square);
+                moves.add(square);
+                tasks.add(new ValueTask(b, table, splitThreshold, 1));
+            }
+        }
+        pool.invoke(new SplitTask(tasks));
+        moveStats.visit(0);
+        moveStats.successors += tasks.size();
+
+        //Only a strictly better value replaces the best move, so the first optimal move is kept
+        int value = (turn == MAX) ? NEG_INFINITY : POS_INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < tasks.size(); i++) {
+            int bValue = tasks.get(i).join();
+            moveStats.add(tasks.get(i).stats);
+            if ((turn == MAX) ? (bValue > value) : (bValue < value)) {
+                value = bValue;
+                bestMove = moves.get(i);
+            }
+        }
+
+        moveStats.elapsedNanos = System.nanoTime() - start;
+        totalStats.add(moveStats);
+        return new Position(bestMove / board.getWidth(), bestMove % board.getWidth());
+    }
+
+    /**
+     * Returns the utility at terminal states.
+     * @param state The current board state in the game
+     * @return 1 (MAX wins), -1 (MIN wins), or 0 (tie).
+     */
+    private static int getUtility(TicTacToeBoard state) {
+        try {
+            if (state.isWin(MAX)) {
+                return 1;
+            } else if (state.isWin(MIN)) {
+                return -1;
+            }
+        } catch (Exception e) {
+            //player is not a legal player index
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether the game is over
+     * @param state The current board state in the game
+     * @return Boolean. True if game over, otherwise false
+     */
+    private static boolean isGameOver(TicTacToeBoard state) {
+        try {
+            return state.isGameOver();
+        }
+        catch (Exception e) {
+            //Generic exception
+        }
+        return false;
+    }
+
+    /**
+     * Runs a list of tasks on the pool and waits for all of them.
+     */
+    private static class SplitTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private List<ValueTask> tasks;
+
+        public SplitTask(List<ValueTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        protected Integer compute() {
+            invokeAll(tasks);
+            return 0;
+        }
+    }
+
+    /**
+     * Finds the exact minimax value of a board.
+     */
+    private static class ValueTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The board to find the value of. The task owns it and plays moves on it.
+         */
+        private TicTacToeBoard state;
+
+        private SharedTranspositionTable table;
+
+        private int splitThreshold;
+
+        /**
+         * The number of moves from the root of the whole search to this task's board
+         */
+        private int ply;
+
+        /**
+         * Per-depth buffers for the successor moves of the serial search
+         */
+        private int[][] successorBuffers;
+
+        /**
+         * What this task and its subtasks did
+         */
+        SearchStats stats = new SearchStats();
+
+        public ValueTask(TicTacToeBoard state, SharedTranspositionTable table, int splitThreshold, int ply) {
+            this.state = state;
+            this.table = table;
+            this.splitThreshold = splitThreshold;
+            this.ply = ply;
+        }
+
+        protected Integer compute() {
+            int turn = state.getTurn();
+            int numSquares = state.getWidth() * state.getHeight();
+
+            if (state.getNumEmptySquares() < splitThreshold) {
+                //Small subtree: search it on this thread. A full window makes alpha-beta exact.
+                successorBuffers = new int[state.getNumEmptySquares() + 1][numSquares];
+                if (turn == MAX) {
+                    return getMaxValue(0, NEG_INFINITY, POS_INFINITY);
+                }
+                return getMinValue(0, NEG_INFINITY, POS_INFINITY);
+            }
+
+            stats.visit(ply);
+            if (isGameOver(state)) {
+                stats.evaluations++;
+                return getUtility(state);
+            }
+            long key = state.getHash();
+            long data = table.find(key);
+            if (data != 0 && SharedTranspositionTable.getBound(data) == TranspositionTable.EXACT) {
+                stats.tableHits++;
+                return SharedTranspositionTable.getValue(data);
+            }
+            stats.tableMisses++;
+
+            //Big subtree: one task per successor
+            List<ValueTask> tasks = new ArrayList<ValueTask>();
+            for (int square = 0; square < numSquares; square++) {
+                if (state.isEmpty(square)) {
+                    TicTacToeBoard b = (TicTacToeBoard) state.clone();
+                    b.makeMove(square);
+                    tasks.add(new ValueTask(b, table, splitThreshold, ply + 1));
+                }
+            }
+            stats.successors += tasks.size();
+            invokeAll(tasks);
+
+            int value = (turn == MAX) ? NEG_INFINITY : POS_INFINITY;
+            for (ValueTask task : tasks) {
+                stats.add(task.stats);
+                if (turn == MAX) {
+                    value = Math.max(value, task.join());
+                } else {
+                    value = Math.min(value, task.join());
+                }
+            }
+            table.store(key, value, TranspositionTable.EXACT, TranspositionTable.NO_MOVE, state.getNumEmptySquares());
+            return value;
+        }
+
+        /**
+         * Looks a node of the serial search up in the table
+         * @param key The hash of the node
+         * @param alpha The best value MAX can guarantee so far
+         * @param beta The best value MIN can guarantee so far
+         * @return The stored data if it decides the node within the window, otherwise 0
+         */
+        private long probe(long key, int alpha, int beta) {
+            long data = table.find(key);
+            if (data != 0) {
+                int value = SharedTranspositionTable.getValue(data);
+                byte bound = SharedTranspositionTable.getBound(data);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && value >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                    stats.tableHits++;
+                    return data;
+                }
+            }
+            stats.tableMisses++;
+            return 0;
+        }
+
+        /**
+         * Writes the moves to all the successors of the board into the buffer for the depth.
+         * @param depth The number of moves played since the root of the task
+         * @return The number of moves written to successorBuffers[depth]
+         */
+        private int getSuccessors(int depth) {
+            int[] moves = successorBuffers[depth];
+            int numMoves = 0;
+            int numSquares = state.getWidth() * state.getHeight();
+            for (int square = 0; square < numSquares; square++) {
+                if (state.isEmpty(square)) {
+                    moves[numMoves++] = square;
+                }
+            }
+            return numMoves;
+        }
+
+        private int getMinValue(int depth, int alpha, int beta) {
+            stats.visit(ply + depth);
+            if (isGameOver(state)) {
+                stats.evaluations++;
+                return getUtility(state);
+            }
+            long key = state.getHash();
+            long data = probe(key, alpha, beta);
+            if (data != 0) {
+                return SharedTranspositionTable.getValue(data);
+            }
+
+            int originalBeta = beta;
+            int value = POS_INFINITY;
+            int numMoves = getSuccessors(depth);
+            stats.successors += numMoves;
+            int[] moves = successorBuffers[depth];
+            for (int i = 0; i < numMoves; i++) {
+                state.makeMove(moves[i]);
+                value = Math.min(value, getMaxValue(depth + 1, alpha, beta));
+                state.unmakeMove(moves[i]);
+                if (value <= alpha) {
+                    stats.cutoffs++;
+                    table.store(key, value, TranspositionTable.UPPER_BOUND, TranspositionTable.NO_MOVE, numMoves);
+                    return value;
+                }
+                beta = Math.min(beta, value);
+            }
+            table.store(key, value, (value >= originalBeta) ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT,
+                    TranspositionTable.NO_MOVE, numMoves);
+            return value;
+        }
+
+        private int getMaxValue(int depth, int alpha, int beta) {
+            stats.visit(ply + depth);
+            if (isGameOver(state)) {
+                stats.evaluations++;
+                return getUtility(state);
+            }
+            long key = state.getHash();
+            long data = probe(key, alpha, beta);
+            if (data != 0) {
+                return SharedTranspositionTable.getValue(data);
+            }
+
+            int originalAlpha = alpha;
+            int value = NEG_INFINITY;
+            int numMoves = getSuccessors(depth);
+            stats.successors += numMoves;
+            int[] moves = successorBuffers[depth];
+            for (int i = 0; i < numMoves; i++) {
+                state.makeMove(moves[i]);
+                value = Math.max(value, getMinValue(depth + 1, alpha, beta));
+                state.unmakeMove(moves[i]);
+                if (value >= beta) {
+                    stats.cutoffs++;
+                    table.store(key, value, TranspositionTable.LOWER_BOUND, TranspositionTable.NO_MOVE, numMoves);
+                    return value;
+                }
+                alpha = Math.max(alpha, value);
+            }
+            table.store(key, value, (value <= originalAlpha) ? TranspositionTable.UPPER_BOUND : TranspositionTable.EXACT,
+                    TranspositionTable.NO_MOVE, numMoves);
+            return value;
+        }
+    }
+}
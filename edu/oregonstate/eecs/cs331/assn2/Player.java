@@ -1,7 +1,7 @@
 /**
  * 
  */
-//package edu.oregonstate.eecs.cs331.assn2;
+package edu.oregonstate.eecs.cs331.assn2;
 
 /**
  * This is the interface for the game player.
@@ -17,6 +17,12 @@ public interface Player {
 	public static final int RANDOM_PLAYER = 1;
 	public static final int MINIMAX_PLAYER = 2;
 	public static final int ALPHABETA_PLAYER = 3;
+	public static final int TABLE_PLAYER = 4;
+	public static final int DEEPENING_PLAYER = 5;
+	public static final int PARALLEL_PLAYER = 6;
+	public static final int LAZYSMP_PLAYER = 7;
+	public static final int MCTS_PLAYER = 8;
+	public static final int DATABASE_PLAYER = 9;
 	
 	/**
 	 * Does the next action given the current board state.
@@ -1,4 +1,4 @@
-//package edu.oregonstate.eecs.cs331.assn2;
+package edu.oregonstate.eecs.cs331.assn2;
 
 import java.util.ArrayList;
 import java.util.Random;
@@ -37,8 +37,8 @@ public class RandomPlayer implements Player {
 	 */
 	private Position getRandomMove(TicTacToeBoard state) {
 		ArrayList<Position> availableMoves = new ArrayList<Position>();
-		for( int row = 0; row < TicTacToeBoard.SIZE; row++ ) {
-			for( int col = 0; col < TicTacToeBoard.SIZE; col++ ) {
+		for( int row = 0; row < state.getHeight(); row++ ) {
+			for( int col = 0; col < state.getWidth(); col++ ) {
 				if( state.getState(row,col) == TicTacToeBoard.BLANK ) {
 					availableMoves.add(new Position(row,col));
 				}
@@ -0,0 +1,535 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves every position of a small board bottom-up, by retrograde analysis,
+ * instead of searching down from the empty board.
+ *
+ * Every board is numbered by the base-3 index whose digit for square
+ * (row * width + col) is 0 for BLANK, 1 for X and 2 for O, as in TableBuilder.
+ * A board is legal if X has as many stones as O or one more, since X always
+ * moves first. The legal boards are solved one level at a time, from the full
+ * board down to the empty one, where a level is every board with the same
+ * number of stones. A board is over if a player has winLength in a row or the
+ * board is full, and the winner is found as in MiniMax.getUtility. Every other
+ * board takes the best value of its successors, which all have one more stone
+ * and so were solved in the level before. The boards of a level do not depend
+ * on each other, so each level is split into ranges that are solved in
+ * parallel.
+ *
+ * Along with the value, each board gets its distance to the end: the number
+ * of moves left if the winner wins as fast as it can and the loser holds out
+ * as long as it can. Drawn boards always play on until the board is full.
+ *
+ * The result is one byte per index, or ILLEGAL for indexes that are not
+ * legal boards:
+ *   bits 0-1: the value for X plus 2 (1 = O wins, 2 = draw, 3 = X wins)
+ *   bits 2-6: the distance to the end
+ *
+ * To keep the inner loop free of divisions, an index is split into its low
+ * and high digits, and the stone counts and X and O squares of every possible
+ * low and high half are worked out once up front.
+ *
+ * File format: the 4 byte MAGIC number, the width, height and win length as
+ * one byte each, a zero byte, and then the entries.
+ *
+ * Usage: java RetrogradeSolver &lt;width&gt; &lt;height&gt; &lt;win length&gt; [&lt;output file&gt; [&lt;threads&gt;]]
+ *
+ */
+public class RetrogradeSolver {
+
+	/**
+	 * The number that starts every value file.
+	 */
+	public static final int MAGIC = 0x54545452; // "TTTR"
+
+	/**
+	 * The number of bytes before the first entry.
+	 */
+	public static final int HEADER_SIZE = 8;
+
+	/**
+	 * The most squares a board can have, so that 3^squares entries fit in an array.
+	 */
+	public static final int MAX_SQUARES = 19;
+
+	/**
+	 * The entry of an index that is not a legal board.
+	 */
+	public static final byte ILLEGAL = 0;
+
+	/**
+	 * The board size and win length
+	 */
+	private int width;
+	private int height;
+	private int winLength;
+	private int numSquares;
+
+	/**
+	 * 3^square for each square, and 3^numSquares as the last element
+	 */
+	private int[] pow3;
+
+	/**
+	 * Every line of winLength squares, as a bit mask of its squares
+	 */
+	private int[] lines;
+
+	/**
+	 * The number of digits in the low half of an index, and 3^lowDigits
+	 */
+	private int lowDigits;
+	private int lowSize;
+
+	/**
+	 * For every low and high half of an index: the number of Xs shifted left
+	 * by 8 plus the number of Os, and the bit masks of the X and O squares
+	 */
+	private int[] lowCounts;
+	private int[] lowXs;
+	private int[] lowOs;
+	private int[] highCounts;
+	private int[] highXs;
+	private int[] highOs;
+
+	/**
+	 * The solved entries, or null before solve()
+	 */
+	private byte[] entries;
+
+	/**
+	 * The number of legal boards X wins, draws and O wins
+	 */
+	private long xWins;
+	private long draws;
+	private long oWins;
+
+	/**
+	 * Solves the levels
+	 */
+	private int numThreads;
+
+	/**
+	 * Creates a solver for a board size.
+	 *
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 * @param numThreads
+	 *            The number of threads to solve with.
+	 * @throws Exception
+	 *             If the board has more than MAX_SQUARES squares.
+	 */
+	public RetrogradeSolver(int width, int height, int winLength, int numThreads) throws Exception {
+		if (width < 1 || height < 1 || winLength < 1) {
+			throw new Exception("Board dimensions must be positive");
+		}
+		if (width * height > MAX_SQUARES) {
+			throw new Exception("Boards of more than " + MAX_SQUARES + " squares are too big to solve");
+		}
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+		this.numSquares = width * height;
+		this.numThreads = numThreads;
+
+		pow3 = new int[numSquares + 1];
+		pow3[0] = 1;
+		for (int square = 1; square <= numSquares; square++) {
+			pow3[square] = pow3[square - 1] * 3;
+		}
+
+		lines = findLines(width, height, winLength);
+
+		lowDigits = numSquares / 2;
+		lowSize = pow3[lowDigits];
+		int highSize = pow3[numSquares - lowDigits];
+		lowCounts = new int[lowSize];
+		lowXs = new int[lowSize];
+		lowOs = new int[lowSize];
+		fillHalves(0, lowDigits, lowCounts, lowXs, lowOs);
+		highCounts = new int[highSize];
+		highXs = new int[highSize];
+		highOs = new int[highSize];
+		fillHalves(lowDigits, numSquares - lowDigits, highCounts, highXs, highOs);
+	}
+
+	/**
+	 * Finds every line of winLength squares in a row, column or diagonal.
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 * @return The bit masks of the lines, with bit (row * width + col) for each square
+	 */
+	static int[] findLines(int width, int height, int winLength) {
+		int[][] directions = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { 1, -1 } };
+		List<Integer> found = new ArrayList<Integer>();
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				for (int[] direction : directions) {
+					int endRow = row + (winLength - 1) * direction[0];
+					int endCol = col + (winLength - 1) * direction[1];
+					if (endRow < 0 || endRow >= height || endCol < 0 || endCol >= width) {
+						continue;
+					}
+					int mask = 0;
+					for (int i = 0; i < winLength; i++) {
+						mask |= 1 << ((row + i * direction[0]) * width + col + i * direction[1]);
+					}
+					found.add(mask);
+				}
+			}
+		}
+		int[] result = new int[found.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = found.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Works out the stone counts and masks of every half index.
+	 * @param firstSquare The square of the half's lowest digit
+	 * @param digits The number of digits in the half
+	 */
+	private void fillHalves(int firstSquare, int digits, int[] counts, int[] xs, int[] os) {
+		for (int half = 0; half < pow3[digits]; half++) {
+			int rest = half;
+			for (int i = 0; i < digits; i++) {
+				int digit = rest % 3;
+				rest /= 3;
+				if (digit == 1) {
+					counts[half] += 1 << 8;
+					xs[half] |= 1 << (firstSquare + i);
+				} else if (digit == 2) {
+					counts[half] += 1;
+					os[half] |= 1 << (firstSquare + i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solves every legal board.
+	 *
+	 * @throws Exception
+	 *             If a solving thread fails.
+	 */
+	public void solve() throws Exception {
+		entries = new byte[pow3[numSquares]];
+		xWins = 0;
+		draws = 0;
+		oWins = 0;
+
+		int highSize = highCounts.length;
+		int numTasks = Math.min(highSize, numThreads * 8);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			for (int stones = numSquares; stones >= 0; stones--) {
+				List<Callable<long[]>> tasks = new ArrayList<Callable<long[]>>();
+				for (int t = 0; t < numTasks; t++) {
+					final int level = stones;
+					final int from = (int) ((long) highSize * t / numTasks);
+					final int to = (int) ((long) highSize * (t + 1) / numTasks);
+					tasks.add(new Callable<long[]>() {
+						public long[] call() {
+							return solveRange(level, from, to);
+						}
+					});
+				}
+				//Waiting for every range also makes the level's entries visible to the next level
+				for (Future<long[]> result : executor.invokeAll(tasks)) {
+					long[] counts = result.get();
+					oWins += counts[0];
+					draws += counts[1];
+					xWins += counts[2];
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new Exception("Solving failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Solves the legal boards of one level whose high half is in a range.
+	 * @param stones The number of stones on the level's boards
+	 * @param fromHigh The first high half
+	 * @param toHigh One past the last high half
+	 * @return The number of boards solved as O wins, draws and X wins
+	 */
+	private long[] solveRange(int stones, int fromHigh, int toHigh) {
+		long[] counts = new long[3];
+		int xStones = (stones + 1) / 2;
+		int oStones = stones / 2;
+		int wanted = (xStones << 8) + oStones;
+		int full = (int) ((1L << numSquares) - 1);
+		boolean xToMove = (xStones == oStones);
+
+		for (int high = fromHigh; high < toHigh; high++) {
+			int highCount = highCounts[high];
+			if ((highCount >> 8) > xStones || (highCount & 0xFF) > oStones) {
+				continue;
+			}
+			int base = high * lowSize;
+			for (int low = 0; low < lowSize; low++) {
+				if (highCount + lowCounts[low] != wanted) {
+					continue;
+				}
+				int xs = highXs[high] | lowXs[low];
+				int os = highOs[high] | lowOs[low];
+				int index = base + low;
+
+				int value;
+				int distance = 0;
+				if (hasLine(xs)) {
+					value = 1;
+				} else if (hasLine(os)) {
+					value = -1;
+				} else if (stones == numSquares) {
+					value = 0;
+				} else {
+					//Every successor has one more stone, so it was solved on the level before.
+					//A win is taken by the shortest way and a loss put off as long as possible.
+					int digit = xToMove ? 1 : 2;
+					int win = xToMove ? 1 : -1;
+					value = -win;
+					distance = -1;
+					int empty = full & ~(xs | os);
+					while (empty != 0) {
+						int square = Integer.numberOfTrailingZeros(empty);
+						empty &= empty - 1;
+						byte entry = entries[index + digit * pow3[square]];
+						int v = getValue(entry);
+						int d = getDistance(entry);
+						if ((xToMove ? (v > value) : (v < value))
+								|| (v == value && ((v == win) ? (d < distance) : (d > distance)))) {
+							value = v;
+							distance = d;
+						}
+					}
+					distance++;
+				}
+				entries[index] = (byte) ((distance << 2) | (value + 2));
+				counts[value + 1]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns true if a player's squares hold a whole line.
+	 * @param squares The bit mask of the player's squares
+	 */
+	private boolean hasLine(int squares) {
+		for (int line : lines) {
+			if ((squares & line) == line) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the index of a board.
+	 * @param state The board, which must be this solver's size
+	 * @return The base-3 index of the board's squares
+	 * @throws Exception If the board is not this solver's size
+	 */
+	public int getIndex(TicTacToeBoard state) throws Exception {
+		if (state.getWidth() != width || state.getHeight() != height || state.getWinLength() != winLength) {
+			throw new Exception("The board is not " + width + "x" + height + " with " + winLength + " in a row");
+		}
+		int index = 0;
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				String symbol = state.getState(row, col);
+				if (symbol == TicTacToeBoard.X) {
+					index += pow3[row * width + col];
+				} else if (symbol == TicTacToeBoard.O) {
+					index += 2 * pow3[row * width + col];
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the value of a board.
+	 * @param state The board, which must be this solver's size
+	 * @return 1 (X wins), -1 (O wins), or 0 (tie) with perfect play.
+	 * @throws Exception If the board has not been solved or is not legal
+	 */
+	public int getValue(TicTacToeBoard state) throws Exception {
+		if (entries == null) {
+			throw new Exception("The solver has not been run");
+		}
+		byte entry = entries[getIndex(state)];
+		if (entry == ILLEGAL) {
+			throw new Exception("The board is not a legal position");
+		}
+		return getValue(entry);
+	}
+
+	/**
+	 * Returns the value for X of an entry.
+	 * @param entry An entry that is not ILLEGAL
+	 * @return 1 (X wins), -1 (O wins), or 0 (tie).
+	 */
+	public static int getValue(byte entry) {
+		return (entry & 0x3) - 2;
+	}
+
+	/**
+	 * Returns the distance to the end of an entry.
+	 * @param entry An entry that is not ILLEGAL
+	 * @return The number of moves left with perfect play, 0 if the game is over
+	 */
+	public static int getDistance(byte entry) {
+		return (entry >> 2) & 0x1F;
+	}
+
+	/**
+	 * @return The number of squares in a row
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return The number of squares in a column
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return The number of Xs or Os in a row needed to win
+	 */
+	public int getWinLength() {
+		return winLength;
+	}
+
+	/**
+	 * @return The solved entries, indexed by getIndex, or null before solve()
+	 */
+	public byte[] getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return The number of legal boards X wins with perfect play
+	 */
+	public long getXWins() {
+		return xWins;
+	}
+
+	/**
+	 * @return The number of legal boards that are draws with perfect play
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * @return The number of legal boards O wins with perfect play
+	 */
+	public long getOWins() {
+		return oWins;
+	}
+
+	/**
+	 * Writes the solved entries to a file. The file is written under a
+	 * temporary name and then renamed, as in TableBuilder.write.
+	 * @param fileName The file to write
+	 * @throws Exception If the solver has not been run or the file cannot be written
+	 */
+	public void write(String fileName) throws Exception {
+		if (entries == null) {
+			throw new Exception("The solver has not been run");
+		}
+		File target = new File(fileName).getAbsoluteFile();
+		File temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+			try {
+				out.writeInt(MAGIC);
+				out.writeByte(width);
+				out.writeByte(height);
+				out.writeByte(winLength);
+				out.writeByte(0);
+				out.write(entries);
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * The entry point for solving a board size from the command line.
+	 *
+	 * @param args
+	 *            The command line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int numThreads = Runtime.getRuntime().availableProcessors();
+			if( args.length < 3 || args.length > 5 ) {
+				System.out.println("Usage: program <width> <height> <win length> [<output file> [<threads>]]");
+				System.exit(-1);
+			}
+			int width = Integer.parseInt(args[0]);
+			int height = Integer.parseInt(args[1]);
+			int winLength = Integer.parseInt(args[2]);
+			if( args.length == 5 ) {
+				numThreads = Integer.parseInt(args[4]);
+				if( numThreads < 1 ) {
+					throw new Exception("Threads must be positive");
+				}
+			}
+
+			RetrogradeSolver solver = new RetrogradeSolver(width, height, winLength, numThreads);
+			long start = System.nanoTime();
+			solver.solve();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long legal = solver.getXWins() + solver.getDraws() + solver.getOWins();
+			System.out.println(String.format("%dx%d, %d in a row: %d legal positions solved in %.3f s",
+					width, height, winLength, legal, seconds));
+			System.out.println(String.format("X wins %d, draws %d, O wins %d",
+					solver.getXWins(), solver.getDraws(), solver.getOWins()));
+			int value = RetrogradeSolver.getValue(solver.getEntries()[0]);
+			int distance = RetrogradeSolver.getDistance(solver.getEntries()[0]);
+			System.out.println("The empty board is " + (value > 0 ? "an X win" : value < 0 ? "an O win" : "a draw")
+					+ " in " + distance + " moves");
+			if( args.length >= 4 ) {
+				solver.write(args[3]);
+				System.out.println("Wrote " + solver.getEntries().length + " entries to " + args[3]);
+			}
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
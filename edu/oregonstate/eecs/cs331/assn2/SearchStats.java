@@ -0,0 +1,183 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * Counts the work a search did.
+ *
+ * The search players count straight into the fields of their own SearchStats
+ * while they search, so counting costs a field increment per event. Each
+ * search thread has its own SearchStats, and multithreaded players add them
+ * together when the move is done.
+ *
+ */
+public class SearchStats {
+
+	/**
+	 * Positions the search visited, including the root
+	 */
+	long nodes;
+
+	/**
+	 * Leaf positions that were given a value: games that are over, and
+	 * positions at the horizon of a depth-limited search
+	 */
+	long evaluations;
+
+	/**
+	 * Moves generated for the successors of the visited positions
+	 */
+	long successors;
+
+	/**
+	 * Positions whose remaining successors were skipped by alpha-beta pruning
+	 */
+	long cutoffs;
+
+	/**
+	 * Cutoffs caused by the first move searched. The closer this is to
+	 * cutoffs, the better the moves were ordered.
+	 */
+	long firstMoveCutoffs;
+
+	/**
+	 * Searches repeated with a wider window because the narrow one missed:
+	 * null window searches that found a better move, and aspiration windows
+	 * the score fell outside of
+	 */
+	long researches;
+
+	/**
+	 * Transposition table lookups that did and did not settle a position
+	 */
+	long tableHits;
+	long tableMisses;
+
+	/**
+	 * The most moves from the root the search went
+	 */
+	int maxDepth;
+
+	/**
+	 * Wall-clock time of the search
+	 */
+	long elapsedNanos;
+
+	/**
+	 * Creates an empty SearchStats.
+	 */
+	public SearchStats() {
+	}
+
+	/**
+	 * Creates a copy of another SearchStats.
+	 * @param other The stats to copy
+	 */
+	public SearchStats(SearchStats other) {
+		add(other);
+	}
+
+	/**
+	 * Sets every count back to zero.
+	 */
+	public void reset() {
+		nodes = 0;
+		evaluations = 0;
+		successors = 0;
+		cutoffs = 0;
+		firstMoveCutoffs = 0;
+		researches = 0;
+		tableHits = 0;
+		tableMisses = 0;
+		maxDepth = 0;
+		elapsedNanos = 0;
+	}
+
+	/**
+	 * Adds another SearchStats' counts to this one. The max depth becomes the
+	 * larger of the two.
+	 * @param other The stats to add
+	 */
+	public void add(SearchStats other) {
+		nodes += other.nodes;
+		evaluations += other.evaluations;
+		successors += other.successors;
+		cutoffs += other.cutoffs;
+		firstMoveCutoffs += other.firstMoveCutoffs;
+		researches += other.researches;
+		tableHits += other.tableHits;
+		tableMisses += other.tableMisses;
+		maxDepth = Math.max(maxDepth, other.maxDepth);
+		elapsedNanos += other.elapsedNanos;
+	}
+
+	/**
+	 * Records that the search reached a position
+	 * @param depth The number of moves from the root
+	 */
+	void visit(int depth) {
+		nodes++;
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	public long getSuccessors() {
+		return successors;
+	}
+
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	public long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+
+	public long getResearches() {
+		return researches;
+	}
+
+	public long getTableHits() {
+		return tableHits;
+	}
+
+	public long getTableMisses() {
+		return tableMisses;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return Positions visited per second of search, or 0 if no time was
+	 *         measured
+	 */
+	public double getNodesPerSecond() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return nodes / (elapsedNanos / 1e9);
+	}
+
+	/**
+	 * Returns the counts on one line.
+	 */
+	public String toString() {
+		return String.format("nodes %d, evaluations %d, successors %d, cutoffs %d (%d on the first move), "
+				+ "re-searches %d, table hits %d, table misses %d, max depth %d, %.3f ms, %.0f nodes/s",
+				nodes, evaluations, successors, cutoffs, firstMoveCutoffs, researches, tableHits, tableMisses,
+				maxDepth, elapsedNanos / 1e6, getNodesPerSecond());
+	}
+}
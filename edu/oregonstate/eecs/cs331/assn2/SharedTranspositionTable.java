@@ -0,0 +1,116 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * A transposition table that many search threads can read and write at the
+ * same time without locks.
+ *
+ * Each slot is two longs in one primitive array: the entry's data, and the
+ * position's hash XORed with the data. Two threads writing the same slot at
+ * once can leave one thread's data next to the other thread's check word,
+ * but then the XOR no longer gives back the hash and find treats the slot as
+ * empty. A racing write can cost a lost entry, never a wrong one.
+ *
+ * The data word packs the value (32 bits), best move (16 bits), search depth
+ * (8 bits) and bound type (8 bits, the constants of TranspositionTable).
+ * Depths over MAX_DEPTH, which boards of more than 255 squares can reach,
+ * are stored as MAX_DEPTH. The entry then looks shallower than it is, so a
+ * search that needs it deeper searches again instead of trusting it.
+ *
+ */
+public class SharedTranspositionTable {
+
+	/**
+	 * The deepest search depth an entry records.
+	 */
+	public static final int MAX_DEPTH = 0xFF;
+
+	/**
+	 * Two longs per slot: the check word (hash ^ data) and the data.
+	 */
+	private final long[] entries;
+
+	/**
+	 * Used to turn a hash into a slot index.
+	 */
+	private final int mask;
+
+	/**
+	 * Creates an empty table.
+	 * @param sizeBits The table has 2^sizeBits slots
+	 */
+	public SharedTranspositionTable(int sizeBits) {
+		entries = new long[2 << sizeBits];
+		mask = (1 << sizeBits) - 1;
+	}
+
+	/**
+	 * Returns the data stored for a position.
+	 * @param key The hash of the position
+	 * @return The data word, or 0 if the position is not in the table. 0 is never a
+	 *         valid data word since its bound type would be EMPTY.
+	 */
+	public long find(long key) {
+		int slot = ((int) (key ^ (key >>> 32)) & mask) << 1;
+		long check = entries[slot];
+		long data = entries[slot + 1];
+		if ((check ^ data) == key && getBound(data) != TranspositionTable.EMPTY) {
+			return data;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores a search result, replacing whatever was in its slot.
+	 * @param key The hash of the position
+	 * @param value The searched value
+	 * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+	 * @param bestMove The square index of the best move, or NO_MOVE
+	 * @param depth The number of moves the result looked ahead, stored as
+	 *              MAX_DEPTH if it is more
+	 */
+	public void store(long key, int value, byte bound, int bestMove, int depth) {
+		long data = ((long) value << 32)
+				| ((long) (bestMove & 0xFFFF) << 16)
+				| ((long) Math.min(depth, MAX_DEPTH) << 8)
+				| (bound & 0xFF);
+		int slot = ((int) (key ^ (key >>> 32)) & mask) << 1;
+		entries[slot] = key ^ data;
+		entries[slot + 1] = data;
+	}
+
+	/**
+	 * Returns the value of a data word
+	 * @param data A data word returned by find
+	 * @return The value
+	 */
+	public static int getValue(long data) {
+		return (int) (data >> 32);
+	}
+
+	/**
+	 * Returns the best move of a data word
+	 * @param data A data word returned by find
+	 * @return The square index of the best move, or NO_MOVE
+	 */
+	public static int getBestMove(long data) {
+		return (short) (data >>> 16);
+	}
+
+	/**
+	 * Returns the search depth of a data word
+	 * @param data A data word returned by find
+	 * @return The number of moves the result looked ahead, at most MAX_DEPTH
+	 */
+	public static int getDepth(long data) {
+		return (int) ((data >>> 8) & 0xFF);
+	}
+
+	/**
+	 * Returns the bound type of a data word
+	 * @param data A data word returned by find
+	 * @return EXACT, LOWER_BOUND or UPPER_BOUND
+	 */
+	public static byte getBound(long data) {
+		return (byte) (data & 0xFF);
+	}
+}
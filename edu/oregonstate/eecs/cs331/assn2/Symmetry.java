@@ -0,0 +1,72 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * The 8 symmetries of the square board: 4 rotations and 4 reflections.
+ * Boards that are rotations or reflections of each other have the same
+ * value, and their best moves map onto each other, so the search only
+ * needs to look at one board out of each group.
+ *
+ * Squares are indexed row * SIZE + col.
+ *
+ */
+public class Symmetry {
+
+	/**
+	 * The number of symmetries. Transform 0 is the identity.
+	 */
+	public static final int COUNT = 8;
+
+	/**
+	 * The square each square is moved to by each transform.
+	 */
+	private static final int[][] FORWARD = new int[COUNT][TicTacToeBoard.SIZE * TicTacToeBoard.SIZE];
+
+	/**
+	 * The square each square is moved back to by the inverse of each transform.
+	 */
+	private static final int[][] INVERSE = new int[COUNT][TicTacToeBoard.SIZE * TicTacToeBoard.SIZE];
+
+	static {
+		int last = TicTacToeBoard.SIZE - 1;
+		for (int row = 0; row < TicTacToeBoard.SIZE; row++) {
+			for (int col = 0; col < TicTacToeBoard.SIZE; col++) {
+				int[][] images = {
+					{row, col},               // identity
+					{col, last - row},        // rotate 90
+					{last - row, last - col}, // rotate 180
+					{last - col, row},        // rotate 270
+					{last - row, col},        // flip rows
+					{row, last - col},        // flip columns
+					{col, row},               // main diagonal
+					{last - col, last - row}  // anti-diagonal
+				};
+				int square = row * TicTacToeBoard.SIZE + col;
+				for (int t = 0; t < COUNT; t++) {
+					int image = images[t][0] * TicTacToeBoard.SIZE + images[t][1];
+					FORWARD[t][square] = image;
+					INVERSE[t][image] = square;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns where a transform moves a square.
+	 * @param transform The transform, 0 to COUNT - 1
+	 * @param square The square index
+	 * @return The square index after the transform
+	 */
+	public static int transform(int transform, int square) {
+		return FORWARD[transform][square];
+	}
+
+	/**
+	 * Returns where the inverse of a transform moves a square.
+	 * @param transform The transform, 0 to COUNT - 1
+	 * @param square The square index on the transformed board
+	 * @return The square index on the original board
+	 */
+	public static int inverse(int transform, int square) {
+		return INVERSE[transform][square];
+	}
+}
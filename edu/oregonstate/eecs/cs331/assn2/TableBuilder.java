@@ -0,0 +1,214 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Solves every reachable tic-tac-toe position once and writes the value and
+ * best move of each one to a compact binary table, which TablePlayer reads.
+ *
+ * File format: the 4 byte MAGIC number followed by one byte per position,
+ * indexed by the base-3 number whose digit for square (row * SIZE + col) is
+ * 0 for BLANK, 1 for X and 2 for O. Whose turn it is follows from the squares,
+ * since X always moves first. Each byte holds:
+ *   bits 0-3: the best move's square index, or NO_MOVE for terminal positions
+ *   bits 4-5: the value for X plus one (0 = O wins, 1 = draw, 2 = X wins)
+ *   bit 7:    set if the position is reachable and was solved
+ *
+ * Usage: java TableBuilder [output file]
+ *
+ */
+public class TableBuilder {
+
+	/**
+	 * The number that starts every table file.
+	 */
+	public static final int MAGIC = 0x54545431; // "TTT1"
+
+	/**
+	 * The number of bytes before the first entry.
+	 */
+	public static final int HEADER_SIZE = 4;
+
+	/**
+	 * The number of positions in the table: 3^(SIZE * SIZE).
+	 */
+	public static final int NUM_POSITIONS = 19683;
+
+	/**
+	 * The file written when no file is given on the command line.
+	 */
+	public static final String DEFAULT_FILE = "tictactoe.table";
+
+	/**
+	 * The best move stored for terminal positions.
+	 */
+	public static final int NO_MOVE = 0x0F;
+
+	/**
+	 * The flag marking a solved entry.
+	 */
+	public static final int SOLVED = 0x80;
+
+	/**
+	 * 3^square for each square.
+	 */
+	private static final int[] POW3 = new int[TicTacToeBoard.SIZE * TicTacToeBoard.SIZE];
+
+	static {
+		POW3[0] = 1;
+		for (int square = 1; square < POW3.length; square++) {
+			POW3[square] = POW3[square - 1] * 3;
+		}
+	}
+
+	/**
+	 * Returns the table index of a board.
+	 * @param state The board
+	 * @return The base-3 index of the board's squares
+	 */
+	public static int getIndex(TicTacToeBoard state) {
+		int index = 0;
+		for (int row = 0; row < TicTacToeBoard.SIZE; row++) {
+			for (int col = 0; col < TicTacToeBoard.SIZE; col++) {
+				String symbol = state.getState(row, col);
+				if (symbol == TicTacToeBoard.X) {
+					index += POW3[row * TicTacToeBoard.SIZE + col];
+				} else if (symbol == TicTacToeBoard.O) {
+					index += 2 * POW3[row * TicTacToeBoard.SIZE + col];
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the value for X of a table entry.
+	 * @param entry The table entry
+	 * @return 1 (X wins), -1 (O wins), or 0 (tie).
+	 */
+	public static int getValue(int entry) {
+		return ((entry >> 4) & 0x3) - 1;
+	}
+
+	/**
+	 * Returns the best move of a table entry.
+	 * @param entry The table entry
+	 * @return The square index of the best move, or NO_MOVE
+	 */
+	public static int getBestMove(int entry) {
+		return entry & 0x0F;
+	}
+
+	/**
+	 * Solves every position reachable from the empty board.
+	 * @return The table entries, indexed by getIndex
+	 */
+	public static byte[] build() {
+		byte[] entries = new byte[NUM_POSITIONS];
+		solve(new BitBoard(), 0, entries);
+		return entries;
+	}
+
+	/**
+	 * Solves a position and all positions reachable from it.
+	 * @param state The board, which is put back the way it was before returning
+	 * @param index The table index of the board
+	 * @param entries The table entries solved so far
+	 * @return The value of the position for X
+	 */
+	private static int solve(BitBoard state, int index, byte[] entries) {
+		if ((entries[index] & SOLVED) != 0) {
+			return getValue(entries[index]);
+		}
+
+		int value;
+		int bestMove = NO_MOVE;
+		if (state.isGameOver()) {
+			value = getUtility(state);
+		} else {
+			//X maximizes and O minimizes. Only a strict improvement replaces
+			//the best move, so the first optimal move in row-major order is kept.
+			int turn = state.getTurn();
+			int digit = (turn == TicTacToeBoard.PLAYER_X) ? 1 : 2;
+			value = (turn == TicTacToeBoard.PLAYER_X) ? -2 : 2;
+			for (int square = 0; square < POW3.length; square++) {
+				if (state.isEmpty(square)) {
+					state.makeMove(square);
+					int v = solve(state, index + digit * POW3[square], entries);
+					state.unmakeMove(square);
+					if ((turn == TicTacToeBoard.PLAYER_X) ? (v > value) : (v < value)) {
+						value = v;
+						bestMove = square;
+					}
+				}
+			}
+		}
+
+		entries[index] = (byte) (SOLVED | ((value + 1) << 4) | bestMove);
+		return value;
+	}
+
+	/**
+	 * Returns the utility at terminal states.
+	 * @param state The board
+	 * @return 1 (X wins), -1 (O wins), or 0 (tie).
+	 */
+	private static int getUtility(BitBoard state) {
+		try {
+			if (state.isWin(TicTacToeBoard.PLAYER_X)) {
+				return 1;
+			} else if (state.isWin(TicTacToeBoard.PLAYER_O)) {
+				return -1;
+			}
+		} catch (Exception e) {
+			//player is not a legal player index
+		}
+		return 0;
+	}
+
+	/**
+	 * Solves every position and writes the table to a file.
+	 * The table is written to a temporary file that is then renamed, so a
+	 * TablePlayer mapping the file at the same time never sees half a table.
+	 * @param fileName The file to write
+	 * @throws Exception If the file cannot be written
+	 */
+	public static void write(String fileName) throws Exception {
+		byte[] entries = build();
+		File target = new File(fileName).getAbsoluteFile();
+		File temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			try {
+				out.writeInt(MAGIC);
+				out.write(entries);
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * The entry point for the build step.
+	 * @param args The file to write, or none to write DEFAULT_FILE
+	 */
+	public static void main(String[] args) {
+		try {
+			String fileName = (args.length > 0) ? args[0] : DEFAULT_FILE;
+			write(fileName);
+			System.out.println("Wrote " + NUM_POSITIONS + " positions to " + fileName);
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A player that looks its moves up in the perfect-play table written by
+ * TableBuilder instead of searching. The table file is memory-mapped
+ * read-only, so startup does not read the file and every game (and every
+ * process) using the same file shares one copy of it. Each move is a
+ * single byte read.
+ *
+ */
+public class TablePlayer implements Player {
+
+	/**
+	 * The mapped table file.
+	 */
+	private MappedByteBuffer table;
+
+	/**
+	 * Maps the table file written by TableBuilder, writing it first if it
+	 * does not exist yet.
+	 * @param fileName The table file
+	 * @throws Exception If the file cannot be read or is not a table
+	 */
+	public TablePlayer(String fileName) throws Exception {
+		if (!new File(fileName).exists()) {
+			TableBuilder.write(fileName);
+		}
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() != TableBuilder.HEADER_SIZE + TableBuilder.NUM_POSITIONS) {
+				throw new Exception("Invalid table file " + fileName);
+			}
+			table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			//The mapping stays valid after the file is closed
+			file.close();
+		}
+		if (table.getInt(0) != TableBuilder.MAGIC) {
+			throw new Exception("Invalid table file " + fileName);
+		}
+	}
+
+	/**
+	 * Uses the table in TableBuilder.DEFAULT_FILE
+	 * @throws Exception If the file cannot be read or is not a table
+	 */
+	public TablePlayer() throws Exception {
+		this(TableBuilder.DEFAULT_FILE);
+	}
+
+	/**
+	 * Returns the next move to do.
+	 * @param state The current board state
+	 * @return The next move.
+	 * @throws Exception If the position is not in the table
+	 */
+	public Position getNextMove(TicTacToeBoard state) throws Exception {
+		if (!BitBoard.canRepresent(state)) {
+			throw new Exception("The table only covers the 3x3 board");
+		}
+		int entry = table.get(TableBuilder.HEADER_SIZE + TableBuilder.getIndex(state));
+		if ((entry & TableBuilder.SOLVED) == 0) {
+			throw new Exception("Position is not reachable from the empty board");
+		}
+		int move = TableBuilder.getBestMove(entry);
+		if (move == TableBuilder.NO_MOVE) {
+			return null;
+		}
+		return new Position(move / TicTacToeBoard.SIZE, move % TicTacToeBoard.SIZE);
+	}
+
+	/**
+	 * Gets the player type
+	 * @return The player type
+	 */
+	public int getPlayerType() {
+		return Player.TABLE_PLAYER;
+	}
+}
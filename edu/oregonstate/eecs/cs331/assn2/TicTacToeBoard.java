@@ -1,362 +1,649 @@
-//package edu.oregonstate.eecs.cs331.assn2;
-
-import java.io.PrintStream;
-
-/**
- * This class encapsulates all of the state information of the TicTacToe board.
- * 
- * @author Chris Ventura
- * 
- */
-public class TicTacToeBoard {
-
-	/**
-	 * A symbol for the contents of a blank square.
-	 */
-	public static final String BLANK = "_";
-	
-	/**
-	 * The symbol for a square occupied by player X
-	 */
-	public static final String X = "X";
-	
-	/**
-	 * The symbol for a square occupied by player O
-	 */
-	public static final String O = "O";
-	
-	/**
-	 * The player index for an empty square
-	 */
-	public static final int PLAYER_NONE = -1;
-	
-	/**
-	 * The player index for a square occupied by X
-	 */
-	public static final int PLAYER_X = 0;
-	
-	/**
-	 * The player index for a square with an O in it.
-	 */
-	public static final int PLAYER_O = 1;
-
-	/**
-	 * This constant specifies the number of squares in a row and the number of
-	 * squares in a column.
-	 */
-	public static final int SIZE = 3;
-
-	/**
-	 * The state of each square.
-	 */
-	private String square[][];
-
-	/**
-	 * Specifies whose turn it is.
-	 */
-	private int turn;
-
-	/**
-	 * The number of empty squares
-	 */
-	private int numEmptySquares;
-
-    /**
-     * Keep track of the previous move
-     */
-    private Position previousMove = new Position();
-
-	/**
-	 * The contructor for the class. It sets the current state of the game to
-	 * the initial state of the game.
-	 * 
-	 */
-	public TicTacToeBoard() {
-		this.turn = PLAYER_X;
-		this.numEmptySquares = 9;
-		this.square = new String[SIZE][SIZE];
-		for (int row = 0; row < SIZE; row++) {
-			for (int col = 0; col < SIZE; col++) {
-				this.square[row][col] = BLANK;
-			}
-		}
-	}
-
-    /**
-     * Returns the previous move
-     */
-    public Position getPreviousMove() {
-        return previousMove;
-    }
-
-    /**
-     * Sets the previous move.
-     */
-    private void setPreviousMove(int row, int col) {
-        previousMove = new Position(row, col);
-    }
-
-	/**
-	 * The method to use when needing to update the game board's state.
-	 * 
-	 * @param row
-	 *            The row of the square to update.
-	 * @param col
-	 *            The column of the square to update.
-	 * @param playerSymbol
-	 *            The String symbol of the player who now has the square.
-	 * @throws Exception If the playerSymbol is not "X" or "O"
-	 */
-	public void setState(int row, int col, String playerSymbol) throws Exception {
-		if ((square[row][col] == BLANK) && (playerSymbol != BLANK)) {
-			this.numEmptySquares--;
-		}
-		if( !playerSymbol.equals(TicTacToeBoard.X) && !playerSymbol.equals(TicTacToeBoard.O)) {
-			throw new Exception("Invalid player symbol");
-		}
-		square[row][col] = playerSymbol;
-        setPreviousMove(row, col);
-	}
-
-	/**
-	 * The method to use when needing to update the game board's state.
-	 * 
-	 * @param row
-	 *            The row of the square to update.
-	 * @param col
-	 *            The column of the square to update.
-	 * @param playerIndex
-	 *            The integer index of the player who now has the square.
-	 * @throws Exception If the player index is invalid
-	 */
-	public void setState(int row, int col, int playerIndex) throws Exception {
-		if ((square[row][col] == BLANK) && (playerIndex != PLAYER_NONE)) {
-			this.numEmptySquares--;
-		}
-		String playerSymbol;
-		if( playerIndex == PLAYER_X ) {
-			playerSymbol = X;
-		} else if ( playerIndex == PLAYER_O ) {
-			playerSymbol = O;
-		} else {
-			throw new Exception("Invalid player symbol");
-		}
-		square[row][col] = playerSymbol;
-        setPreviousMove(row, col);
-	}
-
-	/**
-	 * Returns the contents of a square where the contents are the constants X, O, or BLANK
-	 * 
-	 * @param row
-	 *            The row of the square
-	 * @param col
-	 *            The col of the square
-	 * @return The contents of the square where the contents are the constants X, O, or BLANK
-	 */
-	public String getState(int row, int col) {
-		return this.square[row][col];
-	}
-
-	/**
-	 * Returns the index of the player who owns the square.  The player index can be PLAYER_X, PLAYER_O, or PLAYER_NONE.
-	 * 
-	 * @param row
-	 *            The row of the square
-	 * @param col
-	 *            The col of the square
-	 * @throws Exception if player symbol is invalid
-	 * @return The index of the player who owns the square.
-	 */
-	public int getPlayerIndexOfSquare(int row, int col) throws Exception {
-		String playerSymbol = this.square[row][col];
-		if( playerSymbol.equals(X) ) {
-			return PLAYER_X;
-		} else if ( playerSymbol.equals(O) ) {
-			return PLAYER_O;
-		} else if ( playerSymbol.equals(BLANK) ) {
-			return PLAYER_NONE;
-		} else {
-			throw new Exception("Invalid Player Symbol in square");
-		}
-	}
-
-	/**
-	 * Retrieves the player index who has the current turn.
-	 * 
-	 * @return The player index who has the current turn.
-	 */
-	public synchronized int getTurn() {
-		return this.turn;
-	}
-
-	/**
-	 * Sets which player has the next turn.
-	 * 
-	 * @param player
-	 *            The player who will have the next turn.
-	 */
-	public synchronized void setTurn(int player) {
-		this.turn = player;
-	}
-
-	/**
-	 * Returns if the game is over or not
-	 * @return True if the game is over and false otherwise.
-	 * @throws Exception
-	 */
-	public boolean isGameOver() throws Exception {
-		if ((this.numEmptySquares == 0) || isWin()) {
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Returns true if a player wins the game.
-	 * @return True if a player wins the game and false if the game is a draw or it is still going on.
-	 * @throws Exception
-	 */
-	public boolean isWin() throws Exception {
-		return (isWin(PLAYER_X) || isWin(PLAYER_O));
-	}
-
-	/**
-	 * Returns true if the specified player wins the game
-	 * @param player The index of the player
-	 * @return True if the specified player wins the game and false otherwise.
-	 * @throws Exception If player is not a legal player index.
-	 */
-	public boolean isWin(int player) throws Exception {
-		if (isVerticalWin(player) || isHorizontalWin(player)
-				|| isDiagonalWin(player)) {
-			return true;
-		} else {
-			return false;
-		}
-	}
-
-	/**
-	 * Checks if the specified player has three Xs or Os in a row.
-	 * @param player The player index
-	 * @return True if there is a vertical 3-in-a-row for the specified player and false otherwise.
-	 * @throws Exception If the player index is invalid.
-	 */
-	private boolean isVerticalWin(int player) throws Exception {
-		boolean result = false;
-		String playerSymbol;
-		if ((player < 0) || (player > TicTacToeBoard.PLAYER_O)) {
-			throw new Exception("Invalid player index -- must be 0 or 1");
-		}
-		if( player == PLAYER_X) {
-			playerSymbol = X;
-		} else {
-			playerSymbol = O;
-		}
-		for (int col = 0; col < SIZE; col++) {
-			if ((square[0][col] == square[1][col])
-					&& (square[1][col] == square[2][col])
-					&& (square[2][col] == playerSymbol)) {
-				result = true;
-				break;
-			}
-		}
-		return result;
-	}
-
-	/**
-	 * Checks if the specified player has three Xs or Os in a row.
-	 * 
-	 * @param player The player index
-	 * @return True if there is a horizontal 3-in-a-row for the specified player and false otherwise.
-	 * @throws Exception If the player index is invalid.
-	 */
-	private boolean isHorizontalWin(int player) throws Exception {
-		boolean result = false;
-		if ((player < 0) || (player > TicTacToeBoard.PLAYER_O)) {
-			throw new Exception("Invalid player index -- must be 0 or 1");
-		}
-		String playerSymbol;
-		if( player == PLAYER_X) {
-			playerSymbol = X;
-		} else {
-			playerSymbol = O;
-		}
-		for (int row = 0; row < SIZE; row++) {
-			if ((square[row][0] == square[row][1])
-					&& (square[row][1] == square[row][2])
-					&& (square[row][0] == playerSymbol)) {
-				result = true;
-				break;
-			}
-		}
-		return result;
-	}
-
-	/**
-	 * Checks the specified player has three X's or O's in-a-row diagonally.
-	 * @param player The player index
-	 * @return True if there is a diagonal 3-in-a-row pattern for the specified player and false otherwise
-	 * @throws Exception If the player index is invalid.
-	 */
-	private boolean isDiagonalWin(int player) throws Exception {
-		boolean win = false;
-		if ((player < 0) || (player > TicTacToeBoard.PLAYER_O)) {
-			throw new Exception("Invalid player index -- must be 0 or 1");
-		}
-		String playerSymbol;
-		if( player == PLAYER_X) {
-			playerSymbol = X;
-		} else {
-			playerSymbol = O;
-		}
-		if ((square[0][0] == square[1][1]) && (square[1][1] == square[2][2])
-				&& (square[2][2] == playerSymbol)) {
-			win = true;
-		}
-
-		if ((square[0][2] == square[1][1]) && (square[1][1] == square[2][0])
-				&& (square[2][0] == playerSymbol)) {
-			win = true;
-		}
-
-		return win;
-	}
-
-	/**
-	 * Does a deep clone of the TicTacToe board object.
-	 * @return A deep clone of the TicTacToe board object.
-	 */
-	public Object clone() {
-		TicTacToeBoard deepClone = new TicTacToeBoard();
-		for (int row = 0; row < TicTacToeBoard.SIZE; row++) {
-			for (int col = 0; col < TicTacToeBoard.SIZE; col++) {
-				deepClone.square[row][col] = this.square[row][col];
-			}
-		}
-		deepClone.turn = this.turn;
-		deepClone.numEmptySquares = this.numEmptySquares;
-		return deepClone;
-	}
-
-	/**
-	 * Prints the board to a PrintStream.
-	 * @param out The PrintStream you want to print the board to.
-	 */
-	public void dump(PrintStream out) {
-		for (int row = 0; row < SIZE; row++) {
-			for (int col = 0; col < SIZE; col++) {
-				out.print(square[row][col]);
-				if( col == (SIZE-1)) {
-					out.print("\n");
-				} else {
-					out.print(",");
-				}
-			}
-			out.flush();
-		}
-		out.print("\n\n");
-		out.flush();
-	}
-}
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.PrintStream;
+
+/**
+ * This class encapsulates all of the state information of the TicTacToe board.
+ *
+ * The board is an m,n,k board: it has a configurable width and height, and a
+ * player wins by getting winLength Xs or Os in a row. The default board is
+ * the classic 3x3 board with 3 in a row.
+ *
+ * A board is not thread-safe, with one exception: whose turn it is is
+ * volatile. The GUI's board is played on by the thread running
+ * GameFrame.playGame while the event thread reads the turn to route clicks
+ * to the human player, so a click always sees the latest turn. Searches
+ * work on their own BitBoard or clone copies of a board.
+ * 
+ * @author Chris Ventura
+ * 
+ */
+public class TicTacToeBoard {
+
+	/**
+	 * A symbol for the contents of a blank square.
+	 */
+	public static final String BLANK = "_";
+	
+	/**
+	 * The symbol for a square occupied by player X
+	 */
+	public static final String X = "X";
+	
+	/**
+	 * The symbol for a square occupied by player O
+	 */
+	public static final String O = "O";
+	
+	/**
+	 * The player index for an empty square
+	 */
+	public static final int PLAYER_NONE = -1;
+	
+	/**
+	 * The player index for a square occupied by X
+	 */
+	public static final int PLAYER_X = 0;
+	
+	/**
+	 * The player index for a square with an O in it.
+	 */
+	public static final int PLAYER_O = 1;
+
+	/**
+	 * This constant specifies the number of squares in a row and the number of
+	 * squares in a column of the default board, and the number in a row needed
+	 * to win on it.
+	 */
+	public static final int SIZE = 3;
+
+	/**
+	 * The four directions a line can run in: across, down, and the two
+	 * diagonals. Each is a {row step, column step} pair.
+	 */
+	private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+	/**
+	 * The cached winner of a board whose winner has not been worked out yet.
+	 * WINNER_UNKNOWN means the lines through the previous move decide it.
+	 * WINNER_RESCAN means setState overwrote a square or added to a board
+	 * that was already won, so the whole board has to be checked.
+	 */
+	private static final int WINNER_UNKNOWN = -2;
+	private static final int WINNER_RESCAN = -3;
+
+	/**
+	 * The number of squares in a row.
+	 */
+	private int width;
+
+	/**
+	 * The number of squares in a column.
+	 */
+	private int height;
+
+	/**
+	 * The number of Xs or Os in a row needed to win.
+	 */
+	private int winLength;
+
+	/**
+	 * The state of each square.
+	 */
+	private String square[][];
+
+	/**
+	 * Specifies whose turn it is. Volatile because the GUI's event thread
+	 * reads it while another thread plays the game.
+	 */
+	private volatile int turn;
+
+	/**
+	 * The number of empty squares
+	 */
+	private int numEmptySquares;
+
+    /**
+     * Keep track of the previous move, as a square index (row * width + col), or -1 if there is none
+     */
+    private int previousMove = -1;
+
+    /**
+     * The winner of the board, PLAYER_NONE, WINNER_UNKNOWN or WINNER_RESCAN.
+     * makeMove leaves it unknown until isWin or isGameOver asks, since search
+     * code also plays moves just to hash them, and it is then worked out from
+     * the lines through that move. setState on an empty square of a board
+     * nobody has won does the same, since squares can be set in any order but
+     * a new line still has to run through the square just set. Overwriting a
+     * square, or setting one on a board that is already won, asks for a scan
+     * of the whole board instead. Either way it is worked out at most once
+     * per change.
+     */
+    private int winner = PLAYER_NONE;
+
+    /**
+     * The previous move and winner from before each makeMove, so unmakeMove
+     * can restore them. Each entry is (previousMove << 2) | (winner + 2).
+     */
+    private int[] undoStack;
+
+    /**
+     * The number of moves on the undo stack
+     */
+    private int undoCount;
+
+	/**
+	 * The Zobrist keys used to hash the board.
+	 */
+	private Zobrist zobrist;
+
+	/**
+	 * The Zobrist hash of the squares and the turn, updated on every change.
+	 */
+	private long hash;
+
+	/**
+	 * The contructor for the class. It sets the current state of the game to
+	 * the initial state of the game.
+	 * 
+	 */
+	public TicTacToeBoard() {
+		this(SIZE, SIZE, SIZE);
+	}
+
+	/**
+	 * Creates an empty m,n,k board.
+	 *
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 */
+	public TicTacToeBoard(int width, int height, int winLength) {
+		this(width, height, winLength, true);
+	}
+
+	/**
+	 * The constructor for subclasses that keep the squares of the default
+	 * board in their own representation. The square array is not allocated.
+	 * 
+	 * @param allocateSquares
+	 *            Whether to allocate the square array.
+	 */
+	protected TicTacToeBoard(boolean allocateSquares) {
+		this(SIZE, SIZE, SIZE, allocateSquares);
+	}
+
+	/**
+	 * Sets up an empty board.
+	 *
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 * @param allocateSquares
+	 *            Whether to allocate the square array.
+	 */
+	private TicTacToeBoard(int width, int height, int winLength, boolean allocateSquares) {
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+		this.turn = PLAYER_X;
+		this.numEmptySquares = width * height;
+		if (allocateSquares) {
+			this.square = new String[height][width];
+			for (int row = 0; row < height; row++) {
+				for (int col = 0; col < width; col++) {
+					this.square[row][col] = BLANK;
+				}
+			}
+			this.undoStack = new int[width * height];
+			this.zobrist = Zobrist.forBoard(width, height, winLength);
+		}
+	}
+
+	/**
+	 * Returns the number of squares in a row.
+	 *
+	 * @return The width of the board.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Returns the number of squares in a column.
+	 *
+	 * @return The height of the board.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Returns the number of Xs or Os in a row needed to win.
+	 *
+	 * @return The win length of the board.
+	 */
+	public int getWinLength() {
+		return this.winLength;
+	}
+
+    /**
+     * Returns the previous move
+     */
+    public Position getPreviousMove() {
+        if (previousMove < 0) {
+            return new Position();
+        }
+        return new Position(previousMove / width, previousMove % width);
+    }
+
+    /**
+     * Sets the previous move.
+     */
+    private void setPreviousMove(int row, int col) {
+        previousMove = row * width + col;
+    }
+
+	/**
+	 * Returns the Zobrist hash of the board, which covers the squares and
+	 * whose turn it is.
+	 *
+	 * @return The hash of the board.
+	 */
+	public long getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Returns a hash that is the same for boards that are symmetric to each
+	 * other, e.g. rotations, and that a search can use to share results
+	 * between them. This board does not look for symmetries, so it is the
+	 * same as getHash.
+	 *
+	 * @return The canonical hash of the board.
+	 */
+	public long getCanonicalHash() {
+		return getHash();
+	}
+
+	/**
+	 * Maps a square of this board onto the board whose hash is
+	 * getCanonicalHash.
+	 *
+	 * @param square
+	 *            The index (row * width + col) of a square on this board.
+	 * @return The index of the same square on the canonical board.
+	 */
+	public int toCanonicalSquare(int square) {
+		return square;
+	}
+
+	/**
+	 * Maps a square of the canonical board back onto this board. This is the
+	 * inverse of toCanonicalSquare.
+	 *
+	 * @param square
+	 *            The index of a square on the canonical board.
+	 * @return The index (row * width + col) of the same square on this board.
+	 */
+	public int fromCanonicalSquare(int square) {
+		return square;
+	}
+
+	/**
+	 * Plays a move for the player whose turn it is and passes the turn to the
+	 * other player. Unlike setState and setTurn, this does not allocate or
+	 * check its input, so search code can play and take back moves on one
+	 * board.
+	 * 
+	 * @param square
+	 *            The index (row * width + col) of an empty square.
+	 */
+	public void makeMove(int square) {
+		if (this.winner == WINNER_RESCAN) {
+			//The undo stack only has room for a known winner or WINNER_UNKNOWN
+			getWinner();
+		}
+		this.square[square / width][square % width] = (this.turn == PLAYER_X) ? X : O;
+		this.hash ^= zobrist.getKey(square, this.turn) ^ zobrist.getTurnKey();
+		this.numEmptySquares--;
+		this.undoStack[this.undoCount++] = (this.previousMove << 2) | (this.winner + 2);
+		this.previousMove = square;
+		this.winner = WINNER_UNKNOWN;
+		this.turn = (this.turn == PLAYER_X) ? PLAYER_O : PLAYER_X;
+	}
+
+	/**
+	 * Takes back the last move played with makeMove, restoring the square,
+	 * the turn, the previous move and the winner.
+	 * 
+	 * @param square
+	 *            The index (row * width + col) of the last move played.
+	 */
+	public void unmakeMove(int square) {
+		this.turn = (this.turn == PLAYER_X) ? PLAYER_O : PLAYER_X;
+		this.square[square / width][square % width] = BLANK;
+		this.hash ^= zobrist.getKey(square, this.turn) ^ zobrist.getTurnKey();
+		this.numEmptySquares++;
+		int undo = this.undoStack[--this.undoCount];
+		this.previousMove = undo >> 2;
+		this.winner = (undo & 0x3) - 2;
+	}
+
+	/**
+	 * The method to use when needing to update the game board's state.
+	 * 
+	 * @param row
+	 *            The row of the square to update.
+	 * @param col
+	 *            The column of the square to update.
+	 * @param playerSymbol
+	 *            The String symbol of the player who now has the square.
+	 * @throws Exception If the playerSymbol is not "X" or "O"
+	 */
+	public void setState(int row, int col, String playerSymbol) throws Exception {
+		if( playerSymbol.equals(TicTacToeBoard.X) ) {
+			setState(row, col, PLAYER_X);
+		} else if ( playerSymbol.equals(TicTacToeBoard.O) ) {
+			setState(row, col, PLAYER_O);
+		} else {
+			throw new Exception("Invalid player symbol");
+		}
+	}
+
+	/**
+	 * The method to use when needing to update the game board's state.
+	 * 
+	 * @param row
+	 *            The row of the square to update.
+	 * @param col
+	 *            The column of the square to update.
+	 * @param playerIndex
+	 *            The integer index of the player who now has the square.
+	 * @throws Exception If the player index is invalid
+	 */
+	public void setState(int row, int col, int playerIndex) throws Exception {
+		String playerSymbol;
+		if( playerIndex == PLAYER_X ) {
+			playerSymbol = X;
+		} else if ( playerIndex == PLAYER_O ) {
+			playerSymbol = O;
+		} else {
+			throw new Exception("Invalid player symbol");
+		}
+		int previousOwner = getPlayerIndexOfSquare(row, col);
+		//Settle a pending check of the previous move's lines while it is cheap
+		int previousWinner = (this.winner == WINNER_UNKNOWN) ? getWinner() : this.winner;
+		if (previousOwner == PLAYER_NONE) {
+			this.numEmptySquares--;
+		} else {
+			this.hash ^= zobrist.getKey(row * width + col, previousOwner);
+		}
+		square[row][col] = playerSymbol;
+		this.hash ^= zobrist.getKey(row * width + col, playerIndex);
+        setPreviousMove(row, col);
+		if ((previousOwner == PLAYER_NONE) && (previousWinner == PLAYER_NONE)) {
+			//Nobody had a line, so a new one has to run through this square
+			this.winner = WINNER_UNKNOWN;
+		} else {
+			//An overwritten square can break a line, and a new line can join a known one
+			this.winner = WINNER_RESCAN;
+		}
+	}
+
+	/**
+	 * Returns the contents of a square where the contents are the constants X, O, or BLANK
+	 * 
+	 * @param row
+	 *            The row of the square
+	 * @param col
+	 *            The col of the square
+	 * @return The contents of the square where the contents are the constants X, O, or BLANK
+	 */
+	public String getState(int row, int col) {
+		return this.square[row][col];
+	}
+
+	/**
+	 * Returns the number of empty squares.
+	 *
+	 * @return The number of squares that neither player has taken.
+	 */
+	public int getNumEmptySquares() {
+		return this.numEmptySquares;
+	}
+
+	/**
+	 * Returns whether a square is empty.
+	 * 
+	 * @param square
+	 *            The index (row * width + col) of the square.
+	 * @return True if the square is BLANK.
+	 */
+	public boolean isEmpty(int square) {
+		return this.square[square / width][square % width] == BLANK;
+	}
+
+	/**
+	 * Returns the index of the player who owns the square.  The player index can be PLAYER_X, PLAYER_O, or PLAYER_NONE.
+	 * 
+	 * @param row
+	 *            The row of the square
+	 * @param col
+	 *            The col of the square
+	 * @throws Exception if player symbol is invalid
+	 * @return The index of the player who owns the square.
+	 */
+	public int getPlayerIndexOfSquare(int row, int col) throws Exception {
+		String playerSymbol = this.square[row][col];
+		if( playerSymbol.equals(X) ) {
+			return PLAYER_X;
+		} else if ( playerSymbol.equals(O) ) {
+			return PLAYER_O;
+		} else if ( playerSymbol.equals(BLANK) ) {
+			return PLAYER_NONE;
+		} else {
+			throw new Exception("Invalid Player Symbol in square");
+		}
+	}
+
+	/**
+	 * Retrieves the player index who has the current turn.
+	 * 
+	 * @return The player index who has the current turn.
+	 */
+	public int getTurn() {
+		return this.turn;
+	}
+
+	/**
+	 * Sets which player has the next turn.
+	 * 
+	 * @param player
+	 *            The player who will have the next turn.
+	 */
+	public void setTurn(int player) {
+		if ((this.turn == PLAYER_O) != (player == PLAYER_O)) {
+			this.hash ^= zobrist.getTurnKey();
+		}
+		this.turn = player;
+	}
+
+	/**
+	 * Returns if the game is over or not
+	 * @return True if the game is over and false otherwise.
+	 * @throws Exception
+	 */
+	public boolean isGameOver() throws Exception {
+		if ((this.numEmptySquares == 0) || (getWinner() != PLAYER_NONE)) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns true if a player wins the game.
+	 * @return True if a player wins the game and false if the game is a draw or it is still going on.
+	 * @throws Exception
+	 */
+	public boolean isWin() throws Exception {
+		return (getWinner() != PLAYER_NONE);
+	}
+
+	/**
+	 * Returns true if the specified player wins the game.
+	 *
+	 * Since the game ends as soon as a player wins, a win played with
+	 * makeMove can only come from that move, so only the lines through it are
+	 * checked. The same goes for setState on an empty square when nobody has
+	 * won yet; otherwise the whole board is checked. Either way it is
+	 * only worked out the first time this board is asked after a change, and
+	 * later calls read the cached winner.
+	 * @param player The index of the player
+	 * @return True if the specified player wins the game and false otherwise.
+	 * @throws Exception If player is not a legal player index.
+	 */
+	public boolean isWin(int player) throws Exception {
+		if ((player < 0) || (player > TicTacToeBoard.PLAYER_O)) {
+			throw new Exception("Invalid player index -- must be 0 or 1");
+		}
+		return (getWinner() == player);
+	}
+
+	/**
+	 * Returns the player who has won, working it out if makeMove or setState
+	 * left it unknown. If both players have a line, which cannot happen in a
+	 * real game, X is returned.
+	 * @return PLAYER_X, PLAYER_O, or PLAYER_NONE.
+	 */
+	private int getWinner() {
+		if (this.winner == WINNER_UNKNOWN) {
+			int row = previousMove / width;
+			int col = previousMove % width;
+			this.winner = completesLine(row, col) ? ((square[row][col] == X) ? PLAYER_X : PLAYER_O) : PLAYER_NONE;
+		} else if (this.winner == WINNER_RESCAN) {
+			if (hasLine(PLAYER_X)) {
+				this.winner = PLAYER_X;
+			} else if (hasLine(PLAYER_O)) {
+				this.winner = PLAYER_O;
+			} else {
+				this.winner = PLAYER_NONE;
+			}
+		}
+		return this.winner;
+	}
+
+	/**
+	 * Returns true if a player has winLength in a row anywhere on the board.
+	 * Unlike isWin, this checks the whole board every time, so it also finds
+	 * both players' lines on a board that could not come up in a game.
+	 * @param player The index of the player, PLAYER_X or PLAYER_O
+	 * @return True if the player has a line and false otherwise.
+	 */
+	public boolean hasLine(int player) {
+		String playerSymbol = (player == PLAYER_X) ? X : O;
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				if (square[row][col] == playerSymbol && completesLine(row, col)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the square just played is part of a line of at least
+	 * winLength of the same symbol. Only the lines through the square are
+	 * checked, so this does not depend on the size of the board.
+	 * @param row The row of the square
+	 * @param col The column of the square
+	 * @return True if the square completes a line and false otherwise.
+	 */
+	private boolean completesLine(int row, int col) {
+		for (int[] direction : DIRECTIONS) {
+			if (countInLine(row, col, direction[0], direction[1]) >= winLength) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the squares in an unbroken line of the same symbol through a square.
+	 * @param row The row of the square
+	 * @param col The column of the square
+	 * @param rowStep The row direction of the line
+	 * @param colStep The column direction of the line
+	 * @return The length of the line, including the square itself
+	 */
+	private int countInLine(int row, int col, int rowStep, int colStep) {
+		String playerSymbol = square[row][col];
+		int count = 1;
+		for (int r = row + rowStep, c = col + colStep; isOnBoard(r, c)
+				&& (square[r][c] == playerSymbol); r += rowStep, c += colStep) {
+			count++;
+		}
+		for (int r = row - rowStep, c = col - colStep; isOnBoard(r, c)
+				&& (square[r][c] == playerSymbol); r -= rowStep, c -= colStep) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if a row and column are on the board.
+	 * @param row The row
+	 * @param col The column
+	 * @return True if the square exists and false otherwise.
+	 */
+	private boolean isOnBoard(int row, int col) {
+		return (row >= 0) && (row < height) && (col >= 0) && (col < width);
+	}
+
+	/**
+	 * Does a deep clone of the TicTacToe board object.
+	 * @return A deep clone of the TicTacToe board object.
+	 */
+	public Object clone() {
+		TicTacToeBoard deepClone = new TicTacToeBoard(width, height, winLength);
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				deepClone.square[row][col] = this.square[row][col];
+			}
+		}
+		deepClone.turn = this.turn;
+		deepClone.numEmptySquares = this.numEmptySquares;
+		deepClone.previousMove = this.previousMove;
+		deepClone.winner = this.winner;
+		deepClone.hash = this.hash;
+		return deepClone;
+	}
+
+	/**
+	 * Prints the board to a PrintStream.
+	 * @param out The PrintStream you want to print the board to.
+	 */
+	public void dump(PrintStream out) {
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				out.print(getState(row, col));
+				if( col == (width-1)) {
+					out.print("\n");
+				} else {
+					out.print(",");
+				}
+			}
+			out.flush();
+		}
+		out.print("\n\n");
+		out.flush();
+	}
+}
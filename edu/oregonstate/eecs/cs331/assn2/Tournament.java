@@ -0,0 +1,343 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many headless games between two player types, in parallel, and counts
+ * the results.
+ *
+ * Each worker thread gets its own pair of players, since the search players
+ * keep per-search state, and plays games until the requested number has been
+ * reached. The players swap sides every game, so player 1 is X in the even
+ * games and O in the odd ones. Results are counted from player 1's side.
+ *
+ * Players that search on several threads split the cores between the
+ * workers, so the workers do not oversubscribe the CPU and skew the time
+ * budgets being compared. The players are closed when the run is over.
+ *
+ * Usage: java Tournament &lt;player 1 type&gt; &lt;player 2 type&gt; &lt;games&gt;
+ * [&lt;threads&gt; [&lt;width&gt; &lt;height&gt; &lt;win length&gt; [&lt;budget ms&gt;]]]
+ *
+ */
+public class Tournament {
+
+	/**
+	 * Workers claim this many games at a time from the shared counter, so the
+	 * counter is not contended when games are very fast.
+	 */
+	private static final int GAMES_PER_CLAIM = 64;
+
+	/**
+	 * Indices into a worker's result counts
+	 */
+	private static final int WINS = 0;
+	private static final int DRAWS = 1;
+	private static final int LOSSES = 2;
+
+	/**
+	 * The player types, constants in Player
+	 */
+	private int playerType1;
+	private int playerType2;
+
+	/**
+	 * The number of games to play and the number of threads to play them on
+	 */
+	private long numGames;
+	private int numThreads;
+
+	/**
+	 * The board size and win length
+	 */
+	private int width;
+	private int height;
+	private int winLength;
+
+	/**
+	 * The time budget per move for players that search with one
+	 */
+	private long searchBudgetMillis;
+
+	/**
+	 * Results of the last run, for player 1
+	 */
+	private long wins;
+	private long draws;
+	private long losses;
+	private long elapsedNanos;
+
+	/**
+	 * What the searches of each side did in the last run, added up over all
+	 * workers, or null if the player type does not count its searches. The
+	 * elapsed time is the sum of the search times of all the threads.
+	 */
+	private SearchStats player1Stats;
+	private SearchStats player2Stats;
+
+	/**
+	 * Creates a tournament.
+	 *
+	 * @param playerType1
+	 *            Player 1's type.
+	 * @param playerType2
+	 *            Player 2's type.
+	 * @param numGames
+	 *            The number of games to play.
+	 * @param numThreads
+	 *            The number of games to play at the same time.
+	 * @param width
+	 *            The number of squares in a row.
+	 * @param height
+	 *            The number of squares in a column.
+	 * @param winLength
+	 *            The number of Xs or Os in a row needed to win.
+	 * @param searchBudgetMillis
+	 *            The time budget per move for players that search with one.
+	 * @throws Exception
+	 *             If a player type is human, since there is nobody to click.
+	 */
+	public Tournament(int playerType1, int playerType2, long numGames,
+			int numThreads, int width, int height, int winLength,
+			long searchBudgetMillis) throws Exception {
+		if (playerType1 == Player.HUMAN_PLAYER
+				|| playerType2 == Player.HUMAN_PLAYER) {
+			throw new Exception("Human players cannot play in a tournament");
+		}
+		if (numGames < 0 || numThreads < 1) {
+			throw new Exception("Games and threads must be positive");
+		}
+		this.playerType1 = playerType1;
+		this.playerType2 = playerType2;
+		this.numGames = numGames;
+		this.numThreads = numThreads;
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+		this.searchBudgetMillis = searchBudgetMillis;
+	}
+
+	/**
+	 * Plays all the games. Blocks until they are done.
+	 *
+	 * @throws Exception
+	 *             If a player cannot be created or returns an illegal move.
+	 */
+	public void run() throws Exception {
+		//Players are created here, one thread at a time, since some of them
+		//build files or tables the first time they are created.
+		final AtomicLong nextGame = new AtomicLong();
+		List<Callable<long[]>> workers = new ArrayList<Callable<long[]>>();
+		List<Player> players1 = new ArrayList<Player>();
+		List<Player> players2 = new ArrayList<Player>();
+		int numSearchThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / numThreads);
+		for (int t = 0; t < numThreads; t++) {
+			Player player1 = Match.newPlayer(playerType1, searchBudgetMillis, numSearchThreads);
+			Player player2 = Match.newPlayer(playerType2, searchBudgetMillis, numSearchThreads);
+			players1.add(player1);
+			players2.add(player2);
+			final Match player1AsX = new Match(player1, player2, width, height, winLength);
+			final Match player1AsO = new Match(player2, player1, width, height, winLength);
+			workers.add(new Callable<long[]>() {
+				public long[] call() throws Exception {
+					long[] counts = new long[3];
+					while (true) {
+						long first = nextGame.getAndAdd(GAMES_PER_CLAIM);
+						if (first >= numGames) {
+							return counts;
+						}
+						long last = Math.min(first + GAMES_PER_CLAIM, numGames);
+						for (long game = first; game < last; game++) {
+							int player1Side;
+							int winner;
+							if (game % 2 == 0) {
+								player1Side = TicTacToeBoard.PLAYER_X;
+								winner = player1AsX.play();
+							} else {
+								player1Side = TicTacToeBoard.PLAYER_O;
+								winner = player1AsO.play();
+							}
+							if (winner == Match.DRAW) {
+								counts[DRAWS]++;
+							} else if (winner == player1Side) {
+								counts[WINS]++;
+							} else {
+								counts[LOSSES]++;
+							}
+						}
+					}
+				}
+			});
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		long start = System.nanoTime();
+		try {
+			wins = 0;
+			draws = 0;
+			losses = 0;
+			for (Future<long[]> result : executor.invokeAll(workers)) {
+				long[] counts = result.get();
+				wins += counts[WINS];
+				draws += counts[DRAWS];
+				losses += counts[LOSSES];
+			}
+		} catch (ExecutionException e) {
+			throw new Exception("Game failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			elapsedNanos = System.nanoTime() - start;
+			executor.shutdownNow();
+			for (Player player : players1) {
+				Match.closePlayer(player);
+			}
+			for (Player player : players2) {
+				Match.closePlayer(player);
+			}
+		}
+
+		player1Stats = getTotalStats(players1);
+		player2Stats = getTotalStats(players2);
+	}
+
+	/**
+	 * Adds up what the searches of a list of players did.
+	 *
+	 * @param players
+	 *            Players of the same type.
+	 * @return The total, or null if the players do not count their searches.
+	 */
+	private static SearchStats getTotalStats(List<Player> players) {
+		SearchStats total = null;
+		for (Player player : players) {
+			if (player instanceof Instrumented) {
+				if (total == null) {
+					total = new SearchStats();
+				}
+				total.add(((Instrumented) player).getTotalStats());
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return The number of games player 1 won in the last run.
+	 */
+	public long getWins() {
+		return wins;
+	}
+
+	/**
+	 * @return The number of games drawn in the last run.
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * @return The number of games player 1 lost in the last run.
+	 */
+	public long getLosses() {
+		return losses;
+	}
+
+	/**
+	 * @return The wall-clock time of the last run in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return The number of games played per second in the last run.
+	 */
+	public double getGamesPerSecond() {
+		return (wins + draws + losses) / (elapsedNanos / 1e9);
+	}
+
+	/**
+	 * @return What player 1's searches did in the last run, or null if
+	 *         player 1 does not count its searches.
+	 */
+	public SearchStats getPlayer1Stats() {
+		return player1Stats;
+	}
+
+	/**
+	 * @return What player 2's searches did in the last run, or null if
+	 *         player 2 does not count its searches.
+	 */
+	public SearchStats getPlayer2Stats() {
+		return player2Stats;
+	}
+
+	/**
+	 * The entry point for running a tournament from the command line.
+	 *
+	 * @param args
+	 *            The command line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int numThreads = Runtime.getRuntime().availableProcessors();
+			int width = TicTacToeBoard.SIZE;
+			int height = TicTacToeBoard.SIZE;
+			int winLength = TicTacToeBoard.SIZE;
+			long searchBudgetMillis = IterativeDeepening.DEFAULT_BUDGET_MILLIS;
+			if( args.length != 3 && args.length != 4 && args.length != 7 && args.length != 8 ) {
+				System.out.println("Usage: program <player 1 type> <player 2 type> <games> [<threads> [<width> <height> <win length> [<budget ms>]]]");
+				System.out.println("       where player type = random, minimax, alphabeta, table, deepening, parallel, lazysmp, mcts, or database");
+				System.out.println("       threads is one per core unless given, and the board is 3 3 3 unless given");
+				System.exit(-1);
+			}
+			int player1Type = Match.parsePlayerType(args[0]);
+			int player2Type = Match.parsePlayerType(args[1]);
+			long numGames = Long.parseLong(args[2]);
+			if( args.length >= 4 ) {
+				numThreads = Integer.parseInt(args[3]);
+			}
+			if( args.length >= 7 ) {
+				width = Integer.parseInt(args[4]);
+				height = Integer.parseInt(args[5]);
+				winLength = Integer.parseInt(args[6]);
+				if( width < 1 || height < 1 || winLength < 1 ) {
+					throw new Exception("Board dimensions must be positive");
+				}
+			}
+			if( args.length == 8 ) {
+				searchBudgetMillis = Long.parseLong(args[7]);
+				if( searchBudgetMillis < 1 ) {
+					throw new Exception("Budget must be positive");
+				}
+			}
+
+			Tournament tournament = new Tournament(player1Type, player2Type,
+					numGames, numThreads, width, height, winLength,
+					searchBudgetMillis);
+			tournament.run();
+
+			System.out.println(args[0] + " vs " + args[1] + ": "
+					+ tournament.getWins() + " wins, "
+					+ tournament.getDraws() + " draws, "
+					+ tournament.getLosses() + " losses");
+			System.out.println(String.format("%d games in %.3f s, %.0f games/s",
+					tournament.getWins() + tournament.getDraws() + tournament.getLosses(),
+					tournament.getElapsedNanos() / 1e9,
+					tournament.getGamesPerSecond()));
+			if( tournament.getPlayer1Stats() != null ) {
+				System.out.println(args[0] + " search: " + tournament.getPlayer1Stats());
+			}
+			if( tournament.getPlayer2Stats() != null ) {
+				System.out.println(args[1] + " search: " + tournament.getPlayer2Stats());
+			}
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+}
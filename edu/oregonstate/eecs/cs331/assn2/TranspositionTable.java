@@ -0,0 +1,122 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Arrays;
+
+/**
+ * A transposition table caches search results by position hash, so a
+ * position reached through a different order of moves is not searched again.
+ *
+ * The table is direct-mapped: each hash maps to exactly one slot and a newer
+ * entry replaces whatever was there. Entries are kept in parallel primitive
+ * arrays so storing and probing never allocates.
+ *
+ */
+public class TranspositionTable {
+
+	/**
+	 * Bound types. EXACT is the true value of the position. LOWER_BOUND and
+	 * UPPER_BOUND come from searches that were cut off by pruning, where the
+	 * true value is at least or at most the stored value.
+	 */
+	public static final byte EMPTY = 0;
+	public static final byte EXACT = 1;
+	public static final byte LOWER_BOUND = 2;
+	public static final byte UPPER_BOUND = 3;
+
+	/**
+	 * The best move value stored when there is no move, e.g. at a terminal state.
+	 */
+	public static final int NO_MOVE = -1;
+
+	/**
+	 * The full hash of the position in each slot.
+	 */
+	private final long[] keys;
+
+	/**
+	 * The value, bound type and best move (square index) of each slot.
+	 */
+	private final int[] values;
+	private final byte[] bounds;
+	private final short[] bestMoves;
+
+	/**
+	 * Used to turn a hash into a slot index.
+	 */
+	private final int mask;
+
+	/**
+	 * Creates an empty table.
+	 * @param sizeBits The table has 2^sizeBits slots
+	 */
+	public TranspositionTable(int sizeBits) {
+		int size = 1 << sizeBits;
+		keys = new long[size];
+		values = new int[size];
+		bounds = new byte[size];
+		bestMoves = new short[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Returns the slot holding a position.
+	 * @param key The hash of the position
+	 * @return The slot index, or -1 if the position is not in the table
+	 */
+	public int find(long key) {
+		int slot = (int) (key ^ (key >>> 32)) & mask;
+		if (bounds[slot] != EMPTY && keys[slot] == key) {
+			return slot;
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores a search result, replacing whatever was in its slot.
+	 * @param key The hash of the position
+	 * @param value The searched value
+	 * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+	 * @param bestMove The square index of the best move, or NO_MOVE
+	 */
+	public void store(long key, int value, byte bound, int bestMove) {
+		int slot = (int) (key ^ (key >>> 32)) & mask;
+		keys[slot] = key;
+		values[slot] = value;
+		bounds[slot] = bound;
+		bestMoves[slot] = (short) bestMove;
+	}
+
+	/**
+	 * Returns the value stored in a slot
+	 * @param slot A slot returned by find
+	 * @return The value
+	 */
+	public int getValue(int slot) {
+		return values[slot];
+	}
+
+	/**
+	 * Returns the bound type stored in a slot
+	 * @param slot A slot returned by find
+	 * @return EXACT, LOWER_BOUND or UPPER_BOUND
+	 */
+	public byte getBound(int slot) {
+		return bounds[slot];
+	}
+
+	/**
+	 * Returns the best move stored in a slot
+	 * @param slot A slot returned by find
+	 * @return The square index of the best move, or NO_MOVE
+	 */
+	public int getBestMove(int slot) {
+		return bestMoves[slot];
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		Arrays.fill(bounds, EMPTY);
+	}
+}
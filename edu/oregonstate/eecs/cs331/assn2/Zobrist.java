@@ -0,0 +1,99 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Random keys for Zobrist hashing of board positions. The hash of a position
+ * is the XOR of the key of every occupied (square, player) pair, plus the
+ * turn key when it is O's turn. Since XOR is its own inverse, a board can
+ * update its hash in O(1) whenever a square or the turn changes.
+ *
+ * Every board setup (width, height and win length) has keys of its own, so
+ * positions on different setups never share a hash, even when they have the
+ * same squares. A table can then be used for several setups without mixing
+ * up their results.
+ *
+ */
+public class Zobrist {
+
+	/**
+	 * The seed for the keys, fixed so that hashes are the same on every run.
+	 */
+	private static final long SEED = 0x5DEECE66DL;
+
+	/**
+	 * The keys for each board setup, shared by every board with that setup.
+	 */
+	private static final ConcurrentHashMap<Long, Zobrist> BY_SETUP = new ConcurrentHashMap<Long, Zobrist>();
+
+	/**
+	 * The key of each (square, player) pair.
+	 */
+	private final long[][] squareKeys;
+
+	/**
+	 * The key that is XORed in when it is O's turn.
+	 */
+	private final long turnKey;
+
+	/**
+	 * Generates the keys for a board setup.
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 */
+	public Zobrist(int width, int height, int winLength) {
+		Random rand = new Random(SEED ^ (getSetup(width, height, winLength) * 0x9E3779B97F4A7C15L));
+		int numSquares = width * height;
+		squareKeys = new long[numSquares][2];
+		for (int square = 0; square < numSquares; square++) {
+			squareKeys[square][TicTacToeBoard.PLAYER_X] = rand.nextLong();
+			squareKeys[square][TicTacToeBoard.PLAYER_O] = rand.nextLong();
+		}
+		turnKey = rand.nextLong();
+	}
+
+	/**
+	 * Returns the keys for a board setup, creating them the first time the
+	 * setup is used.
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 * @return The shared keys
+	 */
+	public static Zobrist forBoard(int width, int height, int winLength) {
+		Long setup = getSetup(width, height, winLength);
+		Zobrist keys = BY_SETUP.get(setup);
+		if (keys == null) {
+			BY_SETUP.putIfAbsent(setup, new Zobrist(width, height, winLength));
+			keys = BY_SETUP.get(setup);
+		}
+		return keys;
+	}
+
+	/**
+	 * Packs a board setup into one number, 21 bits per dimension
+	 */
+	private static long getSetup(int width, int height, int winLength) {
+		return ((long) width << 42) | ((long) height << 21) | winLength;
+	}
+
+	/**
+	 * Returns the key of a player occupying a square.
+	 * @param square The square index (row * width + col)
+	 * @param player The player index, PLAYER_X or PLAYER_O
+	 * @return The key
+	 */
+	public long getKey(int square, int player) {
+		return squareKeys[square][player];
+	}
+
+	/**
+	 * Returns the key that is XORed in when it is O's turn.
+	 * @return The turn key
+	 */
+	public long getTurnKey() {
+		return turnKey;
+	}
+}
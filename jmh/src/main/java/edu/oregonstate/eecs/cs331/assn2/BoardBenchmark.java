@@ -0,0 +1,112 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import static edu.oregonstate.eecs.cs331.assn2.Benchmark.getFirstEmptySquare;
+import static edu.oregonstate.eecs.cs331.assn2.Benchmark.getPosition;
+import static edu.oregonstate.eecs.cs331.assn2.Benchmark.isWinAfterMove;
+import static edu.oregonstate.eecs.cs331.assn2.Benchmark.playOut;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for the board operations, on TicTacToeBoard and BitBoard,
+ * from the positions of the Benchmark harness, whose helpers are
+ * imported statically since JMH's annotation has the same name.
+ *
+ * isWin and isGameOver read a cached winner once it is known, so they are
+ * timed after the makeMove or setState that makes them work it out. The
+ * setState cases play the position out on a clone, which the clone cases
+ * time on their own.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({ "empty", "opening", "midgame", "endgame" })
+	public String position;
+
+	private TicTacToeBoard board;
+	private TicTacToeBoard bitBoard;
+
+	/**
+	 * The square the isWin cases play, the first empty one
+	 */
+	private int square;
+
+	/**
+	 * A 15x15 board, on which the win check should cost no more than on 3x3
+	 */
+	private TicTacToeBoard gomoku;
+
+	@Setup
+	public void setUp() throws Exception {
+		board = getPosition(position);
+		bitBoard = new BitBoard(board);
+		square = getFirstEmptySquare(board);
+		gomoku = new TicTacToeBoard(15, 15, 5);
+	}
+
+	@Benchmark
+	public long isWinAfterMakeMove() throws Exception {
+		return isWinAfterMove(board, square);
+	}
+
+	@Benchmark
+	public long bitBoardIsWinAfterMakeMove() throws Exception {
+		return isWinAfterMove(bitBoard, square);
+	}
+
+	@Benchmark
+	public long setStateAndIsGameOver() throws Exception {
+		return playOut(board);
+	}
+
+	@Benchmark
+	public long bitBoardSetStateAndIsGameOver() throws Exception {
+		return playOut(bitBoard);
+	}
+
+	@Benchmark
+	public long gomokuSetStateAndIsGameOver() throws Exception {
+		return playOut(gomoku);
+	}
+
+	@Benchmark
+	public Object cloneBoard() {
+		return board.clone();
+	}
+
+	@Benchmark
+	public Object bitBoardClone() {
+		return bitBoard.clone();
+	}
+
+	@Benchmark
+	public void makeAndUnmakeEveryMove(Blackhole blackhole) {
+		int numSquares = board.getWidth() * board.getHeight();
+		for (int s = 0; s < numSquares; s++) {
+			if (board.isEmpty(s)) {
+				board.makeMove(s);
+				blackhole.consume(board.getHash());
+				board.unmakeMove(s);
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import static edu.oregonstate.eecs.cs331.assn2.Benchmark.getPosition;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for MiniMax, from the positions of Benchmark.
+ *
+ * The cold search clears the player's table first, so every op searches the
+ * whole tree below the position without allocating a table. The warm search
+ * finds the position in the table, as every move after the first of a game
+ * does.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MiniMaxBenchmark {
+
+	@Param({ "empty", "opening", "midgame", "endgame" })
+	public String position;
+
+	private TicTacToeBoard board;
+	private TicTacToeBoard bitBoard;
+	private MiniMax coldPlayer;
+	private MiniMax warmPlayer;
+
+	@Setup
+	public void setUp() throws Exception {
+		board = getPosition(position);
+		bitBoard = new BitBoard(board);
+		coldPlayer = new MiniMax();
+		warmPlayer = new MiniMax();
+		//Searching once fills the warm player's table and sizes its successor buffers
+		warmPlayer.getNextMove(board);
+	}
+
+	@Benchmark
+	public void getSuccessors(Blackhole blackhole) {
+		blackhole.consume(warmPlayer.getSuccessors(bitBoard, 0));
+	}
+
+	@Benchmark
+	public Position getNextMoveCold() throws Exception {
+		coldPlayer.clear();
+		return coldPlayer.getNextMove(board);
+	}
+
+	@Benchmark
+	public Position getNextMoveWarm() throws Exception {
+		return warmPlayer.getNextMove(board);
+	}
+}
@@ -0,0 +1,57 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * Runs every test, stopping at the first failure.
+ *
+ * Usage: compile the sources and the tests together, then run AllTests:
+ *     javac -d out edu/oregonstate/eecs/cs331/assn2/*.java test/edu/oregonstate/eecs/cs331/assn2/*.java
+ *     java -cp out edu.oregonstate.eecs.cs331.assn2.AllTests
+ *
+ */
+public class AllTests {
+
+	public static void main(String[] args) throws Exception {
+		long start = System.nanoTime();
+		TicTacToeBoardTest.run();
+		System.out.println("TicTacToeBoardTest passed");
+		BitBoardTest.run();
+		System.out.println("BitBoardTest passed");
+		TranspositionTableTest.run();
+		System.out.println("TranspositionTableTest passed");
+		TablePlayerTest.run();
+		System.out.println("TablePlayerTest passed");
+		LazySMPTest.run();
+		System.out.println("LazySMPTest passed");
+		MatchTest.run();
+		System.out.println("MatchTest passed");
+		BatchSolverTest.run();
+		System.out.println("BatchSolverTest passed");
+		MoveOrderingTest.run();
+		System.out.println("MoveOrderingTest passed");
+		MCTSPlayerTest.run();
+		System.out.println("MCTSPlayerTest passed");
+		GameServerTest.run();
+		System.out.println("GameServerTest passed");
+		AsyncPlayerTest.run();
+		System.out.println("AsyncPlayerTest passed");
+		AlphaBetaTest.run();
+		System.out.println("AlphaBetaTest passed");
+		MiniMaxTest.run();
+		System.out.println("MiniMaxTest passed");
+		IterativeDeepeningTest.run();
+		System.out.println("IterativeDeepeningTest passed");
+		EndgameDatabaseTest.run();
+		System.out.println("EndgameDatabaseTest passed");
+		ParallelMiniMaxTest.run();
+		System.out.println("ParallelMiniMaxTest passed");
+		PackedBoardTest.run();
+		System.out.println("PackedBoardTest passed");
+		BenchmarkTest.run();
+		System.out.println("BenchmarkTest passed");
+		SearchStatsTest.run();
+		System.out.println("SearchStatsTest passed");
+		RetrogradeSolverTest.run();
+		System.out.println("RetrogradeSolverTest passed");
+		System.out.printf("All tests passed in %.1f s%n", (System.nanoTime() - start) / 1e9);
+	}
+}
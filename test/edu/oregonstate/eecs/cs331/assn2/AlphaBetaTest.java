@@ -0,0 +1,100 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Tests AlphaBeta against the reference solver: no move on finished
+ * positions, the first optimal move with and without move ordering while
+ * its table holds bounds from unrelated positions, and a whole game that
+ * reuses the table.
+ *
+ */
+public class AlphaBetaTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("AlphaBetaTest passed");
+	}
+
+	public static void run() throws Exception {
+		testFinishedPositions();
+		testRandomPositions(3, 3, 3, 0, 3000);
+		testRandomPositions(4, 3, 3, 0, 1000);
+		testRandomPositions(3, 4, 3, 0, 1000);
+		testRandomPositions(4, 4, 4, 6, 200);
+		testWholeGame();
+	}
+
+	/**
+	 * A finished game has no move, whether the line runs through the last move or not
+	 */
+	private static void testFinishedPositions() throws Exception {
+		AlphaBeta player = new AlphaBeta();
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__" };
+		for (String position : positions) {
+			TestSupport.check(player.getNextMove(TestSupport.board(position, 3, 3, 3)) == null, "no move on " + position);
+		}
+		TestSupport.check(player.getNextMove(TestSupport.board("XXXXOOO_________", 4, 4, 4)) == null, "no move on 4x4");
+	}
+
+	/**
+	 * Random positions, finished ones included, asked of one player that keeps its
+	 * table throughout, with and without move ordering
+	 */
+	private static void testRandomPositions(int width, int height, int winLength, int minStones, int numPositions)
+			throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		AlphaBeta ordered = new AlphaBeta(true);
+		AlphaBeta unordered = new AlphaBeta(false);
+		int numSquares = width * height;
+		for (int i = 0; i < numPositions; i++) {
+			int stones = minStones + rand.nextInt(numSquares - minStones + 1);
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, stones);
+			String name = " on " + width + "x" + height + " k" + winLength + " with " + board.getNumEmptySquares()
+					+ " empty squares";
+			checkMove(reference, board, ordered.getNextMove(board), "ordered" + name);
+			checkMove(reference, board, unordered.getNextMove(board), "unordered" + name);
+		}
+	}
+
+	/**
+	 * Both sides of a game on 4x3 keep the value of the position with every move,
+	 * and after the first move most nodes come out of the table
+	 */
+	private static void testWholeGame() throws Exception {
+		ReferenceSolver reference = new ReferenceSolver(4, 3, 3);
+		AlphaBeta player = new AlphaBeta();
+		TicTacToeBoard board = new TicTacToeBoard(4, 3, 3);
+		int value = reference.getValue(board);
+		boolean first = true;
+		while (!board.isGameOver()) {
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			TestSupport.checkEquals(value, reference.getValue(board), "value after each move");
+			SearchStats stats = player.getLastMoveStats();
+			if (!first) {
+				TestSupport.check(stats.getTableHits() > 0, "table hits after the first move");
+			}
+			first = false;
+		}
+	}
+
+	/**
+	 * Checks that a move is the first optimal one in row-major order, or null when the game is over
+	 */
+	private static void checkMove(ReferenceSolver reference, TicTacToeBoard board, Position move, String name)
+			throws Exception {
+		if (board.isGameOver()) {
+			TestSupport.check(move == null, name + ": no move when the game is over");
+			return;
+		}
+		int value = reference.getValue(board);
+		int[] moveValues = reference.getMoveValues(board);
+		int firstOptimal = 0;
+		while (moveValues[firstOptimal] != value) {
+			firstOptimal++;
+		}
+		TestSupport.check(move != null, name + ": a move");
+		TestSupport.checkEquals(firstOptimal, TestSupport.toSquare(board, move), name + ": first optimal move");
+	}
+}
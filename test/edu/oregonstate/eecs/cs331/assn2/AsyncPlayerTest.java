@@ -0,0 +1,239 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests AsyncPlayer's pondering: answers found while waiting are used, a new
+ * request does not wait for pondering and interrupts it, an answer found for
+ * an earlier request is not stored, the engines with a time budget stop
+ * when interrupted, and closing ends the threads of the wrapped players.
+ *
+ */
+public class AsyncPlayerTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("AsyncPlayerTest passed");
+	}
+
+	public static void run() throws Exception {
+		testPonderHit();
+		testRequestInterruptsPondering();
+		testLateAnswerDropped();
+		testEnginesStopWhenInterrupted();
+		testCloseClosesWrappedPlayers();
+	}
+
+	/**
+	 * When the opponent plays the reply the engine expected, the pondered answer is returned
+	 */
+	private static void testPonderHit() throws Exception {
+		ReferenceSolver reference = new ReferenceSolver(3, 3, 3);
+		AsyncPlayer player = new AsyncPlayer(new AlphaBeta(), new AlphaBeta());
+		try {
+			TicTacToeBoard board = new TicTacToeBoard(3, 3, 3);
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			player.waitForPondering();
+			board.makeMove(TestSupport.toSquare(board, new AlphaBeta().getNextMove(board)));
+			int value = reference.getValue(board);
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			TestSupport.checkEquals(1, player.getPonderHits(), "ponder hits");
+			TestSupport.checkEquals(1, player.getPonderMisses(), "ponder misses");
+			TestSupport.checkEquals(value, reference.getValue(board), "value after the pondered answer");
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * A request is answered while the ponderer is still searching, and the ponderer is interrupted
+	 */
+	private static void testRequestInterruptsPondering() throws Exception {
+		SlowPlayer ponderer = new SlowPlayer();
+		AsyncPlayer player = new AsyncPlayer(new FirstEmptyPlayer(), ponderer);
+		try {
+			TicTacToeBoard board = new TicTacToeBoard(7, 7, 4);
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			ponderer.started.await();
+			board.makeMove(24);
+			long start = System.nanoTime();
+			player.getNextMove(board);
+			TestSupport.check(System.nanoTime() - start < 5 * 1000000000L, "request does not wait for pondering");
+			player.waitForPondering();
+			TestSupport.check(ponderer.interrupted, "pondering interrupted");
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * A pondering search that ends after the next request came in does not store its answer
+	 */
+	private static void testLateAnswerDropped() throws Exception {
+		final CountDownLatch searching = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicReference<TicTacToeBoard> blockedOn = new AtomicReference<TicTacToeBoard>();
+		//Answers the first reply only once released, ignoring interrupts
+		Player ponderer = new Player() {
+			private int calls;
+
+			public Position getNextMove(TicTacToeBoard state) throws Exception {
+				if (++calls == 2) {
+					blockedOn.set((TicTacToeBoard) state.clone());
+					searching.countDown();
+					while (true) {
+						try {
+							release.await();
+							break;
+						} catch (InterruptedException e) {
+							//Keep waiting
+						}
+					}
+				}
+				return new FirstEmptyPlayer().getNextMove(state);
+			}
+
+			public int getPlayerType() {
+				return RANDOM_PLAYER;
+			}
+		};
+		AsyncPlayer player = new AsyncPlayer(new LastEmptyPlayer(), ponderer);
+		try {
+			TicTacToeBoard board = new TicTacToeBoard(5, 5, 4);
+			board.makeMove(12);
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			searching.await();
+
+			//The opponent plays the reply being pondered, before its answer is found
+			TicTacToeBoard reply = blockedOn.get();
+			player.getNextMove(reply);
+			release.countDown();
+			player.waitForPondering();
+
+			Position move = player.getNextMove(reply);
+			TestSupport.checkEquals(0, player.getPonderHits(), "ponder hits");
+			TestSupport.checkEquals(TestSupport.toSquare(reply, new LastEmptyPlayer().getNextMove(reply)),
+					TestSupport.toSquare(reply, move), "the engine's own answer");
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * Engines with a time budget end a search when their thread is interrupted
+	 */
+	private static void testEnginesStopWhenInterrupted() throws Exception {
+		long hour = 3600 * 1000L;
+		Player[] players = { new IterativeDeepening(hour), new LazySMP(2, hour), new MCTSPlayer(2, hour) };
+		try {
+			for (final Player player : players) {
+				final TicTacToeBoard board = new TicTacToeBoard(7, 7, 4);
+				board.makeMove(24);
+				Thread search = new Thread(new Runnable() {
+					public void run() {
+						try {
+							player.getNextMove(board);
+						} catch (Exception e) {
+							//An interrupted search may throw
+						}
+					}
+				});
+				search.start();
+				Thread.sleep(200);
+				long start = System.nanoTime();
+				search.interrupt();
+				search.join(10 * 1000);
+				TestSupport.check(!search.isAlive(), "player " + player.getPlayerType() + " stops when interrupted");
+				TestSupport.check(System.nanoTime() - start < 10 * 1000000000L, "stopped soon");
+			}
+		} finally {
+			for (Player player : players) {
+				Match.closePlayer(player);
+			}
+		}
+	}
+
+	/**
+	 * Closing an AsyncPlayer, directly or through Match.closePlayer, ends its
+	 * engine threads and the threads of both players it wraps
+	 */
+	private static void testCloseClosesWrappedPlayers() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			AsyncPlayer player = new AsyncPlayer(new LazySMP(2, 50), new MCTSPlayer(2, 50));
+			TicTacToeBoard board = new TicTacToeBoard(7, 7, 4);
+			board.makeMove(24);
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			TestSupport.check(TestSupport.countThreads("LazySMP worker") > 0, "the player searched");
+			if (i == 0) {
+				player.close();
+			} else {
+				Match.closePlayer(player);
+			}
+			TestSupport.checkThreadsEnd("AsyncPlayer engine", 0);
+			TestSupport.checkThreadsEnd("AsyncPlayer ponder", 0);
+			TestSupport.checkThreadsEnd("LazySMP worker", 0);
+			TestSupport.checkThreadsEnd("MCTSPlayer worker", 0);
+		}
+	}
+
+	/**
+	 * Plays the first empty square in row-major order
+	 */
+	private static class FirstEmptyPlayer implements Player {
+		public Position getNextMove(TicTacToeBoard state) {
+			int square = 0;
+			while (!state.isEmpty(square)) {
+				square++;
+			}
+			return new Position(square / state.getWidth(), square % state.getWidth());
+		}
+
+		public int getPlayerType() {
+			return RANDOM_PLAYER;
+		}
+	}
+
+	/**
+	 * Plays the last empty square in row-major order
+	 */
+	private static class LastEmptyPlayer implements Player {
+		public Position getNextMove(TicTacToeBoard state) {
+			int square = state.getWidth() * state.getHeight() - 1;
+			while (!state.isEmpty(square)) {
+				square--;
+			}
+			return new Position(square / state.getWidth(), square % state.getWidth());
+		}
+
+		public int getPlayerType() {
+			return RANDOM_PLAYER;
+		}
+	}
+
+	/**
+	 * Searches until it is interrupted the first time it is asked, and gives no move after that
+	 */
+	private static class SlowPlayer implements Player {
+		private CountDownLatch started = new CountDownLatch(1);
+		private volatile boolean interrupted;
+
+		public Position getNextMove(TicTacToeBoard state) throws Exception {
+			if (started.getCount() == 0) {
+				return null;
+			}
+			started.countDown();
+			try {
+				Thread.sleep(60 * 1000);
+			} catch (InterruptedException e) {
+				interrupted = true;
+				throw e;
+			}
+			return null;
+		}
+
+		public int getPlayerType() {
+			return RANDOM_PLAYER;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests BatchSolver against the reference solver on random positions,
+ * finished ones included, on several board setups, and that boards too big
+ * for MiniMax get an error.
+ *
+ */
+public class BatchSolverTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("BatchSolverTest passed");
+	}
+
+	public static void run() throws Exception {
+		testFinishedPositions();
+		testRandomPositions(3, 3, 3, 0, 2000);
+		testRandomPositions(4, 3, 3, 0, 1000);
+		testRandomPositions(3, 4, 3, 0, 1000);
+		testRandomPositions(6, 2, 3, 0, 1000);
+	}
+
+	/**
+	 * Positions whose line does not run through the last square in row-major order
+	 */
+	private static void testFinishedPositions() throws Exception {
+		checkOutput(3, 3, 3, "XXXOO____", "XXXOO____ 1 - -");
+		checkOutput(4, 3, 3, "XXX_OO______", "XXX_OO______ 1 - -");
+		checkOutput(4, 3, 3, "OOO_XX__X___", "OOO_XX__X___ -1 - -");
+		checkOutput(3, 3, 3, "XXXOOO___", "XXXOOO___ ERROR Both players have a line");
+		checkOutput(3, 3, 3, "XO_XO____ X", "XO_XO____ X 1 2 0");
+
+		//MiniMax refuses boards it cannot search to the end, even nearly full ones
+		checkOutput(4, 4, 4, "XXXXOOO_________", "XXXXOOO_________ ERROR MiniMax only searches boards of up to "
+				+ MiniMax.MAX_SQUARES + " squares");
+	}
+
+	/**
+	 * Solves random positions and compares every line with the reference solver
+	 */
+	private static void testRandomPositions(int width, int height, int winLength, int minStones, int numPositions)
+			throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		int numSquares = width * height;
+		List<TicTacToeBoard> boards = new ArrayList<TicTacToeBoard>();
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < numPositions; i++) {
+			int stones = minStones + rand.nextInt(numSquares - minStones + 1);
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, stones);
+			boards.add(board);
+			for (int square = 0; square < numSquares; square++) {
+				input.append(board.getState(square / width, square % width));
+			}
+			input.append('\n');
+		}
+
+		String[] lines = solve(width, height, winLength, input.toString());
+		TestSupport.checkEquals(numPositions, lines.length, "number of output lines");
+		for (int i = 0; i < numPositions; i++) {
+			TicTacToeBoard board = boards.get(i);
+			String[] words = lines[i].split(" ");
+			int value = reference.getValue(board);
+			TestSupport.checkEquals(value, Integer.parseInt(words[1]), "value of " + lines[i]);
+			if (board.isGameOver()) {
+				TestSupport.check(words[2].equals("-") && words[3].equals("-"), "no move when the game is over: " + lines[i]);
+				continue;
+			}
+			int[] moveValues = reference.getMoveValues(board);
+			int firstOptimal = 0;
+			while (moveValues[firstOptimal] != value) {
+				firstOptimal++;
+			}
+			int move = Integer.parseInt(words[2]) * width + Integer.parseInt(words[3]);
+			TestSupport.checkEquals(firstOptimal, move, "first optimal move of " + lines[i]);
+		}
+	}
+
+	/**
+	 * Solves one line and compares the output
+	 */
+	private static void checkOutput(int width, int height, int winLength, String line, String expected) throws Exception {
+		String[] lines = solve(width, height, winLength, line + "\n");
+		TestSupport.check(lines.length == 1 && lines[0].equals(expected), "expected " + expected + " but was " + lines[0]);
+	}
+
+	/**
+	 * Runs a solver with two threads on some input
+	 */
+	private static String[] solve(int width, int height, int winLength, String input) throws Exception {
+		BatchSolver solver = new BatchSolver(2, width, height, winLength);
+		StringWriter out = new StringWriter();
+		try {
+			solver.solve(new BufferedReader(new StringReader(input)), out);
+		} finally {
+			solver.close();
+		}
+		return out.toString().split("\n");
+	}
+}
@@ -0,0 +1,44 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests the benchmark cases without timing them: every case runs, gives the
+ * same result every time so repeating it measures the same work, and the
+ * board and BitBoard versions of an operation agree.
+ *
+ */
+public class BenchmarkTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("BenchmarkTest passed");
+	}
+
+	public static void run() throws Exception {
+		Map<String, Long> results = new HashMap<String, Long>();
+		Set<String> names = new HashSet<String>();
+		for (Benchmark.Case c : Benchmark.getCases()) {
+			TestSupport.check(names.add(c.name), "unique name " + c.name);
+			long result = c.run();
+			for (int i = 0; i < 3; i++) {
+				TestSupport.checkEquals(result, c.run(), "same result every run of " + c.name);
+			}
+			results.put(c.name, result);
+		}
+		TestSupport.check(results.size() >= 37, "all the cases");
+
+		for (String name : results.keySet()) {
+			if (name.startsWith("BitBoard.")) {
+				String boardName = "TicTacToeBoard." + name.substring("BitBoard.".length());
+				TestSupport.check(results.containsKey(boardName), "board version of " + name);
+				TestSupport.checkEquals(results.get(boardName), results.get(name), name + " agrees with the board");
+			}
+		}
+		TestSupport.checkEquals(results.get("MiniMax.getNextMove cold midgame"), results.get("MiniMax.getNextMove warm midgame"),
+				"warm and cold searches agree");
+	}
+}
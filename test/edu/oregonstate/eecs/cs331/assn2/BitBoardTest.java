@@ -0,0 +1,143 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Tests BitBoard against TicTacToeBoard: the same squares, winner and hash
+ * after every makeMove and unmakeMove, copies of finished positions, clones
+ * that do not share squares, and canonical hashes and squares that agree
+ * between all eight symmetric forms of a position.
+ *
+ */
+public class BitBoardTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("BitBoardTest passed");
+	}
+
+	public static void run() throws Exception {
+		testMovesMatchBoard();
+		testFinishedPositions();
+		testClone();
+		testSymmetry();
+	}
+
+	/**
+	 * Random games played on both boards, move by move and then taken back
+	 */
+	private static void testMovesMatchBoard() throws Exception {
+		Random rand = new Random(1);
+		for (int game = 0; game < 500; game++) {
+			TicTacToeBoard board = new TicTacToeBoard();
+			BitBoard bitBoard = new BitBoard();
+			int[] moves = new int[9];
+			int numMoves = 0;
+			while (!board.isGameOver()) {
+				int square = TestSupport.randomEmptySquare(rand, board);
+				board.makeMove(square);
+				bitBoard.makeMove(square);
+				moves[numMoves++] = square;
+				checkSame(board, bitBoard, "after move " + numMoves + " of game " + game);
+			}
+			TestSupport.check(bitBoard.isGameOver(), "game over with the board");
+			while (numMoves > 0) {
+				numMoves--;
+				board.unmakeMove(moves[numMoves]);
+				bitBoard.unmakeMove(moves[numMoves]);
+				checkSame(board, bitBoard, "after taking back to move " + numMoves + " of game " + game);
+			}
+			TestSupport.check(bitBoard.getXMask() == 0 && bitBoard.getOMask() == 0, "empty after taking every move back");
+		}
+	}
+
+	/**
+	 * A copy of a finished board knows who won, wherever the line is
+	 */
+	private static void testFinishedPositions() throws Exception {
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__", "X_O_XO__X", "_O_XXXO__" };
+		for (String position : positions) {
+			TicTacToeBoard board = TestSupport.board(position, 3, 3, 3);
+			checkSame(board, new BitBoard(board), "copy of " + position);
+		}
+		TestSupport.check(!BitBoard.canRepresent(new TicTacToeBoard(4, 3, 3)), "4x3 is not a BitBoard");
+		TestSupport.check(!BitBoard.canRepresent(new TicTacToeBoard(3, 3, 2)), "3x3 k2 is not a BitBoard");
+	}
+
+	/**
+	 * A clone plays on without changing the original
+	 */
+	private static void testClone() throws Exception {
+		BitBoard board = new BitBoard(TestSupport.board("X___O____", 3, 3, 3));
+		long hash = board.getHash();
+		BitBoard clone = (BitBoard) board.clone();
+		clone.makeMove(1);
+		clone.makeMove(2);
+		TestSupport.check(board.isEmpty(1) && board.isEmpty(2), "original squares unchanged");
+		TestSupport.check(board.getHash() == hash, "original hash unchanged");
+		TestSupport.checkEquals(TicTacToeBoard.PLAYER_X, board.getTurn(), "original turn unchanged");
+		clone.unmakeMove(2);
+		clone.unmakeMove(1);
+		TestSupport.check(clone.getHash() == hash, "clone back to the original hash");
+	}
+
+	/**
+	 * The eight symmetric forms of random positions have the same canonical
+	 * hash and the same canonical squares
+	 */
+	private static void testSymmetry() throws Exception {
+		Random rand = new Random(2);
+		for (int i = 0; i < 500; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, 3, 3, 3, rand.nextInt(10));
+			BitBoard bitBoard = new BitBoard(board);
+			String canonical = getCanonicalSquares(bitBoard);
+			for (int t = 0; t < Symmetry.COUNT; t++) {
+				TicTacToeBoard transformed = new TicTacToeBoard();
+				for (int square = 0; square < 9; square++) {
+					int player = board.getPlayerIndexOfSquare(square / 3, square % 3);
+					if (player != TicTacToeBoard.PLAYER_NONE) {
+						int to = Symmetry.transform(t, square);
+						transformed.setState(to / 3, to % 3, player);
+					}
+				}
+				transformed.setTurn(board.getTurn());
+				BitBoard other = new BitBoard(transformed);
+				TestSupport.check(other.getCanonicalHash() == bitBoard.getCanonicalHash(), "canonical hash under " + t);
+				TestSupport.check(canonical.equals(getCanonicalSquares(other)), "canonical squares under " + t);
+				for (int square = 0; square < 9; square++) {
+					TestSupport.checkEquals(square, other.fromCanonicalSquare(other.toCanonicalSquare(square)),
+							"canonical square round trip");
+				}
+			}
+		}
+	}
+
+	/**
+	 * The squares of a board's canonical form in row-major order
+	 */
+	private static String getCanonicalSquares(BitBoard board) {
+		char[] squares = new char[9];
+		for (int square = 0; square < 9; square++) {
+			squares[board.toCanonicalSquare(square)] = board.getState(square / 3, square % 3).charAt(0);
+		}
+		return new String(squares);
+	}
+
+	/**
+	 * Checks that a BitBoard has the same squares, turn, hash and winner as a board
+	 */
+	private static void checkSame(TicTacToeBoard expected, BitBoard actual, String name) throws Exception {
+		for (int square = 0; square < 9; square++) {
+			TestSupport.check(expected.getState(square / 3, square % 3).equals(actual.getState(square / 3, square % 3)),
+					"square " + square + " " + name);
+			TestSupport.check(expected.isEmpty(square) == actual.isEmpty(square), "empty square " + square + " " + name);
+		}
+		TestSupport.checkEquals(expected.getNumEmptySquares(), actual.getNumEmptySquares(), "empty squares " + name);
+		TestSupport.checkEquals(expected.getTurn(), actual.getTurn(), "turn " + name);
+		TestSupport.check(expected.getHash() == actual.getHash(), "hash " + name);
+		TestSupport.check(expected.isGameOver() == actual.isGameOver(), "game over " + name);
+		TestSupport.check(expected.isWin(TicTacToeBoard.PLAYER_X) == actual.isWin(TicTacToeBoard.PLAYER_X), "X wins " + name);
+		TestSupport.check(expected.isWin(TicTacToeBoard.PLAYER_O) == actual.isWin(TicTacToeBoard.PLAYER_O), "O wins " + name);
+		TestSupport.check(expected.hasLine(TicTacToeBoard.PLAYER_X) == actual.hasLine(TicTacToeBoard.PLAYER_X), "X line " + name);
+	}
+}
@@ -0,0 +1,137 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Tests the endgame database and the database player against the reference
+ * solver: the value of every position and of each of its moves, the move
+ * that wins fastest or loses slowest, no move on finished positions, and
+ * the player writing the databases it is missing.
+ *
+ */
+public class EndgameDatabaseTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("EndgameDatabaseTest passed");
+	}
+
+	public static void run() throws Exception {
+		File directory = Files.createTempDirectory("endgame").toFile();
+		try {
+			DatabasePlayer player = new DatabasePlayer(directory.getPath());
+			testRandomPositions(player, directory, 3, 3, 3, 1000);
+			testRandomPositions(player, directory, 4, 3, 3, 500);
+			testRandomPositions(player, directory, 3, 4, 3, 500);
+			testRandomPositions(player, directory, 5, 2, 3, 500);
+			testFinishedPositions(player);
+			testIllegalPositions(player, directory);
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Positions from random games, finished ones included. The first board of a
+	 * size has the player write its database, which is then opened directly to
+	 * check the entries of the position and of each of its moves.
+	 */
+	private static void testRandomPositions(DatabasePlayer player, File directory, int width, int height, int winLength,
+			int numPositions) throws Exception {
+		File file = new File(directory, EndgameDatabase.getDefaultFileName(width, height, winLength));
+		TestSupport.check(!file.exists(), "no database before the first move");
+		player.getNextMove(new TicTacToeBoard(width, height, winLength));
+		TestSupport.check(file.exists(), "database written by the player");
+		EndgameDatabase database = new EndgameDatabase(file.getPath());
+		TestSupport.checkEquals(width, database.getWidth(), "width");
+		TestSupport.checkEquals(height, database.getHeight(), "height");
+		TestSupport.checkEquals(winLength, database.getWinLength(), "win length");
+
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		for (int i = 0; i < numPositions; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(width * height + 1));
+			String name = " on " + width + "x" + height + " k" + winLength + " with " + board.getNumEmptySquares()
+					+ " empty squares";
+			int entry = database.getEntry(board);
+			TestSupport.check(entry != EndgameDatabase.NOT_FOUND, "entry" + name);
+			TestSupport.checkEquals(reference.getValue(board), EndgameDatabase.getValue(entry), "value" + name);
+			Position move = player.getNextMove(board);
+			if (board.isGameOver()) {
+				TestSupport.check(move == null, "no move when the game is over" + name);
+				TestSupport.checkEquals(EndgameDatabase.NO_MOVE, EndgameDatabase.getBestMove(entry), "stored move" + name);
+				TestSupport.checkEquals(0, EndgameDatabase.getDistance(entry), "distance" + name);
+				continue;
+			}
+
+			//The first move in row-major order that wins fastest, or loses or draws slowest
+			int[] moveValues = reference.getMoveValues(board);
+			int value = EndgameDatabase.getValue(entry);
+			int win = (board.getTurn() == TicTacToeBoard.PLAYER_X) ? 1 : -1;
+			int bestMove = -1;
+			int bestDistance = 0;
+			for (int square = 0; square < width * height; square++) {
+				if (!board.isEmpty(square)) {
+					continue;
+				}
+				board.makeMove(square);
+				int child = database.getEntry(board);
+				board.unmakeMove(square);
+				TestSupport.checkEquals(moveValues[square], EndgameDatabase.getValue(child), "move value" + name);
+				int distance = EndgameDatabase.getDistance(child);
+				if (moveValues[square] == value && (bestMove < 0
+						|| ((value == win) ? (distance < bestDistance) : (distance > bestDistance)))) {
+					bestMove = square;
+					bestDistance = distance;
+				}
+			}
+			TestSupport.checkEquals(bestMove, EndgameDatabase.getBestMove(entry), "stored move" + name);
+			TestSupport.checkEquals(bestDistance + 1, EndgameDatabase.getDistance(entry), "distance" + name);
+			TestSupport.check(move != null, "a move" + name);
+			TestSupport.checkEquals(bestMove, TestSupport.toSquare(board, move), "move" + name);
+		}
+	}
+
+	/**
+	 * A finished game has no move, whether the line runs through the last move or not
+	 */
+	private static void testFinishedPositions(DatabasePlayer player) throws Exception {
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__" };
+		for (String position : positions) {
+			TestSupport.check(player.getNextMove(TestSupport.board(position, 3, 3, 3)) == null, "no move on " + position);
+		}
+	}
+
+	/**
+	 * Boards that are not in a database are refused, and boards too big for
+	 * one are refused without writing anything
+	 */
+	private static void testIllegalPositions(DatabasePlayer player, File directory) throws Exception {
+		TicTacToeBoard board = TestSupport.board("XX_______", 3, 3, 3);
+		try {
+			player.getNextMove(board);
+			throw new Exception("no exception for two Xs and no O");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().equals("The board is not a legal position"), "legal position: " + e.getMessage());
+		}
+
+		EndgameDatabase database = new EndgameDatabase(
+				new File(directory, EndgameDatabase.getDefaultFileName(3, 3, 3)).getPath());
+		TestSupport.checkEquals(EndgameDatabase.NOT_FOUND, database.getEntry(new TicTacToeBoard(4, 3, 3)), "other width");
+		TestSupport.checkEquals(EndgameDatabase.NOT_FOUND, database.getEntry(new TicTacToeBoard(3, 3, 2)), "other win length");
+
+		int numFiles = directory.listFiles().length;
+		try {
+			player.getNextMove(new TicTacToeBoard(7, 3, 3));
+			throw new Exception("no exception for 21 squares");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("The database player only plays"), "too big: " + e.getMessage());
+		}
+		TestSupport.checkEquals(numFiles, directory.listFiles().length, "no file written for 21 squares");
+	}
+}
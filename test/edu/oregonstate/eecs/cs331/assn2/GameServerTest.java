@@ -0,0 +1,317 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * Tests the game server over a real connection: boards the exhaustive
+ * players cannot solve are refused, a NEW that fails leaves the game as it
+ * was, players are pooled per board setup, the pool stays bounded, many
+ * sessions share a bounded number of players with threads of their own,
+ * and players dropped from the pool or left in it when the server closes
+ * are closed.
+ *
+ */
+public class GameServerTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("GameServerTest passed");
+	}
+
+	public static void run() throws Exception {
+		final GameServer server = new GameServer(0, 200);
+		Thread serving = new Thread(new Runnable() {
+			public void run() {
+				server.serve();
+			}
+		});
+		serving.start();
+		try {
+			testRejectsLargeBoards(server);
+			testFailedNewKeepsGame(server);
+			testPoolBySetup(server);
+			testPoolLimit(server);
+			testThreadedPlayersBounded(server);
+			testDroppedPlayersClosed(server);
+			testCloseClosesPlayers(server);
+		} finally {
+			server.close();
+			serving.join();
+		}
+	}
+
+	/**
+	 * Exhaustive players are refused at once on boards they cannot solve
+	 */
+	private static void testRejectsLargeBoards(GameServer server) throws Exception {
+		Client client = new Client(server);
+		try {
+			long start = System.nanoTime();
+			client.send("NEW minimax O 15 15 5");
+			expectError(client, "minimax on 15x15");
+			client.send("NEW alphabeta X 5 5 4");
+			expectError(client, "alphabeta on 5x5");
+			client.send("NEW parallel O 4 4 4");
+			expectError(client, "parallel on 4x4");
+			client.send("NEW table X 4 4 3");
+			expectError(client, "table on 4x4");
+			TestSupport.check(System.nanoTime() - start < 5 * 1000000000L, "refused without searching");
+
+			//Boards they can solve are still played
+			client.newGame("alphabeta", TicTacToeBoard.PLAYER_O, 4, 4, 4);
+			client.newGame("deepening", TicTacToeBoard.PLAYER_O, 15, 15, 5);
+		} finally {
+			client.close();
+		}
+	}
+
+	/**
+	 * A NEW that is refused does not end the game in progress
+	 */
+	private static void testFailedNewKeepsGame(GameServer server) throws Exception {
+		Client client = new Client(server);
+		try {
+			client.newGame("alphabeta", TicTacToeBoard.PLAYER_X, 3, 3, 3);
+			client.move(1, 1);
+			client.send("NEW minimax O 15 15 5");
+			expectError(client, "minimax on 15x15");
+			client.send("NEW nobody X");
+			expectError(client, "unknown player");
+			TestSupport.checkEquals(3, client.board.getWidth(), "the game is still 3x3");
+			int square = 0;
+			while (!client.board.isEmpty(square)) {
+				square++;
+			}
+			client.move(square / 3, square % 3);
+		} finally {
+			client.close();
+		}
+	}
+
+	/**
+	 * Games on setups with the same number of squares, one after another in one session,
+	 * get only optimal moves from the server
+	 */
+	private static void testPoolBySetup(GameServer server) throws Exception {
+		int[][] setups = { {4, 3, 3}, {3, 4, 3}, {6, 2, 3}, {4, 3, 4}, {4, 3, 3} };
+		Random rand = new Random(16);
+		Client client = new Client(server);
+		try {
+			for (int[] setup : setups) {
+				ReferenceSolver reference = new ReferenceSolver(setup[0], setup[1], setup[2]);
+				client.newGame("alphabeta", TicTacToeBoard.PLAYER_X, setup[0], setup[1], setup[2]);
+				TicTacToeBoard board = client.board;
+				while (!board.isGameOver()) {
+					int square = TestSupport.randomEmptySquare(rand, board);
+					board.makeMove(square);
+					if (board.isGameOver()) {
+						board.unmakeMove(square);
+						client.move(square / board.getWidth(), square % board.getWidth());
+						break;
+					}
+					int value = reference.getValue(board);
+					board.unmakeMove(square);
+					client.move(square / board.getWidth(), square % board.getWidth());
+					TestSupport.checkEquals(value, reference.getValue(board),
+							"value after the server's move on " + setup[0] + "x" + setup[1] + " k" + setup[2]);
+				}
+			}
+		} finally {
+			client.close();
+		}
+	}
+
+	/**
+	 * Games on many setups leave at most MAX_IDLE_PLAYERS players in the pool
+	 */
+	private static void testPoolLimit(GameServer server) throws Exception {
+		fillPool(server);
+		TestSupport.checkEquals(GameServer.MAX_IDLE_PLAYERS, server.getIdlePlayers(), "idle players");
+	}
+
+	/**
+	 * Many sessions playing mcts at once, on two board setups, never have more
+	 * than MAX_LIVE_THREADED_PLAYERS mcts players and their threads alive
+	 */
+	private static void testThreadedPlayersBounded(final GameServer server) throws Exception {
+		int numSessions = 8;
+		final int before = TestSupport.countThreads("MCTSPlayer worker");
+		final Exception[] failure = new Exception[1];
+		Thread[] sessions = new Thread[numSessions];
+		for (int i = 0; i < numSessions; i++) {
+			final int width = 5 + (i % 2);
+			final Random rand = new Random(i);
+			sessions[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						Client client = new Client(server);
+						try {
+							client.newGame("mcts", TicTacToeBoard.PLAYER_O, width, 5, 4);
+							for (int move = 0; move < 2; move++) {
+								int square = TestSupport.randomEmptySquare(rand, client.board);
+								client.move(square / width, square % width);
+							}
+						} finally {
+							client.close();
+						}
+					} catch (Exception e) {
+						synchronized (failure) {
+							failure[0] = e;
+						}
+					}
+				}
+			});
+			sessions[i].start();
+		}
+
+		int maxPlayers = 0;
+		int maxThreads = 0;
+		for (Thread session : sessions) {
+			while (session.isAlive()) {
+				maxPlayers = Math.max(maxPlayers, server.getLiveThreadedPlayers(Player.MCTS_PLAYER));
+				maxThreads = Math.max(maxThreads, TestSupport.countThreads("MCTSPlayer worker") - before);
+				Thread.sleep(5);
+			}
+		}
+		synchronized (failure) {
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+		}
+		TestSupport.check(maxPlayers <= GameServer.MAX_LIVE_THREADED_PLAYERS, maxPlayers + " mcts players alive");
+		int maxThreadsAllowed = GameServer.MAX_LIVE_THREADED_PLAYERS * Runtime.getRuntime().availableProcessors();
+		TestSupport.check(maxThreads <= maxThreadsAllowed, maxThreads + " mcts threads, more than " + maxThreadsAllowed);
+	}
+
+	/**
+	 * Players with threads of their own that are dropped from the pool end their threads
+	 */
+	private static void testDroppedPlayersClosed(GameServer server) throws Exception {
+		startSearchPlayers(server);
+		fillPool(server);
+		TestSupport.checkThreadsEnd("LazySMP worker", 0);
+		TestSupport.checkThreadsEnd("MCTSPlayer worker", 0);
+	}
+
+	/**
+	 * Closing the server ends the threads of the players in the pool
+	 */
+	private static void testCloseClosesPlayers(GameServer server) throws Exception {
+		startSearchPlayers(server);
+		TestSupport.check(TestSupport.countThreads("LazySMP worker") > 0, "a pooled lazysmp player");
+		server.close();
+		TestSupport.checkEquals(0, server.getIdlePlayers(), "idle players after close");
+		TestSupport.checkThreadsEnd("LazySMP worker", 0);
+		TestSupport.checkThreadsEnd("MCTSPlayer worker", 0);
+	}
+
+	/**
+	 * Plays games on more setups than the pool keeps players of
+	 */
+	private static void fillPool(GameServer server) throws Exception {
+		Client client = new Client(server);
+		try {
+			for (int width = 1; width <= 10; width++) {
+				for (int height = 1; height <= 8; height++) {
+					client.newGame("random", TicTacToeBoard.PLAYER_O, width, height, 3);
+				}
+			}
+		} finally {
+			client.close();
+		}
+	}
+
+	/**
+	 * Has a lazysmp and an mcts player make a move, which puts them in the pool
+	 */
+	private static void startSearchPlayers(GameServer server) throws Exception {
+		Client client = new Client(server);
+		try {
+			client.newGame("lazysmp", TicTacToeBoard.PLAYER_O, 5, 5, 4);
+			client.newGame("mcts", TicTacToeBoard.PLAYER_O, 5, 5, 4);
+		} finally {
+			client.close();
+		}
+	}
+
+	private static void expectError(Client client, String what) throws Exception {
+		String line = client.in.readLine();
+		TestSupport.check(line != null && line.startsWith("ERROR "), "expected ERROR for " + what + ", got " + line);
+	}
+
+	/**
+	 * A connection to the server, with its own copy of the board
+	 */
+	private static class Client {
+		private Socket socket;
+		private BufferedReader in;
+		private Writer out;
+		private TicTacToeBoard board;
+
+		Client(GameServer server) throws Exception {
+			socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+			out = new OutputStreamWriter(socket.getOutputStream(), "US-ASCII");
+		}
+
+		void send(String line) throws Exception {
+			out.write(line + "\n");
+			out.flush();
+		}
+
+		/**
+		 * Starts a game and reads the server's first move if it has one
+		 */
+		void newGame(String type, int side, int width, int height, int winLength) throws Exception {
+			send("NEW " + type + " " + ((side == TicTacToeBoard.PLAYER_X) ? "X" : "O") + " " + width + " " + height
+					+ " " + winLength);
+			String line = in.readLine();
+			TestSupport.check("OK".equals(line), "expected OK, got " + line);
+			board = new TicTacToeBoard(width, height, winLength);
+			if (side == TicTacToeBoard.PLAYER_O) {
+				readServerMove();
+			}
+		}
+
+		/**
+		 * Plays a move and reads the server's reply
+		 */
+		void move(int row, int col) throws Exception {
+			send("MOVE " + row + " " + col);
+			board.makeMove(row * board.getWidth() + col);
+			if (board.isGameOver()) {
+				readEnd();
+			} else {
+				readServerMove();
+			}
+		}
+
+		private void readServerMove() throws Exception {
+			String line = in.readLine();
+			TestSupport.check(line != null && line.startsWith("MOVE "), "expected MOVE, got " + line);
+			String[] words = line.split(" ");
+			int square = Integer.parseInt(words[1]) * board.getWidth() + Integer.parseInt(words[2]);
+			TestSupport.check(board.isEmpty(square), "server moved to an empty square: " + line);
+			board.makeMove(square);
+			if (board.isGameOver()) {
+				readEnd();
+			}
+		}
+
+		private void readEnd() throws Exception {
+			String line = in.readLine();
+			TestSupport.check(line != null && line.startsWith("END "), "expected END, got " + line);
+		}
+
+		void close() throws Exception {
+			send("QUIT");
+			socket.close();
+		}
+	}
+}
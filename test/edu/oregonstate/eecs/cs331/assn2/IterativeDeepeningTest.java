@@ -0,0 +1,99 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Tests the iterative-deepening player: depth 1 finishes however small the
+ * budget, finished positions get no move, and on boards it can search to the
+ * end the principal variation search and its aspiration windows keep the
+ * value the reference solver gives.
+ *
+ */
+public class IterativeDeepeningTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("IterativeDeepeningTest passed");
+	}
+
+	public static void run() throws Exception {
+		testDepthOneFinishes();
+		testFinishedPositions();
+		testSolvedPositions(3, 3, 3, 1000, false);
+		testSolvedPositions(3, 3, 3, 1000, true);
+		testSolvedPositions(4, 3, 3, 150, true);
+		testSolvedPositions(3, 4, 3, 150, true);
+	}
+
+	/**
+	 * With no budget at all, a win in one is still found, on a board with more
+	 * root moves than nodes between clock checks
+	 */
+	private static void testDepthOneFinishes() throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard(20, 20, 5);
+		//Scattered stones, three squares apart so none of them line up
+		int player = TicTacToeBoard.PLAYER_O;
+		for (int row = 0; row < 18; row += 3) {
+			for (int col = 0; col < 20; col += 3) {
+				board.setState(row, col, player);
+				player = 1 - player;
+			}
+		}
+		//Four Xs in the bottom row, which are the last candidate moves in row-major order
+		for (int col = 14; col < 18; col++) {
+			board.setState(19, col, TicTacToeBoard.PLAYER_X);
+			board.setState(19, 2 * (col - 14), TicTacToeBoard.PLAYER_O);
+		}
+		board.setTurn(TicTacToeBoard.PLAYER_X);
+		int[] candidates = new int[400];
+		TestSupport.check(Heuristic.getCandidateMoves(board, candidates) > 256, "more root moves than a clock interval");
+
+		Position move = new IterativeDeepening(0).getNextMove(board);
+		board.makeMove(TestSupport.toSquare(board, move));
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "the win in one, not " + move.row + "," + move.col);
+
+		//An interrupted search also finishes depth 1
+		board.unmakeMove(TestSupport.toSquare(board, move));
+		Thread.currentThread().interrupt();
+		try {
+			move = new IterativeDeepening(60 * 1000).getNextMove(board);
+		} finally {
+			Thread.interrupted();
+		}
+		board.makeMove(TestSupport.toSquare(board, move));
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "the win in one when interrupted");
+	}
+
+	/**
+	 * A finished game has no move, whether the line runs through the last move or not
+	 */
+	private static void testFinishedPositions() throws Exception {
+		IterativeDeepening player = new IterativeDeepening(100);
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX" };
+		for (String position : positions) {
+			TestSupport.check(player.getNextMove(TestSupport.board(position, 3, 3, 3)) == null, "no move on " + position);
+		}
+		TestSupport.check(player.getNextMove(TestSupport.board("XXXXOOO_________", 4, 4, 4)) == null, "no move on 4x4");
+	}
+
+	/**
+	 * On boards small enough to search to the end within the budget, every move keeps
+	 * the value of the position
+	 */
+	private static void testSolvedPositions(int width, int height, int winLength, int numPositions, boolean orderMoves)
+			throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		IterativeDeepening player = new IterativeDeepening(10 * 1000, orderMoves);
+		for (int i = 0; i < numPositions; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(width * height));
+			if (board.isGameOver()) {
+				continue;
+			}
+			int value = reference.getValue(board);
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			TestSupport.checkEquals(value, reference.getValue(board), "value after the move on " + width + "x" + height
+					+ " k" + winLength + " with " + board.getNumEmptySquares() + " empty squares");
+		}
+	}
+}
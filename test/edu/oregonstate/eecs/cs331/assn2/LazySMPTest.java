@@ -0,0 +1,255 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the Lazy SMP player and what it shares with iterative deepening: no
+ * move on finished positions, depth 1 finished however small the budget, the
+ * value the reference solver gives on boards it searches to the end, the
+ * heuristic's symmetry and candidate moves, a shared table that never
+ * returns another position's entry while threads write it at once or
+ * records a deep search as a shallow one, workers of an interrupted search
+ * not stopping the next one, and close ending every worker thread.
+ *
+ */
+public class LazySMPTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("LazySMPTest passed");
+	}
+
+	public static void run() throws Exception {
+		testFinishedPositions();
+		testDepthOneFinishes();
+		testSolvedPositions(3, 3, 3, 300);
+		testSolvedPositions(4, 3, 3, 50);
+		testHeuristic();
+		testSharedTable();
+		testDeepEntries();
+		testInterruptedSearch();
+		testClose();
+	}
+
+	/**
+	 * A finished game has no move, whether the line runs through the last move or not
+	 */
+	private static void testFinishedPositions() throws Exception {
+		LazySMP player = new LazySMP(2, 100);
+		try {
+			String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__" };
+			for (String position : positions) {
+				TestSupport.check(player.getNextMove(TestSupport.board(position, 3, 3, 3)) == null, "no move on " + position);
+			}
+			TestSupport.check(player.getNextMove(TestSupport.board("XXXXOOO_________", 4, 4, 4)) == null, "no move on 4x4");
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * With no budget at all, a win in one is still found, on a board with more
+	 * root moves than nodes between clock checks
+	 */
+	private static void testDepthOneFinishes() throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard(20, 20, 5);
+		//Scattered stones, three squares apart so none of them line up
+		int player = TicTacToeBoard.PLAYER_O;
+		for (int row = 0; row < 18; row += 3) {
+			for (int col = 0; col < 20; col += 3) {
+				board.setState(row, col, player);
+				player = 1 - player;
+			}
+		}
+		//Four Xs in the bottom row, which are the last candidate moves in row-major order
+		for (int col = 14; col < 18; col++) {
+			board.setState(19, col, TicTacToeBoard.PLAYER_X);
+			board.setState(19, 2 * (col - 14), TicTacToeBoard.PLAYER_O);
+		}
+		board.setTurn(TicTacToeBoard.PLAYER_X);
+
+		for (int numThreads = 1; numThreads <= 3; numThreads++) {
+			LazySMP lazySMP = new LazySMP(numThreads, 0);
+			Position move;
+			try {
+				move = lazySMP.getNextMove(board);
+			} finally {
+				lazySMP.close();
+			}
+			board.makeMove(TestSupport.toSquare(board, move));
+			TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "the win in one with " + numThreads + " threads, not "
+					+ move.row + "," + move.col);
+			board.unmakeMove(TestSupport.toSquare(board, move));
+		}
+	}
+
+	/**
+	 * On boards small enough to search to the end within the budget, every move keeps
+	 * the value of the position, while the table holds results of earlier positions
+	 */
+	private static void testSolvedPositions(int width, int height, int winLength, int numPositions) throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		LazySMP player = new LazySMP(3, 10 * 1000);
+		try {
+			for (int i = 0; i < numPositions; i++) {
+				TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(width * height));
+				if (board.isGameOver()) {
+					continue;
+				}
+				int value = reference.getValue(board);
+				board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+				TestSupport.checkEquals(value, reference.getValue(board), "value after the move on " + width + "x" + height
+						+ " k" + winLength + " with " + board.getNumEmptySquares() + " empty squares");
+			}
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * Swapping X and O negates the evaluation, and the candidate moves are the
+	 * empty squares near a stone, or the center of an empty board
+	 */
+	private static void testHeuristic() throws Exception {
+		Random rand = new Random(4);
+		for (int i = 0; i < 200; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, 7, 6, 4, rand.nextInt(12));
+			TicTacToeBoard swapped = new TicTacToeBoard(7, 6, 4);
+			for (int square = 0; square < 42; square++) {
+				int owner = board.getPlayerIndexOfSquare(square / 7, square % 7);
+				if (owner != TicTacToeBoard.PLAYER_NONE) {
+					swapped.setState(square / 7, square % 7, 1 - owner);
+				}
+			}
+			TestSupport.checkEquals(-Heuristic.evaluate(board), Heuristic.evaluate(swapped), "evaluation of the swapped board");
+		}
+		TestSupport.checkEquals(0, Heuristic.evaluate(new TicTacToeBoard(7, 6, 4)), "evaluation of the empty board");
+
+		int[] moves = new int[42];
+		TestSupport.checkEquals(1, Heuristic.getCandidateMoves(new TicTacToeBoard(7, 6, 4), moves), "one move on the empty board");
+		TestSupport.checkEquals(3 * 7 + 3, moves[0], "the center");
+
+		TicTacToeBoard board = new TicTacToeBoard(7, 6, 4);
+		board.makeMove(0);
+		int numMoves = Heuristic.getCandidateMoves(board, moves);
+		TestSupport.checkEquals(8, numMoves, "squares within two of the corner");
+		for (int i = 0; i < numMoves; i++) {
+			TestSupport.check(moves[i] / 7 <= 2 && moves[i] % 7 <= 2 && moves[i] != 0, "near the corner: " + moves[i]);
+			TestSupport.check(i == 0 || moves[i] > moves[i - 1], "row-major order");
+		}
+	}
+
+	/**
+	 * Threads storing and finding entries in a small table at once only ever
+	 * find the data stored for the same key
+	 */
+	private static void testSharedTable() throws Exception {
+		final SharedTranspositionTable table = new SharedTranspositionTable(6);
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicInteger hits = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final long seed = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					Random rand = new Random(seed);
+					for (int i = 0; i < 200000; i++) {
+						long key = rand.nextInt(1000) * 0x9E3779B97F4A7C15L;
+						//The stored data is worked out from the key, so a mixed-up entry shows
+						int value = (int) (key >>> 40);
+						int move = (int) (key >>> 20) & 0x7FFF;
+						if (rand.nextBoolean()) {
+							table.store(key, value, TranspositionTable.LOWER_BOUND, move, (int) key & 0x7F);
+						} else {
+							long data = table.find(key);
+							if (data != 0) {
+								hits.incrementAndGet();
+								if (SharedTranspositionTable.getValue(data) != value
+										|| SharedTranspositionTable.getBestMove(data) != move
+										|| SharedTranspositionTable.getDepth(data) != ((int) key & 0x7F)
+										|| SharedTranspositionTable.getBound(data) != TranspositionTable.LOWER_BOUND) {
+									failures.incrementAndGet();
+								}
+							}
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		TestSupport.checkEquals(0, failures.get(), "entries of other keys");
+		TestSupport.check(hits.get() > 0, "entries found");
+		TestSupport.check(table.find(12345L) == 0, "missing key");
+	}
+
+	/**
+	 * Depths past what an entry holds are kept as the deepest it can record,
+	 * not wrapped around to a shallow one
+	 */
+	private static void testDeepEntries() throws Exception {
+		SharedTranspositionTable table = new SharedTranspositionTable(4);
+		int max = SharedTranspositionTable.MAX_DEPTH;
+		table.store(1L, 5, TranspositionTable.EXACT, 300, max);
+		TestSupport.checkEquals(max, SharedTranspositionTable.getDepth(table.find(1L)), "deepest depth");
+		table.store(2L, 5, TranspositionTable.EXACT, 300, max + 2);
+		long data = table.find(2L);
+		TestSupport.checkEquals(max, SharedTranspositionTable.getDepth(data), "depth past the deepest");
+		TestSupport.checkEquals(5, SharedTranspositionTable.getValue(data), "value of a deep entry");
+		TestSupport.checkEquals(300, SharedTranspositionTable.getBestMove(data), "move of a deep entry");
+		table.store(3L, 5, TranspositionTable.EXACT, 300, 600);
+		TestSupport.checkEquals(max, SharedTranspositionTable.getDepth(table.find(3L)), "depth of a 600 square search");
+	}
+
+	/**
+	 * A search interrupted part way, as AsyncPlayer cancels pondering, does
+	 * not cut short the search that follows it
+	 */
+	private static void testInterruptedSearch() throws Exception {
+		final LazySMP player = new LazySMP(2, 400);
+		try {
+			final TicTacToeBoard board = new TicTacToeBoard(7, 6, 4);
+			for (int round = 0; round < 3; round++) {
+				final boolean[] interrupted = new boolean[1];
+				Thread searching = new Thread(new Runnable() {
+					public void run() {
+						try {
+							player.getNextMove(board);
+						} catch (InterruptedException e) {
+							interrupted[0] = true;
+						} catch (Exception e) {
+							//Not expected, and checked below
+						}
+					}
+				});
+				searching.start();
+				Thread.sleep(100);
+				searching.interrupt();
+				searching.join();
+				TestSupport.check(interrupted[0], "the search was interrupted");
+
+				TestSupport.check(player.getNextMove(board) != null, "a move after an interrupted search");
+				TestSupport.check(player.getLastCompletedDepth() > 1,
+						"depth " + player.getLastCompletedDepth() + " after an interrupted search");
+			}
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * Closing a player ends its worker threads
+	 */
+	private static void testClose() throws Exception {
+		String name = "LazySMP worker";
+		TestSupport.checkThreadsEnd(name, 0);
+		LazySMP player = new LazySMP(3, 100);
+		player.getNextMove(new TicTacToeBoard(7, 6, 4));
+		player.close();
+		TestSupport.checkThreadsEnd(name, 0);
+	}
+}
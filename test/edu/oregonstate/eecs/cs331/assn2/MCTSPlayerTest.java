@@ -0,0 +1,132 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Tests the Monte Carlo Tree Search player: an iteration budget that works
+ * without a time budget, the node count after the tree is re-rooted, taking
+ * an immediate win, no move or search on finished positions, and close
+ * ending every search thread.
+ *
+ */
+public class MCTSPlayerTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("MCTSPlayerTest passed");
+	}
+
+	public static void run() throws Exception {
+		testIterationBudgetOnly();
+		testNodeCountAfterReroot();
+		testTakesImmediateWins();
+		testFinishedPositions();
+		testClose();
+	}
+
+	/**
+	 * With no time budget the search stops after exactly its iterations, however long they take
+	 */
+	private static void testIterationBudgetOnly() throws Exception {
+		for (int numThreads : new int[] { 1, 3 }) {
+			MCTSPlayer player = new MCTSPlayer(numThreads, 0, 400);
+			try {
+				TicTacToeBoard board = new TicTacToeBoard(7, 7, 4);
+				board.makeMove(24);
+				Position move = player.getNextMove(board);
+				TestSupport.check(move != null && board.isEmpty(TestSupport.toSquare(board, move)), "a legal move");
+				SearchStats stats = player.getLastMoveStats();
+				TestSupport.checkEquals(400, stats.getEvaluations(), "one playout per iteration with " + numThreads + " threads");
+			} finally {
+				player.close();
+			}
+		}
+
+		//A long time budget does not matter when the iteration budget runs out first
+		MCTSPlayer player = new MCTSPlayer(1, 3600 * 1000L, 200);
+		try {
+			long start = System.nanoTime();
+			player.getNextMove(new TicTacToeBoard(5, 5, 4));
+			TestSupport.check(System.nanoTime() - start < 30 * 1000000000L, "iteration budget stops the search");
+			TestSupport.checkEquals(200, player.getLastMoveStats().getEvaluations(), "iterations with a long time budget");
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * Once the tree moves to the reply that was played, the dropped siblings are no longer counted
+	 */
+	private static void testNodeCountAfterReroot() throws Exception {
+		MCTSPlayer player = new MCTSPlayer(1, 0, 3000);
+		try {
+			Random rand = new Random(3);
+			TicTacToeBoard board = new TicTacToeBoard(7, 7, 4);
+			board.makeMove(24);
+			for (int turn = 0; turn < 4; turn++) {
+				board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+				//Reply with one of the moves near the taken squares, which the tree has
+				int[] candidates = new int[49];
+				int numCandidates = Heuristic.getCandidateMoves(board, candidates);
+				board.makeMove(candidates[rand.nextInt(numCandidates)]);
+			}
+			player.getNextMove(board);
+			long created = player.getTotalStats().getSuccessors() + 1;
+			TestSupport.check(player.getNumNodes() < created / 2,
+					"only the kept subtree is counted: " + player.getNumNodes() + " of " + created + " nodes created");
+			TestSupport.check(player.getNumNodes() > 1, "the kept subtree is counted");
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * On 3x3 a move that wins at once is found
+	 */
+	private static void testTakesImmediateWins() throws Exception {
+		String[] positions = { "XX_OO____", "X_X_O_O__", "OX_OX____", "X___X_OO_" };
+		for (String position : positions) {
+			TicTacToeBoard board = TestSupport.board(position, 3, 3, 3);
+			MCTSPlayer player = new MCTSPlayer(2, 0, 3000);
+			try {
+				int move = TestSupport.toSquare(board, player.getNextMove(board));
+				board.makeMove(move);
+				TestSupport.check(board.isWin(), "immediate win in " + position + ", played " + move);
+			} finally {
+				player.close();
+			}
+		}
+	}
+
+	/**
+	 * A finished game has no move, and the last move's stats show no search,
+	 * even right after a move was searched
+	 */
+	private static void testFinishedPositions() throws Exception {
+		MCTSPlayer player = new MCTSPlayer(2, 0, 500);
+		try {
+			String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX" };
+			for (String position : positions) {
+				player.getNextMove(new TicTacToeBoard(3, 3, 3));
+				long total = player.getTotalStats().getNodes();
+				TestSupport.check(player.getNextMove(TestSupport.board(position, 3, 3, 3)) == null, "no move on " + position);
+				TestSupport.checkEquals(0, player.getLastMoveStats().getNodes(), "no nodes on " + position);
+				TestSupport.checkEquals(total, player.getTotalStats().getNodes(), "nothing added to the total on " + position);
+			}
+		} finally {
+			player.close();
+		}
+	}
+
+	/**
+	 * Closing a player ends its search threads
+	 */
+	private static void testClose() throws Exception {
+		String name = "MCTSPlayer worker";
+		TestSupport.checkThreadsEnd(name, 0);
+		MCTSPlayer player = new MCTSPlayer(3, 0, 300);
+		player.getNextMove(new TicTacToeBoard(7, 7, 4));
+		player.close();
+		TestSupport.checkThreadsEnd(name, 0);
+	}
+}
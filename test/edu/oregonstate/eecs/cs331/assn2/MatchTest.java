@@ -0,0 +1,132 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * Tests headless games: perfect players get the value the reference solver
+ * gives the empty board, illegal and missing moves end a match with an
+ * exception, player type names map to the players they create with the
+ * search threads asked for, and a tournament counts every game from player
+ * 1's side and closes its players.
+ *
+ */
+public class MatchTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("MatchTest passed");
+	}
+
+	public static void run() throws Exception {
+		testPerfectPlay(3, 3, 3);
+		testPerfectPlay(4, 3, 3);
+		testPerfectPlay(3, 4, 3);
+		testIllegalMoves();
+		testPlayerTypes();
+		testTournament();
+	}
+
+	/**
+	 * Two perfect players reach the result the empty board is worth
+	 */
+	private static void testPerfectPlay(int width, int height, int winLength) throws Exception {
+		int value = new ReferenceSolver(width, height, winLength).getValue(new TicTacToeBoard(width, height, winLength));
+		int expected = (value > 0) ? TicTacToeBoard.PLAYER_X : (value < 0) ? TicTacToeBoard.PLAYER_O : Match.DRAW;
+		int winner = new Match(new AlphaBeta(), new AlphaBeta(), width, height, winLength).play();
+		TestSupport.checkEquals(expected, winner, "result on " + width + "x" + height + " k" + winLength);
+	}
+
+	/**
+	 * A move onto a taken square, off the board, or no move at all is refused
+	 */
+	private static void testIllegalMoves() throws Exception {
+		Position[] moves = { new Position(0, 0), new Position(3, 0), new Position(0, -1), null };
+		for (final Position move : moves) {
+			Player player = new Player() {
+				public Position getNextMove(TicTacToeBoard state) {
+					return move;
+				}
+
+				public int getPlayerType() {
+					return RANDOM_PLAYER;
+				}
+			};
+			Player first = new Player() {
+				public Position getNextMove(TicTacToeBoard state) {
+					return new Position(0, 0);
+				}
+
+				public int getPlayerType() {
+					return RANDOM_PLAYER;
+				}
+			};
+			try {
+				new Match(first, player).play();
+				throw new Exception("no exception for " + (move == null ? "no move" : move.row + "," + move.col));
+			} catch (Exception e) {
+				TestSupport.check(e.getMessage().equals("Illegal board position returned"), "illegal move: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Every computer player's name creates a player of that type
+	 */
+	private static void testPlayerTypes() throws Exception {
+		String[] names = { Match.RANDOM_PLAYER_STRING, Match.MINIMAX_PLAYER_STRING, Match.ALPHABETA_PLAYER_STRING,
+				Match.DEEPENING_PLAYER_STRING, Match.PARALLEL_PLAYER_STRING, Match.LAZYSMP_PLAYER_STRING,
+				Match.MCTS_PLAYER_STRING, Match.DATABASE_PLAYER_STRING };
+		for (String name : names) {
+			int type = Match.parsePlayerType(name);
+			Player player = Match.newPlayer(type, 10);
+			TestSupport.checkEquals(type, player.getPlayerType(), "player created for " + name);
+			Match.closePlayer(player);
+		}
+
+		//Players with a pool of their own search on the threads asked for
+		int[] types = { Player.LAZYSMP_PLAYER, Player.MCTS_PLAYER };
+		String[] threadNames = { "LazySMP worker", "MCTSPlayer worker" };
+		for (int i = 0; i < types.length; i++) {
+			TestSupport.checkThreadsEnd(threadNames[i], 0);
+			Player player = Match.newPlayer(types[i], 50, 2);
+			player.getNextMove(new TicTacToeBoard(5, 5, 4));
+			TestSupport.check(TestSupport.countThreads(threadNames[i]) <= 2, "at most 2 " + threadNames[i] + " threads");
+			Match.closePlayer(player);
+			TestSupport.checkThreadsEnd(threadNames[i], 0);
+		}
+		TestSupport.checkEquals(Player.HUMAN_PLAYER, Match.parsePlayerType(Match.HUMAN_PLAYER_STRING), "human");
+		TestSupport.checkEquals(Player.TABLE_PLAYER, Match.parsePlayerType(Match.TABLE_PLAYER_STRING), "table");
+		try {
+			Match.parsePlayerType("perfect");
+			throw new Exception("no exception for an unknown name");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().equals("Unrecognized player type"), "unknown name: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * A perfect player never loses to a random one, whichever side it plays,
+	 * and only the searching side has search counts
+	 */
+	private static void testTournament() throws Exception {
+		Tournament tournament = new Tournament(Player.ALPHABETA_PLAYER, Player.RANDOM_PLAYER, 301, 2, 3, 3, 3, 10);
+		tournament.run();
+		TestSupport.checkEquals(301, tournament.getWins() + tournament.getDraws() + tournament.getLosses(), "games counted");
+		TestSupport.checkEquals(0, tournament.getLosses(), "losses of the perfect player");
+		TestSupport.check(tournament.getWins() > tournament.getDraws(), "mostly wins against random moves");
+		TestSupport.check(tournament.getPlayer1Stats() != null, "search counts of the perfect player");
+		TestSupport.check(tournament.getPlayer2Stats() == null, "no search counts of the random player");
+
+		//Players with threads of their own are closed after the run
+		tournament = new Tournament(Player.LAZYSMP_PLAYER, Player.MCTS_PLAYER, 4, 2, 3, 3, 3, 5);
+		tournament.run();
+		TestSupport.checkEquals(4, tournament.getWins() + tournament.getDraws() + tournament.getLosses(), "games counted");
+		TestSupport.checkThreadsEnd("LazySMP worker", 0);
+		TestSupport.checkThreadsEnd("MCTSPlayer worker", 0);
+
+		try {
+			new Tournament(Player.HUMAN_PLAYER, Player.RANDOM_PLAYER, 1, 1, 3, 3, 3, 10);
+			throw new Exception("no exception for a human player");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("Human players"), "human: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Tests MiniMax against the reference solver: its values, and that its move
+ * is the first optimal one in row-major order whichever symmetric positions
+ * its table was filled from. AlphaBeta and ParallelMiniMax are documented to
+ * return the same moves, so they are checked against it on the same
+ * positions. Boards too big to search to the end are refused.
+ *
+ */
+public class MiniMaxTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("MiniMaxTest passed");
+	}
+
+	public static void run() throws Exception {
+		testSymmetricPositions();
+		testRandomPositions(3, 3, 3, 3000, true);
+		testRandomPositions(4, 3, 3, 300, false);
+		testRandomPositions(3, 4, 3, 300, false);
+		testTooBig();
+	}
+
+	/**
+	 * Boards of more than MAX_SQUARES squares are refused, for the move and the value
+	 */
+	private static void testTooBig() throws Exception {
+		TicTacToeBoard board = TestSupport.board("XXXOOO_X________", 4, 4, 4);
+		try {
+			new MiniMax().getNextMove(board);
+			throw new Exception("no exception for a move on 4x4");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("MiniMax only searches"), "too big: " + e.getMessage());
+		}
+		try {
+			new MiniMax().getValue(board);
+			throw new Exception("no exception for a value on 4x4");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("MiniMax only searches"), "too big: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Every rotation and reflection of a position, searched one after another
+	 * on one player, gets the first optimal move of its own board
+	 */
+	private static void testSymmetricPositions() throws Exception {
+		String[] positions = { "_X_______", "X___O____", "_X__O____", "XO_______", "X____O___", "_X___O_X_" };
+		ReferenceSolver reference = new ReferenceSolver(3, 3, 3);
+		for (String position : positions) {
+			MiniMax player = new MiniMax();
+			for (int t = 0; t < Symmetry.COUNT; t++) {
+				char[] squares = new char[9];
+				for (int square = 0; square < 9; square++) {
+					squares[Symmetry.transform(t, square)] = position.charAt(square);
+				}
+				TicTacToeBoard board = TestSupport.board(new String(squares), 3, 3, 3);
+				checkMove(reference, board, player.getNextMove(board), "MiniMax on " + new String(squares));
+			}
+		}
+	}
+
+	/**
+	 * Positions from random games, finished ones included, asked of one player
+	 * of each kind in turn, so their tables hold whatever came up before.
+	 */
+	private static void testRandomPositions(int width, int height, int winLength, int numPositions,
+			boolean withParallel) throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		MiniMax miniMax = new MiniMax();
+		AlphaBeta alphaBeta = new AlphaBeta();
+		ParallelMiniMax parallel = withParallel ? new ParallelMiniMax() : null;
+		for (int i = 0; i < numPositions; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(width * height + 1));
+			String name = " on " + width + "x" + height + " k" + winLength + " with " + board.getNumEmptySquares() + " empty squares";
+			TestSupport.checkEquals(reference.getValue(board), miniMax.getValue(board), "MiniMax value" + name);
+			checkMove(reference, board, miniMax.getNextMove(board), "MiniMax" + name);
+			checkMove(reference, board, alphaBeta.getNextMove(board), "AlphaBeta" + name);
+			if (parallel != null) {
+				checkMove(reference, board, parallel.getNextMove(board), "ParallelMiniMax" + name);
+			}
+		}
+	}
+
+	/**
+	 * Checks that a move is the first optimal one in row-major order, or null when the game is over
+	 */
+	private static void checkMove(ReferenceSolver reference, TicTacToeBoard board, Position move, String name)
+			throws Exception {
+		if (board.isGameOver()) {
+			TestSupport.check(move == null, name + ": no move when the game is over");
+			return;
+		}
+		int value = reference.getValue(board);
+		int[] moveValues = reference.getMoveValues(board);
+		int firstOptimal = 0;
+		while (moveValues[firstOptimal] != value) {
+			firstOptimal++;
+		}
+		TestSupport.check(move != null, name + ": a move");
+		TestSupport.checkEquals(firstOptimal, TestSupport.toSquare(board, move), name + ": first optimal move");
+	}
+}
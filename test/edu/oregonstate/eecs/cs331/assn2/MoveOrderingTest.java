@@ -0,0 +1,106 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Arrays;
+
+/**
+ * Tests the move ordering: which board setups it fits, the order of table
+ * moves, killer moves, history scores and line counts, and that an
+ * ordering kept between boards of the same number of squares is rebuilt
+ * when the setup changes.
+ *
+ */
+public class MoveOrderingTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("MoveOrderingTest passed");
+	}
+
+	public static void run() throws Exception {
+		testFits();
+		testLineCounts();
+		testPriorities();
+		testEnginesAcrossSetups();
+	}
+
+	/**
+	 * An ordering only fits boards with its own width, height and win length
+	 */
+	private static void testFits() throws Exception {
+		MoveOrdering ordering = new MoveOrdering(4, 3, 3);
+		TestSupport.check(ordering.fits(new TicTacToeBoard(4, 3, 3)), "fits its own setup");
+		TestSupport.check(!ordering.fits(new TicTacToeBoard(3, 4, 3)), "3x4 has the same number of squares");
+		TestSupport.check(!ordering.fits(new TicTacToeBoard(4, 3, 4)), "a different win length");
+		TestSupport.check(!ordering.fits(new TicTacToeBoard(6, 2, 3)), "6x2 has the same number of squares");
+	}
+
+	/**
+	 * With no killers or history, squares on more lines come first, and ties keep their order
+	 */
+	private static void testLineCounts() throws Exception {
+		MoveOrdering ordering = new MoveOrdering(3, 3, 3);
+		int[] moves = { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+		ordering.order(moves, moves.length, 0, TicTacToeBoard.PLAYER_X, -1);
+		checkOrder(new int[] { 4, 0, 2, 6, 8, 1, 3, 5, 7 }, moves, "3x3");
+
+		//On 4x1 with 3 in a row the two middle squares are on two lines and the ends on one
+		ordering = new MoveOrdering(4, 1, 3);
+		moves = new int[] { 0, 1, 2, 3 };
+		ordering.order(moves, moves.length, 0, TicTacToeBoard.PLAYER_X, -1);
+		checkOrder(new int[] { 1, 2, 0, 3 }, moves, "4x1");
+		ordering = new MoveOrdering(1, 4, 3);
+		moves = new int[] { 0, 1, 2, 3 };
+		ordering.order(moves, moves.length, 0, TicTacToeBoard.PLAYER_X, -1);
+		checkOrder(new int[] { 1, 2, 0, 3 }, moves, "1x4");
+	}
+
+	/**
+	 * The table move comes first, then the killers, newest first, then history scores
+	 */
+	private static void testPriorities() throws Exception {
+		MoveOrdering ordering = new MoveOrdering(3, 3, 3);
+		ordering.recordCutoff(7, 2, TicTacToeBoard.PLAYER_X, 1);
+		ordering.recordCutoff(5, 2, TicTacToeBoard.PLAYER_X, 1);
+		ordering.recordCutoff(3, 1, TicTacToeBoard.PLAYER_X, 3);
+		int[] moves = { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+		ordering.order(moves, moves.length, 2, TicTacToeBoard.PLAYER_X, 8);
+		checkOrder(new int[] { 8, 5, 7, 3, 4, 0, 2, 6, 1 }, moves, "table move, killers, history, line counts");
+
+		//History is kept per player, and killers per ply
+		moves = new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+		ordering.order(moves, moves.length, 3, TicTacToeBoard.PLAYER_O, -1);
+		checkOrder(new int[] { 4, 0, 2, 6, 8, 1, 3, 5, 7 }, moves, "O at another ply");
+
+		ordering.clear();
+		moves = new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+		ordering.order(moves, moves.length, 2, TicTacToeBoard.PLAYER_X, -1);
+		checkOrder(new int[] { 4, 0, 2, 6, 8, 1, 3, 5, 7 }, moves, "after clear");
+	}
+
+	/**
+	 * An engine used on boards with the same number of squares but a different setup
+	 * still plays only optimal moves
+	 */
+	private static void testEnginesAcrossSetups() throws Exception {
+		int[][] setups = { {4, 3, 3}, {3, 4, 3}, {4, 3, 4}, {6, 2, 3} };
+		AlphaBeta alphaBeta = new AlphaBeta();
+		for (int[] setup : setups) {
+			ReferenceSolver reference = new ReferenceSolver(setup[0], setup[1], setup[2]);
+			TicTacToeBoard board = new TicTacToeBoard(setup[0], setup[1], setup[2]);
+			board.makeMove(0);
+			while (!board.isGameOver()) {
+				int value = reference.getValue(board);
+				int move = TestSupport.toSquare(board, alphaBeta.getNextMove(board));
+				TestSupport.check(board.isEmpty(move), "move to an empty square");
+				board.makeMove(move);
+				TestSupport.checkEquals(value, reference.getValue(board),
+						"value after AlphaBeta's move on " + setup[0] + "x" + setup[1] + " k" + setup[2]);
+			}
+		}
+	}
+
+	private static void checkOrder(int[] expected, int[] actual, String message) throws Exception {
+		TestSupport.check(Arrays.equals(expected, actual),
+				message + ": expected " + Arrays.toString(expected) + " but was " + Arrays.toString(actual));
+	}
+}
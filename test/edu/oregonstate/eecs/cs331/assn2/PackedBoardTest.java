@@ -0,0 +1,123 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests PackedBoard: packing and unpacking keep the squares, turn, hash and
+ * winner of a board, withMove matches makeMove, and equals and hashCode tell
+ * positions apart by board size, squares and turn.
+ *
+ */
+public class PackedBoardTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("PackedBoardTest passed");
+	}
+
+	public static void run() throws Exception {
+		testRoundTrip(3, 3, 3, 500);
+		testRoundTrip(4, 4, 4, 500);
+		testRoundTrip(6, 5, 4, 500);
+		testFinishedPositions();
+		testEquality();
+		testTooBig();
+	}
+
+	/**
+	 * Random games, finished ones included, packed from a TicTacToeBoard and a
+	 * BitBoard and unpacked again, and every move played on the packed position
+	 */
+	private static void testRoundTrip(int width, int height, int winLength, int numPositions) throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		for (int i = 0; i < numPositions; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(width * height + 1));
+			String name = " on " + width + "x" + height + " k" + winLength + " with " + board.getNumEmptySquares()
+					+ " empty squares";
+			PackedBoard packed = new PackedBoard(board);
+			if (BitBoard.canRepresent(board)) {
+				TestSupport.check(packed.equals(new PackedBoard(new BitBoard(board))), "packed from a BitBoard" + name);
+			}
+			checkSame(board, packed.toBoard(), name);
+			TestSupport.check(packed.equals(new PackedBoard(packed.toBoard())), "packed again" + name);
+			TestSupport.check(packed.equals(PackedBoard.fromBits(packed.getBits(), width, height, winLength)), "from bits" + name);
+			TestSupport.checkEquals(board.getNumEmptySquares(), packed.getNumEmptySquares(), "empty squares" + name);
+
+			if (!board.isGameOver()) {
+				for (int square = 0; square < width * height; square++) {
+					if (board.isEmpty(square)) {
+						board.makeMove(square);
+						PackedBoard next = packed.withMove(square);
+						TestSupport.check(next.equals(new PackedBoard(board)), "withMove" + name);
+						checkSame(board, next.toBoard(), "withMove" + name);
+						board.unmakeMove(square);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unpacked positions know who won, wherever the line is
+	 */
+	private static void testFinishedPositions() throws Exception {
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__", "_O_XXXO__" };
+		for (String position : positions) {
+			TicTacToeBoard board = TestSupport.board(position, 3, 3, 3);
+			checkSame(board, new PackedBoard(board).toBoard(), " on " + position);
+		}
+	}
+
+	/**
+	 * Positions are equal only with the same board size, squares and turn,
+	 * and work as keys of a hash set
+	 */
+	private static void testEquality() throws Exception {
+		PackedBoard board = new PackedBoard(TestSupport.board("X___O____", 3, 3, 3));
+		TicTacToeBoard otherTurn = TestSupport.board("X___O____", 3, 3, 3);
+		otherTurn.setTurn(TicTacToeBoard.PLAYER_O);
+		PackedBoard[] others = { new PackedBoard(otherTurn), new PackedBoard(TestSupport.board("X____O___", 3, 3, 3)),
+				PackedBoard.fromBits(board.getBits(), 3, 3, 2), PackedBoard.fromBits(board.getBits(), 9, 1, 3) };
+
+		Set<PackedBoard> set = new HashSet<PackedBoard>();
+		set.add(board);
+		TestSupport.check(set.contains(new PackedBoard(TestSupport.board("X___O____", 3, 3, 3))), "equal position found");
+		TestSupport.checkEquals(board.hashCode(), new PackedBoard(board.toBoard()).hashCode(), "hash code");
+		for (PackedBoard other : others) {
+			TestSupport.check(!board.equals(other) && !other.equals(board), "not equal to " + other);
+			TestSupport.check(!set.contains(other), "not found " + other);
+		}
+		TestSupport.check("X___O____ X".equals(board.toString()), "toString " + board);
+	}
+
+	/**
+	 * Boards of more than MAX_SQUARES squares cannot be packed
+	 */
+	private static void testTooBig() throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard(8, 4, 4);
+		TestSupport.check(!PackedBoard.canRepresent(board), "32 squares do not fit");
+		try {
+			new PackedBoard(board);
+			throw new Exception("no exception for 32 squares");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("Boards of more than"), "too big: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks that two boards have the same squares, turn, hash and winner
+	 */
+	private static void checkSame(TicTacToeBoard expected, TicTacToeBoard actual, String name) throws Exception {
+		for (int square = 0; square < expected.getWidth() * expected.getHeight(); square++) {
+			TestSupport.check(expected.getState(square / expected.getWidth(), square % expected.getWidth())
+					.equals(actual.getState(square / actual.getWidth(), square % actual.getWidth())), "square " + square + name);
+		}
+		TestSupport.checkEquals(expected.getTurn(), actual.getTurn(), "turn" + name);
+		TestSupport.check(expected.getHash() == actual.getHash(), "hash" + name);
+		TestSupport.check(expected.isGameOver() == actual.isGameOver(), "game over" + name);
+		TestSupport.check(expected.isWin(TicTacToeBoard.PLAYER_X) == actual.isWin(TicTacToeBoard.PLAYER_X), "X wins" + name);
+		TestSupport.check(expected.isWin(TicTacToeBoard.PLAYER_O) == actual.isWin(TicTacToeBoard.PLAYER_O), "O wins" + name);
+	}
+}
@@ -0,0 +1,134 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Tests ParallelMiniMax against the reference solver: no move on finished
+ * positions, the first optimal move with splitting at several depths while
+ * the shared table holds whatever came up before, a whole game that reuses
+ * the table, the size limit, and closing the pool it owns.
+ *
+ */
+public class ParallelMiniMaxTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("ParallelMiniMaxTest passed");
+	}
+
+	public static void run() throws Exception {
+		testFinishedPositions();
+		testRandomPositions(3, 3, 3, 1000);
+		testRandomPositions(4, 3, 3, 100);
+		testRandomPositions(3, 4, 3, 100);
+		testWholeGame();
+		testTooBig();
+		testClose();
+	}
+
+	/**
+	 * A finished game has no move, whether the line runs through the last move or not
+	 */
+	private static void testFinishedPositions() throws Exception {
+		ParallelMiniMax player = new ParallelMiniMax();
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__" };
+		for (String position : positions) {
+			TestSupport.check(player.getNextMove(TestSupport.board(position, 3, 3, 3)) == null, "no move on " + position);
+		}
+		TestSupport.check(player.getNextMove(TestSupport.board("XXXOO_______", 4, 3, 3)) == null, "no move on 4x3");
+	}
+
+	/**
+	 * Random positions, finished ones included, asked of players that split
+	 * everything, split the top levels, and split only the root
+	 */
+	private static void testRandomPositions(int width, int height, int winLength, int numPositions) throws Exception {
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		int numSquares = width * height;
+		ParallelMiniMax[] players = { new ParallelMiniMax(2, 0), new ParallelMiniMax(2, ParallelMiniMax.DEFAULT_SPLIT_THRESHOLD),
+				new ParallelMiniMax(2, numSquares + 1) };
+		try {
+			for (int i = 0; i < numPositions; i++) {
+				TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(numSquares + 1));
+				for (ParallelMiniMax player : players) {
+					checkMove(reference, board, player.getNextMove(board), "ParallelMiniMax on " + width + "x" + height
+							+ " k" + winLength + " with " + board.getNumEmptySquares() + " empty squares");
+				}
+			}
+		} finally {
+			for (ParallelMiniMax player : players) {
+				player.close();
+			}
+		}
+	}
+
+	/**
+	 * Both sides of a game on 4x3 keep the value of the position with every move,
+	 * and after the first move subtrees come out of the table
+	 */
+	private static void testWholeGame() throws Exception {
+		ReferenceSolver reference = new ReferenceSolver(4, 3, 3);
+		ParallelMiniMax player = new ParallelMiniMax();
+		TicTacToeBoard board = new TicTacToeBoard(4, 3, 3);
+		int value = reference.getValue(board);
+		boolean first = true;
+		while (!board.isGameOver()) {
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			TestSupport.checkEquals(value, reference.getValue(board), "value after each move");
+			if (!first) {
+				TestSupport.check(player.getLastMoveStats().getTableHits() > 0, "table hits after the first move");
+			}
+			first = false;
+		}
+	}
+
+	/**
+	 * Boards of more than MAX_SQUARES squares are refused
+	 */
+	private static void testTooBig() throws Exception {
+		try {
+			new ParallelMiniMax().getNextMove(new TicTacToeBoard(4, 4, 4));
+			throw new Exception("no exception on 4x4");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("ParallelMiniMax only searches"), "too big: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Closing a player shuts down the pool it owns, but not the common pool
+	 */
+	private static void testClose() throws Exception {
+		ParallelMiniMax owner = new ParallelMiniMax(2, ParallelMiniMax.DEFAULT_SPLIT_THRESHOLD);
+		owner.close();
+		try {
+			owner.getNextMove(new TicTacToeBoard(3, 3, 3));
+			throw new Exception("no exception after close");
+		} catch (RejectedExecutionException e) {
+			//The pool is shut down
+		}
+
+		new ParallelMiniMax().close();
+		TestSupport.check(new ParallelMiniMax().getNextMove(new TicTacToeBoard(3, 3, 3)) != null, "common pool still runs");
+	}
+
+	/**
+	 * Checks that a move is the first optimal one in row-major order, or null when the game is over
+	 */
+	private static void checkMove(ReferenceSolver reference, TicTacToeBoard board, Position move, String name)
+			throws Exception {
+		if (board.isGameOver()) {
+			TestSupport.check(move == null, name + ": no move when the game is over");
+			return;
+		}
+		int value = reference.getValue(board);
+		int[] moveValues = reference.getMoveValues(board);
+		int firstOptimal = 0;
+		while (moveValues[firstOptimal] != value) {
+			firstOptimal++;
+		}
+		TestSupport.check(move != null, name + ": a move");
+		TestSupport.checkEquals(firstOptimal, TestSupport.toSquare(board, move), name + ": first optimal move");
+	}
+}
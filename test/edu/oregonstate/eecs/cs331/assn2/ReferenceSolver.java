@@ -0,0 +1,160 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A plain, slow solver the engines are checked against. It keeps its own
+ * copy of the squares, checks the whole board for lines at every node and
+ * remembers values by the exact squares and player to move, so it does not
+ * depend on any of the board's caching, hashing or symmetries.
+ *
+ */
+public class ReferenceSolver {
+
+	/**
+	 * The board setup
+	 */
+	private final int width;
+	private final int height;
+	private final int winLength;
+
+	/**
+	 * The squares: 0 for empty, 1 for X and 2 for O
+	 */
+	private final int[] cells;
+
+	/**
+	 * Values by position, keyed by the squares in base 3 and the player to move
+	 */
+	private final Map<Long, Integer> values = new HashMap<Long, Integer>();
+
+	/**
+	 * Creates a solver for a board setup of at most 39 squares.
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 */
+	public ReferenceSolver(int width, int height, int winLength) {
+		this.width = width;
+		this.height = height;
+		this.winLength = winLength;
+		this.cells = new int[width * height];
+	}
+
+	/**
+	 * Returns the value of a board for X with perfect play: 1, 0 or -1.
+	 * @param board The board, which has this solver's setup and at most one player with a line
+	 * @return The value
+	 */
+	public int getValue(TicTacToeBoard board) {
+		load(board);
+		return solve(board.getTurn() == TicTacToeBoard.PLAYER_X ? 1 : 2);
+	}
+
+	/**
+	 * Returns the values for X of playing each square of a board that is not
+	 * over, or 2 for squares that are taken.
+	 * @param board The board
+	 * @return The value of each move
+	 */
+	public int[] getMoveValues(TicTacToeBoard board) {
+		int[] moveValues = new int[cells.length];
+		for (int square = 0; square < cells.length; square++) {
+			if (board.isEmpty(square)) {
+				board.makeMove(square);
+				moveValues[square] = getValue(board);
+				board.unmakeMove(square);
+			} else {
+				moveValues[square] = 2;
+			}
+		}
+		return moveValues;
+	}
+
+	/**
+	 * Returns true if a player has winLength in a row anywhere on the board.
+	 * @param board The board
+	 * @param player PLAYER_X or PLAYER_O
+	 * @return True if the player has a line
+	 */
+	public boolean hasLine(TicTacToeBoard board, int player) {
+		load(board);
+		return hasLine(player == TicTacToeBoard.PLAYER_X ? 1 : 2);
+	}
+
+	/**
+	 * Copies a board's squares into cells.
+	 */
+	private void load(TicTacToeBoard board) {
+		for (int square = 0; square < cells.length; square++) {
+			String symbol = board.getState(square / width, square % width);
+			cells[square] = symbol.equals(TicTacToeBoard.X) ? 1 : symbol.equals(TicTacToeBoard.O) ? 2 : 0;
+		}
+	}
+
+	/**
+	 * Solves the position in cells.
+	 */
+	private int solve(int turn) {
+		if (hasLine(1)) {
+			return 1;
+		}
+		if (hasLine(2)) {
+			return -1;
+		}
+		long key = turn;
+		boolean full = true;
+		for (int cell : cells) {
+			key = key * 3 + cell;
+			if (cell == 0) {
+				full = false;
+			}
+		}
+		if (full) {
+			return 0;
+		}
+		Integer known = values.get(key);
+		if (known != null) {
+			return known;
+		}
+
+		int best = (turn == 1) ? -2 : 2;
+		for (int square = 0; square < cells.length; square++) {
+			if (cells[square] == 0) {
+				cells[square] = turn;
+				int value = solve(3 - turn);
+				cells[square] = 0;
+				best = (turn == 1) ? Math.max(best, value) : Math.min(best, value);
+			}
+		}
+		values.put(key, best);
+		return best;
+	}
+
+	/**
+	 * Returns true if a player (1 or 2) has a line in cells.
+	 */
+	private boolean hasLine(int player) {
+		int[][] directions = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				for (int[] direction : directions) {
+					int count = 0;
+					int r = row;
+					int c = col;
+					while (count < winLength && r >= 0 && r < height && c >= 0 && c < width
+							&& cells[r * width + c] == player) {
+						count++;
+						r += direction[0];
+						c += direction[1];
+					}
+					if (count == winLength) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+}
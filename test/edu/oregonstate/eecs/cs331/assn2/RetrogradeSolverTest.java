@@ -0,0 +1,180 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the retrograde solver against the reference solver: the value of
+ * every position, finished ones included, the distance to the end as the
+ * fastest win or slowest loss over the moves, the same entries whatever the
+ * number of threads, and the file it writes.
+ *
+ */
+public class RetrogradeSolverTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("RetrogradeSolverTest passed");
+	}
+
+	public static void run() throws Exception {
+		testRandomPositions(3, 3, 3, 2000);
+		testRandomPositions(4, 3, 3, 1000);
+		testRandomPositions(3, 4, 3, 1000);
+		testRandomPositions(5, 2, 3, 500);
+		testFinishedPositions();
+		testThreads();
+		testErrors();
+		testWrite();
+	}
+
+	/**
+	 * Positions from random games, finished ones included
+	 */
+	private static void testRandomPositions(int width, int height, int winLength, int numPositions) throws Exception {
+		RetrogradeSolver solver = new RetrogradeSolver(width, height, winLength, 2);
+		solver.solve();
+		long legal = 0;
+		for (byte entry : solver.getEntries()) {
+			if (entry != RetrogradeSolver.ILLEGAL) {
+				legal++;
+			}
+		}
+		TestSupport.checkEquals(legal, solver.getXWins() + solver.getDraws() + solver.getOWins(), "legal boards counted");
+
+		Random rand = new Random(width * 100 + height * 10 + winLength);
+		ReferenceSolver reference = new ReferenceSolver(width, height, winLength);
+		for (int i = 0; i < numPositions; i++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, width, height, winLength, rand.nextInt(width * height + 1));
+			String name = " on " + width + "x" + height + " k" + winLength + " with " + board.getNumEmptySquares()
+					+ " empty squares";
+			TestSupport.checkEquals(reference.getValue(board), solver.getValue(board), "value" + name);
+			byte entry = solver.getEntries()[solver.getIndex(board)];
+			if (board.isGameOver()) {
+				TestSupport.checkEquals(0, RetrogradeSolver.getDistance(entry), "distance" + name);
+				continue;
+			}
+
+			//The winner takes the fastest win, anyone else plays on as long as they can
+			int value = RetrogradeSolver.getValue(entry);
+			int win = (board.getTurn() == TicTacToeBoard.PLAYER_X) ? 1 : -1;
+			int bestDistance = -1;
+			for (int square = 0; square < width * height; square++) {
+				if (!board.isEmpty(square)) {
+					continue;
+				}
+				board.makeMove(square);
+				byte child = solver.getEntries()[solver.getIndex(board)];
+				board.unmakeMove(square);
+				if (RetrogradeSolver.getValue(child) != value) {
+					continue;
+				}
+				int distance = RetrogradeSolver.getDistance(child);
+				if (bestDistance < 0 || ((value == win) ? (distance < bestDistance) : (distance > bestDistance))) {
+					bestDistance = distance;
+				}
+			}
+			TestSupport.checkEquals(bestDistance + 1, RetrogradeSolver.getDistance(entry), "distance" + name);
+		}
+	}
+
+	/**
+	 * A finished game keeps its result with no moves left, whether the line
+	 * runs through the last move or not
+	 */
+	private static void testFinishedPositions() throws Exception {
+		RetrogradeSolver solver = new RetrogradeSolver(3, 3, 3, 1);
+		solver.solve();
+		String[] positions = { "XXXOO____", "OOOXX_XX_", "XOXXOOOXX", "XO_XO_X__" };
+		int[] values = { 1, -1, 0, 1 };
+		for (int i = 0; i < positions.length; i++) {
+			TicTacToeBoard board = TestSupport.board(positions[i], 3, 3, 3);
+			TestSupport.checkEquals(values[i], solver.getValue(board), "value of " + positions[i]);
+			TestSupport.checkEquals(0, RetrogradeSolver.getDistance(solver.getEntries()[solver.getIndex(board)]),
+					"distance of " + positions[i]);
+		}
+
+		//The empty board is a draw that plays on until the board is full
+		byte empty = solver.getEntries()[0];
+		TestSupport.checkEquals(0, RetrogradeSolver.getValue(empty), "empty board value");
+		TestSupport.checkEquals(9, RetrogradeSolver.getDistance(empty), "empty board distance");
+	}
+
+	/**
+	 * Splitting the levels across threads gives the same entries as one thread
+	 */
+	private static void testThreads() throws Exception {
+		RetrogradeSolver one = new RetrogradeSolver(4, 3, 3, 1);
+		one.solve();
+		RetrogradeSolver three = new RetrogradeSolver(4, 3, 3, 3);
+		three.solve();
+		TestSupport.check(Arrays.equals(one.getEntries(), three.getEntries()), "same entries with 1 and 3 threads");
+		TestSupport.checkEquals(one.getXWins(), three.getXWins(), "X wins");
+		TestSupport.checkEquals(one.getDraws(), three.getDraws(), "draws");
+		TestSupport.checkEquals(one.getOWins(), three.getOWins(), "O wins");
+	}
+
+	/**
+	 * Boards that are too big, of another size, unsolved or not legal are refused
+	 */
+	private static void testErrors() throws Exception {
+		try {
+			new RetrogradeSolver(5, 4, 4, 1);
+			throw new Exception("no exception for 20 squares");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("Boards of more than"), "too big: " + e.getMessage());
+		}
+
+		RetrogradeSolver solver = new RetrogradeSolver(3, 3, 3, 1);
+		try {
+			solver.getValue(new TicTacToeBoard(3, 3, 3));
+			throw new Exception("no exception before solving");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().equals("The solver has not been run"), "not solved: " + e.getMessage());
+		}
+		solver.solve();
+		try {
+			solver.getValue(TestSupport.board("XX_______", 3, 3, 3));
+			throw new Exception("no exception for two Xs and no O");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().equals("The board is not a legal position"), "legal position: " + e.getMessage());
+		}
+		try {
+			solver.getValue(new TicTacToeBoard(3, 3, 2));
+			throw new Exception("no exception for another win length");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("The board is not 3x3"), "other size: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The file holds the header and then every entry
+	 */
+	private static void testWrite() throws Exception {
+		RetrogradeSolver solver = new RetrogradeSolver(3, 3, 3, 1);
+		solver.solve();
+		File file = File.createTempFile("retrograde", ".bin");
+		try {
+			solver.write(file.getPath());
+			TestSupport.checkEquals(RetrogradeSolver.HEADER_SIZE + solver.getEntries().length, file.length(), "file size");
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try {
+				TestSupport.checkEquals(RetrogradeSolver.MAGIC, in.readInt(), "magic");
+				TestSupport.checkEquals(3, in.readByte(), "width");
+				TestSupport.checkEquals(3, in.readByte(), "height");
+				TestSupport.checkEquals(3, in.readByte(), "win length");
+				TestSupport.checkEquals(0, in.readByte(), "padding");
+				byte[] entries = new byte[solver.getEntries().length];
+				in.readFully(entries);
+				TestSupport.check(Arrays.equals(solver.getEntries(), entries), "entries");
+			} finally {
+				in.close();
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
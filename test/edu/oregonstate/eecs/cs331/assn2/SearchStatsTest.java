@@ -0,0 +1,132 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+/**
+ * Tests SearchStats and the instrumented players: adding, copying and
+ * resetting counts, and that every player's total is the sum of its moves,
+ * that the stats it hands out are copies, and that a finished position
+ * counts no work.
+ *
+ */
+public class SearchStatsTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("SearchStatsTest passed");
+	}
+
+	public static void run() throws Exception {
+		testCounts();
+		ParallelMiniMax parallel = new ParallelMiniMax(2, 6);
+		LazySMP lazySMP = new LazySMP(2, 1000);
+		MCTSPlayer mcts = new MCTSPlayer(2, 0, 500);
+		try {
+			Player[] players = { new MiniMax(), new AlphaBeta(), new IterativeDeepening(1000), lazySMP, mcts, parallel };
+			for (Player player : players) {
+				testPlayer(player);
+			}
+		} finally {
+			parallel.close();
+			lazySMP.close();
+			mcts.close();
+		}
+	}
+
+	/**
+	 * Adding sums every count but the max depth, which becomes the larger one
+	 */
+	private static void testCounts() throws Exception {
+		SearchStats a = numbered(1);
+		SearchStats b = numbered(100);
+		b.maxDepth = 3;
+		SearchStats sum = new SearchStats(a);
+		sum.add(b);
+		checkSum(a, b, sum, "add");
+		TestSupport.checkEquals(9, sum.getMaxDepth(), "larger max depth");
+		TestSupport.checkEquals(1, a.getNodes(), "copy is not shared with its source");
+
+		SearchStats copy = new SearchStats(sum);
+		sum.reset();
+		checkEquals(new SearchStats(), sum, "reset");
+		TestSupport.checkEquals(101, copy.getNodes(), "copy is not reset");
+		TestSupport.check(sum.getNodesPerSecond() == 0, "no rate without time");
+
+		SearchStats visits = new SearchStats();
+		visits.visit(0);
+		visits.visit(4);
+		visits.visit(2);
+		TestSupport.checkEquals(3, visits.getNodes(), "visits counted");
+		TestSupport.checkEquals(4, visits.getMaxDepth(), "deepest visit");
+		visits.elapsedNanos = 1500000000L;
+		TestSupport.check(visits.getNodesPerSecond() == 2, "nodes per second: " + visits.getNodesPerSecond());
+	}
+
+	/**
+	 * Plays a 3x3 game with a player, then asks it for a move on the finished board
+	 */
+	private static void testPlayer(Player player) throws Exception {
+		Instrumented instrumented = (Instrumented) player;
+		String name = player.getClass().getName();
+		SearchStats sum = new SearchStats();
+		SearchStats last = null;
+		TicTacToeBoard board = new TicTacToeBoard(3, 3, 3);
+		while (!board.isGameOver()) {
+			board.makeMove(TestSupport.toSquare(board, player.getNextMove(board)));
+			last = instrumented.getLastMoveStats();
+			TestSupport.check(last.getNodes() + last.getTableHits() > 0, name + " counts the move's search");
+			TestSupport.check(last.getElapsedNanos() > 0, name + " times the move");
+			SearchStats expected = new SearchStats(sum);
+			expected.add(last);
+			checkEquals(expected, instrumented.getTotalStats(), name + " total after " + board.getNumEmptySquares());
+			sum = expected;
+		}
+
+		//Changing the stats handed out does not change the player's
+		instrumented.getLastMoveStats().reset();
+		instrumented.getTotalStats().reset();
+		checkEquals(sum, instrumented.getTotalStats(), name + " total is a copy");
+		checkEquals(last, instrumented.getLastMoveStats(), name + " last move stats are a copy");
+
+		TestSupport.check(player.getNextMove(board) == null, name + " no move when the game is over");
+		last = instrumented.getLastMoveStats();
+		TestSupport.checkEquals(0, last.getNodes(), name + " no nodes when the game is over");
+		TestSupport.checkEquals(0, last.getEvaluations(), name + " no evaluations when the game is over");
+		TestSupport.checkEquals(sum.getNodes(), instrumented.getTotalStats().getNodes(),
+				name + " nothing added to the total when the game is over");
+	}
+
+	/**
+	 * Returns stats with every count different, starting from a number
+	 */
+	private static SearchStats numbered(int first) {
+		SearchStats stats = new SearchStats();
+		stats.nodes = first;
+		stats.evaluations = first + 1;
+		stats.successors = first + 2;
+		stats.cutoffs = first + 3;
+		stats.firstMoveCutoffs = first + 4;
+		stats.researches = first + 5;
+		stats.tableHits = first + 6;
+		stats.tableMisses = first + 7;
+		stats.maxDepth = first + 8;
+		stats.elapsedNanos = first + 9;
+		return stats;
+	}
+
+	private static void checkSum(SearchStats a, SearchStats b, SearchStats sum, String name) throws Exception {
+		TestSupport.checkEquals(a.getNodes() + b.getNodes(), sum.getNodes(), name + " nodes");
+		TestSupport.checkEquals(a.getEvaluations() + b.getEvaluations(), sum.getEvaluations(), name + " evaluations");
+		TestSupport.checkEquals(a.getSuccessors() + b.getSuccessors(), sum.getSuccessors(), name + " successors");
+		TestSupport.checkEquals(a.getCutoffs() + b.getCutoffs(), sum.getCutoffs(), name + " cutoffs");
+		TestSupport.checkEquals(a.getFirstMoveCutoffs() + b.getFirstMoveCutoffs(), sum.getFirstMoveCutoffs(),
+				name + " first move cutoffs");
+		TestSupport.checkEquals(a.getResearches() + b.getResearches(), sum.getResearches(), name + " re-searches");
+		TestSupport.checkEquals(a.getTableHits() + b.getTableHits(), sum.getTableHits(), name + " table hits");
+		TestSupport.checkEquals(a.getTableMisses() + b.getTableMisses(), sum.getTableMisses(), name + " table misses");
+		TestSupport.checkEquals(a.getElapsedNanos() + b.getElapsedNanos(), sum.getElapsedNanos(), name + " elapsed");
+	}
+
+	private static void checkEquals(SearchStats expected, SearchStats actual, String name) throws Exception {
+		checkSum(expected, new SearchStats(), actual, name);
+		TestSupport.checkEquals(expected.getMaxDepth(), actual.getMaxDepth(), name + " max depth");
+	}
+}
@@ -0,0 +1,115 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+
+/**
+ * Tests the perfect-play table and TablePlayer against the reference solver:
+ * the value and first optimal move of every position reachable from the
+ * empty board, no move on finished positions, the table written when its
+ * file is missing, and the positions and files it refuses.
+ *
+ */
+public class TablePlayerTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("TablePlayerTest passed");
+	}
+
+	public static void run() throws Exception {
+		File directory = Files.createTempDirectory("table").toFile();
+		try {
+			File file = new File(directory, TableBuilder.DEFAULT_FILE);
+			TablePlayer player = new TablePlayer(file.getPath());
+			TestSupport.check(file.exists(), "table written when missing");
+			TestSupport.checkEquals(TableBuilder.HEADER_SIZE + TableBuilder.NUM_POSITIONS, file.length(), "file size");
+
+			byte[] entries = TableBuilder.build();
+			int numReachable = checkReachable(player, entries, new ReferenceSolver(3, 3, 3), new TicTacToeBoard());
+			TestSupport.checkEquals(5478, numReachable, "reachable positions");
+			testRefused(player, directory);
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Checks a position and every position reachable from it, each once
+	 * @return The number of positions checked
+	 */
+	private static int checkReachable(TablePlayer player, byte[] entries, ReferenceSolver reference, TicTacToeBoard board)
+			throws Exception {
+		int index = TableBuilder.getIndex(board);
+		if ((entries[index] & TableBuilder.SOLVED) == 0) {
+			throw new Exception("Reachable position not solved: " + index);
+		}
+		//Cleared so each position is checked once, however it was reached
+		entries[index] = 0;
+		String name = " on position " + index;
+		Position move = player.getNextMove(board);
+		if (board.isGameOver()) {
+			TestSupport.check(move == null, "no move when the game is over" + name);
+			return 1;
+		}
+		int value = reference.getValue(board);
+		int[] moveValues = reference.getMoveValues(board);
+		int firstOptimal = 0;
+		while (moveValues[firstOptimal] != value) {
+			firstOptimal++;
+		}
+		TestSupport.check(move != null, "a move" + name);
+		TestSupport.checkEquals(firstOptimal, TestSupport.toSquare(board, move), "first optimal move" + name);
+
+		int numChecked = 1;
+		for (int square = 0; square < 9; square++) {
+			if (board.isEmpty(square)) {
+				board.makeMove(square);
+				if ((entries[TableBuilder.getIndex(board)] & TableBuilder.SOLVED) != 0) {
+					numChecked += checkReachable(player, entries, reference, board);
+				}
+				board.unmakeMove(square);
+			}
+		}
+		return numChecked;
+	}
+
+	/**
+	 * Unreachable positions, other board sizes and files that are not tables are refused
+	 */
+	private static void testRefused(TablePlayer player, File directory) throws Exception {
+		String[] unreachable = { "XX_______", "OO_X_____", "XXXOOO_X_" };
+		for (String position : unreachable) {
+			try {
+				player.getNextMove(TestSupport.board(position, 3, 3, 3));
+				throw new Exception("no exception on " + position);
+			} catch (Exception e) {
+				TestSupport.check(e.getMessage().startsWith("Position is not reachable"), position + ": " + e.getMessage());
+			}
+		}
+		try {
+			player.getNextMove(new TicTacToeBoard(4, 3, 3));
+			throw new Exception("no exception on 4x3");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("The table only covers"), "4x3: " + e.getMessage());
+		}
+
+		File bad = new File(directory, "bad.table");
+		FileOutputStream out = new FileOutputStream(bad);
+		try {
+			out.write(new byte[TableBuilder.HEADER_SIZE + TableBuilder.NUM_POSITIONS]);
+		} finally {
+			out.close();
+		}
+		try {
+			new TablePlayer(bad.getPath());
+			throw new Exception("no exception on a file without the magic number");
+		} catch (Exception e) {
+			TestSupport.check(e.getMessage().startsWith("Invalid table file"), "bad file: " + e.getMessage());
+		}
+	}
+}
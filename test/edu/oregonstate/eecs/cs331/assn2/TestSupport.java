@@ -0,0 +1,145 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Checks shared by the tests. The tests have no framework: each test class
+ * has a run() method that throws on the first failed check, and a main that
+ * calls it. AllTests runs every one of them.
+ *
+ */
+public class TestSupport {
+
+	/**
+	 * Fails a test unless a condition holds.
+	 * @param condition The condition
+	 * @param message What went wrong, if it does not hold
+	 * @throws Exception If the condition does not hold
+	 */
+	public static void check(boolean condition, String message) throws Exception {
+		if (!condition) {
+			throw new Exception(message);
+		}
+	}
+
+	/**
+	 * Fails a test unless two values are equal.
+	 * @param expected The expected value
+	 * @param actual The actual value
+	 * @param message What is being compared
+	 * @throws Exception If the values differ
+	 */
+	public static void checkEquals(long expected, long actual, String message) throws Exception {
+		if (expected != actual) {
+			throw new Exception(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	/**
+	 * Counts the live threads of a name.
+	 * @param name The name of the threads
+	 * @return The number of them that are alive
+	 */
+	public static int countThreads(String name) {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals(name) && thread.isAlive()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Waits for the threads of a name to end, down to a number of them.
+	 * @param name The name of the threads
+	 * @param expected The number of them that may still run
+	 * @throws Exception If more of them still run after ten seconds
+	 */
+	public static void checkThreadsEnd(String name, int expected) throws Exception {
+		long deadline = System.nanoTime() + 10 * 1000000000L;
+		while (true) {
+			int count = countThreads(name);
+			if (count <= expected) {
+				return;
+			}
+			check(System.nanoTime() < deadline, count + " " + name + " threads still run, not " + expected);
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Builds a board from its squares in row-major order, with X, O and _.
+	 * The squares are set with setState, and the player to move follows from
+	 * the number of Xs and Os.
+	 * @param squares The squares
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 * @return The board
+	 * @throws Exception If a square is not X, O or _
+	 */
+	public static TicTacToeBoard board(String squares, int width, int height, int winLength) throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard(width, height, winLength);
+		int xs = 0;
+		int os = 0;
+		for (int square = 0; square < width * height; square++) {
+			char c = squares.charAt(square);
+			if (c == 'X') {
+				board.setState(square / width, square % width, TicTacToeBoard.PLAYER_X);
+				xs++;
+			} else if (c == 'O') {
+				board.setState(square / width, square % width, TicTacToeBoard.PLAYER_O);
+				os++;
+			} else if (c != '_') {
+				throw new Exception("Unrecognized square " + c);
+			}
+		}
+		board.setTurn((xs == os) ? TicTacToeBoard.PLAYER_X : TicTacToeBoard.PLAYER_O);
+		return board;
+	}
+
+	/**
+	 * Plays random moves from the empty board with makeMove, stopping when
+	 * the game is over or after a number of moves.
+	 * @param rand The random numbers
+	 * @param width The number of squares in a row
+	 * @param height The number of squares in a column
+	 * @param winLength The number of Xs or Os in a row needed to win
+	 * @param maxMoves The most moves to play
+	 * @return The board
+	 * @throws Exception If the board cannot tell whether the game is over
+	 */
+	public static TicTacToeBoard randomGame(Random rand, int width, int height, int winLength, int maxMoves) throws Exception {
+		TicTacToeBoard board = new TicTacToeBoard(width, height, winLength);
+		for (int move = 0; move < maxMoves && !board.isGameOver(); move++) {
+			board.makeMove(randomEmptySquare(rand, board));
+		}
+		return board;
+	}
+
+	/**
+	 * Returns a random empty square of a board that is not full.
+	 * @param rand The random numbers
+	 * @param board The board
+	 * @return The square index (row * width + col)
+	 */
+	public static int randomEmptySquare(Random rand, TicTacToeBoard board) {
+		int numSquares = board.getWidth() * board.getHeight();
+		int square;
+		do {
+			square = rand.nextInt(numSquares);
+		} while (!board.isEmpty(square));
+		return square;
+	}
+
+	/**
+	 * Returns a move as a square index.
+	 * @param board The board the move is on
+	 * @param move The move
+	 * @return The square index (row * width + col)
+	 */
+	public static int toSquare(TicTacToeBoard board, Position move) {
+		return move.row * board.getWidth() + move.col;
+	}
+}
@@ -0,0 +1,205 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.Random;
+
+/**
+ * Tests the m,n,k board: wins found after setState in any order, with or
+ * without overwriting squares, and after makeMove, makeMove and unmakeMove restoring everything they change, and
+ * Zobrist hashes that differ between board setups.
+ *
+ */
+public class TicTacToeBoardTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("TicTacToeBoardTest passed");
+	}
+
+	public static void run() throws Exception {
+		testWinsSetInAnyOrder();
+		testBothLines();
+		testMakeAndUnmakeMatchReference();
+		testSetStateBetweenMoves();
+		testSetStateMatchesReference();
+		testHashesDependOnSetup();
+	}
+
+	/**
+	 * A line that does not run through the last square set is still a win
+	 */
+	private static void testWinsSetInAnyOrder() throws Exception {
+		TicTacToeBoard board = TestSupport.board("XXXOO____", 3, 3, 3);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "X's row set before O's squares");
+		TestSupport.check(board.isGameOver(), "game over after X's row");
+
+		board = TestSupport.board("XXXXOOO_________", 4, 4, 4);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "4x4: X's row set first");
+		TestSupport.check(!board.isWin(TicTacToeBoard.PLAYER_O), "4x4: O has no line");
+
+		board = TestSupport.board("OOOO_XXX_X______", 4, 4, 4);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_O), "4x4: O's row set first");
+		TestSupport.check(board.isGameOver(), "4x4: game over after O's row");
+
+		board = TestSupport.board("XO_XO_X__", 3, 3, 3);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "column");
+		board = TestSupport.board("X_O_XO__X", 3, 3, 3);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "diagonal");
+		board = TestSupport.board("XOXXOO_X_", 3, 3, 3);
+		TestSupport.check(!board.isWin() && !board.isGameOver(), "no line");
+
+		//Squares set in reverse order, so the line's squares all come before the last one
+		board = new TicTacToeBoard(5, 4, 3);
+		board.setState(3, 4, TicTacToeBoard.PLAYER_O);
+		board.setState(2, 2, TicTacToeBoard.PLAYER_X);
+		board.setState(1, 1, TicTacToeBoard.PLAYER_X);
+		board.setState(0, 0, TicTacToeBoard.PLAYER_X);
+		board.setState(3, 0, TicTacToeBoard.PLAYER_O);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "5x4: diagonal set before O's squares");
+	}
+
+	/**
+	 * hasLine looks at the whole board, so it sees both players' lines
+	 */
+	private static void testBothLines() throws Exception {
+		TicTacToeBoard board = TestSupport.board("XXXOOO___", 3, 3, 3);
+		TestSupport.check(board.hasLine(TicTacToeBoard.PLAYER_X), "X's line");
+		TestSupport.check(board.hasLine(TicTacToeBoard.PLAYER_O), "O's line");
+		BitBoard bitBoard = new BitBoard(board);
+		TestSupport.check(bitBoard.hasLine(TicTacToeBoard.PLAYER_X) && bitBoard.hasLine(TicTacToeBoard.PLAYER_O),
+				"BitBoard sees both lines");
+		board = TestSupport.board("XX_OO____", 3, 3, 3);
+		TestSupport.check(!board.hasLine(TicTacToeBoard.PLAYER_X) && !board.hasLine(TicTacToeBoard.PLAYER_O),
+				"no lines");
+	}
+
+	/**
+	 * Random games played and taken back with makeMove and unmakeMove agree
+	 * with a full-board check at every step
+	 */
+	private static void testMakeAndUnmakeMatchReference() throws Exception {
+		Random rand = new Random(7);
+		int[][] setups = { {3, 3, 3}, {4, 3, 3}, {3, 4, 3}, {4, 4, 4}, {5, 5, 4}, {7, 6, 4} };
+		for (int[] setup : setups) {
+			ReferenceSolver reference = new ReferenceSolver(setup[0], setup[1], setup[2]);
+			for (int game = 0; game < 200; game++) {
+				TicTacToeBoard board = new TicTacToeBoard(setup[0], setup[1], setup[2]);
+				int numSquares = setup[0] * setup[1];
+				int[] moves = new int[numSquares];
+				long[] hashes = new long[numSquares + 1];
+				int[] previous = new int[numSquares + 1];
+				int numMoves = 0;
+				hashes[0] = board.getHash();
+				previous[0] = -1;
+				while (!board.isGameOver()) {
+					int square = TestSupport.randomEmptySquare(rand, board);
+					board.makeMove(square);
+					moves[numMoves++] = square;
+					hashes[numMoves] = board.getHash();
+					previous[numMoves] = square;
+					checkWinner(board, reference, "after makeMove");
+				}
+				TicTacToeBoard copy = (TicTacToeBoard) board.clone();
+				TestSupport.check(copy.isGameOver() && copy.isWin() == board.isWin(), "clone keeps the winner");
+				while (numMoves > 0) {
+					board.unmakeMove(moves[--numMoves]);
+					TestSupport.checkEquals(hashes[numMoves], board.getHash(), "hash after unmakeMove");
+					Position p = board.getPreviousMove();
+					TestSupport.checkEquals(previous[numMoves], p.row < 0 ? -1 : p.row * setup[0] + p.col,
+							"previous move after unmakeMove");
+					TestSupport.checkEquals(numSquares - numMoves, board.getNumEmptySquares(), "empty squares");
+					checkWinner(board, reference, "after unmakeMove");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves played on a board that was set up with setState
+	 */
+	private static void testSetStateBetweenMoves() throws Exception {
+		TicTacToeBoard board = TestSupport.board("XX_OO____", 3, 3, 3);
+		board.makeMove(2);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "move completes X's row");
+		board.unmakeMove(2);
+		TestSupport.check(!board.isGameOver(), "row taken back");
+
+		board = TestSupport.board("XXXOO____", 3, 3, 3);
+		board.setState(2, 2, TicTacToeBoard.PLAYER_O);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X), "X's row kept after another setState");
+	}
+
+	/**
+	 * Squares set with setState in random order, sometimes overwriting one,
+	 * agree with a full-board check whether or not the winner is asked for
+	 * between them
+	 */
+	private static void testSetStateMatchesReference() throws Exception {
+		Random rand = new Random(11);
+		int[][] setups = { {3, 3, 3}, {4, 4, 3}, {5, 4, 4}, {7, 6, 4} };
+		for (int[] setup : setups) {
+			ReferenceSolver reference = new ReferenceSolver(setup[0], setup[1], setup[2]);
+			int numSquares = setup[0] * setup[1];
+			for (int game = 0; game < 200; game++) {
+				TicTacToeBoard board = new TicTacToeBoard(setup[0], setup[1], setup[2]);
+				for (int step = 0; step < numSquares; step++) {
+					int square = (rand.nextInt(8) == 0) ? rand.nextInt(numSquares)
+							: TestSupport.randomEmptySquare(rand, board);
+					board.setState(square / setup[0], square % setup[0], rand.nextInt(2));
+					if (rand.nextBoolean()) {
+						checkSetStateWinner(board, reference, "after setState");
+					}
+				}
+				checkSetStateWinner(board, reference, "after the last setState");
+			}
+		}
+	}
+
+	/**
+	 * Boards with the same number of squares but a different setup do not share hashes
+	 */
+	private static void testHashesDependOnSetup() throws Exception {
+		TicTacToeBoard a = new TicTacToeBoard(4, 3, 3);
+		TicTacToeBoard b = new TicTacToeBoard(3, 4, 3);
+		TicTacToeBoard c = new TicTacToeBoard(4, 3, 4);
+		for (int square : new int[] { 0, 5, 7 }) {
+			a.makeMove(square);
+			b.makeMove(square);
+			c.makeMove(square);
+		}
+		TestSupport.check(a.getHash() != b.getHash(), "4x3 and 3x4 hashes differ");
+		TestSupport.check(a.getHash() != c.getHash(), "win length 3 and 4 hashes differ");
+
+		TicTacToeBoard d = new TicTacToeBoard(4, 3, 3);
+		d.setState(1, 3, TicTacToeBoard.PLAYER_X);
+		d.setState(0, 0, TicTacToeBoard.PLAYER_X);
+		d.setState(1, 1, TicTacToeBoard.PLAYER_O);
+		d.setTurn(TicTacToeBoard.PLAYER_O);
+		TestSupport.checkEquals(a.getHash(), d.getHash(), "same position, same hash");
+
+		TicTacToeBoard board = TestSupport.board("XO__X_O__", 3, 3, 3);
+		TestSupport.checkEquals(board.getHash(), new BitBoard(board).getHash(), "BitBoard hash");
+	}
+
+	/**
+	 * Compares the board's winner with a full-board check
+	 */
+	private static void checkWinner(TicTacToeBoard board, ReferenceSolver reference, String when) throws Exception {
+		boolean x = reference.hasLine(board, TicTacToeBoard.PLAYER_X);
+		boolean o = reference.hasLine(board, TicTacToeBoard.PLAYER_O);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X) == x, "X's win " + when);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_O) == o, "O's win " + when);
+		TestSupport.check(board.isGameOver() == (x || o || board.getNumEmptySquares() == 0), "game over " + when);
+	}
+
+	/**
+	 * Compares the board's winner with a full-board check on a board set up
+	 * with setState, where both players can have a line and X is reported
+	 */
+	private static void checkSetStateWinner(TicTacToeBoard board, ReferenceSolver reference, String when) throws Exception {
+		boolean x = reference.hasLine(board, TicTacToeBoard.PLAYER_X);
+		boolean o = reference.hasLine(board, TicTacToeBoard.PLAYER_O);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_X) == x, "X's win " + when);
+		TestSupport.check(board.isWin(TicTacToeBoard.PLAYER_O) == (o && !x), "O's win " + when);
+		TestSupport.check(board.isGameOver() == (x || o || board.getNumEmptySquares() == 0), "game over " + when);
+	}
+}
@@ -0,0 +1,134 @@
+package edu.oregonstate.eecs.cs331.assn2;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests the transposition table and the Zobrist keys: entries found only by
+ * their own full hash, replaced in their slot, and cleared; keys shared by
+ * every board of a setup and all different; and a hash kept up to date by
+ * makeMove, unmakeMove, setState and setTurn that matches one worked out
+ * from the squares.
+ *
+ */
+public class TranspositionTableTest {
+
+	public static void main(String[] args) throws Exception {
+		run();
+		System.out.println("TranspositionTableTest passed");
+	}
+
+	public static void run() throws Exception {
+		testStoreAndFind();
+		testReplaceAndClear();
+		testKeys();
+		testIncrementalHash();
+	}
+
+	/**
+	 * Every field of an entry comes back, and only for its own hash
+	 */
+	private static void testStoreAndFind() throws Exception {
+		TranspositionTable table = new TranspositionTable(4);
+		TestSupport.checkEquals(-1, table.find(12345L), "empty table");
+
+		table.store(0x1234567890ABCDEFL, -7, TranspositionTable.UPPER_BOUND, TranspositionTable.NO_MOVE);
+		int slot = table.find(0x1234567890ABCDEFL);
+		TestSupport.check(slot >= 0, "stored entry found");
+		TestSupport.checkEquals(-7, table.getValue(slot), "value");
+		TestSupport.checkEquals(TranspositionTable.UPPER_BOUND, table.getBound(slot), "bound");
+		TestSupport.checkEquals(TranspositionTable.NO_MOVE, table.getBestMove(slot), "no move");
+
+		table.store(42L, 1, TranspositionTable.EXACT, 399);
+		TestSupport.checkEquals(399, table.getBestMove(table.find(42L)), "move on a 20x20 board");
+
+		//The same slot but a different hash is a miss, not the stored entry
+		TestSupport.checkEquals(-1, table.find(42L + (1L << 40)), "other hash in the same slot");
+	}
+
+	/**
+	 * A newer entry replaces the one in its slot, and clear empties every slot
+	 */
+	private static void testReplaceAndClear() throws Exception {
+		TranspositionTable table = new TranspositionTable(4);
+		long first = 3L;
+		long second = 3L + (1L << 36);
+		table.store(first, 1, TranspositionTable.LOWER_BOUND, 2);
+		table.store(second, -1, TranspositionTable.EXACT, 5);
+		TestSupport.checkEquals(-1, table.find(first), "replaced entry gone");
+		TestSupport.checkEquals(-1, table.getValue(table.find(second)), "newer entry kept");
+
+		for (long key = 0; key < 16; key++) {
+			table.store(key, 0, TranspositionTable.EXACT, 0);
+		}
+		table.clear();
+		for (long key = 0; key < 16; key++) {
+			TestSupport.checkEquals(-1, table.find(key), "cleared slot " + key);
+		}
+		TestSupport.checkEquals(-1, table.find(second), "cleared entry");
+	}
+
+	/**
+	 * Boards of one setup share their keys, and no two keys of a setup are the same
+	 */
+	private static void testKeys() throws Exception {
+		TestSupport.check(Zobrist.forBoard(7, 6, 4) == Zobrist.forBoard(7, 6, 4), "keys shared by a setup");
+		TestSupport.check(Zobrist.forBoard(7, 6, 4) != Zobrist.forBoard(6, 7, 4), "keys of another setup");
+
+		Zobrist keys = Zobrist.forBoard(15, 15, 5);
+		Set<Long> seen = new HashSet<Long>();
+		seen.add(keys.getTurnKey());
+		for (int square = 0; square < 15 * 15; square++) {
+			TestSupport.check(seen.add(keys.getKey(square, TicTacToeBoard.PLAYER_X)), "X key " + square + " unique");
+			TestSupport.check(seen.add(keys.getKey(square, TicTacToeBoard.PLAYER_O)), "O key " + square + " unique");
+		}
+		TestSupport.checkEquals(new Zobrist(15, 15, 5).getKey(17, TicTacToeBoard.PLAYER_O),
+				keys.getKey(17, TicTacToeBoard.PLAYER_O), "the same keys on every run");
+	}
+
+	/**
+	 * The hash after any mix of changes is the XOR of the keys of the squares,
+	 * and the turn key when O is to move
+	 */
+	private static void testIncrementalHash() throws Exception {
+		Random rand = new Random(3);
+		for (int game = 0; game < 200; game++) {
+			TicTacToeBoard board = TestSupport.randomGame(rand, 5, 4, 4, rand.nextInt(21));
+			TestSupport.checkEquals(getHash(board), board.getHash(), "after makeMove");
+
+			int square = rand.nextInt(20);
+			int player = rand.nextInt(2);
+			board.setState(square / 5, square % 5, player);
+			TestSupport.checkEquals(getHash(board), board.getHash(), "after setState over any square");
+			board.setTurn(1 - board.getTurn());
+			TestSupport.checkEquals(getHash(board), board.getHash(), "after setTurn");
+			board.setTurn(board.getTurn());
+			TestSupport.checkEquals(getHash(board), board.getHash(), "after setTurn to the same player");
+
+			if (!board.isGameOver()) {
+				int move = TestSupport.randomEmptySquare(rand, board);
+				long hash = board.getHash();
+				board.makeMove(move);
+				TestSupport.checkEquals(getHash(board), board.getHash(), "after makeMove following setState");
+				board.unmakeMove(move);
+				TestSupport.checkEquals(hash, board.getHash(), "after unmakeMove");
+			}
+		}
+	}
+
+	/**
+	 * Works a board's hash out from its squares and turn
+	 */
+	private static long getHash(TicTacToeBoard board) throws Exception {
+		Zobrist keys = Zobrist.forBoard(board.getWidth(), board.getHeight(), board.getWinLength());
+		long hash = (board.getTurn() == TicTacToeBoard.PLAYER_O) ? keys.getTurnKey() : 0;
+		for (int square = 0; square < board.getWidth() * board.getHeight(); square++) {
+			int player = board.getPlayerIndexOfSquare(square / board.getWidth(), square % board.getWidth());
+			if (player != TicTacToeBoard.PLAYER_NONE) {
+				hash ^= keys.getKey(square, player);
+			}
+		}
+		return hash;
+	}
+}